@@ -1,10 +1,14 @@
 package cz.metacentrum.perun.exporter;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.sql.DataSource;
 
@@ -19,28 +23,53 @@ import org.apache.commons.cli.ParseException;
 import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.core.impl.AuditerConsumer;
+import cz.metacentrum.perun.exporter.output.ExporterOutput;
+import cz.metacentrum.perun.exporter.output.FileOutput;
+import cz.metacentrum.perun.exporter.output.MessageFraming;
+import cz.metacentrum.perun.exporter.output.StdoutOutput;
+import cz.metacentrum.perun.exporter.output.TcpOutput;
+import cz.metacentrum.perun.exporter.output.UdpOutput;
 
 /**
  * Exporter which gets all the auditer messages and export them to defined output
  *
+ * Messages are read from DB by reader thread into the bounded buffer, when the buffer is full,
+ * reading waits until output catches up. Main thread takes messages from the buffer in batches,
+ * writes them to the output and stores ID of the last written message as the position of the consumer.
+ * When output fails, it is reopened and the batch is written again, so messages are delivered
+ * at least once, also after restart of the exporter.
+ *
  * Author: Michal Prochazka <michalp@ics.muni.cz>
  */
 public class ExporterStarter
 {
+	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+	private static final int DEFAULT_BUFFER_SIZE = 10000;
+	private static final long DEFAULT_ROTATE_SIZE = 100 * 1024 * 1024;
+	private static final int DEFAULT_ROTATE_COUNT = 10;
+	// wait time when there are no new messages
+	private static final long POLL_INTERVAL = 1000;
+	private static final long MAX_RETRY_INTERVAL = 60000;
+
 	private DataSource dataSource;
 	private AbstractApplicationContext springCtx;
 
-	private boolean running;
-	private OutputType outputType;
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+	private volatile boolean running;
+	private final ExporterOutput output;
+	private final int batchSize;
+	private final BlockingQueue<Pair<String, Integer>> buffer;
 
-	public ExporterStarter(OutputType outputType) {
+	public ExporterStarter(ExporterOutput output, int batchSize, int bufferSize) {
 		springCtx = new ClassPathXmlApplicationContext("/perun-auditer-exporter.xml");
 		this.dataSource = springCtx.getBean("dataSource", org.apache.tomcat.dbcp.dbcp.BasicDataSource.class);
 
-		this.outputType = outputType;
+		this.output = output;
+		this.batchSize = batchSize;
+		this.buffer = new ArrayBlockingQueue<Pair<String, Integer>>(Math.max(bufferSize, batchSize));
 	}
 
 	public static void main( String[] args )
@@ -50,9 +79,15 @@ public class ExporterStarter
 		options.addOption("id", true, "exporter ID");
 		OptionGroup outputOptions = new OptionGroup();
 		outputOptions.addOption(new Option("stdout", "Print audit log messages to the stdout"));
-		outputOptions.addOption(new Option("tcp", "sends audit log messages to the host:port over TCP"));
-		outputOptions.addOption(new Option("udp", "sends audit log messages to the host:port over UDP"));
+		outputOptions.addOption(new Option("tcp", true, "sends audit log messages to the host:port over TCP"));
+		outputOptions.addOption(new Option("udp", true, "sends audit log messages to the host:port over UDP, one message per datagram"));
+		outputOptions.addOption(new Option("file", true, "appends audit log messages to the file"));
 		options.addOptionGroup(outputOptions);
+		options.addOption("framing", true, "separation of messages in stdout, tcp and file output: newline (default) or length (4 bytes big-endian length prefix)");
+		options.addOption("batch", true, "max number of messages written at once (default " + DEFAULT_BATCH_SIZE + ")");
+		options.addOption("buffer", true, "max number of messages read ahead of the output (default " + DEFAULT_BUFFER_SIZE + ")");
+		options.addOption("rotateSize", true, "size of the file in bytes, when it is rotated, 0 disables rotation (default " + DEFAULT_ROTATE_SIZE + ")");
+		options.addOption("rotateCount", true, "number of kept rotated files (default " + DEFAULT_ROTATE_COUNT + ")");
 
 		CommandLineParser parser = new BasicParser();
 		CommandLine cmd;
@@ -65,16 +100,34 @@ public class ExporterStarter
 				System.exit(1);
 			}
 
-			OutputType outputType = cmd.hasOption("stdout") ? OutputType.STDOUT :
-				cmd.hasOption("tcp") ? OutputType.TCP :
-				cmd.hasOption("udp") ? OutputType.UDP :
-				OutputType.STDOUT;
+			MessageFraming framing = MessageFraming.valueOf(cmd.getOptionValue("framing", "newline").toUpperCase());
+			ExporterOutput output;
+			if (cmd.hasOption("tcp")) {
+				String[] address = parseAddress(cmd.getOptionValue("tcp"));
+				output = new TcpOutput(address[0], Integer.parseInt(address[1]), framing);
+			} else if (cmd.hasOption("udp")) {
+				String[] address = parseAddress(cmd.getOptionValue("udp"));
+				output = new UdpOutput(address[0], Integer.parseInt(address[1]));
+			} else if (cmd.hasOption("file")) {
+				output = new FileOutput(new File(cmd.getOptionValue("file")), framing,
+						Long.parseLong(cmd.getOptionValue("rotateSize", String.valueOf(DEFAULT_ROTATE_SIZE))),
+						Integer.parseInt(cmd.getOptionValue("rotateCount", String.valueOf(DEFAULT_ROTATE_COUNT))));
+			} else {
+				output = new StdoutOutput(framing);
+			}
 
-			ExporterStarter exporter = new ExporterStarter(outputType);
+			ExporterStarter exporter = new ExporterStarter(output,
+					Integer.parseInt(cmd.getOptionValue("batch", String.valueOf(DEFAULT_BATCH_SIZE))),
+					Integer.parseInt(cmd.getOptionValue("buffer", String.valueOf(DEFAULT_BUFFER_SIZE))));
 			exporter.run(exporterId);
 		} catch (ParseException e) {
 			help(options);
 			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			// also NumberFormatException
+			System.err.println("Wrong value of option: " + e.getMessage());
+			help(options);
+			System.exit(1);
 		}
 	}
 
@@ -83,22 +136,17 @@ public class ExporterStarter
 		formatter.printHelp( "Perun Auditer Exporter", options );
 	}
 
-	protected void output(String message) {
-		switch (this.outputType) {
-			case STDOUT:
-				System.out.println(message);
-				break;
-			case TCP:
-				System.err.println("Not implemented yet.");
-			case UDP:
-				System.err.println("Not implemented yet.");
-				break;
+	private static String[] parseAddress(String address) {
+		int colon = address.lastIndexOf(':');
+		if (colon <= 0 || colon == address.length() - 1) {
+			throw new IllegalArgumentException("address must be in form host:port, was " + address);
 		}
+		return new String[] { address.substring(0, colon), address.substring(colon + 1) };
 	}
 
 	public void run(String exporterId) {
 		//Get instance of auditerConsumer and set runnig to true
-		AuditerConsumer auditerConsumer;
+		final AuditerConsumer auditerConsumer;
 		try {
 			auditerConsumer = new AuditerConsumer(exporterId, dataSource);
 			running = true;
@@ -106,38 +154,42 @@ public class ExporterStarter
 			throw new RuntimeException("Cannot initialize AuditerConsumer.", e);
 		}
 
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readMessages(auditerConsumer);
+			}
+		}, "auditer-exporter-reader");
+		reader.setDaemon(true);
+		reader.start();
+
 		try {
+			openOutput();
+			List<Pair<String, Integer>> batch = new ArrayList<Pair<String, Integer>>(batchSize);
+			List<String> messages = new ArrayList<String>(batchSize);
 			//If running is true, then this proccess will be continously
 			while (running) {
-
-				List<String> messages = null;
-				int sleepTime = 1000;
-				//Waiting for new messages. If consumer failed in some internal case, waiting until it will be repaired (waiting time is increases by each attempt)
-				do {
-					try {
-						// Get messages
-						messages = auditerConsumer.getFullMessages();
-					} catch (InternalErrorException ex) {
-						Thread.sleep(sleepTime);
-						sleepTime+=sleepTime;
-					}
-				} while (messages == null);
-
-				// New messages have arrived
-				Iterator<String> messagesIter = messages.iterator();
-				while(messagesIter.hasNext()) {
-					String message = messagesIter.next();
-					messagesIter.remove();
-					output(message);
+				// wait for new messages and take everything available up to the batch size
+				batch.add(buffer.take());
+				buffer.drainTo(batch, batchSize - 1);
+				for (Pair<String, Integer> message : batch) {
+					messages.add(message.getLeft());
 				}
-				//After all messages has been resolved, test interrupting of thread and if its ok, wait and go for another bulk of messages
+				writeMessages(messages);
+				int lastId = batch.get(batch.size() - 1).getRight();
+				try {
+					auditerConsumer.setLastProcessedId(lastId);
+				} catch (InternalErrorException ex) {
+					// next batch will store it
+					System.err.println(DATE_FORMAT.format(new Date()) + " Unable to store ID " + lastId + " of the last exported message: " + ex.toString());
+				}
+				batch.clear();
+				messages.clear();
 				if (Thread.interrupted()) {
 					running = false;
-				} else {
-					Thread.sleep(5000);
 				}
 			}
-			//If ldapc is interrupted
+			//If exporter is interrupted
 		} catch (InterruptedException e) {
 			Date date = new Date();
 			System.err.println("Processing of last message has been interrupted at " + DATE_FORMAT.format(date) + " due to interrupting.");
@@ -147,14 +199,81 @@ public class ExporterStarter
 		} catch (Exception e) {
 			Date date = new Date();
 			System.err.println("Processing of last message has been interrupted at " + DATE_FORMAT.format(date) + " due to exception " + e.toString());
+			running = false;
 			throw new RuntimeException(e);
+		} finally {
+			reader.interrupt();
+			output.close();
 		}
 	}
 
-	public enum OutputType {
-		STDOUT, TCP, UDP;
-	}
-}
+	/**
+	 * Read new messages into the buffer. Reading blocks when the buffer is full.
+	 */
+	private void readMessages(AuditerConsumer auditerConsumer) {
+		int lastReadId = auditerConsumer.getLastProcessedId();
+		try {
+			while (running) {
+				List<Pair<String, Integer>> messages = null;
+				long sleepTime = 1000;
+				//Waiting for new messages. If consumer failed in some internal case, waiting until it will be repaired (waiting time is increases by each attempt)
+				do {
+					try {
+						messages = auditerConsumer.getFullMessagesWithId(lastReadId, batchSize);
+					} catch (InternalErrorException ex) {
+						System.err.println(DATE_FORMAT.format(new Date()) + " Unable to read audit messages: " + ex.toString());
+						Thread.sleep(sleepTime);
+						sleepTime = Math.min(sleepTime * 2, MAX_RETRY_INTERVAL);
+					}
+				} while (messages == null);
 
+				for (Pair<String, Integer> message : messages) {
+					buffer.put(message);
+					lastReadId = message.getRight();
+				}
+				// read again immediately while there is a backlog
+				if (messages.size() < batchSize) {
+					Thread.sleep(POLL_INTERVAL);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
+	/**
+	 * Write messages to the output, reopen it and repeat until it succeeds.
+	 */
+	private void writeMessages(List<String> messages) throws InterruptedException {
+		long sleepTime = 1000;
+		while (true) {
+			try {
+				output.write(messages);
+				return;
+			} catch (IOException e) {
+				System.err.println(DATE_FORMAT.format(new Date()) + " Unable to write " + messages.size() + " messages to " + output + ", they will be sent again: " + e.toString());
+			}
+			output.close();
+			Thread.sleep(sleepTime);
+			sleepTime = Math.min(sleepTime * 2, MAX_RETRY_INTERVAL);
+			openOutput();
+		}
+	}
 
+	/**
+	 * Open the output, retry until it succeeds.
+	 */
+	private void openOutput() throws InterruptedException {
+		long sleepTime = 1000;
+		while (true) {
+			try {
+				output.open();
+				return;
+			} catch (IOException e) {
+				System.err.println(DATE_FORMAT.format(new Date()) + " Unable to open " + output + ": " + e.toString());
+			}
+			Thread.sleep(sleepTime);
+			sleepTime = Math.min(sleepTime * 2, MAX_RETRY_INTERVAL);
+		}
+	}
+}
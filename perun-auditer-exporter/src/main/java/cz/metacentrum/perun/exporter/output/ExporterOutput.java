@@ -0,0 +1,35 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Output of the exporter, where audit messages are written in batches.
+ *
+ * Batch is acknowledged (ID of its last message is stored in DB) only after write() returns,
+ * so output must not return before the messages are handed over (flushed to the socket or file).
+ * When write() fails, the exporter closes the output, opens it again and repeats the same batch.
+ */
+public interface ExporterOutput {
+
+	/**
+	 * Open the output (connect to the remote host, open file, ...).
+	 *
+	 * @throws IOException when output can't be opened
+	 */
+	void open() throws IOException;
+
+	/**
+	 * Write batch of messages and flush them.
+	 *
+	 * @param messages full audit messages in order of their IDs
+	 * @throws IOException when messages can't be written, output has to be reopened
+	 */
+	void write(List<String> messages) throws IOException;
+
+	/**
+	 * Close the output, errors are ignored.
+	 */
+	void close();
+
+}
@@ -0,0 +1,104 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Appends messages to the local file. When the file exceeds its max size, it is rotated:
+ * file is renamed to file.1, file.1 to file.2 and so on, the oldest one is removed.
+ */
+public class FileOutput implements ExporterOutput {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File file;
+	private final MessageFraming framing;
+	private final long maxSize;
+	private final int maxFiles;
+	private OutputStream out;
+	private long size;
+
+	/**
+	 * @param file file to write to
+	 * @param framing framing of messages
+	 * @param maxSize size in bytes, when file is rotated, 0 means no rotation
+	 * @param maxFiles number of kept rotated files
+	 */
+	public FileOutput(File file, MessageFraming framing, long maxSize, int maxFiles) {
+		this.file = file;
+		this.framing = framing;
+		this.maxSize = maxSize;
+		this.maxFiles = maxFiles;
+	}
+
+	@Override
+	public void open() throws IOException {
+		size = file.length();
+		// count written bytes, so rotation doesn't need to flush and stat the file for each message
+		out = new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE) {
+			@Override
+			public synchronized void write(int b) throws IOException {
+				super.write(b);
+				size++;
+			}
+
+			@Override
+			public synchronized void write(byte[] b, int off, int len) throws IOException {
+				super.write(b, off, len);
+				size += len;
+			}
+		};
+	}
+
+	@Override
+	public void write(List<String> messages) throws IOException {
+		if (out == null) throw new IOException("File " + file + " is not open.");
+		for (String message : messages) {
+			if (maxSize > 0 && size >= maxSize) rotate();
+			framing.write(out, message);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		out = null;
+	}
+
+	private void rotate() throws IOException {
+		close();
+		File oldest = rotatedFile(maxFiles);
+		if (oldest.exists() && !oldest.delete()) throw new IOException("Unable to delete " + oldest);
+		for (int i = maxFiles - 1; i >= 1; i--) {
+			File rotated = rotatedFile(i);
+			if (rotated.exists() && !rotated.renameTo(rotatedFile(i + 1))) throw new IOException("Unable to rename " + rotated);
+		}
+		if (maxFiles > 0) {
+			if (!file.renameTo(rotatedFile(1))) throw new IOException("Unable to rename " + file);
+		} else if (!file.delete()) {
+			throw new IOException("Unable to delete " + file);
+		}
+		open();
+	}
+
+	private File rotatedFile(int index) {
+		return new File(file.getPath() + "." + index);
+	}
+
+	@Override
+	public String toString() {
+		return file.getPath();
+	}
+
+}
@@ -0,0 +1,54 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * How messages are separated in stream outputs.
+ */
+public enum MessageFraming {
+
+	/**
+	 * Each message is terminated by new line, line breaks inside of the message are escaped as \n and \r.
+	 */
+	NEWLINE {
+		@Override
+		public void write(OutputStream out, String message) throws IOException {
+			out.write(escapeLineBreaks(message).getBytes(UTF8));
+			out.write('\n');
+		}
+	},
+
+	/**
+	 * Each message is prefixed by its length in bytes (4 bytes, big-endian) and sent as is.
+	 */
+	LENGTH {
+		@Override
+		public void write(OutputStream out, String message) throws IOException {
+			byte[] bytes = message.getBytes(UTF8);
+			out.write(bytes.length >>> 24);
+			out.write(bytes.length >>> 16);
+			out.write(bytes.length >>> 8);
+			out.write(bytes.length);
+			out.write(bytes);
+		}
+	};
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Write framed message to the stream.
+	 *
+	 * @param out stream
+	 * @param message message
+	 * @throws IOException
+	 */
+	public abstract void write(OutputStream out, String message) throws IOException;
+
+	static String escapeLineBreaks(String message) {
+		if (message.indexOf('\n') < 0 && message.indexOf('\r') < 0) return message;
+		return message.replace("\r", "\\r").replace("\n", "\\n");
+	}
+
+}
@@ -0,0 +1,40 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes messages to the standard output.
+ */
+public class StdoutOutput implements ExporterOutput {
+
+	private final MessageFraming framing;
+	private OutputStream out;
+
+	public StdoutOutput(MessageFraming framing) {
+		this.framing = framing;
+	}
+
+	@Override
+	public void open() {
+		out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024);
+	}
+
+	@Override
+	public void write(List<String> messages) throws IOException {
+		for (String message : messages) {
+			framing.write(out, message);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() {
+		// standard output stays open
+	}
+
+}
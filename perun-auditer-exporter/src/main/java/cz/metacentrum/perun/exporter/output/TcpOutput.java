@@ -0,0 +1,76 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Sends messages over persistent TCP connection. Whole batch is written to the buffer
+ * and flushed at once.
+ */
+public class TcpOutput implements ExporterOutput {
+
+	private static final int CONNECT_TIMEOUT = 10000;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String host;
+	private final int port;
+	private final MessageFraming framing;
+	private Socket socket;
+	private OutputStream out;
+
+	public TcpOutput(String host, int port, MessageFraming framing) {
+		this.host = host;
+		this.port = port;
+		this.framing = framing;
+	}
+
+	@Override
+	public void open() throws IOException {
+		Socket socket = new Socket();
+		try {
+			socket.setKeepAlive(true);
+			socket.setTcpNoDelay(true);
+			socket.setSendBufferSize(BUFFER_SIZE);
+			socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+			// remote side doesn't send anything
+			socket.shutdownInput();
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		this.socket = socket;
+		this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+	}
+
+	@Override
+	public void write(List<String> messages) throws IOException {
+		if (out == null) throw new IOException("Not connected to " + host + ":" + port);
+		for (String message : messages) {
+			framing.write(out, message);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		socket = null;
+		out = null;
+	}
+
+	@Override
+	public String toString() {
+		return "tcp://" + host + ":" + port;
+	}
+
+}
@@ -0,0 +1,60 @@
+package cz.metacentrum.perun.exporter.output;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Sends each message in its own UDP datagram, so no framing is needed. Delivery is not guaranteed,
+ * messages longer than max size of datagram are truncated.
+ */
+public class UdpOutput implements ExporterOutput {
+
+	private static final int MAX_DATAGRAM_SIZE = 65507;
+
+	private final String host;
+	private final int port;
+	private DatagramSocket socket;
+
+	public UdpOutput(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+
+	@Override
+	public void open() throws IOException {
+		DatagramSocket socket = new DatagramSocket();
+		try {
+			socket.connect(new InetSocketAddress(host, port));
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		this.socket = socket;
+	}
+
+	@Override
+	public void write(List<String> messages) throws IOException {
+		if (socket == null) throw new IOException("Not connected to " + host + ":" + port);
+		DatagramPacket packet = new DatagramPacket(new byte[0], 0);
+		for (String message : messages) {
+			byte[] bytes = MessageFraming.escapeLineBreaks(message).getBytes(MessageFraming.UTF8);
+			packet.setData(bytes, 0, Math.min(bytes.length, MAX_DATAGRAM_SIZE));
+			socket.send(packet);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (socket != null) socket.close();
+		socket = null;
+	}
+
+	@Override
+	public String toString() {
+		return "udp://" + host + ":" + port;
+	}
+
+}
@@ -0,0 +1,133 @@
+package cz.metacentrum.perun.exporter.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of outputs of the auditer exporter.
+ */
+public class ExporterOutputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void messageFraming() throws Exception {
+		System.out.println("MessageFraming");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MessageFraming.NEWLINE.write(out, "first");
+		MessageFraming.NEWLINE.write(out, "multi\nline");
+		assertEquals("first\nmulti\\nline\n", out.toString("UTF-8"));
+
+		out.reset();
+		MessageFraming.LENGTH.write(out, "ab\n\u010d");
+		assertArrayEquals(new byte[] { 0, 0, 0, 5, 'a', 'b', '\n', (byte) 0xc4, (byte) 0x8d }, out.toByteArray());
+	}
+
+	@Test
+	public void fileRotation() throws Exception {
+		System.out.println("FileOutput");
+
+		File file = new File(folder.getRoot(), "audit.log");
+		FileOutput output = new FileOutput(file, MessageFraming.NEWLINE, 5, 2);
+		output.open();
+		output.write(Arrays.asList("message1", "message2"));
+		output.write(Arrays.asList("message3"));
+		output.write(Arrays.asList("message4"));
+		output.close();
+
+		assertEquals("message4\n", read(file));
+		assertEquals("message3\n", read(new File(file.getPath() + ".1")));
+		assertEquals("message2\n", read(new File(file.getPath() + ".2")));
+		// only two rotated files are kept
+		assertFalse(new File(file.getPath() + ".3").exists());
+
+		// reopened output continues with the size of existing file
+		output.open();
+		output.write(Arrays.asList("x"));
+		output.close();
+		assertEquals("x\n", read(file));
+		assertEquals("message4\n", read(new File(file.getPath() + ".1")));
+
+		// without rotation messages are appended
+		output = new FileOutput(file, MessageFraming.NEWLINE, 0, 2);
+		output.open();
+		output.write(Arrays.asList("y"));
+		output.close();
+		assertEquals("x\ny\n", read(file));
+	}
+
+	@Test
+	public void tcpReconnect() throws Exception {
+		System.out.println("TcpOutput");
+
+		ServerSocket server = new ServerSocket(0);
+		try {
+			TcpOutput output = new TcpOutput("localhost", server.getLocalPort(), MessageFraming.LENGTH);
+			output.open();
+			output.write(Arrays.asList("first", "second"));
+			Socket accepted = server.accept();
+			DataInputStream in = new DataInputStream(accepted.getInputStream());
+			assertEquals("first", readFrame(in));
+			assertEquals("second", readFrame(in));
+			accepted.close();
+
+			// closed output reports error, batch is sent again after reopening
+			output.close();
+			try {
+				output.write(Arrays.asList("third"));
+				assertTrue("write to closed output must fail", false);
+			} catch (IOException e) {
+				// expected
+			}
+			output.open();
+			output.write(Arrays.asList("third"));
+			accepted = server.accept();
+			in = new DataInputStream(accepted.getInputStream());
+			assertEquals("third", readFrame(in));
+			accepted.close();
+			output.close();
+		} finally {
+			server.close();
+		}
+	}
+
+	private static String readFrame(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private static String read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toString("UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+}
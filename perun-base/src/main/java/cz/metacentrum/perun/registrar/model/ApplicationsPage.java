@@ -0,0 +1,65 @@
+package cz.metacentrum.perun.registrar.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of applications returned for ApplicationsPageQuery.
+ *
+ * Contains total number of applications matching the query (regardless of paging)
+ * and cursor (creation time and ID of last application) to be used for next page.
+ * Cursor is null, when there are no more applications.
+ */
+public class ApplicationsPage {
+
+	private List<Application> applications = new ArrayList<Application>();
+	private int totalCount;
+	private String nextCreatedAt;
+	private Integer nextId;
+
+	public ApplicationsPage() {
+	}
+
+	public List<Application> getApplications() {
+		return applications;
+	}
+
+	public void setApplications(List<Application> applications) {
+		this.applications = applications;
+	}
+
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public void setTotalCount(int totalCount) {
+		this.totalCount = totalCount;
+	}
+
+	public String getNextCreatedAt() {
+		return nextCreatedAt;
+	}
+
+	public void setNextCreatedAt(String nextCreatedAt) {
+		this.nextCreatedAt = nextCreatedAt;
+	}
+
+	public Integer getNextId() {
+		return nextId;
+	}
+
+	public void setNextId(Integer nextId) {
+		this.nextId = nextId;
+	}
+
+	public String getBeanName() {
+		return this.getClass().getSimpleName();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + ":[applications='" + applications.size() + "', totalCount='" + totalCount +
+				"', nextCreatedAt='" + nextCreatedAt + "', nextId='" + nextId + "']";
+	}
+
+}
@@ -0,0 +1,127 @@
+package cz.metacentrum.perun.registrar.model;
+
+import java.util.List;
+
+/**
+ * Query for one page of applications of VO or Group.
+ *
+ * Applications are ordered from newest to oldest by their creation time and ID.
+ * Next page is requested by passing creation time and ID of the last application
+ * from previous page (see ApplicationsPage).
+ *
+ * All filtering properties are optional.
+ */
+public class ApplicationsPageQuery {
+
+	private int pageSize = 50;
+	private List<String> states;
+	private String dateFrom;
+	private String dateTo;
+	private Integer groupId;
+	private Integer userId;
+	private String lastCreatedAt;
+	private Integer lastId;
+
+	public ApplicationsPageQuery() {
+	}
+
+	/**
+	 * Maximum number of returned applications, server returns at most 1000 applications in one page
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * States of applications (NEW, VERIFIED, APPROVED, REJECTED), null means all.
+	 */
+	public List<String> getStates() {
+		return states;
+	}
+
+	public void setStates(List<String> states) {
+		this.states = states;
+	}
+
+	/**
+	 * Applications created on this day or later (yyyy-MM-dd).
+	 */
+	public String getDateFrom() {
+		return dateFrom;
+	}
+
+	public void setDateFrom(String dateFrom) {
+		this.dateFrom = dateFrom;
+	}
+
+	/**
+	 * Applications created on this day or before (yyyy-MM-dd).
+	 */
+	public String getDateTo() {
+		return dateTo;
+	}
+
+	public void setDateTo(String dateTo) {
+		this.dateTo = dateTo;
+	}
+
+	/**
+	 * Applications of this group (only for query on VO).
+	 */
+	public Integer getGroupId() {
+		return groupId;
+	}
+
+	public void setGroupId(Integer groupId) {
+		this.groupId = groupId;
+	}
+
+	/**
+	 * Applications submitted by this user.
+	 */
+	public Integer getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Integer userId) {
+		this.userId = userId;
+	}
+
+	/**
+	 * Creation time of last application from previous page, null for the first page.
+	 */
+	public String getLastCreatedAt() {
+		return lastCreatedAt;
+	}
+
+	public void setLastCreatedAt(String lastCreatedAt) {
+		this.lastCreatedAt = lastCreatedAt;
+	}
+
+	/**
+	 * ID of last application from previous page, null for the first page.
+	 */
+	public Integer getLastId() {
+		return lastId;
+	}
+
+	public void setLastId(Integer lastId) {
+		this.lastId = lastId;
+	}
+
+	public String getBeanName() {
+		return this.getClass().getSimpleName();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + ":[pageSize='" + pageSize + "', states='" + states +
+				"', dateFrom='" + dateFrom + "', dateTo='" + dateTo + "', groupId='" + groupId +
+				"', userId='" + userId + "', lastCreatedAt='" + lastCreatedAt + "', lastId='" + lastId + "']";
+	}
+
+}
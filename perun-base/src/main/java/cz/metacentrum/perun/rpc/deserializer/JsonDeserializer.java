@@ -100,6 +100,7 @@ public class JsonDeserializer extends Deserializer {
 		mapper.getDeserializationConfig().addMixInAnnotations(ApplicationFormItem.class, PerunBeanMixIn.class);
 		mapper.getDeserializationConfig().addMixInAnnotations(ApplicationFormItemWithPrefilledValue.class, PerunBeanMixIn.class);
 		mapper.getDeserializationConfig().addMixInAnnotations(ApplicationMail.class, PerunBeanMixIn.class);
+		mapper.getDeserializationConfig().addMixInAnnotations(ApplicationsPageQuery.class, PerunBeanMixIn.class);
 
 		mapper.getDeserializationConfig().addMixInAnnotations(Author.class, PerunBeanMixIn.class);
 		mapper.getDeserializationConfig().addMixInAnnotations(Category.class, PerunBeanMixIn.class);
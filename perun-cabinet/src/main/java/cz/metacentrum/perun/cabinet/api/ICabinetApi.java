@@ -455,4 +455,13 @@ public interface ICabinetApi extends Serializable {
 	 */
 	void recalculateThanksAttribute(PerunSession sess) throws CabinetException;
 
+	/**
+	 * Recalculates "priorityCoeficient" attribute (rank)
+	 * for all users who reported any publication
+	 *
+	 * @param sess
+	 * @throws CabinetException
+	 */
+	void recalculateRanks(PerunSession sess) throws CabinetException;
+
 }
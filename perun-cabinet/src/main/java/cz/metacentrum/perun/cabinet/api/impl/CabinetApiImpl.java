@@ -306,4 +306,19 @@ public class CabinetApiImpl implements ICabinetApi {
 
 	}
 
+	@Override
+	public void recalculateRanks(PerunSession sess) throws CabinetException {
+
+		try {
+			if (!AuthzResolver.isAuthorized(sess, Role.PERUNADMIN)) {
+				throw new CabinetException("You are not allowed to recalculate ranks of all authors.", ErrorCodes.NOT_AUTHORIZED);
+			}
+		} catch (PerunException pe) {
+			throw new CabinetException(ErrorCodes.PERUN_EXCEPTION, pe);
+		}
+
+		authorshipService.recalculateRanks(sess);
+
+	}
+
 }
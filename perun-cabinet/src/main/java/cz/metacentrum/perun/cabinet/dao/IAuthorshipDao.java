@@ -1,6 +1,7 @@
 package cz.metacentrum.perun.cabinet.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import cz.metacentrum.perun.cabinet.model.Author;
 import cz.metacentrum.perun.cabinet.model.Authorship;
@@ -45,4 +46,37 @@ public interface IAuthorshipDao {
 
 	List<Author> findAllAuthors();
 
+	/**
+	 * Return sum of publication and category ranks of all user's authorships
+	 * computed by single query in DB. Returns 0 if user has no authorship.
+	 *
+	 * @param userId ID of user
+	 * @return sum of ranks of user's publications
+	 */
+	Double getRankSumOfUser(Integer userId);
+
+	/**
+	 * Return sums of publication and category ranks for all authors
+	 * computed by single grouped query in DB.
+	 *
+	 * @return map of userId to sum of ranks of his publications
+	 */
+	Map<Integer, Double> getRankSumsOfAllAuthors();
+
+	/**
+	 * Return IDs of users, who have priority coefficient stored,
+	 * but they are no longer authors of any publication.
+	 *
+	 * @return IDs of former authors
+	 */
+	List<Integer> getFormerAuthorsIds();
+
+	/**
+	 * Lock row of user until end of current transaction, so concurrent
+	 * updates of his rank are serialized.
+	 *
+	 * @param userId ID of user
+	 */
+	void lockUser(Integer userId);
+
 }
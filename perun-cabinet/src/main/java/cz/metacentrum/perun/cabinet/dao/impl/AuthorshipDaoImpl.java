@@ -142,4 +142,26 @@ public class AuthorshipDaoImpl implements IAuthorshipDao {
 		return authorshipMapper.findAllAuthors();
 	}
 
+	public Double getRankSumOfUser(Integer userId) {
+		Double sum = authorshipMapper.selectRankSumByUserId(userId);
+		return (sum != null) ? sum : 0.0;
+	}
+
+	public Map<Integer, Double> getRankSumsOfAllAuthors() {
+		Map<Integer, Double> result = new HashMap<Integer, Double>();
+		for (Map<String, Object> row : authorshipMapper.selectRankSumsOfAllAuthors()) {
+			Number sum = (Number) row.get("rankSum");
+			result.put(((Number) row.get("userId")).intValue(), (sum != null) ? sum.doubleValue() : 0.0);
+		}
+		return result;
+	}
+
+	public List<Integer> getFormerAuthorsIds() {
+		return authorshipMapper.selectFormerAuthorsIds();
+	}
+
+	public void lockUser(Integer userId) {
+		authorshipMapper.lockUser(userId);
+	}
+
 }
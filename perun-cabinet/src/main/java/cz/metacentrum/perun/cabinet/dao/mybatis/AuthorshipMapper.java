@@ -110,4 +110,12 @@ public interface AuthorshipMapper {
 
 	List<Author> findAllAuthors();
 
+	Double selectRankSumByUserId(@Param("userId") Integer userId);
+
+	List<Map<String, Object>> selectRankSumsOfAllAuthors();
+
+	List<Integer> selectFormerAuthorsIds();
+
+	Integer lockUser(@Param("userId") Integer userId);
+
 }
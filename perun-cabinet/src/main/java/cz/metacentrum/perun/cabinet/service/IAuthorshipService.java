@@ -2,6 +2,7 @@ package cz.metacentrum.perun.cabinet.service;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import cz.metacentrum.perun.cabinet.model.Author;
 import cz.metacentrum.perun.cabinet.model.Authorship;
@@ -64,6 +65,40 @@ public interface IAuthorshipService {
 	 */
 	Double calculateNewRank(List<Authorship> authorships);
 
+	/**
+	 * Recalculates rank of user by single query in DB and stores it
+	 * as user's priorityCoeficient. Row of user is locked until end of transaction,
+	 * so updates of the same user are serialized, while updates of different users
+	 * can run concurrently.
+	 *
+	 * @param sess PerunSession
+	 * @param userId User to update rank for
+	 * @throws CabinetException When priorityCoeficient can't be stored
+	 */
+	void updateRank(PerunSession sess, Integer userId) throws CabinetException;
+
+	/**
+	 * Recalculates rank of all passed users and stores it
+	 * as their priorityCoeficient.
+	 *
+	 * @see #updateRank(PerunSession, Integer)
+	 * @param sess PerunSession
+	 * @param userIds Users to update rank for
+	 * @throws CabinetException When priorityCoeficient can't be stored
+	 */
+	void updateRanks(PerunSession sess, Set<Integer> userIds) throws CabinetException;
+
+	/**
+	 * Recalculates rank of all authors in Perun. Ranks are computed
+	 * by single grouped query in DB and then stored
+	 * as users priorityCoeficient. Users, who are no longer authors
+	 * of any publication, get default rank.
+	 *
+	 * @param sess PerunSession
+	 * @throws CabinetException When priorityCoeficient can't be stored
+	 */
+	void recalculateRanks(PerunSession sess) throws CabinetException;
+
 	/**
 	 * Return date, when was user added as author of his last (newest) publication.
 	 *
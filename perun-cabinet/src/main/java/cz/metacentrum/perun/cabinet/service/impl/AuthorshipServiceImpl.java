@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -96,7 +97,7 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 		} catch (InternalErrorException ex) {
 			log.error("Unable to log message authorship created to Auditer for");
 		}
-		perunService.updatePriorityCoefficient(sess, authorship.getUserId(), calculateNewRank(authorship.getUserId()));
+		updateRank(sess, authorship.getUserId());
 
 		perunService.setThanksAttribute(authorship.getUserId());
 
@@ -121,12 +122,11 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 
 	public Double calculateNewRank(Integer userId) {
 
-		List<Authorship> reports = findAuthorshipsByUserId(userId);
-		return calculateNewRank(reports);
+		return DEFAULT_RANK + authorshipDao.getRankSumOfUser(userId);
 
 	}
 
-	public synchronized Double calculateNewRank(List<Authorship> authorships) {
+	public Double calculateNewRank(List<Authorship> authorships) {
 
 		Double rank = DEFAULT_RANK;
 		for (Authorship r : authorships) {
@@ -139,6 +139,39 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 
 	}
 
+	public void updateRank(PerunSession sess, Integer userId) throws CabinetException {
+
+		// serialize only updates of the same user (until commit), others can proceed in parallel
+		authorshipDao.lockUser(userId);
+		perunService.updatePriorityCoefficient(sess, userId, calculateNewRank(userId));
+
+	}
+
+	public void updateRanks(PerunSession sess, Set<Integer> userIds) throws CabinetException {
+
+		for (Integer userId : userIds) {
+			updateRank(sess, userId);
+		}
+
+	}
+
+	public void recalculateRanks(PerunSession sess) throws CabinetException {
+
+		Map<Integer, Double> sums = authorshipDao.getRankSumsOfAllAuthors();
+		for (Map.Entry<Integer, Double> entry : sums.entrySet()) {
+			authorshipDao.lockUser(entry.getKey());
+			perunService.updatePriorityCoefficient(sess, entry.getKey(), DEFAULT_RANK + entry.getValue());
+		}
+		// users whose last authorship was deleted
+		List<Integer> formerAuthors = authorshipDao.getFormerAuthorsIds();
+		for (Integer userId : formerAuthors) {
+			authorshipDao.lockUser(userId);
+			perunService.updatePriorityCoefficient(sess, userId, DEFAULT_RANK);
+		}
+		log.debug("Priority coefficients of {} authors and {} former authors recalculated.", sums.size(), formerAuthors.size());
+
+	}
+
 	public List<Authorship> findAuthorshipsByFilter(Authorship filter) {
 		return authorshipDao.findByFilter(filter);
 	}
@@ -226,14 +259,16 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 		if (rows > 0) {
 			if (report.getPublicationId() != r.getPublicationId()) {
 				// If authorship moved to another publication
-				Set<Author> authors = new HashSet<Author>();
+				Set<Integer> userIds = new HashSet<Integer>();
 				// get authors of both publications
-				authors.addAll(authorService.findAuthorsByPublicationId(report.getPublicationId()));
-				authors.addAll(authorService.findAuthorsByPublicationId(r.getPublicationId()));
-				// process them
-				for (Author a : authors) {
-					perunService.updatePriorityCoefficient(sess, a.getId(), calculateNewRank(a.getAuthorships()));
+				for (Authorship a : findAuthorshipsByPublicationId(report.getPublicationId())) {
+					userIds.add(a.getUserId());
 				}
+				for (Authorship a : findAuthorshipsByPublicationId(r.getPublicationId())) {
+					userIds.add(a.getUserId());
+				}
+				// process them
+				updateRanks(sess, userIds);
 				// calculate thanks for original user
 				perunService.setThanksAttribute(r.getUserId());
 				if (r.getUserId() != report.getUserId()) {
@@ -242,9 +277,9 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 				}
 			} else if (r.getUserId() != report.getUserId()) {
 				// if user (author) changed, update for both of them
-				perunService.updatePriorityCoefficient(sess, report.getUserId(), calculateNewRank(report.getUserId()));
+				updateRank(sess, report.getUserId());
 				perunService.setThanksAttribute(report.getId());
-				perunService.updatePriorityCoefficient(sess, report.getUserId(), calculateNewRank(r.getUserId()));
+				updateRank(sess, r.getUserId());
 				perunService.setThanksAttribute(r.getUserId());
 			}
 			log.debug("Authorship: [{}] updated to Authorship: [{}].", r, report);
@@ -280,8 +315,7 @@ public class AuthorshipServiceImpl implements IAuthorshipService {
 		// if deleted
 		if (rows > 0) {
 			// update coefficient
-			int userId = a.getUserId();
-			perunService.updatePriorityCoefficient(sess, userId, calculateNewRank(userId));
+			updateRank(sess, a.getUserId());
 			log.debug("Authorship: [{}] deleted.", a);
 			try {
 				perun.getAuditer().log(sess, "Authorship {} deleted.", a);
@@ -8,7 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cz.metacentrum.perun.cabinet.dao.ICategoryDao;
-import cz.metacentrum.perun.cabinet.model.Author;
+import cz.metacentrum.perun.cabinet.model.Authorship;
 import cz.metacentrum.perun.cabinet.model.Category;
 import cz.metacentrum.perun.cabinet.model.Publication;
 import cz.metacentrum.perun.cabinet.service.CabinetException;
@@ -93,13 +93,13 @@ public class CategoryServiceImpl implements ICategoryService {
 			List<Publication> pubs = publicationService.findPublicationsByFilter(filter);
 
 			// update coef for all authors of all publications in updated category
-			Set<Author> authors = new HashSet<Author>();
+			Set<Integer> userIds = new HashSet<Integer>();
 			for (Publication p : pubs) {
-				authors.addAll(authorService.findAuthorsByPublicationId(p.getId()));
-			}
-			for (Author a : authors) {
-				perunService.updatePriorityCoefficient(sess, a.getId(), authorshipService.calculateNewRank(a.getAuthorships()));
+				for (Authorship a : authorshipService.findAuthorshipsByPublicationId(p.getId())) {
+					userIds.add(a.getUserId());
+				}
 			}
+			authorshipService.updateRanks(sess, userIds);
 			log.debug("Category: [{}] updated to Category: [{}]", cat, category);
 		}
 
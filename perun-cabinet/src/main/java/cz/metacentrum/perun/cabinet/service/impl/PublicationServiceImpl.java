@@ -1,13 +1,14 @@
 package cz.metacentrum.perun.cabinet.service.impl;
 
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import cz.metacentrum.perun.cabinet.dao.IPublicationDao;
-import cz.metacentrum.perun.cabinet.model.Author;
 import cz.metacentrum.perun.cabinet.model.Authorship;
 import cz.metacentrum.perun.cabinet.model.Publication;
 import cz.metacentrum.perun.cabinet.model.PublicationForGUI;
@@ -200,10 +201,11 @@ public class PublicationServiceImpl implements IPublicationService {
 		// if updated and rank or category was changed
 		if (result > 0 && ((oldPub.getRank() != publication.getRank()) || (oldPub.getCategoryId() != publication.getCategoryId()))) {
 			// update coeficient for all it's authors
-			List<Author> authors = authorService.findAuthorsByPublicationId(oldPub.getId());
-			for (Author a : authors) {
-				perunService.updatePriorityCoefficient(sess, a.getId(), authorshipService.calculateNewRank(a.getAuthorships()));
+			Set<Integer> userIds = new HashSet<Integer>();
+			for (Authorship a : authorshipService.findAuthorshipsByPublicationId(oldPub.getId())) {
+				userIds.add(a.getUserId());
 			}
+			authorshipService.updateRanks(sess, userIds);
 		}
 
 		return result;
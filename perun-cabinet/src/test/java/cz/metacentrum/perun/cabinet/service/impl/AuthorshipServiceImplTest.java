@@ -18,6 +18,8 @@ import cz.metacentrum.perun.cabinet.service.CabinetException;
 import cz.metacentrum.perun.cabinet.service.ErrorCodes;
 import cz.metacentrum.perun.cabinet.service.IAuthorshipService;
 import cz.metacentrum.perun.cabinet.service.SortParam;
+import cz.metacentrum.perun.core.api.Attribute;
+import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.bl.PerunBl;
 
 public class AuthorshipServiceImplTest extends BaseIntegrationTest {
@@ -271,6 +273,48 @@ public class AuthorshipServiceImplTest extends BaseIntegrationTest {
 
 	}
 
+	@Test
+	public void calculateNewRankMatchesAuthorshipsTest() throws Exception {
+		System.out.println("AuthorshipServiceImpl.calculateNewRankMatchesAuthorshipsTest");
+
+		// rank computed in DB must be same as rank computed from authorships
+		Double rank = authorshipService.calculateNewRank(USER_ID);
+		Double expected = authorshipService.calculateNewRank(authorshipService.findAuthorshipsByUserId(USER_ID));
+
+		assertEquals("Rank computed in DB differs from rank computed from authorships.", expected, rank, 0.0001);
+
+	}
+
+	@Transactional
+	@Rollback(true)
+	@Test
+	public void recalculateRanksTest() throws Exception {
+		System.out.println("AuthorshipServiceImpl.recalculateRanksTest");
+
+		authorshipService.recalculateRanks(sess);
+
+		Attribute attr = perun.getAttributesManagerBl().getAttribute(sess, perun.getUsersManagerBl().getUserById(sess, USER_ID), "urn:perun:user:attribute-def:def:priorityCoeficient");
+		assertEquals("PriorityCoefficient wasn't recalculated.", authorshipService.calculateNewRank(USER_ID), Double.valueOf(((String) attr.getValue()).replace(',', '.')), 0.01);
+
+	}
+
+	@Transactional
+	@Rollback(true)
+	@Test
+	public void recalculateRanksOfFormerAuthorTest() throws Exception {
+		System.out.println("AuthorshipServiceImpl.recalculateRanksOfFormerAuthorTest");
+
+		// rank left from deleted authorship
+		User formerAuthor = perun.getUsersManagerBl().createUser(sess, new User(0, "Former", "Author", "", "", ""));
+		perunService.updatePriorityCoefficient(sess, formerAuthor.getId(), 5.0);
+
+		authorshipService.recalculateRanks(sess);
+
+		Attribute attr = perun.getAttributesManagerBl().getAttribute(sess, formerAuthor, "urn:perun:user:attribute-def:def:priorityCoeficient");
+		assertEquals("PriorityCoefficient of former author wasn't reset.", 1.0, Double.valueOf(((String) attr.getValue()).replace(',', '.')), 0.01);
+
+	}
+
 	@Test
 	public void findUniqueAuthorsIds() {
 		System.out.println("AuthorshipServiceImpl.findUniqueAuthorsIds");
@@ -883,6 +883,22 @@ public interface UsersManager {
 	List<RichUser> findRichUsersWithAttributes(PerunSession sess, String searchString, List<String> attrNames)
 		throws InternalErrorException, UserNotExistsException, PrivilegeException;
 
+	/**
+	 * Returns list of RichUsers with attributes who matches the searchString, searching name, email, logins.
+	 * Users are ordered by relevance and only first maxResults of them are returned.
+	 *
+	 * @param sess
+	 * @param searchString
+	 * @param attrNames
+	 * @param maxResults maximal number of returned users
+	 * @return list of RichUsers with selected attributes
+	 * @throws InternalErrorException
+	 * @throws UserNotExistsException
+	 * @throws PrivilegeException
+	 */
+	List<RichUser> findRichUsersWithAttributes(PerunSession sess, String searchString, List<String> attrNames, int maxResults)
+		throws InternalErrorException, UserNotExistsException, PrivilegeException;
+
 	/**
 	 * Returns list of RichUsers with attributes who matches the searchString, searching name, email, logins.
 	 * Name part is searched for exact match.
@@ -1184,11 +1184,23 @@ public interface FacilitiesManagerBl {
 	/**
 	 * Remove all expired bans on facilities to now date.
 	 *
-	 * Get all expired bans and remove them one by one with auditing process.
+	 * Get all expired bans and remove them by chunks, each chunk in its own transaction (see removeBans()).
 	 * This method is for purpose of removing expired bans using some cron tool.
 	 *
 	 * @param sess
 	 * @throws InternalErrorException
 	 */
 	void removeAllExpiredBansOnFacilities(PerunSession sess) throws InternalErrorException;
+
+	/**
+	 * Remove bans on facilities at once.
+	 *
+	 * Each removed ban is audited as by removeBan() and one more message is audited
+	 * for each affected facility, so the change is propagated once per facility.
+	 *
+	 * @param sess
+	 * @param bans bans to remove
+	 * @throws InternalErrorException
+	 */
+	void removeBans(PerunSession sess, List<BanOnFacility> bans) throws InternalErrorException;
 }
@@ -1058,6 +1058,21 @@ public interface MembersManagerBl {
 	 */
 	Member expireMember(PerunSession sess, Member member) throws InternalErrorException, MemberNotValidYetException;
 
+	/**
+	 * Switch members between VALID and EXPIRED status in one batch. Only members, which have
+	 * the old status in DB, are switched. These transitions don't need any check of member's attributes,
+	 * so they are used by periodic check of membership expiration.
+	 *
+	 * @param sess
+	 * @param members
+	 * @param oldStatus VALID or EXPIRED
+	 * @param newStatus EXPIRED or VALID
+	 * @return members with new status set, which were switched
+	 *
+	 * @throws InternalErrorException when other transition is requested
+	 */
+	List<Member> switchMembersStatus(PerunSession sess, List<Member> members, Status oldStatus, Status newStatus) throws InternalErrorException;
+
 	/**
 	 * Disable member.
 	 *
@@ -7,6 +7,7 @@ import cz.metacentrum.perun.core.api.BanOnResource;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.Group;
 import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.PerunSession;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.ResourceTag;
@@ -809,6 +810,27 @@ public interface ResourcesManagerBl {
 	 */
 	List<BanOnResource> getBansForResource(PerunSession sess, int resourceId) throws InternalErrorException;
 
+	/**
+	 * Get all members bans for all resources of facility
+	 *
+	 * @param sess
+	 * @param facilityId the facility id
+	 * @return list of all members bans on resources of facility
+	 * @throws InternalErrorException
+	 */
+	List<BanOnResource> getBansForResourcesOfFacility(PerunSession sess, int facilityId) throws InternalErrorException;
+
+	/**
+	 * Get all resources of facility, where user is assigned, together with member of user in VO of resource.
+	 *
+	 * @param sess
+	 * @param facility
+	 * @param user
+	 * @return list of pairs of resource and assigned member of user
+	 * @throws InternalErrorException
+	 */
+	List<Pair<Resource, Member>> getAssignedResourcesWithMembers(PerunSession sess, Facility facility, User user) throws InternalErrorException;
+
 	/**
 	 * Get all expired bans on any resource to now date
 	 *
@@ -852,11 +874,23 @@ public interface ResourcesManagerBl {
 	/**
 	 * Remove all expired bans on resources to now date.
 	 *
-	 * Get all expired bans and remove them one by one with auditing process.
+	 * Get all expired bans and remove them by chunks, each chunk in its own transaction (see removeBans()).
 	 * This method is for purpose of removing expired bans using some cron tool.
 	 *
 	 * @param sess
 	 * @throws InternalErrorException
 	 */
 	void removeAllExpiredBansOnResources(PerunSession sess) throws InternalErrorException;
+
+	/**
+	 * Remove bans on resources at once.
+	 *
+	 * Each removed ban is audited as by removeBan() and one more message is audited
+	 * for each facility of affected resources, so the change is propagated once per facility.
+	 *
+	 * @param sess
+	 * @param bans bans to remove
+	 * @throws InternalErrorException
+	 */
+	void removeBans(PerunSession sess, List<BanOnResource> bans) throws InternalErrorException;
 }
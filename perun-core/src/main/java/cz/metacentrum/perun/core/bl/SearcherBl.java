@@ -3,6 +3,7 @@ package cz.metacentrum.perun.core.bl;
 import cz.metacentrum.perun.core.api.Attribute;
 import cz.metacentrum.perun.core.api.Member;
 import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.core.api.exceptions.AttributeNotExistsException;
@@ -86,5 +87,22 @@ public interface SearcherBl {
 	 * @throws InternalErrorException
 	 */
 	List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date) throws InternalErrorException;
-	
+
+	/**
+	 * Return members with expiration date set and with specified status, which will expire on specified date.
+	 * You can specify operator for comparison (by default "=") returning exact match.
+	 * So you can get all valid members, which should be expired, using "<=", today date and VALID status.
+	 *
+	 * Unlike other methods, only members with specified status are returned, so the result contains
+	 * only members, whose state should be changed.
+	 *
+	 * @param sess PerunSession
+	 * @param operator One of "=", "<", ">", "<=", ">=". If null, "=" is anticipated.
+	 * @param date Date to compare expiration with (if null, current date is used).
+	 * @param status Status of returned members (if null, status is ignored).
+	 * @return Members with expiration and status relative to method params.
+	 * @throws InternalErrorException
+	 */
+	List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date, Status status) throws InternalErrorException;
+
 }
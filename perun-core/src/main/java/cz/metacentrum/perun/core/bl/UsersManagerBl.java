@@ -960,6 +960,20 @@ public interface UsersManagerBl {
 	 */
 	List<RichUser> findRichUsersWithAttributes(PerunSession sess, String searchString, List<String> attrNames) throws InternalErrorException, UserNotExistsException;
 
+	/**
+	 * Returns list of RichUsers with selected attributes who matches the searchString, searching name, email, logins.
+	 * Users are ordered by relevance and only first maxResults of them are returned.
+	 *
+	 * @param sess
+	 * @param searchString
+	 * @param attrNames
+	 * @param maxResults maximal number of returned users
+	 * @return list of RichUsers
+	 * @throws InternalErrorException
+	 * @throws UserNotExistsException
+	 */
+	List<RichUser> findRichUsersWithAttributes(PerunSession sess, String searchString, List<String> attrNames, int maxResults) throws InternalErrorException, UserNotExistsException;
+
 	/**
 	 * Returns list of RichUsers with selected attributes who matches the searchString, searching name, email, logins.
 	 * Name part is searched for exact match.
@@ -973,6 +987,21 @@ public interface UsersManagerBl {
 	 */
 	List<RichUser> findRichUsersWithAttributesByExactMatch(PerunSession sess, String searchString, List<String> attrNames) throws InternalErrorException, UserNotExistsException;
 
+	/**
+	 * Returns list of RichUsers with selected attributes, who are similar to any of searchStrings
+	 * (matching their email, login or name). Users are ordered by relevance, most similar first.
+	 *
+	 * Search uses in-memory index of users, which is updated from audit log, so it doesn't
+	 * see changes made in current transaction.
+	 *
+	 * @param sess
+	 * @param searchStrings emails, logins or names
+	 * @param attrNames
+	 * @return list of RichUsers
+	 * @throws InternalErrorException
+	 */
+	List<RichUser> findSimilarRichUsersWithAttributes(PerunSession sess, List<String> searchStrings, List<String> attrNames) throws InternalErrorException, UserNotExistsException;
+
 	/**
 	 * Get User to RichUser with attributes.
 	 *
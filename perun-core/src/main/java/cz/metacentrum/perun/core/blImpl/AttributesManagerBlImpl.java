@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -67,6 +68,7 @@ import cz.metacentrum.perun.core.api.exceptions.WrongModuleTypeException;
 import cz.metacentrum.perun.core.api.exceptions.WrongReferenceAttributeValueException;
 import cz.metacentrum.perun.core.bl.AttributesManagerBl;
 import cz.metacentrum.perun.core.bl.PerunBl;
+import cz.metacentrum.perun.core.impl.AttributesCache;
 import cz.metacentrum.perun.core.impl.AttributesManagerImpl;
 import cz.metacentrum.perun.core.impl.Utils;
 import cz.metacentrum.perun.core.implApi.AttributesManagerImplApi;
@@ -418,6 +420,30 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		return attributes;
 	}
 
+	/**
+	 * Store values of def and opt attributes of one entity. Stored values are read by one query and
+	 * new or changed values are written by one batch, audit messages and hooks are processed only for changed attributes.
+	 *
+	 * @param sess
+	 * @param holder facility, vo, group, resource, member or user
+	 * @param attributes def or opt attributes of holder with not null values
+	 */
+	private void setAttributesWithoutCheck(PerunSession sess, PerunBean holder, List<Attribute> attributes) throws InternalErrorException, WrongAttributeAssignmentException, WrongAttributeValueException, WrongReferenceAttributeValueException {
+		if(attributes.isEmpty()) return;
+		AttributesCache.invalidate();
+		List<Attribute> changedAttributes = getAttributesManagerImpl().setAttributes(sess, holder, attributes);
+		for(Attribute attribute : changedAttributes) {
+			getPerunBl().getAuditer().log(sess, "{} set for {}.", attribute, holder);
+			if(holder instanceof Facility) getAttributesManagerImpl().changedAttributeHook(sess, (Facility) holder, attribute);
+			else if(holder instanceof Vo) getAttributesManagerImpl().changedAttributeHook(sess, (Vo) holder, attribute);
+			else if(holder instanceof Group) getAttributesManagerImpl().changedAttributeHook(sess, (Group) holder, attribute);
+			else if(holder instanceof Resource) getAttributesManagerImpl().changedAttributeHook(sess, (Resource) holder, attribute);
+			else if(holder instanceof Member) getAttributesManagerImpl().changedAttributeHook(sess, (Member) holder, attribute);
+			else if(holder instanceof User) getAttributesManagerImpl().changedAttributeHook(sess, (User) holder, attribute);
+			else throw new InternalErrorException("Attributes of " + holder + " can't be set this way.");
+		}
+	}
+
 	public void setAttributes(PerunSession sess, Facility facility, List<Attribute> attributes) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
 		// clasification of attributes to attributes to remove and attributes to set
 		List<Attribute> attributesToRemove = new ArrayList<Attribute>();
@@ -431,6 +457,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, facility, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute : attributesToSet) {
 			//skip core attributes
 			if(!isCoreAttribute(sess, attribute)) {
@@ -439,10 +466,11 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 					//getAttributesManagerImpl().setVirtualAttribute(sess, facility, attribute);
 				} else {
-					setAttributeWithoutCheck(sess, facility, attribute);
+					attributesToStore.add(attribute);
 				}
 			}
 		}
+		setAttributesWithoutCheck(sess, facility, attributesToStore);
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, facility, attributesToSet);
 		log.debug("IMPORTANT: ENTERING CHECK ATTRIBUTES DEPENDENCIES");
@@ -463,6 +491,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, vo, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute : attributesToSet) {
 			//skip core attributes
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
@@ -471,10 +500,11 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 					//getAttributesManagerImpl().setVirtualAttribute(sess, vo, attribute);
 				} else {
-					setAttributeWithoutCheck(sess, vo, attribute);
+					attributesToStore.add(attribute);
 				}
 			}
 		}
+		setAttributesWithoutCheck(sess, vo, attributesToStore);
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, vo, attributesToSet);
 		this.checkAttributesDependencies(sess, vo, null, attributesToSet);
@@ -493,6 +523,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, group, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute : attributesToSet) {
 			//skip core attributes
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
@@ -500,10 +531,11 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 					//TODO
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 				} else {
-					setAttributeWithoutCheck(sess, group, attribute);
+					attributesToStore.add(attribute);
 				}
 			}
 		}
+		setAttributesWithoutCheck(sess, group, attributesToStore);
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, group, attributesToSet);
 		this.checkAttributesDependencies(sess, group, null, attributesToSet);
@@ -522,12 +554,18 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, resource, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute: attributesToSet) {
 			//skip core attributes
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
-				setAttributeWithoutCheck(sess, resource, attribute);
+				if(isVirtAttribute(sess, attribute)) {
+					setAttributeWithoutCheck(sess, resource, attribute);
+				} else {
+					attributesToStore.add(attribute);
+				}
 			}
 		}
+		setAttributesWithoutCheck(sess, resource, attributesToStore);
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, resource, attributesToSet);
 		this.checkAttributesDependencies(sess, resource, null, attributesToSet);
@@ -595,38 +633,49 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		User user;
 		if(!workWithUserAttributes) {
 			long timer = Utils.startTimer();
+			List<Attribute> memberAttributesToStore = new ArrayList<Attribute>();
 			for(Attribute attribute : attributesToSet) {
 				//skip core attributes
 				if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
-					setAttributeWithoutCheck(sess, member, attribute);
+					if(isVirtAttribute(sess, attribute)) {
+						setAttributeWithoutCheck(sess, member, attribute);
+					} else {
+						memberAttributesToStore.add(attribute);
+					}
 				}
 			}
+			setAttributesWithoutCheck(sess, member, memberAttributesToStore);
 			log.debug("addMember timer: setAttributes (for(Attribute attribute : attributes)) [{}].", Utils.getRunningTime(timer));
 		}else{
 			long timer = Utils.startTimer();
 			user = getPerunBl().getUsersManagerBl().getUserByMember(sess, member);
 			log.debug("addMember timer: getMember and User [{}].", Utils.getRunningTime(timer));
+			List<Attribute> memberAttributesToStore = new ArrayList<Attribute>();
+			List<Attribute> userAttributesToStore = new ArrayList<Attribute>();
+			timer = Utils.startTimer();
 			for(Attribute attribute : attributesToSet) {
-				boolean changed = false;
 				//skip core attributes
 				if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
 					if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_USER_ATTR)) {
-						timer = Utils.startTimer();
-						changed = setAttributeWithoutCheck(sess, user, attribute);
-						if(changed) {
-							log.debug("addMember timer: setAttribute u [{}] [{}].", attribute, Utils.getRunningTime(timer));
+						if(isVirtAttribute(sess, attribute)) {
+							setAttributeWithoutCheck(sess, user, attribute);
+						} else {
+							userAttributesToStore.add(attribute);
 						}
 					} else if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_MEMBER_ATTR)) {
-						timer = Utils.startTimer();
-						changed = setAttributeWithoutCheck(sess, member, attribute);
-						if(changed) {
-							log.debug("addMember timer: setAttribute m [{}] [{}].", attribute, Utils.getRunningTime(timer));
+						if(isVirtAttribute(sess, attribute)) {
+							setAttributeWithoutCheck(sess, member, attribute);
+						} else {
+							memberAttributesToStore.add(attribute);
 						}
 					} else {
 						throw new WrongAttributeAssignmentException(attribute);
 					}
 				}
 			}
+			setAttributesWithoutCheck(sess, user, userAttributesToStore);
+			setAttributesWithoutCheck(sess, member, memberAttributesToStore);
+			log.debug("addMember timer: setAttributes u and m [{}].", Utils.getRunningTime(timer));
 		}
 		checkAttributesValue(sess, member, attributesToSet, workWithUserAttributes);
 		this.checkAttributesDependencies(sess, member, attributesToSet, workWithUserAttributes);
@@ -750,6 +799,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, member, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute : attributesToSet) {
 			//skip core attributes
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
@@ -757,10 +807,11 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 					//TODO
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 				} else {
-					setAttributeWithoutCheck(sess, member, attribute);
+					attributesToStore.add(attribute);
 				}
 			}
 		}
+		setAttributesWithoutCheck(sess, member, attributesToStore);
 
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, member, attributesToSet);
@@ -805,6 +856,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 		removeAttributes(sess, user, attributesToRemove);
 		//fist we have to store attributes into DB because checkAttributesValue can be preformed only on stored attributes.
+		List<Attribute> attributesToStore = new ArrayList<Attribute>();
 		for(Attribute attribute : attributesToSet) {
 			//skip core attributes
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
@@ -812,10 +864,11 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 					//TODO
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 				} else {
-					setAttributeWithoutCheck(sess, user, attribute);
+					attributesToStore.add(attribute);
 				}
 			}
 		}
+		setAttributesWithoutCheck(sess, user, attributesToStore);
 
 		//if checkAttributesValue fails it causes rollback so no attribute will be stored
 		checkAttributesValue(sess, user, attributesToSet);
@@ -952,14 +1005,18 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_FACILITY_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, facility, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, facility.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, facility, attributeName), facility.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Vo vo, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_VO_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, vo, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, vo.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, vo, attributeName), vo.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Group group, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
@@ -967,14 +1024,18 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		String namespace = getNamespaceFromAttributeName(attributeName);
 		if(!namespace.startsWith(AttributesManager.NS_GROUP_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, group, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, group.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, group, attributeName), group.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Resource resource, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_RESOURCE_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, resource, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, resource.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, resource, attributeName), resource.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Resource resource, Member member, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
@@ -982,7 +1043,9 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_MEMBER_RESOURCE_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, resource, member, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, resource.getId(), member.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, resource, member, attributeName), resource.getId(), member.getId());
 	}
 
 	@Override
@@ -990,21 +1053,27 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		// check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_MEMBER_GROUP_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, member, group, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, member.getId(), group.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, member, group, attributeName), member.getId(), group.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Member member, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_MEMBER_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, member, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, member.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, member, attributeName), member.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, Facility facility, User user, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_USER_FACILITY_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, facility, user, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, facility.getId(), user.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, facility, user, attributeName), facility.getId(), user.getId());
 
 	}
 
@@ -1012,29 +1081,45 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		//check namespace
 		if(!attributeName.startsWith(AttributesManager.NS_USER_ATTR)) throw new WrongAttributeAssignmentException("Attribute name=" + attributeName);
 
-		return getAttributesManagerImpl().getAttribute(sess, user, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, user.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, user, attributeName), user.getId());
 	}
 
 
 	public Attribute getAttribute(PerunSession sess, Host host, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		if(!attributeName.startsWith(AttributesManager.NS_HOST_ATTR)) throw new WrongAttributeAssignmentException("Attribute name= " + attributeName);
-		return getAttributesManagerImpl().getAttribute(sess, host, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, host.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, host, attributeName), host.getId());
 
 	}
 
 	public Attribute getAttribute(PerunSession sess, Resource resource, Group group, String attributeName) throws InternalErrorException, WrongAttributeAssignmentException, AttributeNotExistsException {
 		this.checkGroupIsFromTheSameVoLikeResource(sess, group, resource);
 		if(!attributeName.startsWith(AttributesManager.NS_GROUP_RESOURCE_ATTR)) throw new WrongAttributeAssignmentException("Attribute name= " + attributeName);
-		return getAttributesManagerImpl().getAttribute(sess, resource, group, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, resource.getId(), group.getId());
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, resource, group, attributeName), resource.getId(), group.getId());
 	}
 
 	public Attribute getAttribute(PerunSession sess, String key, String attributeName) throws InternalErrorException, AttributeNotExistsException, WrongAttributeAssignmentException {
 		if(!attributeName.startsWith(AttributesManager.NS_ENTITYLESS_ATTR)) throw new WrongAttributeAssignmentException("Attribute name= " + attributeName);
-		return getAttributesManagerImpl().getAttribute(sess, key, attributeName);
+		Attribute attribute = getCachedAttribute(sess, attributeName, key);
+		if(attribute != null) return attribute;
+		return cacheAttribute(sess, getAttributesManagerImpl().getAttribute(sess, key, attributeName), key);
 	}
 
 	public AttributeDefinition getAttributeDefinition(PerunSession sess, String attributeName) throws InternalErrorException, AttributeNotExistsException {
-		return getAttributesManagerImpl().getAttributeDefinition(sess, attributeName);
+		AttributesCache cache = AttributesCache.getInstance(sess);
+		if(cache == null) return getAttributesManagerImpl().getAttributeDefinition(sess, attributeName);
+
+		AttributeDefinition attributeDefinition = cache.getAttributeDefinition(attributeName);
+		if(attributeDefinition == null) {
+			attributeDefinition = getAttributesManagerImpl().getAttributeDefinition(sess, attributeName);
+			cache.putAttributeDefinition(attributeDefinition);
+		}
+		return attributeDefinition;
 	}
 
 	public List<AttributeDefinition> getAttributesDefinitionWithRights(PerunSession sess, List<PerunBean> entities) throws InternalErrorException, AttributeNotExistsException {
@@ -1160,7 +1245,45 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	}
 
 	public AttributeDefinition getAttributeDefinitionById(PerunSession sess, int id) throws InternalErrorException, AttributeNotExistsException {
-		return getAttributesManagerImpl().getAttributeDefinitionById(sess, id);
+		AttributesCache cache = AttributesCache.getInstance(sess);
+		if(cache == null) return getAttributesManagerImpl().getAttributeDefinitionById(sess, id);
+
+		AttributeDefinition attributeDefinition = cache.getAttributeDefinition(id);
+		if(attributeDefinition == null) {
+			attributeDefinition = getAttributesManagerImpl().getAttributeDefinitionById(sess, id);
+			cache.putAttributeDefinition(attributeDefinition);
+		}
+		return attributeDefinition;
+	}
+
+	/**
+	 * Return copy of attribute read earlier in current transaction.
+	 *
+	 * @param sess
+	 * @param attributeName full name of attribute
+	 * @param holders IDs (or key) of attribute holders
+	 * @return attribute or null if it is not cached
+	 */
+	private Attribute getCachedAttribute(PerunSession sess, String attributeName, Object... holders) {
+		if(!AttributesCache.isCacheable(attributeName)) return null;
+		AttributesCache cache = AttributesCache.getInstance(sess);
+		if(cache == null) return null;
+		return cache.getAttribute(AttributesCache.getKey(attributeName, holders));
+	}
+
+	/**
+	 * Store copy of non-virtual attribute for the rest of current transaction.
+	 *
+	 * @param sess
+	 * @param attribute attribute read from DB
+	 * @param holders IDs (or key) of attribute holders
+	 * @return the same attribute
+	 */
+	private Attribute cacheAttribute(PerunSession sess, Attribute attribute, Object... holders) {
+		if(!AttributesCache.isCacheable(attribute.getName())) return attribute;
+		AttributesCache cache = AttributesCache.getInstance(sess);
+		if(cache != null) cache.putAttribute(AttributesCache.getKey(attribute.getName(), holders), attribute);
+		return attribute;
 	}
 
 	public List<AttributeDefinition> getAttributesDefinitionByNamespace(PerunSession sess, String namespace) throws InternalErrorException {
@@ -1362,6 +1485,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 			//getAttributesManagerImpl().setVirtualAttribute(sess, facility, attribute);
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, facility, attribute);
 		}
 		if(changed) {
@@ -1391,6 +1515,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			//TODO
 			throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, vo, attribute);
 		}
 		if(changed) {
@@ -1429,11 +1554,13 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		boolean changed = true;
 		if(isVirtAttribute(sess, attribute)) {
 			try {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().setVirtualAttribute(sess, resource, attribute);
 			} catch (WrongReferenceAttributeValueException ex) {
 				throw new InternalErrorException(ex);
 			}
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, resource, attribute);
 		}
 
@@ -1454,6 +1581,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			//TODO
 			throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute instead.");
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, group, attribute);
 		}
 		if(changed) {
@@ -1515,6 +1643,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
 			//TODO better exception here
 			try {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().setVirtualAttribute(sess, facility, user, attribute);
 			} catch (WrongReferenceAttributeValueException ex) {
 				throw new InternalErrorException(ex);
@@ -1522,6 +1651,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 			//FIXME update changed variable
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, facility, user, attribute);
 		}
 
@@ -1544,6 +1674,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 				//TODO
 				throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute instead.");
 			} else {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().setAttribute(sess, resource, member, attribute);
 				if(changed) {
 					getPerunBl().getAuditer().log(sess, "{} set for {} and {}.", attribute, resource, member);
@@ -1556,6 +1687,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 				User user = getPerunBl().getUsersManagerBl().getUserByMember(sess, member);
 				Facility facility = getPerunBl().getResourcesManagerBl().getFacility(sess, resource);
 				if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+					AttributesCache.invalidate();
 					changed = getAttributesManagerImpl().setVirtualAttribute(sess, facility, user, attribute);
 				} else {
 					changed = setAttributeWithoutCheck(sess, facility, user, attribute);
@@ -1571,6 +1703,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 				}
 			} else if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_MEMBER_ATTR)) {
 				if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+					AttributesCache.invalidate();
 					changed = getAttributesManagerImpl().setVirtualAttribute(sess, member, attribute);
 				} else {
 					changed = setAttributeWithoutCheck(sess, member, attribute);
@@ -1591,8 +1724,10 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		boolean changed = true;
 		if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_MEMBER_GROUP_ATTR)) {
 			if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().setVirtualAttribute(sess, member, group, attribute);
 			} else {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().setAttribute(sess, member, group, attribute);
 				if(changed) {
 					getPerunBl().getAuditer().log(sess, "{} set for {} and {}.", attribute, member, group);
@@ -1603,12 +1738,14 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_USER_ATTR)) {
 				User user = getPerunBl().getUsersManagerBl().getUserByMember(sess, member);
 				if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+					AttributesCache.invalidate();
 					changed = getAttributesManagerImpl().setVirtualAttribute(sess, user, attribute);
 				} else {
 					changed = setAttributeWithoutCheck(sess, user, attribute);
 				}
 			} else if(getAttributesManagerImpl().isFromNamespace(sess, attribute, AttributesManager.NS_MEMBER_ATTR)) {
 				if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+					AttributesCache.invalidate();
 					changed = getAttributesManagerImpl().setVirtualAttribute(sess, member, attribute);
 				} else {
 					changed = setAttributeWithoutCheck(sess, member, attribute);
@@ -1644,6 +1781,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		if(isVirtAttribute(sess, attribute)) {
 			//TODO better exception here
 			try {
+				AttributesCache.invalidate();
 				return getAttributesManagerImpl().setVirtualAttribute(sess, member, attribute);
 			} catch (WrongReferenceAttributeValueException ex) {
 				throw new InternalErrorException(ex);
@@ -1662,6 +1800,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			}
 			changed = true; //FIXME check if attribute is acctualy changed
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, member, attribute);
 		}
 		if(changed) {
@@ -1703,8 +1842,10 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 		boolean changed = true;
 		if(isVirtAttribute(sess, attribute)) {
+			AttributesCache.invalidate();
 			return getAttributesManagerImpl().setVirtualAttribute(sess, user, attribute);
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, user, attribute);
 		}
 
@@ -1736,6 +1877,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			//TODO
 			throw new InternalErrorException("Virtual attribute " + attribute + " can't be set this way yet. Please set physical attribute.");
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, host, attribute);
 		}
 		if(changed) {
@@ -1777,6 +1919,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 				//FIXME
 				if(attribute.getName().equals(AttributesManager.NS_GROUP_RESOURCE_ATTR_VIRT  + ":unixGID") ||
 						attribute.getName().equals(AttributesManager.NS_GROUP_RESOURCE_ATTR_VIRT  + ":unixGroupName")) {
+					AttributesCache.invalidate();
 					return getAttributesManagerImpl().setVirtualAttribute(sess, resource, group, attribute);
 				} else {
 					throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute. " + attribute);
@@ -1786,6 +1929,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			}
 
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, resource, group, attribute);
 		}
 		if(changed) {
@@ -1805,6 +1949,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 			//TODO
 			throw new InternalErrorException("Virtual attribute can't be set this way yet. Please set physical attribute.");
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().setAttribute(sess, key, attribute);
 		}
 		if(changed) {
@@ -1844,6 +1989,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		}
 
 		getPerunBl().getAuditer().log(sess, "{} created.", attribute);
+		AttributesCache.invalidate();
 		return getAttributesManagerImpl().createAttribute(sess, attribute);
 	}
 
@@ -1854,6 +2000,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		//Remove attribute and all it's values
 		getPerunBl().getAuditer().log(sess, "{} deleted.", attribute);
 		this.deleteAllAttributeAuthz(sess, attribute);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().deleteAttribute(sess, attribute);
 	}
 
@@ -2866,6 +3013,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	}
 	public boolean removeAttributeWithoutCheck(PerunSession sess, String key, AttributeDefinition attribute) throws InternalErrorException, WrongAttributeAssignmentException {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, AttributesManager.NS_ENTITYLESS_ATTR);
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, key, attribute);
 		if (changed) {
 			try {
@@ -2883,6 +3031,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	}
 
 	public void removeAllMemberResourceAttributes(PerunSession sess, Resource resource) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
+		AttributesCache.invalidate();
 		this.attributesManagerImpl.removeAllMemberResourceAttributes(sess, resource);
 		this.getPerunBl().getAuditer().log(sess, "All non-virtual member-resource attributes removed for all members and {}", resource);
 	}
@@ -2892,6 +3041,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		for (Group group : groups) {
 			this.getPerunBl().getAttributesManagerBl().removeAllAttributes(sess, resource, group);
 		}
+		AttributesCache.invalidate();
 		this.attributesManagerImpl.removeAllGroupResourceAttributes(sess, resource);
 		this.getPerunBl().getAuditer().log(sess, "All non-virtual group-resource attributes removed for all groups and {}", resource);
 	}
@@ -2906,6 +3056,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	public boolean removeAttributeWithoutCheck(PerunSession sess, Facility facility, AttributeDefinition attribute) throws InternalErrorException, WrongAttributeAssignmentException {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, NS_FACILITY_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, facility, attribute);
 		if (changed) {
 			try {
@@ -3000,6 +3151,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Facility facility) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, facility);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, facility);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", facility);
 
@@ -3034,6 +3186,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		removeAllAttributes(sess, facility);
 		if(removeAlsoUserFacilityAttributes) {
 			List<Attribute> userFacilityAttributes = getUserFacilityAttributesForAnyUser(sess, facility);
+			AttributesCache.invalidate();
 			getAttributesManagerImpl().removeAllUserFacilityAttributesForAnyUser(sess, facility);
 			getPerunBl().getAuditer().log(sess, "All user-facility attributes removed for {} for any user.", facility);
 
@@ -3076,6 +3229,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, AttributesManager.NS_HOST_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, host, attribute);
 		if (changed) {
 			//TODO HOOK FOR HOSTS!
@@ -3112,6 +3266,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Host host) throws InternalErrorException, WrongAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, host);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, host);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", host);
 
@@ -3151,6 +3306,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, NS_VO_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, vo, attribute);
 		if (changed) {
 			try {
@@ -3182,6 +3338,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Vo vo) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, vo);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, vo);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", vo);
 
@@ -3217,6 +3374,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, NS_GROUP_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, group, attribute);
 		if (changed) {
 			try {
@@ -3248,6 +3406,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Group group) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, group);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, group);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", group);
 		for(Attribute attribute : attributes) attribute.setValue(null);
@@ -3288,8 +3447,10 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 		try {
 			if (this.isVirtAttribute(sess, attribute)) {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().removeVirtualAttribute(sess, resource, attribute);
 			} else {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().removeAttribute(sess, resource, attribute);
 			}
 			if (changed) getAttributesManagerImpl().changedAttributeHook(sess, resource, new Attribute(attribute));
@@ -3319,6 +3480,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Resource resource) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, resource);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, resource);
 
 		//remove all virtual attributes
@@ -3361,6 +3523,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, NS_MEMBER_RESOURCE_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, resource, member, attribute);
 		if (changed) {
 			try {
@@ -3420,6 +3583,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	public void removeAllAttributes(PerunSession sess, Resource resource, Member member) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException, WrongAttributeAssignmentException {
 		this.checkMemberIsFromTheSameVoLikeResource(sess, member, resource);
 		List<Attribute> attributes = getAttributes(sess, resource, member);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, resource, member);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {} and {}", resource, member);
 
@@ -3456,6 +3620,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		getAttributesManagerImpl().checkNamespace(sess, attribute, NS_MEMBER_GROUP_ATTR);
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, member, group, attribute);
 		if (changed) {
 			try {
@@ -3514,6 +3679,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	@Override
 	public void removeAllAttributes(PerunSession sess, Member member, Group group) throws InternalErrorException, WrongAttributeAssignmentException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, member, group);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, member, group);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {} and {}", member, group);
 
@@ -3549,6 +3715,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, member, attribute);
 
 		if (changed) {
@@ -3582,6 +3749,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, Member member) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, member);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, member);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", member);
 
@@ -3620,8 +3788,10 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		boolean changed = false;
 
 		if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().removeVirtualAttribute(sess, facility, user, attribute);
 		} else {
+			AttributesCache.invalidate();
 			changed = getAttributesManagerImpl().removeAttribute(sess, facility, user, attribute);
 		}
 
@@ -3646,6 +3816,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		for(AttributeDefinition attribute : attributes) {
 			if(!getAttributesManagerImpl().isCoreAttribute(sess, attribute)) {
 				if(getAttributesManagerImpl().isVirtAttribute(sess, attribute)) {
+					AttributesCache.invalidate();
 					if (getAttributesManagerImpl().removeVirtualAttribute(sess, facility, user, attribute)) attributesToCheck.add(attribute);
 				} else {
 					if (removeAttributeWithoutCheck(sess, facility, user, attribute)) attributesToCheck.add(attribute);
@@ -3659,11 +3830,13 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	public void removeAllAttributes(PerunSession sess, Facility facility, User user) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, facility, user);
 		//remove all non-virtual attributes
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, facility, user);
 
 		//remove all virtual attributes
 		List<Attribute> virtualAttributes = getVirtualAttributes(sess, facility, user);
 		for(Attribute attribute : virtualAttributes) {
+			AttributesCache.invalidate();
 			getAttributesManagerImpl().removeVirtualAttribute(sess, facility, user, attribute);
 		}
 		attributes.addAll(virtualAttributes);
@@ -3696,6 +3869,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		List<RichAttribute<User, Facility>> userFacilitiesAttributes = getAttributesManagerImpl().getAllUserFacilityRichAttributes(sess, user);
 
 		//remove all non-virtual attributes
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllUserFacilityAttributes(sess, user);
 		getPerunBl().getAuditer().log(sess, "All non-virtual user-facility attributes removed for all facilities and {}", user);
 
@@ -3732,6 +3906,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 		if(getAttributesManagerImpl().isCoreAttribute(sess, attribute)) throw new WrongAttributeAssignmentException(attribute);
 
+		AttributesCache.invalidate();
 		boolean changed = getAttributesManagerImpl().removeAttribute(sess, user, attribute);
 		if (changed) {
 			try {
@@ -3762,6 +3937,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public void removeAllAttributes(PerunSession sess, User user) throws InternalErrorException, WrongAttributeValueException, WrongReferenceAttributeValueException {
 		List<Attribute> attributes = getAttributes(sess, user);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, user);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {}", user);
 
@@ -3799,8 +3975,10 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 		boolean changed = false;
 		try {
 			if (this.isVirtAttribute(sess, attribute)) {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().removeVirtualAttribute(sess, resource, group, attribute);
 			} else {
+				AttributesCache.invalidate();
 				changed = getAttributesManagerImpl().removeAttribute(sess, resource, group, attribute);
 			}
 
@@ -3854,6 +4032,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 	public void removeAllAttributes(PerunSession sess, Resource resource, Group group) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
 		this.checkGroupIsFromTheSameVoLikeResource(sess, group, resource);
 		List<Attribute> attributes = getAttributes(sess, resource, group);
+		AttributesCache.invalidate();
 		getAttributesManagerImpl().removeAllAttributes(sess, resource, group);
 		getPerunBl().getAuditer().log(sess, "All attributes removed for {} and {}", group, resource);
 
@@ -4198,6 +4377,7 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	public AttributeDefinition updateAttributeDefinition(PerunSession perunSession, AttributeDefinition attributeDefinition) throws InternalErrorException {
 		getPerunBl().getAuditer().log(perunSession, "{} updated.", attributeDefinition);
+		AttributesCache.invalidate();
 		return getAttributesManagerImpl().updateAttributeDefinition(perunSession, attributeDefinition);
 	}
 
@@ -4323,175 +4503,188 @@ public class AttributesManagerBlImpl implements AttributesManagerBl {
 
 	private void checkAttributesDependencies(PerunSession sess, Object primaryHolder, Object secondaryHolder, List<Attribute> attributes) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
 		if(attributes != null && !attributes.isEmpty()) {
+			if(getAllDependencies() == null || getAllDependencies().isEmpty()) log.error("Map of all dependencies is empty. If this is not test, its an error probably.");
+			// all attributes have the same holders, so attribute depending on more of them is checked only once
+			Set<AttributeDefinition> dependencies = new LinkedHashSet<AttributeDefinition>();
 			for(Attribute attr: attributes) {
-				checkAttributeDependencies(sess, new RichAttribute(primaryHolder, secondaryHolder, attr));
+				Set<AttributeDefinition> attrDependencies = getAllDependencies().get(new AttributeDefinition(attr));
+				if(attrDependencies != null) dependencies.addAll(attrDependencies);
 			}
+			checkAttributeDependencies(sess, new RichAttribute(primaryHolder, secondaryHolder, attributes.get(0)), dependencies);
 		}
 	}
 
 	public void checkAttributeDependencies(PerunSession sess, RichAttribute richAttr) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
 		if(getAllDependencies() == null || getAllDependencies().isEmpty()) log.error("Map of all dependencies is empty. If this is not test, its an error probably.");
 		if(richAttr == null || richAttr.getAttribute() == null) throw new InternalErrorException("RichAttribute or Attribute in it can't be null!");
-		else {
-			//Get All attributeDef which are dependencies
-			Set<AttributeDefinition> dependencies = getAllDependencies().get(new AttributeDefinition(richAttr.getAttribute()));
-			if(dependencies != null && !dependencies.isEmpty() ) {
-				for(AttributeDefinition dependency: dependencies) {
-					List<RichAttribute> richAttributesToCheck;
-					try {
-						richAttributesToCheck = getRichAttributesWithHoldersForAttributeDefinition(sess, dependency, richAttr);
-					} catch (AttributeNotExistsException ex) {
-						//TODO better exception here (need to implement to all setMethods)
-						throw new InternalErrorException(ex);
-					} catch (VoNotExistsException ex) {
-						//TODO better exception here (need to implement to all setMethods)
-						throw new InternalErrorException(ex);
-					}
-					for(RichAttribute richAttribute: richAttributesToCheck) {
-						if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_VO_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Vo) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for VO Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Vo) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+		//Get All attributeDef which are dependencies
+		checkAttributeDependencies(sess, richAttr, getAllDependencies().get(new AttributeDefinition(richAttr.getAttribute())));
+	}
+
+	/**
+	 * Check values of attributes which depend on the changed attribute(s).
+	 *
+	 * @param sess
+	 * @param richAttr changed attribute, its holders are used to find holders of dependent attributes
+	 * @param dependencies definitions of dependent attributes (null allowed)
+	 */
+	private void checkAttributeDependencies(PerunSession sess, RichAttribute richAttr, Set<AttributeDefinition> dependencies) throws InternalErrorException, WrongAttributeValueException, WrongAttributeAssignmentException, WrongReferenceAttributeValueException {
+		if(dependencies != null && !dependencies.isEmpty() ) {
+			for(AttributeDefinition dependency: dependencies) {
+				List<RichAttribute> richAttributesToCheck;
+				try {
+					richAttributesToCheck = getRichAttributesWithHoldersForAttributeDefinition(sess, dependency, richAttr);
+				} catch (AttributeNotExistsException ex) {
+					//TODO better exception here (need to implement to all setMethods)
+					throw new InternalErrorException(ex);
+				} catch (VoNotExistsException ex) {
+					//TODO better exception here (need to implement to all setMethods)
+					throw new InternalErrorException(ex);
+				}
+				for(RichAttribute richAttribute: richAttributesToCheck) {
+					if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_VO_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Vo) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for VO Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For VO Attribute there must be VO in primaryHolder");
+								this.checkAttributeValue(sess, (Vo) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_GROUP_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Group Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For VO Attribute there must be VO in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_GROUP_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Group Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For Group Attribute there must be Group in primaryHolder");
+								this.checkAttributeValue(sess, (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Member Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Member) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Group Attribute there must be Group in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Member Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For Member Attribute there must be Member in primaryHolder");
+								this.checkAttributeValue(sess, (Member) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_USER_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof User) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for User Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (User) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Member Attribute there must be Member in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_USER_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof User) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for User Attribute must be null!");
+							} else {
+								this.checkAttributeValue(sess, (User) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
+							}
+						} else {
+							throw new InternalErrorException("For User Attribute there must be User in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_RESOURCE_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Resource Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For User Attribute there must be User in primaryHolder");
+								this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_RESOURCE_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Resource Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Resource Attribute there must be Resource in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_FACILITY_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Facility) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Facility Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For Resource Attribute there must be Resource in primaryHolder");
+								this.checkAttributeValue(sess, (Facility) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_FACILITY_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Facility) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Facility Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Facility) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Facility Attribute there must be Facility in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), AttributesManager.NS_ENTITYLESS_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof String) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Entityless Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For Facility Attribute there must be Facility in primaryHolder");
+								this.checkAttributeValue(sess, (String) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), AttributesManager.NS_ENTITYLESS_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof String) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Entityless Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (String) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Entityless Attribute there must be String in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), AttributesManager.NS_HOST_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Host) {
+							if(richAttribute.getSecondaryHolder() != null) {
+								throw new InternalErrorException("Secondary Holder for Host Attribute must be null!");
 							} else {
-								throw new InternalErrorException("For Entityless Attribute there must be String in primaryHolder");
+								this.checkAttributeValue(sess, (Host) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), AttributesManager.NS_HOST_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Host) {
-								if(richAttribute.getSecondaryHolder() != null) {
-									throw new InternalErrorException("Secondary Holder for Host Attribute must be null!");
-								} else {
-									this.checkAttributeValue(sess, (Host) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								}
+						} else {
+							throw new InternalErrorException("For Host Attribute there must be Host in primaryHolder");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_GROUP_RESOURCE_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
+							if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Group) {
+								this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), (Group) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
 							} else {
-								throw new InternalErrorException("For Host Attribute there must be Host in primaryHolder");
+								throw new InternalErrorException("Secondary Holder for Group_Resource Attribute is null or its not group or resource");
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_GROUP_RESOURCE_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
-								if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Group) {
-									this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), (Group) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Group_Resource Attribute is null or its not group or resource");
-								}
-							} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Resource) {
-								if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
-									this.checkAttributeValue(sess, (Resource) richAttribute.getSecondaryHolder(), (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Group_Resource Attribute is null or its not group or resource");
-								}
+						} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Resource) {
+							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
+								this.checkAttributeValue(sess, (Resource) richAttribute.getSecondaryHolder(), (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							} else {
-								throw new InternalErrorException("For Group_Resource Attribute there must be Group or Resource in primaryHolder.");
+								throw new InternalErrorException("Secondary Holder for Group_Resource Attribute is null or its not group or resource");
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_RESOURCE_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
-								if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Member) {
-									this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), (Member) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Member_Resource Attribute is null or its not member or resource");
-								}
-							} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Resource) {
-								if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
-									this.checkAttributeValue(sess, (Resource) richAttribute.getSecondaryHolder(), (Member) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Member_Resource Attribute is null or its not member or resource");
-								}
+						} else {
+							throw new InternalErrorException("For Group_Resource Attribute there must be Group or Resource in primaryHolder.");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_RESOURCE_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Resource) {
+							if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Member) {
+								this.checkAttributeValue(sess, (Resource) richAttribute.getPrimaryHolder(), (Member) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
 							} else {
-								throw new InternalErrorException("For Member_Resource Attribute there must be Member or Resource in primaryHolder.");
+								throw new InternalErrorException("Secondary Holder for Member_Resource Attribute is null or its not member or resource");
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_GROUP_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
-								if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Member) {
-									this.checkAttributeValue(sess, (Member) richAttribute.getSecondaryHolder(), (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Member_Group Attribute is null or its not member or group");
-								}
-							} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Group) {
-								if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
-									this.checkAttributeValue(sess, (Member) richAttribute.getPrimaryHolder(), (Group) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Member_Group Attribute is null or its not member or group");
-								}
+						} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Resource) {
+							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
+								this.checkAttributeValue(sess, (Resource) richAttribute.getSecondaryHolder(), (Member) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							} else {
-								throw new InternalErrorException("For Member_Group Attribute there must be Member or Group in primaryHolder.");
+								throw new InternalErrorException("Secondary Holder for Member_Resource Attribute is null or its not member or resource");
 							}
-						} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_USER_FACILITY_ATTR)) {
-							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Facility) {
-								if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof User) {
-									this.checkAttributeValue(sess, (Facility) richAttribute.getPrimaryHolder(), (User) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Facility_User Attribute is null or its not facility or user");
-								}
-							} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Facility) {
-								if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof User) {
-									this.checkAttributeValue(sess, (Facility) richAttribute.getSecondaryHolder(), (User) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
-								} else {
-									throw new InternalErrorException("Secondary Holder for Facility_User Attribute is null or its not facility or user");
-								}
+						} else {
+							throw new InternalErrorException("For Member_Resource Attribute there must be Member or Resource in primaryHolder.");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_MEMBER_GROUP_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Group) {
+							if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Member) {
+								this.checkAttributeValue(sess, (Member) richAttribute.getSecondaryHolder(), (Group) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
+							} else {
+								throw new InternalErrorException("Secondary Holder for Member_Group Attribute is null or its not member or group");
+							}
+						} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Group) {
+							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Member) {
+								this.checkAttributeValue(sess, (Member) richAttribute.getPrimaryHolder(), (Group) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
+							} else {
+								throw new InternalErrorException("Secondary Holder for Member_Group Attribute is null or its not member or group");
+							}
+						} else {
+							throw new InternalErrorException("For Member_Group Attribute there must be Member or Group in primaryHolder.");
+						}
+					} else if(getAttributesManagerImpl().isFromNamespace(sess, richAttribute.getAttribute(), NS_USER_FACILITY_ATTR)) {
+						if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof Facility) {
+							if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof User) {
+								this.checkAttributeValue(sess, (Facility) richAttribute.getPrimaryHolder(), (User) richAttribute.getSecondaryHolder(), richAttribute.getAttribute());
+							} else {
+								throw new InternalErrorException("Secondary Holder for Facility_User Attribute is null or its not facility or user");
+							}
+						} else if(richAttribute.getSecondaryHolder() != null && richAttribute.getSecondaryHolder() instanceof Facility) {
+							if(richAttribute.getPrimaryHolder() != null && richAttribute.getPrimaryHolder() instanceof User) {
+								this.checkAttributeValue(sess, (Facility) richAttribute.getSecondaryHolder(), (User) richAttribute.getPrimaryHolder(), richAttribute.getAttribute());
 							} else {
-								throw new InternalErrorException("For Facility_User Attribute there must be Facility or User in primaryHolder.");
+								throw new InternalErrorException("Secondary Holder for Facility_User Attribute is null or its not facility or user");
 							}
+						} else {
+							throw new InternalErrorException("For Facility_User Attribute there must be Facility or User in primaryHolder.");
 						}
 					}
 				}
@@ -65,10 +65,11 @@ import cz.metacentrum.perun.core.api.exceptions.WrongPatternException;
 import cz.metacentrum.perun.core.api.exceptions.WrongReferenceAttributeValueException;
 import cz.metacentrum.perun.core.bl.FacilitiesManagerBl;
 import cz.metacentrum.perun.core.bl.PerunBl;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
+import cz.metacentrum.perun.core.impl.ResourceMembersCache;
 import cz.metacentrum.perun.core.impl.Utils;
 import cz.metacentrum.perun.core.implApi.FacilitiesManagerImplApi;
 import java.util.Arrays;
-import java.util.TreeSet;
 
 /**
  *
@@ -78,6 +79,9 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 
 	final static Logger log = LoggerFactory.getLogger(FacilitiesManagerBlImpl.class);
 
+	// number of expired bans removed in one transaction
+	private static final int EXPIRED_BANS_CHUNK_SIZE = 1000;
+
 	private final FacilitiesManagerImplApi facilitiesManagerImpl;
 	private PerunBl perunBl;
 	private AtomicBoolean initialized = new AtomicBoolean(false);
@@ -200,15 +204,16 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 
 	@Override
 	public List<User> getAllowedUsers(PerunSession sess, Facility facility) throws InternalErrorException {
-		//Get all facilities resources
-		List<Resource> resources = this.getAssignedResources(sess, facility);
-
-		Set<User> users =  new TreeSet<User>();
-		for (Resource resource: resources) {
-			users.addAll(getPerunBl().getResourcesManagerBl().getAllowedUsers(sess, resource));
+		ResourceMembersCache cache = ResourceMembersCache.getInstance();
+		if (cache != null) {
+			List<User> users = cache.getAllowedUsersOfFacility(facility.getId());
+			if (users != null) return users;
 		}
 
-		return new ArrayList<>(users);
+		List<User> users = getFacilitiesManagerImpl().getAllowedUsers(sess, facility);
+		Collections.sort(users);
+		if (cache != null) cache.putAllowedUsersOfFacility(facility.getId(), users);
+		return users;
 	}
 
 	@Override
@@ -913,12 +918,14 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 	@Override
 	public void assignSecurityTeam(PerunSession sess, Facility facility, SecurityTeam securityTeam) throws InternalErrorException {
 		facilitiesManagerImpl.assignSecurityTeam(sess, facility, securityTeam);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "{} was assigned to {}.", securityTeam, facility);
 	}
 
 	@Override
 	public void removeSecurityTeam(PerunSession sess, Facility facility, SecurityTeam securityTeam) throws InternalErrorException {
 		facilitiesManagerImpl.removeSecurityTeam(sess, facility, securityTeam);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "{} was removed from {}.", securityTeam, facility);
 	}
 
@@ -945,6 +952,7 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 	public BanOnFacility setBan(PerunSession sess, BanOnFacility banOnFacility) throws InternalErrorException, BanAlreadyExistsException {
 		if(this.banExists(sess, banOnFacility.getUserId(), banOnFacility.getFacilityId())) throw new BanAlreadyExistsException(banOnFacility);
 		banOnFacility = getFacilitiesManagerImpl().setBan(sess, banOnFacility);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was set for userId {} on facilityId {}.", banOnFacility, banOnFacility.getUserId(), banOnFacility.getFacilityId());
 		return banOnFacility;
 	}
@@ -987,6 +995,7 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 
 	public BanOnFacility updateBan(PerunSession sess, BanOnFacility banOnFacility) throws InternalErrorException {
 		banOnFacility = getFacilitiesManagerImpl().updateBan(sess, banOnFacility);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was updated for userId {} on facilityId {}.",banOnFacility, banOnFacility.getUserId(), banOnFacility.getFacilityId());
 		return banOnFacility;
 	}
@@ -994,23 +1003,50 @@ public class FacilitiesManagerBlImpl implements FacilitiesManagerBl {
 	public void removeBan(PerunSession sess, int banId) throws InternalErrorException, BanNotExistsException {
 		BanOnFacility ban = this.getBanById(sess, banId);
 		getFacilitiesManagerImpl().removeBan(sess, banId);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was removed for userId {} on facilityId {}.",ban, ban.getUserId(), ban.getFacilityId());
 	}
 
 	public void removeBan(PerunSession sess, int userId, int facilityId) throws InternalErrorException, BanNotExistsException {
 		BanOnFacility ban = this.getBan(sess, userId, facilityId);
 		getFacilitiesManagerImpl().removeBan(sess, userId, facilityId);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was removed for userId {} on facilityId {}.",ban, userId, facilityId);
 	}
 
 	public void removeAllExpiredBansOnFacilities(PerunSession sess) throws InternalErrorException {
 		List<BanOnFacility> expiredBans = this.getAllExpiredBansOnFacilities(sess);
-		for(BanOnFacility expiredBan: expiredBans) {
+		for(int i = 0; i < expiredBans.size(); i += EXPIRED_BANS_CHUNK_SIZE) {
+			// call through perunBl, so each chunk runs in its own transaction
+			getPerunBl().getFacilitiesManagerBl().removeBans(sess, expiredBans.subList(i, Math.min(i + EXPIRED_BANS_CHUNK_SIZE, expiredBans.size())));
+		}
+	}
+
+	public void removeBans(PerunSession sess, List<BanOnFacility> bans) throws InternalErrorException {
+		if(bans.isEmpty()) return;
+		List<Integer> banIds = new ArrayList<Integer>();
+		for(BanOnFacility ban: bans) {
+			banIds.add(ban.getId());
+		}
+		Set<Integer> removed = new HashSet<Integer>(getFacilitiesManagerImpl().removeBans(sess, banIds));
+		if(removed.size() != banIds.size()) {
+			log.warn("Only {} of {} bans on facilities were removed, others probably not exist anymore.", removed.size(), banIds.size());
+		}
+		FacilityBansEvaluator.invalidate();
+		// only really removed bans are audited
+		Set<Integer> facilityIds = new HashSet<Integer>();
+		for(BanOnFacility ban: bans) {
+			if(!removed.contains(ban.getId())) continue;
+			facilityIds.add(ban.getFacilityId());
+			getPerunBl().getAuditer().log(sess, "Ban {} was removed for userId {} on facilityId {}.", ban, ban.getUserId(), ban.getFacilityId());
+		}
+
+		for(Integer facilityId: facilityIds) {
 			try {
-				this.removeBan(sess, expiredBan.getId());
-			} catch (BanNotExistsException ex) {
-				log.error("Ban {} can't be removed because it not exists yet.",expiredBan);
-				//Skipt this, probably already removed
+				Facility facility = this.getFacilityById(sess, facilityId);
+				getPerunBl().getAuditer().log(sess, "Expired bans on {} were removed.", facility);
+			} catch (FacilityNotExistsException ex) {
+				throw new ConsistencyErrorException("Ban exists for non-existent facility.", ex);
 			}
 		}
 	}
@@ -71,6 +71,7 @@ import cz.metacentrum.perun.core.api.exceptions.WrongAttributeValueException;
 import cz.metacentrum.perun.core.api.exceptions.WrongReferenceAttributeValueException;
 import cz.metacentrum.perun.core.bl.MembersManagerBl;
 import cz.metacentrum.perun.core.bl.PerunBl;
+import cz.metacentrum.perun.core.impl.AsyncMemberValidator;
 import cz.metacentrum.perun.core.impl.Auditer;
 import cz.metacentrum.perun.core.impl.PerunSessionImpl;
 import cz.metacentrum.perun.core.impl.Utils;
@@ -84,6 +85,7 @@ public class MembersManagerBlImpl implements MembersManagerBl {
 
 	private MembersManagerImplApi membersManagerImpl;
 	private PerunBl perunBl;
+	private AsyncMemberValidator asyncMemberValidator = new AsyncMemberValidator();
 
 	/**
 	 * Constructor.
@@ -1096,30 +1098,8 @@ public class MembersManagerBlImpl implements MembersManagerBl {
 		return member;
 	}
 
-	public Member validateMemberAsync(final PerunSession sess, final Member member) throws InternalErrorException {
-		new Thread(new Runnable() {
-			public void run() {
-				try {
-					Thread.sleep(5000);
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				Status oldStatus = Status.getStatus(member.getStatus().getCode());
-
-				try {
-					((PerunSessionImpl) sess).getPerunBl().getMembersManagerBl().validateMember(sess, member);
-				} catch(Exception ex) {
-					log.info("validateMemberAsync failed. Cause: {}", ex);
-					try {
-						getPerunBl().getAuditer().log(sess, "Validation of {} failed. He stays in {} state.", member, oldStatus);
-						log.info("Validation of {} failed. He stays in {} state.", member, oldStatus);
-					} catch(InternalErrorException internalError) {
-						log.error("Store message to auditer failed. message: Validation of {} failed. He stays in {} state. cause: {}", new Object[] {member, oldStatus, internalError});
-					}
-				}
-			}
-		}, "validateMemberAsync").start();
+	public Member validateMemberAsync(PerunSession sess, Member member) throws InternalErrorException {
+		getAsyncMemberValidator().validateMemberAsync(sess, member);
 		return member;
 	}
 
@@ -1160,6 +1140,24 @@ public class MembersManagerBlImpl implements MembersManagerBl {
 		return member;
 	}
 
+	public List<Member> switchMembersStatus(PerunSession sess, List<Member> members, Status oldStatus, Status newStatus) throws InternalErrorException {
+		String message;
+		if (Status.VALID.equals(oldStatus) && Status.EXPIRED.equals(newStatus)) {
+			message = "{} expired.";
+		} else if (Status.EXPIRED.equals(oldStatus) && Status.VALID.equals(newStatus)) {
+			message = "{} validated.";
+		} else {
+			throw new InternalErrorException("Members can't be switched from " + oldStatus + " to " + newStatus + " in batch.");
+		}
+
+		List<Member> switched = getMembersManagerImpl().setStatus(sess, members, oldStatus, newStatus);
+		for (Member member : switched) {
+			member.setStatus(newStatus);
+			getPerunBl().getAuditer().log(sess, message, member);
+		}
+		return switched;
+	}
+
 	public Member disableMember(PerunSession sess, Member member) throws InternalErrorException, MemberNotValidYetException {
 		if(this.haveStatus(sess, member, Status.DISABLED)) {
 			log.debug("Trying to disable member who is already disabled. " + member);
@@ -2049,5 +2047,13 @@ public class MembersManagerBlImpl implements MembersManagerBl {
 		this.perunBl = perunBl;
 	}
 
+	public AsyncMemberValidator getAsyncMemberValidator() {
+		return this.asyncMemberValidator;
+	}
+
+	public void setAsyncMemberValidator(AsyncMemberValidator asyncMemberValidator) {
+		this.asyncMemberValidator = asyncMemberValidator;
+	}
+
 
 }
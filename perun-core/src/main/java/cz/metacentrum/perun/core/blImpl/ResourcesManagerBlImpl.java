@@ -12,6 +12,7 @@ import cz.metacentrum.perun.core.api.BanOnResource;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.Group;
 import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.PerunSession;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.ResourceTag;
@@ -50,6 +51,8 @@ import cz.metacentrum.perun.core.api.exceptions.WrongReferenceAttributeValueExce
 import cz.metacentrum.perun.core.bl.AttributesManagerBl;
 import cz.metacentrum.perun.core.bl.PerunBl;
 import cz.metacentrum.perun.core.bl.ResourcesManagerBl;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
+import cz.metacentrum.perun.core.impl.ResourceMembersCache;
 import cz.metacentrum.perun.core.implApi.ResourcesManagerImplApi;
 
 /**
@@ -60,6 +63,9 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 
 	final static Logger log = LoggerFactory.getLogger(ResourcesManagerBlImpl.class);
 
+	// number of expired bans removed in one transaction
+	private static final int EXPIRED_BANS_CHUNK_SIZE = 1000;
+
 	private ResourcesManagerImplApi resourcesManagerImpl;
 	private PerunBl perunBl;
 
@@ -185,7 +191,15 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 	}
 
 	public List<User> getAllowedUsers(PerunSession sess, Resource resource) throws InternalErrorException {
-		return getResourcesManagerImpl().getAllowedUsers(sess, resource);
+		ResourceMembersCache cache = ResourceMembersCache.getInstance();
+		if (cache != null) {
+			List<User> users = cache.getAllowedUsersOfResource(resource.getId());
+			if (users != null) return users;
+		}
+
+		List<User> users = getResourcesManagerImpl().getAllowedUsers(sess, resource);
+		if (cache != null) cache.putAllowedUsersOfResource(resource.getId(), users);
+		return users;
 	}
 
 	public boolean isUserAssigned(PerunSession sess, User user, Resource resource) throws InternalErrorException {
@@ -220,15 +234,31 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 	}
 
 	public List<Member> getAllowedMembers(PerunSession sess, Resource resource) throws InternalErrorException {
-		return getResourcesManagerImpl().getAllowedMembers(sess, resource);
+		ResourceMembersCache cache = ResourceMembersCache.getInstance();
+		if (cache == null) return getResourcesManagerImpl().getAllowedMembers(sess, resource);
+
+		List<Member> members = cache.getAllowedMembers(resource.getId());
+		if (members == null) {
+			cache.putAssignedMembers(resource.getId(), getResourcesManagerImpl().getAssignedMembers(sess, resource));
+			members = cache.getAllowedMembers(resource.getId());
+		}
+		return members;
 	}
 
 	public List<Member> getAssignedMembers(PerunSession sess, Resource resource) throws InternalErrorException {
-		return getResourcesManagerImpl().getAssignedMembers(sess, resource);
+		ResourceMembersCache cache = ResourceMembersCache.getInstance();
+		if (cache != null) {
+			List<Member> members = cache.getAssignedMembers(resource.getId());
+			if (members != null) return members;
+		}
+
+		List<Member> members = getResourcesManagerImpl().getAssignedMembers(sess, resource);
+		if (cache != null) cache.putAssignedMembers(resource.getId(), members);
+		return members;
 	}
 
 	public List<RichMember> getAssignedRichMembers(PerunSession sess, Resource resource) throws InternalErrorException {
-		List<Member> listOfMembers = getResourcesManagerImpl().getAssignedMembers(sess, resource);
+		List<Member> listOfMembers = this.getAssignedMembers(sess, resource);
 		return getPerunBl().getMembersManagerBl().convertMembersToRichMembers(sess, listOfMembers);
 	}
 
@@ -690,6 +720,7 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 	public BanOnResource setBan(PerunSession sess, BanOnResource banOnResource) throws InternalErrorException, BanAlreadyExistsException {
 		if(this.banExists(sess, banOnResource.getMemberId(), banOnResource.getResourceId())) throw new BanAlreadyExistsException(banOnResource);
 		banOnResource = getResourcesManagerImpl().setBan(sess, banOnResource);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was set for memberId {} on resourceId {}.", banOnResource, banOnResource.getMemberId(), banOnResource.getResourceId());
 		return banOnResource;
 	}
@@ -726,12 +757,21 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 		return getResourcesManagerImpl().getBansForResource(sess, resourceId);
 	}
 
+	public List<BanOnResource> getBansForResourcesOfFacility(PerunSession sess, int facilityId) throws InternalErrorException {
+		return getResourcesManagerImpl().getBansForResourcesOfFacility(sess, facilityId);
+	}
+
+	public List<Pair<Resource, Member>> getAssignedResourcesWithMembers(PerunSession sess, Facility facility, User user) throws InternalErrorException {
+		return getResourcesManagerImpl().getAssignedResourcesWithMembers(sess, facility, user);
+	}
+
 	public List<BanOnResource> getAllExpiredBansOnResources(PerunSession sess) throws InternalErrorException {
 		return getResourcesManagerImpl().getAllExpiredBansOnResources(sess);
 	}
 
 	public BanOnResource updateBan(PerunSession sess, BanOnResource banOnResource) throws InternalErrorException {
 		banOnResource = getResourcesManagerImpl().updateBan(sess, banOnResource);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was updated for memberId {} on resourceId {}.",banOnResource, banOnResource.getMemberId(), banOnResource.getResourceId());
 		return banOnResource;
 	}
@@ -739,23 +779,55 @@ public class ResourcesManagerBlImpl implements ResourcesManagerBl {
 	public void removeBan(PerunSession sess, int banId) throws InternalErrorException, BanNotExistsException {
 		BanOnResource ban = this.getBanById(sess, banId);
 		getResourcesManagerImpl().removeBan(sess, banId);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was removed for memberId {} on resourceId {}.",ban, ban.getMemberId(), ban.getResourceId());
 	}
 
 	public void removeBan(PerunSession sess, int memberId, int resourceId) throws InternalErrorException, BanNotExistsException {
 		BanOnResource ban = this.getBan(sess, memberId, resourceId);
 		getResourcesManagerImpl().removeBan(sess, memberId, resourceId);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "Ban {} was removed for memberId {} on resourceId {}.",ban, memberId, resourceId);
 	}
 
 	public void removeAllExpiredBansOnResources(PerunSession sess) throws InternalErrorException {
 		List<BanOnResource> expiredBans = this.getAllExpiredBansOnResources(sess);
-		for(BanOnResource expiredBan: expiredBans) {
+		for(int i = 0; i < expiredBans.size(); i += EXPIRED_BANS_CHUNK_SIZE) {
+			// call through perunBl, so each chunk runs in its own transaction
+			getPerunBl().getResourcesManagerBl().removeBans(sess, expiredBans.subList(i, Math.min(i + EXPIRED_BANS_CHUNK_SIZE, expiredBans.size())));
+		}
+	}
+
+	public void removeBans(PerunSession sess, List<BanOnResource> bans) throws InternalErrorException {
+		if(bans.isEmpty()) return;
+		List<Integer> banIds = new ArrayList<Integer>();
+		for(BanOnResource ban: bans) {
+			banIds.add(ban.getId());
+		}
+		Set<Integer> removed = new HashSet<Integer>(getResourcesManagerImpl().removeBans(sess, banIds));
+		if(removed.size() != banIds.size()) {
+			log.warn("Only {} of {} bans on resources were removed, others probably not exist anymore.", removed.size(), banIds.size());
+		}
+		FacilityBansEvaluator.invalidate();
+		// only really removed bans are audited
+		Set<Integer> resourceIds = new HashSet<Integer>();
+		for(BanOnResource ban: bans) {
+			if(!removed.contains(ban.getId())) continue;
+			resourceIds.add(ban.getResourceId());
+			getPerunBl().getAuditer().log(sess, "Ban {} was removed for memberId {} on resourceId {}.", ban, ban.getMemberId(), ban.getResourceId());
+		}
+		if(resourceIds.isEmpty()) return;
+
+		Set<Integer> facilityIds = new HashSet<Integer>();
+		for(Resource resource: this.getResourcesByIds(sess, new ArrayList<Integer>(resourceIds))) {
+			facilityIds.add(resource.getFacilityId());
+		}
+		for(Integer facilityId: facilityIds) {
 			try {
-				this.removeBan(sess, expiredBan.getId());
-			} catch (BanNotExistsException ex) {
-				log.error("Ban {} can't be removed because it not exists yet.",expiredBan);
-				//Skipt this, probably already removed
+				Facility facility = getPerunBl().getFacilitiesManagerBl().getFacilityById(sess, facilityId);
+				getPerunBl().getAuditer().log(sess, "Expired bans on resources of {} were removed.", facility);
+			} catch (FacilityNotExistsException ex) {
+				throw new ConsistencyErrorException("Resource is assigned to non-existent facility.", ex);
 			}
 		}
 	}
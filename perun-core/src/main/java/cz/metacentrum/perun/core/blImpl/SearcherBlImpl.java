@@ -5,6 +5,7 @@ import cz.metacentrum.perun.core.api.AttributeDefinition;
 import cz.metacentrum.perun.core.api.BeansUtils;
 import cz.metacentrum.perun.core.api.Member;
 import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.exceptions.AttributeNotExistsException;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
@@ -57,10 +58,9 @@ public class SearcherBlImpl implements SearcherBl {
 			}
 		}
 
-		List<User> usersFromCoreAttributes = this.getUsersForCoreAttributesByMapOfAttributes(sess, mapOfCoreAttributesWithValues);
+		// core attributes are checked only for users matching all other attributes
 		List<User> usersFromAttributes = getSearcherImpl().getUsers(sess, mapOfAttrsWithValues);
-		usersFromAttributes.retainAll(usersFromCoreAttributes);
-		return usersFromAttributes;
+		return this.filterUsersByCoreAttributes(sess, usersFromAttributes, mapOfCoreAttributesWithValues);
 	}
 
 	public List<User> getUsersForCoreAttributes(PerunSession sess, Map<String, String> coreAttributesWithSearchingValues) throws InternalErrorException, AttributeNotExistsException, WrongAttributeAssignmentException {
@@ -78,7 +78,7 @@ public class SearcherBlImpl implements SearcherBl {
 				throw new InternalErrorException("Attribute: " + attrDef + " is not core attribute! Can't be get for users by this method.");
 			}
 		}
-		return this.getUsersForCoreAttributesByMapOfAttributes(sess, mapOfCoreAttributesWithValues);
+		return this.filterUsersByCoreAttributes(sess, users, mapOfCoreAttributesWithValues);
 	}
 
 	@Override
@@ -91,19 +91,24 @@ public class SearcherBlImpl implements SearcherBl {
 		return getSearcherImpl().getMembersByExpiration(sess, operator, date, 0);
 	}
 
+	@Override
+	public List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date, Status status) throws InternalErrorException {
+		return getSearcherImpl().getMembersByExpiration(sess, operator, date, status);
+	}
+
 	/**
-	 * This method take map of coreAttributes with search values and return all
-	 * users who have the specific match for all of these core attributes.
+	 * This method take list of users and map of coreAttributes with search values and remove
+	 * all users who don't have the specific match for all of these core attributes.
 	 *
 	 * @param sess
+	 * @param users users to filter (list is modified)
 	 * @param coreAttributesWithSearchingValues
-	 * @return
+	 * @return filtered list of users
 	 * @throws InternalErrorException
 	 * @throws AttributeNotExistsException
 	 * @throws WrongAttributeAssignmentException
 	 */
-	private List<User> getUsersForCoreAttributesByMapOfAttributes(PerunSession sess, Map<AttributeDefinition, String> coreAttributesWithSearchingValues) throws InternalErrorException, AttributeNotExistsException, WrongAttributeAssignmentException {
-		List<User> users = getPerunBl().getUsersManagerBl().getUsers(sess);
+	private List<User> filterUsersByCoreAttributes(PerunSession sess, List<User> users, Map<AttributeDefinition, String> coreAttributesWithSearchingValues) throws InternalErrorException, AttributeNotExistsException, WrongAttributeAssignmentException {
 		if(coreAttributesWithSearchingValues == null || coreAttributesWithSearchingValues.isEmpty()) return users;
 
 		Set<AttributeDefinition> keys = coreAttributesWithSearchingValues.keySet();
@@ -21,6 +21,7 @@ import cz.metacentrum.perun.core.api.exceptions.UserAlreadyRemovedException;
 import cz.metacentrum.perun.core.api.exceptions.UserNotAdminException;
 import cz.metacentrum.perun.core.bl.PerunBl;
 import cz.metacentrum.perun.core.bl.SecurityTeamsManagerBl;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
 import cz.metacentrum.perun.core.implApi.SecurityTeamsManagerImplApi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -161,18 +162,21 @@ public class SecurityTeamsManagerBlImpl implements SecurityTeamsManagerBl {
 	@Override
 	public void addUserToBlacklist(PerunSession sess, SecurityTeam securityTeam, User user, String description) throws InternalErrorException {
 		getSecurityTeamsManagerImpl().addUserToBlacklist(sess, securityTeam, user, description);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "{} add to blacklist of {} with description '{}'.", user, securityTeam, description);
 	}
 
 	@Override
 	public void removeUserFromBlacklist(PerunSession sess, SecurityTeam securityTeam, User user) throws InternalErrorException {
 		getSecurityTeamsManagerImpl().removeUserFromBlacklist(sess, securityTeam, user);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "{} remove from blacklist of {}.", user, securityTeam);
 	}
 
 	@Override
 	public void removeUserFromAllBlacklists(PerunSession sess, User user) throws InternalErrorException {
 		getSecurityTeamsManagerImpl().removeUserFromAllBlacklists(sess, user);
+		FacilityBansEvaluator.invalidate();
 		getPerunBl().getAuditer().log(sess, "{} remove from all blacklists.", user);
 	}
 
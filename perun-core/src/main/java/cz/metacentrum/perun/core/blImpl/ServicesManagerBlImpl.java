@@ -1,12 +1,28 @@
 package cz.metacentrum.perun.core.blImpl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import cz.metacentrum.perun.core.api.Attribute;
 import cz.metacentrum.perun.core.api.AttributeDefinition;
@@ -62,6 +78,10 @@ public class ServicesManagerBlImpl implements ServicesManagerBl {
 
 	private ServicesManagerImplApi servicesManagerImpl;
 	private PerunBl perunBl;
+	private PlatformTransactionManager transactionManager;
+	// number of threads building data of VOs in getDataWithVos(), 1 means sequentially in the calling thread
+	private int dataWorkers = 1;
+	private ExecutorService dataExecutor;
 
 	public ServicesManagerBlImpl(ServicesManagerImplApi servicesManagerImpl) {
 		this.servicesManagerImpl = servicesManagerImpl;
@@ -339,16 +359,126 @@ public class ServicesManagerBlImpl implements ServicesManagerBl {
 			vos.add(getPerunBl().getVosManagerBl().getVoById(sess, voId));
 		}
 
+		Map<Vo, List<Resource>> resourcesOfVos = new HashMap<>();
 		for(Vo vo: vos) {
 			List<Resource> voResources = getPerunBl().getResourcesManagerBl().getResources(sess, vo);
 			voResources.retainAll(resources);
-			ServiceAttributes voServiceAttributes = getDataWithVo(sess, service, facility, vo, voResources);
-			serviceAttributes.addChildElement(voServiceAttributes);
+			resourcesOfVos.put(vo, voResources);
+		}
+
+		if(vos.size() > 1 && dataWorkers > 1 && transactionManager != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			// data of VOs are independent, children are added in the same order as in sequential run
+			for(ServiceAttributes voServiceAttributes : getDataWithVosInParallel(sess, service, facility, vos, resourcesOfVos)) {
+				serviceAttributes.addChildElement(voServiceAttributes);
+			}
+		} else {
+			for(Vo vo: vos) {
+				ServiceAttributes voServiceAttributes = getDataWithVo(sess, service, facility, vo, resourcesOfVos.get(vo));
+				serviceAttributes.addChildElement(voServiceAttributes);
+			}
 		}
 		
 		return serviceAttributes;
 	}
 
+	/**
+	 * Build data of VOs in worker threads and in the calling thread, workers use own read-only transactions.
+	 * Threads take VOs in turns, so when all workers are busy with other facilities, calling thread builds
+	 * all data itself like in sequential run.
+	 *
+	 * It is used only when calling transaction is read-only, so it has no uncommitted changes, which workers wouldn't see.
+	 *
+	 * @return data of VOs in the same order as vos
+	 */
+	private List<ServiceAttributes> getDataWithVosInParallel(final PerunSession sess, final Service service, final Facility facility, final List<Vo> vos, final Map<Vo, List<Resource>> resourcesOfVos) throws InternalErrorException {
+		final ServiceAttributes[] vosServiceAttributes = new ServiceAttributes[vos.size()];
+		// index of next VO to build
+		final AtomicInteger nextVo = new AtomicInteger();
+
+		List<Future<Void>> futures = new ArrayList<>();
+		for(int i = 1; i < vos.size(); i++) {
+			try {
+				futures.add(getDataExecutor().submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						// calling thread could build all data meanwhile
+						if(nextVo.get() >= vos.size()) return null;
+						DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+						definition.setReadOnly(true);
+						TransactionStatus status = transactionManager.getTransaction(definition);
+						try {
+							buildDataWithVos(sess, service, facility, vos, resourcesOfVos, nextVo, vosServiceAttributes);
+						} finally {
+							// nothing to commit, transaction was read-only
+							transactionManager.rollback(status);
+						}
+						return null;
+					}
+				}));
+			} catch (RejectedExecutionException ex) {
+				// all workers are busy, rest of VOs is built by calling thread
+				break;
+			}
+		}
+
+		try {
+			buildDataWithVos(sess, service, facility, vos, resourcesOfVos, nextVo, vosServiceAttributes);
+			for(Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(ex);
+		} catch (ExecutionException ex) {
+			if(ex.getCause() instanceof InternalErrorException) throw (InternalErrorException) ex.getCause();
+			throw new InternalErrorException(ex.getCause());
+		} finally {
+			// stop workers, if building failed
+			nextVo.set(vos.size());
+			for(Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return Arrays.asList(vosServiceAttributes);
+	}
+
+	/**
+	 * Build data of VOs taken in turns with other threads until all VOs are taken.
+	 */
+	private void buildDataWithVos(PerunSession sess, Service service, Facility facility, List<Vo> vos, Map<Vo, List<Resource>> resourcesOfVos, AtomicInteger nextVo, ServiceAttributes[] vosServiceAttributes) throws InternalErrorException {
+		for(int i = nextVo.getAndIncrement(); i < vos.size(); i = nextVo.getAndIncrement()) {
+			Vo vo = vos.get(i);
+			vosServiceAttributes[i] = getDataWithVo(sess, service, facility, vo, resourcesOfVos.get(vo));
+		}
+	}
+
+	/**
+	 * Workers are not queued, task which doesn't get idle worker is rejected and built by calling thread.
+	 */
+	private synchronized ExecutorService getDataExecutor() {
+		if (dataExecutor == null) {
+			dataExecutor = new ThreadPoolExecutor(dataWorkers, dataWorkers, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "getDataWithVos-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			((ThreadPoolExecutor) dataExecutor).allowCoreThreadTimeOut(true);
+		}
+		return dataExecutor;
+	}
+
+	/**
+	 * Stop worker threads building data of VOs.
+	 */
+	public synchronized void shutdown() {
+		if (dataExecutor != null) {
+			dataExecutor.shutdownNow();
+		}
+	}
+
 	public ServiceAttributes getDataWithGroups(PerunSession sess, Service service, Facility facility) throws InternalErrorException {
 		ServiceAttributes serviceAttributes = new ServiceAttributes();
 		serviceAttributes.addAttributes(getPerunBl().getAttributesManagerBl().getRequiredAttributes(sess, service, facility));
@@ -623,6 +753,17 @@ public class ServicesManagerBlImpl implements ServicesManagerBl {
 		this.perunBl = perunBl;
 	}
 
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionManager = transactionManager;
+	}
+
+	/**
+	 * @param dataWorkers number of threads building data of VOs in getDataWithVos() in parallel, 1 disables parallel build
+	 */
+	public void setDataWorkers(int dataWorkers) {
+		this.dataWorkers = dataWorkers;
+	}
+
 	@Override
 	public List<Destination> addDestinationsForAllServicesOnFacility(PerunSession sess, Facility facility, Destination destination)
 	throws InternalErrorException, DestinationAlreadyAssignedException {
@@ -1709,6 +1709,17 @@ public class UsersManagerBlImpl implements UsersManagerBl {
 
 	}
 
+	public List<RichUser> findRichUsersWithAttributes(PerunSession sess, String searchString, List<String> attrsName, int maxResults) throws InternalErrorException, UserNotExistsException {
+
+		List<User> users = getUsersManagerImpl().findUsers(sess, searchString, maxResults);
+		if(attrsName == null || attrsName.isEmpty()) {
+			return convertRichUsersToRichUsersWithAttributes(sess, convertUsersToRichUsers(sess, users));
+		} else {
+			return convertUsersToRichUsersWithAttributesByNames(sess, users, attrsName);
+		}
+
+	}
+
 	public List<RichUser> findRichUsersWithAttributesByExactMatch(PerunSession sess, String searchString, List<String> attrsName) throws InternalErrorException, UserNotExistsException {
 
 		if(attrsName == null || attrsName.isEmpty()) {
@@ -1719,6 +1730,17 @@ public class UsersManagerBlImpl implements UsersManagerBl {
 
 	}
 
+	public List<RichUser> findSimilarRichUsersWithAttributes(PerunSession sess, List<String> searchStrings, List<String> attrsName) throws InternalErrorException, UserNotExistsException {
+
+		List<User> users = getUsersManagerImpl().findSimilarUsers(sess, searchStrings);
+		if(attrsName == null || attrsName.isEmpty()) {
+			return convertRichUsersToRichUsersWithAttributes(sess, convertUsersToRichUsers(sess, users));
+		} else {
+			return convertUsersToRichUsersWithAttributesByNames(sess, users, attrsName);
+		}
+
+	}
+
 	public List<RichUser> findRichUsersWithoutSpecificVoWithAttributes(PerunSession sess, Vo vo, String searchString, List<String> attrsName) throws InternalErrorException, UserNotExistsException, VoNotExistsException{
 
 		if(attrsName == null || attrsName.isEmpty()) {
@@ -0,0 +1,220 @@
+package cz.metacentrum.perun.core.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import cz.metacentrum.perun.core.bl.PerunBl;
+
+/**
+ * Runs asynchronous validation of members in the bounded pool of worker threads.
+ *
+ * Validation starts after the delay, so the transaction which requested it can be committed.
+ * Each member is queued only once, requests for the member already waiting for validation are coalesced.
+ * Request for the member, whose validation is already running, queues new validation.
+ *
+ * Pool size and delay are set in perun-core.xml.
+ */
+public class AsyncMemberValidator {
+
+	private final static Logger log = LoggerFactory.getLogger(AsyncMemberValidator.class);
+
+	// weight of the last latency in its moving average
+	private static final double LATENCY_WEIGHT = 0.1;
+
+	private int poolSize = 5;
+	private long delay = 5000;
+	private ScheduledThreadPoolExecutor executor;
+
+	// member ID -> validation waiting in the queue
+	private final ConcurrentMap<Integer, PendingValidation> pendingValidations = new ConcurrentHashMap<Integer, PendingValidation>();
+	private final AtomicLong requestedValidations = new AtomicLong();
+	private final AtomicLong coalescedValidations = new AtomicLong();
+	private final AtomicLong failedValidations = new AtomicLong();
+	private long finishedValidations = 0;
+	private double averageLatency = 0;
+	private long maxLatency = 0;
+
+	/**
+	 * Queue validation of the member. Member is validated by validateMember() of MembersManagerBl,
+	 * if validation fails, it is logged to auditer and member stays in its state.
+	 *
+	 * @param sess session used for validation
+	 * @param member member to validate
+	 */
+	public void validateMemberAsync(PerunSession sess, Member member) {
+		requestedValidations.incrementAndGet();
+		final int memberId = member.getId();
+		if (pendingValidations.putIfAbsent(memberId, new PendingValidation(sess, member)) != null) {
+			coalescedValidations.incrementAndGet();
+			log.debug("Validation of {} is already waiting, request coalesced.", member);
+			return;
+		}
+		getExecutor().schedule(new Runnable() {
+			public void run() {
+				validate(memberId);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void validate(int memberId) {
+		// requests coming from now on will queue new validation
+		PendingValidation validation = pendingValidations.remove(memberId);
+		if (validation == null) return;
+
+		PerunSession sess = validation.sess;
+		Member member = validation.member;
+		PerunBl perunBl = ((PerunSessionImpl) sess).getPerunBl();
+		Status oldStatus = Status.getStatus(member.getStatus().getCode());
+
+		try {
+			perunBl.getMembersManagerBl().validateMember(sess, member);
+		} catch(Exception ex) {
+			failedValidations.incrementAndGet();
+			log.info("validateMemberAsync failed. Cause: {}", ex);
+			try {
+				perunBl.getAuditer().log(sess, "Validation of {} failed. He stays in {} state.", member, oldStatus);
+				log.info("Validation of {} failed. He stays in {} state.", member, oldStatus);
+			} catch(InternalErrorException internalError) {
+				log.error("Store message to auditer failed. message: Validation of {} failed. He stays in {} state. cause: {}", new Object[] {member, oldStatus, internalError});
+			}
+		}
+
+		long latency = System.currentTimeMillis() - validation.requested;
+		synchronized (this) {
+			finishedValidations++;
+			averageLatency = finishedValidations == 1 ? latency : averageLatency + LATENCY_WEIGHT * (latency - averageLatency);
+			if (latency > maxLatency) maxLatency = latency;
+		}
+		log.debug("Validation of {} finished in {} ms, {} validations are waiting.", new Object[] {member, latency, pendingValidations.size()});
+	}
+
+	private synchronized ScheduledThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			executor = new ScheduledThreadPoolExecutor(poolSize, new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "validateMemberAsync-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Stop worker threads, waiting validations are dropped.
+	 */
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			if (!pendingValidations.isEmpty()) {
+				log.warn("Shutting down, {} waiting validations of members are dropped.", pendingValidations.size());
+			}
+		}
+	}
+
+	/**
+	 * @return number of members waiting for validation
+	 */
+	public int getQueueSize() {
+		return pendingValidations.size();
+	}
+
+	/**
+	 * @return number of validations running right now
+	 */
+	public synchronized int getRunningValidations() {
+		return executor == null ? 0 : executor.getActiveCount();
+	}
+
+	/**
+	 * @return number of all requested validations, including coalesced ones
+	 */
+	public long getRequestedValidations() {
+		return requestedValidations.get();
+	}
+
+	/**
+	 * @return number of requests, which were merged with validation already waiting in the queue
+	 */
+	public long getCoalescedValidations() {
+		return coalescedValidations.get();
+	}
+
+	/**
+	 * @return number of failed validations
+	 */
+	public long getFailedValidations() {
+		return failedValidations.get();
+	}
+
+	/**
+	 * @return number of finished (successful or failed) validations
+	 */
+	public synchronized long getFinishedValidations() {
+		return finishedValidations;
+	}
+
+	/**
+	 * @return moving average of time in milliseconds from request to the end of validation
+	 */
+	public synchronized long getAverageLatency() {
+		return Math.round(averageLatency);
+	}
+
+	/**
+	 * @return max time in milliseconds from request to the end of validation
+	 */
+	public synchronized long getMaxLatency() {
+		return maxLatency;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * @param poolSize max number of validations running at once
+	 */
+	public synchronized void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+		if (executor != null) executor.setCorePoolSize(poolSize);
+	}
+
+	public long getDelay() {
+		return delay;
+	}
+
+	/**
+	 * @param delay time in milliseconds between request and start of the validation
+	 */
+	public void setDelay(long delay) {
+		this.delay = delay;
+	}
+
+	private static class PendingValidation {
+		private final PerunSession sess;
+		private final Member member;
+		private final long requested = System.currentTimeMillis();
+
+		PendingValidation(PerunSession sess, Member member) {
+			this.sess = sess;
+			this.member = member;
+		}
+	}
+
+}
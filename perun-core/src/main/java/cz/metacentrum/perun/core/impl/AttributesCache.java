@@ -0,0 +1,146 @@
+package cz.metacentrum.perun.core.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cz.metacentrum.perun.core.api.Attribute;
+import cz.metacentrum.perun.core.api.AttributeDefinition;
+import cz.metacentrum.perun.core.api.PerunSession;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Attributes and attribute definitions read by one PerunSession in current transaction.
+ *
+ * Virtual attribute modules read the same attributes (e.g. uid-namespace of facility) again for every
+ * evaluated user. AttributesManagerBl stores read values of non-virtual (def and opt) attributes and
+ * attribute definitions here and serves repeated reads from memory.
+ *
+ * Cache lives until the end of transaction. Every write of attribute or attribute definition
+ * and rollback to savepoint must call invalidate(). Out of transaction nothing is cached.
+ * Stored and returned attributes are copies, so callers can modify them freely.
+ */
+public class AttributesCache {
+
+	// key of transaction resource with caches of sessions
+	private static final Object TRANSACTION_KEY = AttributesCache.class;
+
+	private final Map<String, Attribute> attributes = new HashMap<String, Attribute>();
+	private final Map<String, AttributeDefinition> definitionsByName = new HashMap<String, AttributeDefinition>();
+	private final Map<Integer, AttributeDefinition> definitionsById = new HashMap<Integer, AttributeDefinition>();
+
+	private AttributesCache() {
+	}
+
+	/**
+	 * Return cache of session for current transaction.
+	 *
+	 * @param sess
+	 * @return cache or null if there is no transaction
+	 */
+	public static AttributesCache getInstance(PerunSession sess) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+
+		@SuppressWarnings("unchecked")
+		Map<PerunSession, AttributesCache> caches = (Map<PerunSession, AttributesCache>) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (caches == null) {
+			caches = new IdentityHashMap<PerunSession, AttributesCache>();
+			TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, caches);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+				}
+			});
+		}
+
+		AttributesCache cache = caches.get(sess);
+		if (cache == null) {
+			cache = new AttributesCache();
+			caches.put(sess, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Forget everything cached in current transaction (by all sessions).
+	 */
+	public static void invalidate() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+		@SuppressWarnings("unchecked")
+		Map<PerunSession, AttributesCache> caches = (Map<PerunSession, AttributesCache>) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (caches != null) caches.clear();
+	}
+
+	/**
+	 * Only values of def and opt attributes are stored in DB, values of core and virtual
+	 * attributes are computed from entity or by module on each read.
+	 *
+	 * @param attributeName full name of attribute
+	 * @return true if value of attribute can be cached
+	 */
+	public static boolean isCacheable(String attributeName) {
+		return attributeName.contains(":attribute-def:def:") || attributeName.contains(":attribute-def:opt:");
+	}
+
+	/**
+	 * Key of attribute of entity (or entities), e.g. attribute name and IDs of facility and user.
+	 *
+	 * @param attributeName full name of attribute
+	 * @param holders IDs (or key of entityless attribute) of attribute holders in fixed order
+	 * @return key of attribute value
+	 */
+	public static String getKey(String attributeName, Object... holders) {
+		StringBuilder key = new StringBuilder(attributeName);
+		for (Object holder : holders) {
+			key.append('|').append(holder);
+		}
+		return key.toString();
+	}
+
+	public Attribute getAttribute(String key) {
+		Attribute attribute = attributes.get(key);
+		return attribute == null ? null : copy(attribute);
+	}
+
+	public void putAttribute(String key, Attribute attribute) {
+		attributes.put(key, copy(attribute));
+	}
+
+	public AttributeDefinition getAttributeDefinition(String attributeName) {
+		AttributeDefinition attributeDefinition = definitionsByName.get(attributeName);
+		return attributeDefinition == null ? null : new AttributeDefinition(attributeDefinition);
+	}
+
+	public AttributeDefinition getAttributeDefinition(int id) {
+		AttributeDefinition attributeDefinition = definitionsById.get(id);
+		return attributeDefinition == null ? null : new AttributeDefinition(attributeDefinition);
+	}
+
+	public void putAttributeDefinition(AttributeDefinition attributeDefinition) {
+		AttributeDefinition copy = new AttributeDefinition(attributeDefinition);
+		definitionsByName.put(copy.getName(), copy);
+		definitionsById.put(copy.getId(), copy);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Attribute copy(Attribute attribute) {
+		Attribute copy = new Attribute(attribute);
+		Object value = attribute.getValue();
+		if (value instanceof ArrayList) {
+			value = new ArrayList<Object>((ArrayList<Object>) value);
+		} else if (value instanceof LinkedHashMap) {
+			value = new LinkedHashMap<Object, Object>((LinkedHashMap<Object, Object>) value);
+		}
+		copy.setValue(value);
+		copy.setValueCreatedAt(attribute.getValueCreatedAt());
+		copy.setValueCreatedBy(attribute.getValueCreatedBy());
+		copy.setValueModifiedAt(attribute.getValueModifiedAt());
+		copy.setValueModifiedBy(attribute.getValueModifiedBy());
+		return copy;
+	}
+
+}
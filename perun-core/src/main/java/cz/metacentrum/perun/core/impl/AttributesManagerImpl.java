@@ -26,6 +26,7 @@ import org.springframework.dao.EmptyResultDataAccessException;
 
 import org.springframework.jdbc.core.JdbcPerunTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -135,6 +136,10 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 
 	//Attributes modules.  name => module
 	private Map<String, AttributesModuleImplApi> attributesModulesMap = new ConcurrentHashMap<String, AttributesModuleImplApi>();
+	//Names of modules which don't exist, so their classes are not looked up again
+	private Set<String> missingModules = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	//Modules resolved for attribute definitions.  attribute id => module (or NO_MODULE)
+	private Map<Integer, ResolvedModule> resolvedModules = new ConcurrentHashMap<Integer, ResolvedModule>();
 
 	private AttributesManagerImplApi self;
 
@@ -1516,47 +1521,151 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 
 	@Override
 	public boolean setAttribute(final PerunSession sess, final Object object, final Attribute attribute) throws InternalErrorException, WrongAttributeAssignmentException {
-		String tableName;
-		String columnName;
-		Object identificator;
-		String namespace;
-
-		// check whether the object is String or Perun Bean:
-		if (object instanceof String) {
-			tableName = "entityless_attr_values";
-			columnName = "subject";
-			identificator = (String) object;
-			namespace = AttributesManager.NS_ENTITYLESS_ATTR;
-		} else if (object instanceof PerunBean) {
-			PerunBean bean = (PerunBean) object;
-			String name = bean.getBeanName().toLowerCase();
-			// same behaviour for rich objects as for the simple ones -> cut off "rich" prefix
-			if (name.startsWith("rich")) {
-				name = name.replaceFirst("rich", "");
-			}
-			// get namespace of the perun bean
-			namespace = NAMESPACES_BEANS_MAP.get(name);
-			if (namespace == null) {
-				// perun bean is not in the namespace map
-				throw new InternalErrorException(new IllegalArgumentException("Setting attribute for perun bean " + bean + " is not allowed."));
-			}
-			tableName = name + "_attr_values";
-			columnName = name + "_id";
-			identificator = bean.getId();
-		} else {
-			throw new InternalErrorException(new IllegalArgumentException("Object " + object + " must be either String or PerunBean."));
-		}
+		AttributeHolderTable holder = new AttributeHolderTable(object);
 
 		// check that given object is consistent with the attribute
-		checkNamespace(sess, attribute, namespace);
+		checkNamespace(sess, attribute, holder.namespace);
 
 		// create map of parameters for the where clause of the SQL query
 		Map<String,Object> params = new HashMap<>();
 		params.put("attr_id", attribute.getId());
-		params.put(columnName, identificator);
+		params.put(holder.columnName, holder.identificator);
 
 		// save attribute
-		return setAttributeInDB(sess, attribute, tableName, params);
+		return setAttributeInDB(sess, attribute, holder.tableName, params);
+	}
+
+	@Override
+	public List<Attribute> setAttributes(final PerunSession sess, final Object object, final List<Attribute> attributes) throws InternalErrorException, WrongAttributeAssignmentException {
+		final AttributeHolderTable holder = new AttributeHolderTable(object);
+		checkNamespace(sess, attributes, holder.namespace);
+
+		List<Attribute> changed = new ArrayList<>();
+		// values of large attributes are not compared and removed values are just deleted, so they are stored one by one
+		final Map<Integer, Attribute> attributesToStore = new LinkedHashMap<>();
+		for (Attribute attribute : attributes) {
+			if (attribute.getValue() == null || isLargeAttribute(sess, attribute)) {
+				if (setAttribute(sess, object, attribute)) changed.add(attribute);
+			} else {
+				attributesToStore.put(attribute.getId(), attribute);
+			}
+		}
+		if (attributesToStore.isEmpty()) return changed;
+
+		// current values of all attributes by one query
+		final Map<Integer, List<String>> storedValues = new HashMap<>();
+		try {
+			MapSqlParameterSource parameters = new MapSqlParameterSource();
+			parameters.addValue("holderId", holder.identificator);
+			parameters.addValue("attrIds", new ArrayList<>(attributesToStore.keySet()));
+			namedParameterJdbcTemplate.query("select attr_id, attr_value from " + holder.tableName + " where " + holder.columnName + "=:holderId and attr_id in (:attrIds)",
+					parameters, new RowCallbackHandler() {
+						@Override
+						public void processRow(ResultSet rs) throws SQLException {
+							int attrId = rs.getInt("attr_id");
+							if (!storedValues.containsKey(attrId)) storedValues.put(attrId, new ArrayList<String>());
+							storedValues.get(attrId).add(rs.getString("attr_value"));
+						}
+					});
+		} catch (RuntimeException e) {
+			throw new InternalErrorException(e);
+		}
+
+		List<Attribute> attributesToInsert = new ArrayList<>();
+		List<Attribute> attributesToUpdate = new ArrayList<>();
+		for (Attribute attribute : attributesToStore.values()) {
+			List<String> values = storedValues.get(attribute.getId());
+			if (values == null) {
+				attributesToInsert.add(attribute);
+			} else if (values.size() > 1) {
+				throw new ConsistencyErrorException("Attribute id " + attribute.getId() + " for " + holder.tableName + " with " + holder.columnName + "=" + holder.identificator + " is more than once in DB.");
+			} else if (!attribute.getValue().equals(BeansUtils.stringToAttributeValue(values.get(0), attribute.getType()))) {
+				attributesToUpdate.add(attribute);
+			}
+		}
+
+		boolean inserted = false;
+		try {
+			self.insertAttributes(sess, attributesToInsert, holder.tableName, holder.columnName, holder.identificator);
+			// inserted values stay in DB even if update fails, so they must be reported as changed
+			changed.addAll(attributesToInsert);
+			inserted = true;
+			self.updateAttributes(sess, attributesToUpdate, holder.tableName, holder.columnName, holder.identificator);
+			changed.addAll(attributesToUpdate);
+		} catch (DataAccessException ex) {
+			// values were changed concurrently (batch was rolled back), store them one by one with retries
+			log.debug("Batch store of attributes of {} failed, storing them one by one: {}", object, ex.getMessage());
+			if (!inserted) {
+				for (Attribute attribute : attributesToInsert) {
+					if (setAttribute(sess, object, attribute)) changed.add(attribute);
+				}
+			}
+			for (Attribute attribute : attributesToUpdate) {
+				if (setAttribute(sess, object, attribute)) changed.add(attribute);
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public void insertAttributes(PerunSession sess, List<Attribute> attributes, String tableName, String columnName, Object identificator) throws InternalErrorException {
+		if (attributes.isEmpty()) return;
+		List<Object[]> values = new ArrayList<>(attributes.size());
+		for (Attribute attribute : attributes) {
+			values.add(new Object[] { attribute.getId(), identificator, BeansUtils.attributeValueToString(attribute),
+					sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getUserId(), sess.getPerunPrincipal().getUserId() });
+		}
+		jdbc.batchUpdate("insert into " + tableName + " (attr_id, " + columnName + ", attr_value, created_by, modified_by, created_by_uid, modified_by_uid, modified_at, created_at) "
+				+ "values (?,?,?,?,?,?,?," + Compatibility.getSysdate() + ", " + Compatibility.getSysdate() + " )", values);
+	}
+
+	@Override
+	public void updateAttributes(PerunSession sess, List<Attribute> attributes, String tableName, String columnName, Object identificator) throws InternalErrorException {
+		if (attributes.isEmpty()) return;
+		List<Object[]> values = new ArrayList<>(attributes.size());
+		for (Attribute attribute : attributes) {
+			values.add(new Object[] { BeansUtils.attributeValueToString(attribute), sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getUserId(),
+					attribute.getId(), identificator });
+		}
+		jdbc.batchUpdate("update " + tableName + " set attr_value=?, modified_by=?, modified_by_uid=?, modified_at=" + Compatibility.getSysdate() +
+				" where attr_id=? and " + columnName + "=?", values);
+	}
+
+	/**
+	 * Table with values of attributes of one perun bean (or entityless attributes of one key).
+	 */
+	private static class AttributeHolderTable {
+		private final String tableName;
+		private final String columnName;
+		private final Object identificator;
+		private final String namespace;
+
+		AttributeHolderTable(Object object) throws InternalErrorException {
+			if (object instanceof String) {
+				tableName = "entityless_attr_values";
+				columnName = "subject";
+				identificator = (String) object;
+				namespace = AttributesManager.NS_ENTITYLESS_ATTR;
+			} else if (object instanceof PerunBean) {
+				PerunBean bean = (PerunBean) object;
+				String name = bean.getBeanName().toLowerCase();
+				// same behaviour for rich objects as for the simple ones -> cut off "rich" prefix
+				if (name.startsWith("rich")) {
+					name = name.replaceFirst("rich", "");
+				}
+				// get namespace of the perun bean
+				namespace = NAMESPACES_BEANS_MAP.get(name);
+				if (namespace == null) {
+					// perun bean is not in the namespace map
+					throw new InternalErrorException(new IllegalArgumentException("Setting attribute for perun bean " + bean + " is not allowed."));
+				}
+				tableName = name + "_attr_values";
+				columnName = name + "_id";
+				identificator = bean.getId();
+			} else {
+				throw new InternalErrorException(new IllegalArgumentException("Object " + object + " must be either String or PerunBean."));
+			}
+		}
 	}
 
 	@Override
@@ -1817,6 +1926,7 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 
 	public void deleteAttribute(PerunSession sess, AttributeDefinition attribute) throws InternalErrorException {
 		//TODO prevest do BL?
+		resolvedModules.remove(attribute.getId());
 		try {
 			jdbc.update("delete from facility_attr_values where attr_id=?", attribute.getId());
 			jdbc.update("delete from resource_attr_values where attr_id=?", attribute.getId());
@@ -3704,6 +3814,25 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 	 * @see AttributesManagerImpl#getAttributesModule(cz.metacentrum.perun.core.api.PerunSession, String)
 	 */
 	public Object getAttributesModule(PerunSession sess, AttributeDefinition attribute) throws InternalErrorException {
+		// attributes not stored in DB can't be bound to module by id
+		if(attribute.getId() <= 0) return resolveAttributesModule(sess, attribute);
+
+		ResolvedModule resolved = resolvedModules.get(attribute.getId());
+		if(resolved == null || !resolved.isFor(attribute)) {
+			resolved = new ResolvedModule(attribute, resolveAttributesModule(sess, attribute));
+			resolvedModules.put(attribute.getId(), resolved);
+		}
+		return resolved.module;
+	}
+
+	/**
+	 * Find the attribute module for the attribute by its name.
+	 *
+	 * @param attribute find the attribute module for this attribute
+	 * @return instance of attribute module or null if the module doesn't exist
+	 * @throws InternalErrorException
+	 */
+	private Object resolveAttributesModule(PerunSession sess, AttributeDefinition attribute) throws InternalErrorException {
 		String moduleName = null;
 		//first try to find specific module including parameter of attribute (full friendly name)
 		if(!attribute.getFriendlyName().equals(attribute.getBaseFriendlyName())) {
@@ -3730,7 +3859,9 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 	 */
 	private Object getAttributesModule(PerunSession sess, String moduleName) throws InternalErrorException {
 		//try to get already loaded module.
-		if(attributesModulesMap.containsKey(moduleName)) return attributesModulesMap.get(moduleName);
+		AttributesModuleImplApi loadedModule = attributesModulesMap.get(moduleName);
+		if(loadedModule != null) return loadedModule;
+		if(missingModules.contains(moduleName)) return null;
 
 		try {
 			Class<?> moduleClass = classLoader.loadClass(moduleName);
@@ -3740,6 +3871,7 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 			return module;
 		} catch(ClassNotFoundException ex) {
 			//attrribute module don't exist
+			missingModules.add(moduleName);
 			return null;
 		} catch(InstantiationException ex) {
 			throw new InternalErrorException("Attribute module " + moduleName + " cannot be instaciated.", ex);
@@ -3749,6 +3881,26 @@ public class AttributesManagerImpl implements AttributesManagerImplApi {
 
 	}
 
+	/**
+	 * Attribute module bound to the attribute definition (module is null if attribute has no module).
+	 */
+	private static class ResolvedModule {
+		private final String namespace;
+		private final String friendlyName;
+		private final Object module;
+
+		ResolvedModule(AttributeDefinition attribute, Object module) {
+			this.namespace = attribute.getNamespace();
+			this.friendlyName = attribute.getFriendlyName();
+			this.module = module;
+		}
+
+		// id of deleted attribute is not reused, but check the name to be sure
+		boolean isFor(AttributeDefinition attribute) {
+			return friendlyName.equals(attribute.getFriendlyName()) && namespace.equals(attribute.getNamespace());
+		}
+	}
+
 	protected void initialize() throws InternalErrorException {
 		log.debug("AttributesManagerImpl initialize started.");
 
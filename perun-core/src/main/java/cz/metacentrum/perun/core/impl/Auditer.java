@@ -477,6 +477,24 @@ public class Auditer {
 		return messages;
 	}
 
+	/**
+	 * Get all stored (not flushed) messages of current thread including messages
+	 * of nested transactions. Unlike getMessages(), it doesn't start new top-level transaction.
+	 *
+	 * @return list of messages, empty if there are none
+	 */
+	public List<AuditerMessage> getPendingMessages() {
+		List<AuditerMessage> pendingMessages = new ArrayList<AuditerMessage>();
+		List<List<List<AuditerMessage>>> topLevelTransactions = (List<List<List<AuditerMessage>>>) TransactionSynchronizationManager.getResource(this);
+		if (topLevelTransactions == null) return pendingMessages;
+		for (List<List<AuditerMessage>> transactionChain : topLevelTransactions) {
+			for (List<AuditerMessage> messages : transactionChain) {
+				pendingMessages.addAll(messages);
+			}
+		}
+		return pendingMessages;
+	}
+
 	public List<AuditMessage> getMessages(int count) throws InternalErrorException {
 		try {
 			return jdbc.query("select " + auditMessageMappingSelectQuery + " from (select " + auditMessageMappingSelectQuery + Compatibility.getRowNumberOver() + " from auditer_log) "+Compatibility.getAsAlias("temp")+" where rownumber <= ?",
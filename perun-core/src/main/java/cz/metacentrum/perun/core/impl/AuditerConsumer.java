@@ -2,6 +2,7 @@ package cz.metacentrum.perun.core.impl;
 
 import cz.metacentrum.perun.core.api.AuditMessage;
 import cz.metacentrum.perun.core.api.Pair;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcPerunTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
@@ -40,6 +42,13 @@ public class AuditerConsumer {
 		}
 	};
 
+	private static final RowMapper<Pair<String,Integer>> AUDITER_FULL_LOG_MAPPER_WITH_ID = new RowMapper<Pair<String, Integer>>() {
+		public Pair<String, Integer> mapRow(ResultSet rs, int i) throws SQLException {
+			AuditMessage auditMessage = Auditer.AUDITMESSAGE_MAPPER.mapRow(rs, i);
+			return new Pair<String, Integer>(auditMessage.getFullMessage(), auditMessage.getId());
+		}
+	};
+
 	private static final RowMapper<String> AUDITER_LOG_MAPPER = new RowMapper<String>() {
 		public String mapRow(ResultSet rs, int i) throws SQLException {
 			AuditMessage auditMessage = Auditer.AUDITMESSAGE_MAPPER.mapRow(rs, i);
@@ -142,4 +151,48 @@ public class AuditerConsumer {
 			throw new InternalErrorException(ex);
 		}
 	}
+
+	/**
+	 * Get at most maxCount full messages with IDs following the message with afterId. Position of the consumer
+	 * is not changed, call setLastProcessedId() once the messages are processed.
+	 *
+	 * @param afterId ID of the last already read message
+	 * @param maxCount max number of returned messages
+	 * @return messages ordered by their IDs
+	 * @throws InternalErrorException
+	 */
+	public List<Pair<String, Integer>> getFullMessagesWithId(final int afterId, final int maxCount) throws InternalErrorException {
+		try {
+			return jdbc.query("select " + Auditer.auditMessageMappingSelectQuery + " from auditer_log where id > ? order by id", new PreparedStatementSetter() {
+				public void setValues(PreparedStatement ps) throws SQLException {
+					ps.setInt(1, afterId);
+					ps.setMaxRows(maxCount);
+				}
+			}, AUDITER_FULL_LOG_MAPPER_WITH_ID);
+		} catch(Exception ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
+	/**
+	 * @return ID of the last message processed by this consumer
+	 */
+	public int getLastProcessedId() {
+		return lastProcessedId;
+	}
+
+	/**
+	 * Store ID of the last message processed by this consumer.
+	 *
+	 * @param lastProcessedId ID of the last processed message
+	 * @throws InternalErrorException
+	 */
+	public void setLastProcessedId(int lastProcessedId) throws InternalErrorException {
+		try {
+			jdbc.update("update auditer_consumers set last_processed_id=?, modified_at=" + Compatibility.getSysdate() + " where name=?", lastProcessedId, this.consumerName);
+			this.lastProcessedId = lastProcessedId;
+		} catch(Exception ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
 }
@@ -126,6 +126,30 @@ public class Compatibility {
 		}
 	}
 
+	/**
+	 * Returns select of at most :rowCount first rows ordered by given order.
+	 * Postgres and HSQLDB use plain "limit", Oracle (which doesn't support "fetch first"
+	 * in version 11) uses row_number() window. Rows of the Oracle select contain
+	 * extra column "rownumber".
+	 *
+	 * @param columns selected columns (e.g. "a.id, a.created_at")
+	 * @param fromWhere from and where clause of the select
+	 * @param orderBy order by clause of the select
+	 * @param rowCountParam name of named parameter with max count of rows
+	 * @return SQL select
+	 */
+	public static String getLimitedSelect(String columns, String fromWhere, String orderBy, String rowCountParam) throws InternalErrorException {
+		String dbType = BeansUtils.getPropertyFromConfiguration("perun.db.type");
+		if (dbType.equals("oracle")) {
+			return "select * from (select " + columns + ",row_number() over (" + orderBy + ") as rownumber " + fromWhere + ") " +
+					getAsAlias("temp") + " where rownumber <= :" + rowCountParam + " order by rownumber";
+		} else if (dbType.equals("postgresql") || dbType.equals("hsqldb")) {
+			return "select " + columns + " " + fromWhere + " " + orderBy + " limit :" + rowCountParam;
+		} else {
+			throw new InternalErrorException("unknown DB type");
+		}
+	}
+
 	public static String orderByBinary(String columnName) {
 
 		try {
@@ -178,5 +202,25 @@ public class Compatibility {
 		}
 			
 	}
+
+	/**
+	 * Returns SQL expression, which takes next value of the sequence, so IDs of inserted
+	 * rows can be taken directly in the insert statement (e.g. in batch insert).
+	 *
+	 * @param sequenceName name of the sequence
+	 * @return SQL expression
+	 */
+	public static String getSequenceNextval(String sequenceName) throws InternalErrorException {
+		String dbType = BeansUtils.getPropertyFromConfiguration("perun.db.type");
+		if (dbType.equals("oracle")) {
+			return sequenceName + ".nextval";
+		} else if (dbType.equals("postgresql")) {
+			return "nextval('" + sequenceName + "')";
+		} else if (dbType.equals("hsqldb")) {
+			return "next value for " + sequenceName;
+		} else {
+			throw new InternalErrorException("unknown DB type");
+		}
+	}
 	
 }
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcPerunTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import cz.metacentrum.perun.core.api.BeansUtils;
 import cz.metacentrum.perun.core.api.Attribute;
@@ -28,6 +30,7 @@ import cz.metacentrum.perun.core.api.RichUser;
 import cz.metacentrum.perun.core.api.Role;
 import cz.metacentrum.perun.core.api.SecurityTeam;
 import cz.metacentrum.perun.core.api.Service;
+import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.Vo;
 import cz.metacentrum.perun.core.api.exceptions.BanNotExistsException;
@@ -58,6 +61,7 @@ public class FacilitiesManagerImpl implements FacilitiesManagerImplApi {
 
 	// http://static.springsource.org/spring/docs/3.0.x/spring-framework-reference/html/jdbc.html
 	private static JdbcPerunTemplate jdbc;
+	private static NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
 	// Part of the SQL script used for getting the Facility object
 	public final static String facilityMappingSelectQuery = " facilities.id as facilities_id, facilities.name as facilities_name, facilities.dsc as facilities_dsc, "
@@ -240,6 +244,7 @@ public class FacilitiesManagerImpl implements FacilitiesManagerImplApi {
 
 	public FacilitiesManagerImpl(DataSource perunPool) {
 		jdbc = new JdbcPerunTemplate(perunPool);
+		namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(perunPool);
 	}
 
 	public Facility createFacility(PerunSession sess, Facility facility) throws InternalErrorException {
@@ -269,6 +274,7 @@ public class FacilitiesManagerImpl implements FacilitiesManagerImplApi {
 
 			// Delete user-facility attributes - members are already deleted because all resources were removed
 			jdbc.update("delete from user_facility_attr_values where facility_id=?", facility.getId());
+			AttributesCache.invalidate();
 
 			// Finally remove facility
 			int numAffected = jdbc.update("delete from facilities where id=?", facility.getId());
@@ -696,6 +702,21 @@ public class FacilitiesManagerImpl implements FacilitiesManagerImplApi {
 		}
 	}
 
+	public List<User> getAllowedUsers(PerunSession sess, Facility facility) throws InternalErrorException {
+		try {
+			return jdbc.query("select distinct " + UsersManagerImpl.userMappingSelectQuery + " from resources" +
+					" join groups_resources on groups_resources.resource_id=resources.id" +
+					" join groups_members on groups_members.group_id=groups_resources.group_id" +
+					" join members on members.id=groups_members.member_id" +
+					" join users on users.id=members.user_id" +
+					" where resources.facility_id=? and members.status!=? and members.status!=?",
+					UsersManagerImpl.USER_MAPPER, facility.getId(),
+					String.valueOf(Status.INVALID.getCode()), String.valueOf(Status.DISABLED.getCode()));
+		} catch (RuntimeException e) {
+			throw new InternalErrorException(e);
+		}
+	}
+
 	public List<User> getAssignedUsers(PerunSession sess, Facility facility, Service service)throws InternalErrorException{
 		try {
 			return jdbc.query("select " + UsersManagerImpl.userMappingSelectQuery + " from users "
@@ -1167,6 +1188,21 @@ public class FacilitiesManagerImpl implements FacilitiesManagerImplApi {
 		}
 	}
 
+	public List<Integer> removeBans(PerunSession sess, List<Integer> banIds) throws InternalErrorException {
+		if (banIds.isEmpty()) return new ArrayList<Integer>();
+		try {
+			// lock bans which still exist, so only really removed bans are returned
+			List<Integer> existingBanIds = namedParameterJdbcTemplate.queryForList("select id from facilities_bans where id in ( :ids ) for update",
+					new MapSqlParameterSource("ids", banIds), Integer.class);
+			if (!existingBanIds.isEmpty()) {
+				namedParameterJdbcTemplate.update("delete from facilities_bans where id in ( :ids )", new MapSqlParameterSource("ids", existingBanIds));
+			}
+			return existingBanIds;
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
 	private boolean isSecurityTeamAssigned(PerunSession sess, Facility facility, SecurityTeam securityTeam) throws InternalErrorException {
 		try {
 			int number = jdbc.queryForInt("select 1 from security_teams_facilities where security_team_id=? and facility_id=?", securityTeam.getId(), facility.getId());
@@ -0,0 +1,132 @@
+package cz.metacentrum.perun.core.impl;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import cz.metacentrum.perun.core.api.BanOnFacility;
+import cz.metacentrum.perun.core.api.BanOnResource;
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
+import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Resource;
+import cz.metacentrum.perun.core.api.User;
+import cz.metacentrum.perun.core.api.exceptions.FacilityNotExistsException;
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import cz.metacentrum.perun.core.bl.PerunBl;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bans and blacklisted users of one facility loaded at once.
+ *
+ * Used by virtual attributes (isBanned, blacklisted), which are evaluated for all users of facility
+ * during provisioning. Instead of one query per user (and security team), all bans on facility
+ * and its resources and blacklists of its security teams are loaded once and each lookup is
+ * answered from hash set.
+ *
+ * Loaded evaluators are kept until the end of current transaction. Methods changing bans or blacklists
+ * must call invalidate(), so the change is visible within the same transaction.
+ */
+public class FacilityBansEvaluator {
+
+	// key of transaction resource with evaluators of facilities
+	private static final Object TRANSACTION_KEY = FacilityBansEvaluator.class;
+
+	private final Set<Integer> blacklistedUserIds = new HashSet<Integer>();
+	private final Set<Integer> bannedUserIds = new HashSet<Integer>();
+	private final Set<Pair<Integer, Integer>> bannedMembersOnResources = new HashSet<Pair<Integer, Integer>>();
+
+	private FacilityBansEvaluator(PerunSession sess, int facilityId) throws InternalErrorException {
+		PerunBl perunBl = (PerunBl) sess.getPerun();
+		Facility facility;
+		try {
+			facility = perunBl.getFacilitiesManagerBl().getFacilityById(sess, facilityId);
+		} catch (FacilityNotExistsException ex) {
+			throw new InternalErrorException(ex);
+		}
+		for (User user : perunBl.getSecurityTeamsManagerBl().getBlacklist(sess, facility)) {
+			blacklistedUserIds.add(user.getId());
+		}
+		for (BanOnFacility ban : perunBl.getFacilitiesManagerBl().getBansForFacility(sess, facility.getId())) {
+			bannedUserIds.add(ban.getUserId());
+		}
+		for (BanOnResource ban : perunBl.getResourcesManagerBl().getBansForResourcesOfFacility(sess, facility.getId())) {
+			bannedMembersOnResources.add(new Pair<Integer, Integer>(ban.getMemberId(), ban.getResourceId()));
+		}
+	}
+
+	/**
+	 * Return evaluator of bans for facility. Evaluator is loaded once per transaction,
+	 * out of transaction it is loaded on each call.
+	 *
+	 * @param sess
+	 * @param facilityId ID of facility
+	 * @return evaluator of bans on facility
+	 * @throws InternalErrorException
+	 */
+	public static FacilityBansEvaluator getInstance(PerunSession sess, int facilityId) throws InternalErrorException {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return new FacilityBansEvaluator(sess, facilityId);
+		}
+
+		@SuppressWarnings("unchecked")
+		Map<Integer, FacilityBansEvaluator> evaluators = (Map<Integer, FacilityBansEvaluator>) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (evaluators == null) {
+			evaluators = new HashMap<Integer, FacilityBansEvaluator>();
+			TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, evaluators);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+				}
+			});
+		}
+
+		FacilityBansEvaluator evaluator = evaluators.get(facilityId);
+		if (evaluator == null) {
+			evaluator = new FacilityBansEvaluator(sess, facilityId);
+			evaluators.put(facilityId, evaluator);
+		}
+		return evaluator;
+	}
+
+	/**
+	 * Forget all evaluators loaded in current transaction.
+	 */
+	public static void invalidate() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+		@SuppressWarnings("unchecked")
+		Map<Integer, FacilityBansEvaluator> evaluators = (Map<Integer, FacilityBansEvaluator>) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (evaluators != null) evaluators.clear();
+	}
+
+	/**
+	 * @param user
+	 * @return true if user is blacklisted by any security team of facility
+	 */
+	public boolean isUserBlacklisted(User user) {
+		return blacklistedUserIds.contains(user.getId());
+	}
+
+	/**
+	 * @param user
+	 * @return true if user is banned on facility
+	 */
+	public boolean isUserBanned(User user) {
+		return bannedUserIds.contains(user.getId());
+	}
+
+	/**
+	 * @param member
+	 * @param resource resource of facility
+	 * @return true if member is banned on resource or his user is banned on facility
+	 */
+	public boolean isMemberBanned(Member member, Resource resource) {
+		return bannedUserIds.contains(member.getUserId()) ||
+				bannedMembersOnResources.contains(new Pair<Integer, Integer>(member.getId(), resource.getId()));
+	}
+
+}
@@ -188,6 +188,7 @@ public class GroupsManagerImpl implements GroupsManagerImplApi {
 
 		try {
 			// Delete group's members
+			ResourceMembersCache.invalidate();
 			jdbc.update("delete from groups_members where group_id=?", group.getId());
 
 			// Delete authz entries for this group
@@ -403,6 +404,7 @@ public class GroupsManagerImpl implements GroupsManagerImplApi {
 		member.setMembershipType(type);
 		member.setSourceGroupId(sourceGroupId);
 		try {
+			ResourceMembersCache.invalidate();
 			jdbc.update("insert into groups_members (group_id, member_id, created_by, created_at, modified_by, modified_at, created_by_uid, modified_by_uid, membership_type, source_group_id) " +
 					"values (?,?,?," + Compatibility.getSysdate() + ",?," + Compatibility.getSysdate() + ",?,?,?,?)", group.getId(),
 					member.getId(), sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getUserId(), sess.getPerunPrincipal().getUserId(), type.getCode(), sourceGroupId);
@@ -498,6 +500,7 @@ public class GroupsManagerImpl implements GroupsManagerImplApi {
 		}
 		int ret;
 		try {
+			ResourceMembersCache.invalidate();
 			ret = jdbc.update("delete from groups_members where group_id=? and source_group_id=? and member_id=?", group.getId(), member.getSourceGroupId(), member.getId());
 		} catch(RuntimeException ex) {
 			throw new InternalErrorException(ex);
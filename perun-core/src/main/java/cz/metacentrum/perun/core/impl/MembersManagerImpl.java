@@ -1,7 +1,9 @@
 package cz.metacentrum.perun.core.impl;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -12,6 +14,7 @@ import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcPerunTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -132,6 +135,7 @@ public class MembersManagerImpl implements MembersManagerImplApi {
 
 	public void deleteMember(final PerunSession sess, final Member member) throws InternalErrorException, MemberAlreadyRemovedException{
 		try {
+			ResourceMembersCache.invalidate();
 			int numAffected = jdbc.update("delete from members where id=?", member.getId());
 			if(numAffected == 0) throw new MemberAlreadyRemovedException("Member: " + member);
 		} catch (RuntimeException err) {
@@ -176,12 +180,44 @@ public class MembersManagerImpl implements MembersManagerImplApi {
 
 	public void setStatus(PerunSession sess, Member member, Status status) throws InternalErrorException {
 		try {
+			ResourceMembersCache.invalidate();
 			jdbc.update("update members set status=?, modified_by=?, modified_at=" + Compatibility.getSysdate() + "  where id=?", status.getCode(), sess.getPerunPrincipal().getActor(), member.getId());
 		} catch(RuntimeException ex) {
 			throw new InternalErrorException(ex);
 		}
 	}
 
+	public List<Member> setStatus(PerunSession sess, final List<Member> members, final Status oldStatus, final Status status) throws InternalErrorException {
+		if (members.isEmpty()) return new ArrayList<Member>();
+		final String actor = sess.getPerunPrincipal().getActor();
+		try {
+			ResourceMembersCache.invalidate();
+			int[] updated = jdbc.batchUpdate("update members set status=?, modified_by=?, modified_at=" + Compatibility.getSysdate() + " where id=? and status=?",
+					new BatchPreparedStatementSetter() {
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							ps.setString(1, String.valueOf(status.getCode()));
+							ps.setString(2, actor);
+							ps.setInt(3, members.get(i).getId());
+							ps.setString(4, String.valueOf(oldStatus.getCode()));
+						}
+
+						public int getBatchSize() {
+							return members.size();
+						}
+					});
+			List<Member> changed = new ArrayList<Member>(members.size());
+			for (int i = 0; i < updated.length; i++) {
+				// some drivers don't report number of updated rows in batch
+				if (updated[i] > 0 || updated[i] == Statement.SUCCESS_NO_INFO) {
+					changed.add(members.get(i));
+				}
+			}
+			return changed;
+		} catch(RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
 	public List<Member> getMembersByUsersIds(PerunSession sess, List<Integer> usersIds, Vo vo) throws InternalErrorException {
 		// If usersIds is empty, we can immediatelly return empty results
 		if (usersIds.size() == 0) {
@@ -56,6 +56,10 @@ public class PerunConnection implements Connection {
 	@Override
 	public void rollback(Savepoint svpnt) throws SQLException {
 		auditer.cleanNestedTransation();
+		// data cached in transaction could be read after rolled back changes
+		AttributesCache.invalidate();
+		FacilityBansEvaluator.invalidate();
+		ResourceMembersCache.invalidate();
 		connectionImpl.rollback(svpnt);
 
 	}
@@ -0,0 +1,148 @@
+package cz.metacentrum.perun.core.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Status;
+import cz.metacentrum.perun.core.api.User;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Members assigned to resources and users allowed on resources and facilities read in current transaction.
+ *
+ * GEN data builders, virtual attribute modules and resolving of events ask for members and users
+ * of the same resources and facilities again and again. Each such question is a join over groups_resources,
+ * groups_members, members (and users), so ResourcesManagerBl and FacilitiesManagerBl store the results here
+ * and serve repeated calls from memory. Allowed members of resource are filtered from its assigned members,
+ * so they don't need own query.
+ *
+ * Cache lives until the end of transaction. Every change of group membership, assignment of group to resource,
+ * member status, user names and removal of member, user, group or resource must call invalidate(), which
+ * is done by the ManagerImpl methods writing these tables. Out of transaction nothing is cached.
+ * Returned lists and beans are copies, so callers can modify them freely.
+ */
+public class ResourceMembersCache {
+
+	// key of transaction resource with the cache
+	private static final Object TRANSACTION_KEY = ResourceMembersCache.class;
+
+	private final Map<Integer, List<Member>> assignedMembersOfResources = new HashMap<Integer, List<Member>>();
+	private final Map<Integer, List<User>> allowedUsersOfResources = new HashMap<Integer, List<User>>();
+	private final Map<Integer, List<User>> allowedUsersOfFacilities = new HashMap<Integer, List<User>>();
+
+	private ResourceMembersCache() {
+	}
+
+	/**
+	 * Return cache for current transaction.
+	 *
+	 * @return cache or null if there is no transaction
+	 */
+	public static ResourceMembersCache getInstance() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+
+		ResourceMembersCache cache = (ResourceMembersCache) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (cache == null) {
+			cache = new ResourceMembersCache();
+			TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, cache);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+				}
+			});
+		}
+		return cache;
+	}
+
+	/**
+	 * Forget everything cached in current transaction.
+	 */
+	public static void invalidate() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+		ResourceMembersCache cache = (ResourceMembersCache) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+		if (cache != null) {
+			cache.assignedMembersOfResources.clear();
+			cache.allowedUsersOfResources.clear();
+			cache.allowedUsersOfFacilities.clear();
+		}
+	}
+
+	/**
+	 * @param resourceId
+	 * @return members assigned to resource or null if not cached
+	 */
+	public List<Member> getAssignedMembers(int resourceId) {
+		List<Member> members = assignedMembersOfResources.get(resourceId);
+		return members == null ? null : copyMembers(members, false);
+	}
+
+	/**
+	 * @param resourceId
+	 * @return members assigned to resource which are not INVALID nor DISABLED or null if not cached
+	 */
+	public List<Member> getAllowedMembers(int resourceId) {
+		List<Member> members = assignedMembersOfResources.get(resourceId);
+		return members == null ? null : copyMembers(members, true);
+	}
+
+	public void putAssignedMembers(int resourceId, List<Member> members) {
+		assignedMembersOfResources.put(resourceId, copyMembers(members, false));
+	}
+
+	/**
+	 * @param resourceId
+	 * @return users allowed on resource or null if not cached
+	 */
+	public List<User> getAllowedUsersOfResource(int resourceId) {
+		List<User> users = allowedUsersOfResources.get(resourceId);
+		return users == null ? null : copyUsers(users);
+	}
+
+	public void putAllowedUsersOfResource(int resourceId, List<User> users) {
+		allowedUsersOfResources.put(resourceId, copyUsers(users));
+	}
+
+	/**
+	 * @param facilityId
+	 * @return users allowed on facility or null if not cached
+	 */
+	public List<User> getAllowedUsersOfFacility(int facilityId) {
+		List<User> users = allowedUsersOfFacilities.get(facilityId);
+		return users == null ? null : copyUsers(users);
+	}
+
+	public void putAllowedUsersOfFacility(int facilityId, List<User> users) {
+		allowedUsersOfFacilities.put(facilityId, copyUsers(users));
+	}
+
+	private static List<Member> copyMembers(List<Member> members, boolean onlyAllowed) {
+		List<Member> copies = new ArrayList<Member>(members.size());
+		for (Member member : members) {
+			if (onlyAllowed && (Status.INVALID.equals(member.getStatus()) || Status.DISABLED.equals(member.getStatus()))) continue;
+			Member copy = new Member(member.getId(), member.getUserId(), member.getVoId(), member.getStatus(),
+					member.getCreatedAt(), member.getCreatedBy(), member.getModifiedAt(), member.getModifiedBy(),
+					member.getCreatedByUid(), member.getModifiedByUid());
+			copy.setMembershipType(member.getMembershipType());
+			copy.setSourceGroupId(member.getSourceGroupId());
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	private static List<User> copyUsers(List<User> users) {
+		List<User> copies = new ArrayList<User>(users.size());
+		for (User user : users) {
+			copies.add(new User(user.getId(), user.getFirstName(), user.getLastName(), user.getMiddleName(),
+					user.getTitleBefore(), user.getTitleAfter(), user.getCreatedAt(), user.getCreatedBy(),
+					user.getModifiedAt(), user.getModifiedBy(), user.isServiceUser(), user.isSponsoredUser(),
+					user.getCreatedByUid(), user.getModifiedByUid()));
+		}
+		return copies;
+	}
+
+}
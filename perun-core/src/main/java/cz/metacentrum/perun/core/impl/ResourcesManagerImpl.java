@@ -24,6 +24,7 @@ import cz.metacentrum.perun.core.api.BanOnResource;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.Group;
 import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.PerunSession;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.ResourceTag;
@@ -240,6 +241,7 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 			// Delete authz entries for this resource
 			AuthzResolverBlImpl.removeAllAuthzForResource(sess, resource);
 
+			ResourceMembersCache.invalidate();
 			int numAffected = jdbc.update("delete from resources where id=?", resource.getId());
 			if(numAffected == 0) throw new ResourceAlreadyRemovedException("Resource: " + resource + " , Vo: " + vo);
 		} catch (RuntimeException e) {
@@ -260,6 +262,7 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 
 	public void setFacility(PerunSession sess, Resource resource, Facility facility) throws InternalErrorException {
 		try {
+			ResourceMembersCache.invalidate();
 			jdbc.update("update resources set facility_id=?, modified_by=?, modified_by_uid=?, modified_at=" + Compatibility.getSysdate() + " where id=?", facility.getId(),
 					sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getUserId(), resource.getId());
 			resource.setFacilityId(facility.getId());
@@ -376,6 +379,7 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 			if(1==jdbc.queryForInt("select count(1) from groups_resources where group_id=? and resource_id=?", group.getId(), resource.getId())) {
 				throw new GroupAlreadyAssignedException(group);
 			}else{
+				ResourceMembersCache.invalidate();
 				jdbc.update("insert into groups_resources (group_id, resource_id, modified_by, modified_at, created_by, created_at, created_by_uid, modified_by_uid) " +
 						"values (?,?,?," + Compatibility.getSysdate() + ",?," + Compatibility.getSysdate() + ",?,?)", group.getId(),
 						resource.getId(),sess.getPerunPrincipal().getActor(),sess.getPerunPrincipal().getActor(), sess.getPerunPrincipal().getUserId(), sess.getPerunPrincipal().getUserId());
@@ -387,6 +391,7 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 
 	public void removeGroupFromResource(PerunSession sess, Group group, Resource resource) throws InternalErrorException, GroupAlreadyRemovedFromResourceException {
 		try {
+			ResourceMembersCache.invalidate();
 			int numAffected = jdbc.update("delete from groups_resources where group_id=? and resource_id=?", group.getId(), resource.getId());
 			if(numAffected == 0) throw new GroupAlreadyRemovedFromResourceException("Group: " + group + " , Resource: " + resource);
 		} catch(RuntimeException ex) {
@@ -827,6 +832,35 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 		}
 	}
 
+	public List<BanOnResource> getBansForResourcesOfFacility(PerunSession sess, int facilityId) throws InternalErrorException {
+		try {
+			return jdbc.query("select " + banOnResourceMappingSelectQuery + " from resources_bans join resources on resources_bans.resource_id=resources.id" +
+					" where resources.facility_id=?", BAN_ON_RESOURCE_MAPPER, facilityId);
+		} catch (EmptyResultDataAccessException ex) {
+			return new ArrayList<>();
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
+	public List<Pair<Resource, Member>> getAssignedResourcesWithMembers(PerunSession sess, Facility facility, User user) throws InternalErrorException {
+		try {
+			return jdbc.query("select distinct " + resourceMappingSelectQuery + ", " + MembersManagerImpl.memberMappingSelectQuery +
+					" from resources join groups_resources on resources.id=groups_resources.resource_id" +
+					" join groups_members on groups_resources.group_id=groups_members.group_id" +
+					" join members on groups_members.member_id=members.id" +
+					" where resources.facility_id=? and members.user_id=?", new RowMapper<Pair<Resource, Member>>() {
+				public Pair<Resource, Member> mapRow(ResultSet rs, int i) throws SQLException {
+					return new Pair<Resource, Member>(RESOURCE_MAPPER.mapRow(rs, i), MembersManagerImpl.MEMBER_MAPPER.mapRow(rs, i));
+				}
+			}, facility.getId(), user.getId());
+		} catch (EmptyResultDataAccessException ex) {
+			return new ArrayList<>();
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
 	public List<BanOnResource> getAllExpiredBansOnResources(PerunSession sess) throws InternalErrorException {
 		try {
 			return jdbc.query("select " + banOnResourceMappingSelectQuery + " from resources_bans where banned_to < " + Compatibility.getSysdate(), BAN_ON_RESOURCE_MAPPER);
@@ -868,6 +902,21 @@ public class ResourcesManagerImpl implements ResourcesManagerImplApi {
 		}
 	}
 
+	public List<Integer> removeBans(PerunSession sess, List<Integer> banIds) throws InternalErrorException {
+		if (banIds.isEmpty()) return new ArrayList<Integer>();
+		try {
+			// lock bans which still exist, so only really removed bans are returned
+			List<Integer> existingBanIds = namedParameterJdbcTemplate.queryForList("select id from resources_bans where id in ( :ids ) for update",
+					new MapSqlParameterSource("ids", banIds), Integer.class);
+			if (!existingBanIds.isEmpty()) {
+				namedParameterJdbcTemplate.update("delete from resources_bans where id in ( :ids )", new MapSqlParameterSource("ids", existingBanIds));
+			}
+			return existingBanIds;
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+	}
+
 	protected void initialize() {
 	}
 }
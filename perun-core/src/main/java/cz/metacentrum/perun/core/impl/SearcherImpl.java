@@ -4,6 +4,7 @@ import cz.metacentrum.perun.core.api.Attribute;
 import cz.metacentrum.perun.core.api.AttributeDefinition;
 import cz.metacentrum.perun.core.api.Member;
 import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.core.implApi.SearcherImplApi;
@@ -42,80 +43,63 @@ public class SearcherImpl implements SearcherImplApi {
 
 	public List<User> getUsers(PerunSession sess, Map<Attribute, String> attributesWithSearchingValues) throws InternalErrorException {
 		StringBuilder query = new StringBuilder();
-		query.append("select distinct " + UsersManagerImpl.userMappingSelectQuery + " from users ");
+		query.append("select " + UsersManagerImpl.userMappingSelectQuery + " from users ");
 
 		List<String> whereClauses = new ArrayList<String>();
 		MapSqlParameterSource parameters = new MapSqlParameterSource();
 		int counter = 0;
 
+		// Values are unique per user and attribute, so each searched value is matched by inner join
+		// and users can't be duplicated. Only missing values must be searched by left join.
 		for(Attribute key: attributesWithSearchingValues.keySet()) {
 			counter++;
 			String value = attributesWithSearchingValues.get(key);
-			query.append("left join user_attr_values val" + counter + " ");
-			query.append("on val" + counter + ".user_id=users.id and val" + counter + ".attr_id=" + key.getId() + " ");
-			query.append("left join attr_names nam" + counter + " on val" + counter + ".attr_id=nam" + counter + ".id ");
+			String val = "val" + counter;
+			String valueColumn = key.getType().equals(LinkedHashMap.class.getName()) ? val + ".attr_value_text" : val + ".attr_value";
+			parameters.addValue("a" + counter, key.getId());
 			if (value == null) {
-				if(key.getType().equals(LinkedHashMap.class.getName())) {
-					whereClauses.add("val" + counter + ".attr_value_text IS NULL ");
-				} else {
-					whereClauses.add("val" + counter + ".attr_value IS NULL ");
-				}
-			} else if(value.isEmpty()) {
-				if(key.getType().equals(LinkedHashMap.class.getName())) {
-					whereClauses.add("val" + counter + ".attr_value_text IS NOT NULL ");
-				} else {
-					whereClauses.add("val" + counter + ".attr_value IS NOT NULL ");
-				}
-			} else {
-				if (key.getType().equals(Integer.class.getName())) {
-					key.setValue(Integer.valueOf(value));
-					whereClauses.add("val" + counter + ".attr_value=:v" + counter + " ");
-					whereClauses.add("nam" + counter + ".type=:n" + counter + " ");
-					parameters.addValue("n" + counter, Integer.class.getName().toString());
-					parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key));
-				} else if (key.getType().equals(String.class.getName())) {
-					key.setValue(value);
-					whereClauses.add("lower("+Compatibility.convertToAscii("val" + counter + ".attr_value")+")=lower("+Compatibility.convertToAscii(":v"+counter)+") ");
-					whereClauses.add("nam" + counter + ".type=:n" + counter + " ");
-					parameters.addValue("n" + counter, String.class.getName().toString());
-					parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key));
-				} else if (key.getType().equals(Boolean.class.getName())) {
-					key.setValue(value);
-					whereClauses.add("lower("+Compatibility.convertToAscii("val" + counter + ".attr_value")+")=lower("+Compatibility.convertToAscii(":v"+counter)+") ");
-					whereClauses.add("nam" + counter + ".type=:n" + counter + " ");
-					parameters.addValue("n" + counter, Boolean.class.getName().toString());
-					parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key));
-				} else if (key.getType().equals(ArrayList.class.getName())) {
-					List<String> list = new ArrayList<String>();
-					list.add(value);
-					key.setValue(list);
-					whereClauses.add("val" + counter + ".attr_value LIKE :v" + counter + " ");
-					whereClauses.add("nam" + counter + ".type=:n" + counter + " ");
-					parameters.addValue("n" + counter, ArrayList.class.getName().toString());
-					parameters.addValue("v" + counter, '%' + BeansUtils.attributeValueToString(key).substring(0, BeansUtils.attributeValueToString(key).length() - 1) + '%');
-				} else if (key.getType().equals(LinkedHashMap.class.getName())) {
-					String[] splitMapItem = value.split("=");
-					if(splitMapItem.length == 0) throw new InternalErrorException("Value can't be split by char '='.");
-					String splitKey = splitMapItem[0];
-					StringBuilder splitValue = new StringBuilder();
-					if(splitMapItem.length > 1) {
-						for(int i=1;i<splitMapItem.length;i++) {
-							if(i!=1) splitValue.append('=');
-							splitValue.append(splitMapItem[i]);
-						}
+				query.append("left join user_attr_values " + val + " on " + val + ".user_id=users.id and " + val + ".attr_id=:a" + counter + " ");
+				whereClauses.add(valueColumn + " IS NULL ");
+				continue;
+			}
+			String condition;
+			if(value.isEmpty()) {
+				condition = valueColumn + " IS NOT NULL";
+			} else if (key.getType().equals(Integer.class.getName())) {
+				key.setValue(Integer.valueOf(value));
+				condition = val + ".attr_value=:v" + counter;
+				parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key));
+			} else if (key.getType().equals(String.class.getName()) || key.getType().equals(Boolean.class.getName())) {
+				key.setValue(value);
+				condition = "lower("+Compatibility.convertToAscii(val + ".attr_value")+")=lower("+Compatibility.convertToAscii(":v"+counter)+")";
+				parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key));
+			} else if (key.getType().equals(ArrayList.class.getName())) {
+				List<String> list = new ArrayList<String>();
+				list.add(value);
+				key.setValue(list);
+				condition = val + ".attr_value LIKE :v" + counter;
+				parameters.addValue("v" + counter, '%' + BeansUtils.attributeValueToString(key).substring(0, BeansUtils.attributeValueToString(key).length() - 1) + '%');
+			} else if (key.getType().equals(LinkedHashMap.class.getName())) {
+				String[] splitMapItem = value.split("=");
+				if(splitMapItem.length == 0) throw new InternalErrorException("Value can't be split by char '='.");
+				String splitKey = splitMapItem[0];
+				StringBuilder splitValue = new StringBuilder();
+				if(splitMapItem.length > 1) {
+					for(int i=1;i<splitMapItem.length;i++) {
+						if(i!=1) splitValue.append('=');
+						splitValue.append(splitMapItem[i]);
 					}
-					Map<String, String> map = new LinkedHashMap<String, String>();
-					map.put(splitKey, splitValue.length() == 0 ? null : splitValue.toString());
-					key.setValue(map);
-					whereClauses.add("val" + counter + ".attr_value_text LIKE :v" + counter + " or val" + counter + ".attr_value_text LIKE :vv" + counter + " ");
-					whereClauses.add("nam" + counter + ".type=:n" + counter + " ");
-					parameters.addValue("n" + counter, LinkedHashMap.class.getName().toString());
-					parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key) + '%');
-					parameters.addValue("vv" + counter,  "%," +  BeansUtils.attributeValueToString(key) + '%');
-				} else {
-					throw new InternalErrorException(key + " is not type of integer, string, boolean, array or hashmap.");
 				}
+				Map<String, String> map = new LinkedHashMap<String, String>();
+				map.put(splitKey, splitValue.length() == 0 ? null : splitValue.toString());
+				key.setValue(map);
+				condition = "(" + val + ".attr_value_text LIKE :v" + counter + " or " + val + ".attr_value_text LIKE :vv" + counter + ")";
+				parameters.addValue("v" + counter, BeansUtils.attributeValueToString(key) + '%');
+				parameters.addValue("vv" + counter,  "%," +  BeansUtils.attributeValueToString(key) + '%');
+			} else {
+				throw new InternalErrorException(key + " is not type of integer, string, boolean, array or hashmap.");
 			}
+			query.append("join user_attr_values " + val + " on " + val + ".user_id=users.id and " + val + ".attr_id=:a" + counter + " and " + condition + " ");
 		}
 
 		//Add Where clauses at end of sql query
@@ -146,9 +130,18 @@ public class SearcherImpl implements SearcherImplApi {
 		// this would default to now
 		if (date == null) date = Calendar.getInstance();
 		date.add(Calendar.DAY_OF_MONTH, days);
-		// create sql toDate()
+		return getMembersByExpiration(sess, operator, date, null);
+
+	}
+
+	@Override
+	public List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date, Status status) throws InternalErrorException {
+
+		// this would default to now
+		if (date == null) date = Calendar.getInstance();
+		// values are checked to be in format yyyy-MM-dd, so they can be compared as strings,
+		// which allows DB to use index on (attr_id, substr(attr_value, 1, 10))
 		String compareDate = BeansUtils.getDateFormatterWithoutTime().format(date.getTime());
-		compareDate = "TO_DATE('"+compareDate+"','YYYY-MM-DD')";
 
 		if (operator == null || operator.isEmpty()) operator = "=";
 
@@ -159,10 +152,13 @@ public class SearcherImpl implements SearcherImplApi {
 
 			AttributeDefinition def = ((PerunBl) sess.getPerun()).getAttributesManagerBl().getAttributeDefinition(sess, "urn:perun:member:attribute-def:def:membershipExpiration");
 
-			String query = "select distinct " + MembersManagerImpl.memberMappingSelectQuery + " from members left join member_attr_values val on " +
-					"val.member_id=members.id and val.attr_id=? where TO_DATE(val.attr_value, 'YYYY-MM-DD')"+operator+compareDate;
+			String query = "select " + MembersManagerImpl.memberMappingSelectQuery + " from members join member_attr_values val on " +
+					"val.member_id=members.id and val.attr_id=? where substr(val.attr_value, 1, 10)" + operator + "?";
 
-			return jdbcTemplate.query(query.toString(), MembersManagerImpl.MEMBER_MAPPER, def.getId());
+			if (status == null) {
+				return jdbcTemplate.query(query, MembersManagerImpl.MEMBER_MAPPER, def.getId(), compareDate);
+			}
+			return jdbcTemplate.query(query + " and members.status=?", MembersManagerImpl.MEMBER_MAPPER, def.getId(), compareDate, String.valueOf(status.getCode()));
 
 		} catch (Exception e) {
 			throw new InternalErrorException(e);
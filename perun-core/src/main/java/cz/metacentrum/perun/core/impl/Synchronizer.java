@@ -28,6 +28,11 @@ public class Synchronizer {
 	private PerunBl perunBl;
 	private AtomicBoolean synchronizeGroupsRunning = new AtomicBoolean(false);
 
+	// days before (positive) or after (negative) expiration, when audit message about expiration is logged
+	private static final int[] EXPIRATION_NOTICE_DAYS = { 30, 14, 7, 1, -7 };
+	// max number of members switched between VALID and EXPIRED in one batch
+	private static final int STATUS_BATCH_SIZE = 1000;
+
 	public Synchronizer() {
 	}
 
@@ -90,76 +95,43 @@ public class Synchronizer {
 				vosMap.put(vo.getId(), vo);
 			}
 
-			// log message for all members which will expire in 30 days
-			compareDate.add(Calendar.DAY_OF_MONTH, 30);
-			List<Member> expireIn30Days = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", compareDate);
-			for (Member m : expireIn30Days) {
-				getPerun().getAuditer().log(sess, "{} will expire in {} days in {}.", m, 30, vosMap.get(m.getVoId()));
-			}
-
-			// log message for all members which will expire in 14 days
-			compareDate.add(Calendar.DAY_OF_MONTH, -16);
-			List<Member> expireIn14Days = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", compareDate);
-			for (Member m : expireIn14Days) {
-				getPerun().getAuditer().log(sess, "{} will expire in {} days in {}.", m, 14, vosMap.get(m.getVoId()));
-			}
-
-			// log message for all members which will expire in 7 days
-			compareDate.add(Calendar.DAY_OF_MONTH, -7);
-			List<Member> expireIn7Days = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", compareDate);
-			for (Member m : expireIn7Days) {
-				getPerun().getAuditer().log(sess, "{} will expire in {} days in {}.", m, 7, vosMap.get(m.getVoId()));
-			}
-
-			// log message for all members which will expire tomorrow
-			compareDate.add(Calendar.DAY_OF_MONTH, -6);
-			List<Member> expireIn1Days = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", compareDate);
-			for (Member m : expireIn1Days) {
-				getPerun().getAuditer().log(sess, "{} will expire in {} days in {}.", m, 1, vosMap.get(m.getVoId()));
-			}
-
-			// log message for all members which expired 7 days ago
-			compareDate.add(Calendar.DAY_OF_MONTH, -8);
-			List<Member> expired7DaysAgo = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", compareDate);
-			for (Member m : expired7DaysAgo) {
-				getPerun().getAuditer().log(sess, "{} has expired {} days ago in {}.", m, 7, vosMap.get(m.getVoId()));
+			// log messages for members which will expire in X days or expired X days ago,
+			// each query reads just members with expiration on the given day
+			for (int days : EXPIRATION_NOTICE_DAYS) {
+				Calendar noticeDate = (Calendar) compareDate.clone();
+				noticeDate.add(Calendar.DAY_OF_MONTH, days);
+				List<Member> members = perunBl.getSearcherBl().getMembersByExpiration(sess, "=", noticeDate);
+				for (Member m : members) {
+					if (days > 0) {
+						getPerun().getAuditer().log(sess, "{} will expire in {} days in {}.", m, days, vosMap.get(m.getVoId()));
+					} else {
+						getPerun().getAuditer().log(sess, "{} has expired {} days ago in {}.", m, -days, vosMap.get(m.getVoId()));
+					}
+				}
 			}
 
-			// switch members, which expire today
-			compareDate.add(Calendar.DAY_OF_MONTH, 7);
-			List<Member> shouldBeExpired = perunBl.getSearcherBl().getMembersByExpiration(sess, "<=", compareDate);
-			for (Member member : shouldBeExpired) {
-				if (member.getStatus().equals(Status.VALID)) {
-					try {
-						perunBl.getMembersManagerBl().expireMember(sess, member);
-						log.info("Switching {} to EXPIRE state, due to expiration {}.", member, (String) perunBl.getAttributesManagerBl().getAttribute(sess, member, "urn:perun:member:attribute-def:def:membershipExpiration").getValue());
-					} catch (MemberNotValidYetException e) {
-						log.error("Consistency error while trying to expire member {}, exception {}", member, e);
-					}
+			// switch valid members, which expire today or expired before
+			List<Member> shouldBeExpired = perunBl.getSearcherBl().getMembersByExpiration(sess, "<=", compareDate, Status.VALID);
+			for (int i = 0; i < shouldBeExpired.size(); i += STATUS_BATCH_SIZE) {
+				List<Member> expired = perunBl.getMembersManagerBl().switchMembersStatus(sess,
+						shouldBeExpired.subList(i, Math.min(i + STATUS_BATCH_SIZE, shouldBeExpired.size())), Status.VALID, Status.EXPIRED);
+				for (Member member : expired) {
+					log.info("Switching {} to EXPIRE state, due to expiration before or on {}.", member, BeansUtils.getDateFormatterWithoutTime().format(compareDate.getTime()));
 				}
 			}
 
-			// switch members, which shouldn't be expired
-			List<Member> shouldntBeExpired = perunBl.getSearcherBl().getMembersByExpiration(sess, ">", compareDate);
-			for (Member member : shouldntBeExpired) {
-				if (member.getStatus().equals(Status.EXPIRED)) {
-					try {
-						perunBl.getMembersManagerBl().validateMember(sess, member);
-						log.info("Switching {} to VALID state, due to changed expiration {}.", member, (String) perunBl.getAttributesManagerBl().getAttribute(sess, member, "urn:perun:member:attribute-def:def:membershipExpiration").getValue());
-					} catch (WrongAttributeValueException e) {
-						log.error("Error during validating member {}, exception {}", member, e);
-					} catch (WrongReferenceAttributeValueException e) {
-						log.error("Error during validating member {}, exception {}", member, e);
-					}
+			// switch expired members, which shouldn't be expired
+			List<Member> shouldntBeExpired = perunBl.getSearcherBl().getMembersByExpiration(sess, ">", compareDate, Status.EXPIRED);
+			for (int i = 0; i < shouldntBeExpired.size(); i += STATUS_BATCH_SIZE) {
+				List<Member> validated = perunBl.getMembersManagerBl().switchMembersStatus(sess,
+						shouldntBeExpired.subList(i, Math.min(i + STATUS_BATCH_SIZE, shouldntBeExpired.size())), Status.EXPIRED, Status.VALID);
+				for (Member member : validated) {
+					log.info("Switching {} to VALID state, due to changed expiration after {}.", member, BeansUtils.getDateFormatterWithoutTime().format(compareDate.getTime()));
 				}
 			}
 
 		} catch (InternalErrorException e) {
 			log.error("Synchronizer: checkMembersState, exception {}", e);
-		} catch (AttributeNotExistsException e) {
-			log.warn("Synchronizer: checkMembersState, attribute definition for membershipExpiration doesn't exist, exception {}", e);
-		} catch (WrongAttributeAssignmentException e) {
-			log.error("Synchronizer: checkMembersState, attribute name is from wrong namespace, exception {}", e);
 		}
 
 	}
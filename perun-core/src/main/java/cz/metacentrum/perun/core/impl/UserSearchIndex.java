@@ -0,0 +1,809 @@
+package cz.metacentrum.perun.core.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cz.metacentrum.perun.core.api.AttributesManager;
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcPerunTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * In-memory index of users by their normalized names, emails and logins.
+ *
+ * Index consists of:
+ * - postings of exact keys to IDs of users. Keys are lower-cased mails of user and all his members,
+ *   logins from user ext sources and login-namespace attributes and names without diacritics and spaces.
+ * - names of users (without diacritics and spaces) with trigram postings for substring search.
+ *
+ * It is loaded from DB by start() (or on first use) and then kept up to date by reading new messages
+ * from auditer_log. Each message, which mentions some user, causes re-indexing of such user.
+ * Re-indexed names are kept in small delta, which is merged into trigram postings once it grows too big.
+ * Loading and synchronization run in background thread on its own connections, so the index is shared
+ * by all transactions and contains only committed data.
+ *
+ * Changes made by current transaction are not in the index, so callers pass users mentioned
+ * by pending messages of the transaction and such users are evaluated from DB of the transaction instead of index.
+ *
+ * Index is kept in memory of each process, so it must be enabled explicitly. If it's not enabled,
+ * users are searched directly in DB of current transaction and ranked by the same weights.
+ */
+public class UserSearchIndex {
+
+	private final static Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+	/** Match users by exact mail, login or ID */
+	public static final int KEYS = 1;
+	/** Match users by name, which may omit middle name */
+	public static final int SIMILAR_NAME = 2;
+	/** Match users by whole name */
+	public static final int EXACT_NAME = 4;
+	/** Match users by part of name */
+	public static final int NAME = 8;
+
+	private static final String A_U_PREFERRED_MAIL = AttributesManager.NS_USER_ATTR_DEF + ":preferredMail";
+	private static final String A_M_MAIL = AttributesManager.NS_MEMBER_ATTR_DEF + ":mail";
+
+	private static final String MAIL = "m:";
+	private static final String LOGIN = "l:";
+	private static final String SIMILAR = "n:";
+
+	// weights of matches for ranking
+	private static final int MAIL_WEIGHT = 6;
+	private static final int LOGIN_WEIGHT = 4;
+	private static final int ID_WEIGHT = 4;
+	private static final int EQUAL_NAME_WEIGHT = 3;
+	private static final int SIMILAR_NAME_WEIGHT = 2;
+	private static final int PREFIX_NAME_WEIGHT = 2;
+	private static final int PART_NAME_WEIGHT = 1;
+
+	// audit messages are not stored in order of their IDs, so we look back for skipped ones
+	private static final int AUDIT_LOOKBACK = 1000;
+	// delay between synchronizations of index with audit log (ms)
+	private static final long REFRESH_INTERVAL = 1000;
+	// minimal size of names delta, which is merged into trigram postings
+	private static final int MIN_DELTA_SIZE = 1000;
+
+	private static final Pattern USER_ID_PATTERN = Pattern.compile("(?:User:\\[id=|userId=)[<'](\\d+)[>']");
+	// messages about user ext sources (e.g. changed login) don't mention their users
+	private static final Pattern USER_EXT_SOURCE_ID_PATTERN = Pattern.compile("UserExtSource:\\[id=[<'](\\d+)[>']");
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+	private static final int[] NO_USERS = new int[0];
+
+	private final JdbcPerunTemplate jdbc;
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+	private final boolean enabled;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// exact keys
+	private final Map<String, List<Integer>> postings = new HashMap<String, List<Integer>>();
+	private final Map<Integer, String[]> keysByUser = new HashMap<Integer, String[]>();
+	// names ordered by user ID and trigram postings of their positions
+	private int[] nameUserIds = NO_USERS;
+	private String[] names = new String[0];
+	private Map<String, int[]> trigrams = new HashMap<String, int[]>();
+	// names of users re-indexed since last merge (null for removed users)
+	private final Map<Integer, String> namesDelta = new HashMap<Integer, String>();
+
+	// guards loading and synchronization with audit log
+	private final Object refreshLock = new Object();
+	private volatile boolean loaded = false;
+	private ScheduledExecutorService executor;
+	private int lastAuditMessageId = 0;
+	private final TreeSet<Integer> processedAuditMessageIds = new TreeSet<Integer>();
+
+	public UserSearchIndex(JdbcPerunTemplate jdbc) {
+		this(jdbc, true);
+	}
+
+	/**
+	 * @param jdbc template for DB of users
+	 * @param enabled true to keep index in memory, false to search users directly in DB
+	 */
+	public UserSearchIndex(JdbcPerunTemplate jdbc, boolean enabled) {
+		this.jdbc = jdbc;
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbc);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Return true if users are searched in memory, false if they are searched directly in DB.
+	 *
+	 * @return true if index is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Load index and start its periodic synchronization with audit log in background thread.
+	 * Does nothing if index is already loaded or it's not enabled.
+	 *
+	 * @throws InternalErrorException when index can't be loaded
+	 */
+	public synchronized void start() throws InternalErrorException {
+		if (loaded || !enabled) return;
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "userSearchIndex");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		// load runs in background thread too, so it doesn't use connection of caller's transaction
+		try {
+			executor.submit(new Callable<Void>() {
+				public Void call() {
+					load();
+					return null;
+				}
+			}).get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(ex);
+		} catch (ExecutionException ex) {
+			throw new InternalErrorException(ex.getCause());
+		}
+		loaded = true;
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					processAuditMessages();
+				} catch (RuntimeException ex) {
+					log.error("UserSearchIndex synchronization with audit log failed.", ex);
+				}
+			}
+		}, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop synchronization of index with audit log.
+	 */
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		loaded = false;
+	}
+
+	/**
+	 * Return IDs of users, which match any of search strings by mail, login or name.
+	 * Users are ordered by relevance (sum of weights of all matches), most similar first.
+	 *
+	 * @param searchStrings mails, logins or names to search by
+	 * @param changedUserIds IDs of users changed by current transaction (can be null)
+	 * @return ordered IDs of similar users
+	 * @throws InternalErrorException when index can't be loaded or synchronized
+	 */
+	public List<Integer> findSimilarUserIds(Collection<String> searchStrings, Set<Integer> changedUserIds) throws InternalErrorException {
+		return search(searchStrings, KEYS | SIMILAR_NAME, Integer.MAX_VALUE, changedUserIds);
+	}
+
+	/**
+	 * Return IDs of users matching search string. Users are ordered by relevance:
+	 * exact matches of mail, login or ID go first, then users with same name, users with name
+	 * starting with search string and users with name containing search string.
+	 *
+	 * @param searchString mail, login, ID or (part of) name
+	 * @param matchType combination of KEYS, SIMILAR_NAME, EXACT_NAME and NAME
+	 * @param maxResults maximal number of returned IDs
+	 * @param changedUserIds IDs of users changed by current transaction (can be null)
+	 * @return ordered IDs of matching users
+	 * @throws InternalErrorException when index can't be loaded or synchronized
+	 */
+	public List<Integer> findUserIds(String searchString, int matchType, int maxResults, Set<Integer> changedUserIds) throws InternalErrorException {
+		return search(Collections.singletonList(searchString), matchType, maxResults, changedUserIds);
+	}
+
+	/**
+	 * Return IDs of users mentioned by audit messages, directly or by their user ext sources.
+	 * User ext sources are resolved in DB of current transaction.
+	 *
+	 * @param messages audit messages
+	 * @return IDs of users
+	 * @throws InternalErrorException
+	 */
+	public Set<Integer> getMentionedUserIds(Collection<String> messages) throws InternalErrorException {
+		Set<Integer> userIds = new HashSet<Integer>();
+		Set<Integer> userExtSourceIds = new HashSet<Integer>();
+		for (String message : messages) {
+			addMentionedIds(userIds, userExtSourceIds, message);
+		}
+		try {
+			addUsersOfUserExtSources(userIds, userExtSourceIds);
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+		return userIds;
+	}
+
+	/**
+	 * Normalize name for indexing and lookup: lower case without diacritics and whitespaces.
+	 *
+	 * @param name name to normalize
+	 * @return normalized name
+	 */
+	public static String normalizeName(String name) {
+		if (name == null) return "";
+		String normalized = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+		return normalized.toLowerCase().replaceAll("\\s", "");
+	}
+
+	private List<Integer> search(Collection<String> searchStrings, int matchType, int maxResults, Set<Integer> changedUserIds) throws InternalErrorException {
+
+		if (!enabled) return searchInDb(searchStrings, matchType, maxResults);
+		if (!loaded) start();
+
+		// users changed by current transaction are evaluated from DB of the transaction, they are not stored in the index
+		Set<Integer> skipped = (changedUserIds == null) ? Collections.<Integer>emptySet() : changedUserIds;
+		Map<Integer, Set<String>> changedKeys = new HashMap<Integer, Set<String>>();
+		Map<Integer, String> changedNames = new HashMap<Integer, String>();
+		try {
+			for (Integer userId : skipped) {
+				collectKeys(changedKeys, changedNames, userId);
+			}
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+
+		final Map<Integer, Integer> scores = new HashMap<Integer, Integer>();
+
+		lock.readLock().lock();
+		try {
+			for (String searchString : searchStrings) {
+				if (searchString == null || searchString.trim().isEmpty()) continue;
+				String value = searchString.trim();
+				String mail = MAIL + value.toLowerCase();
+				String login = LOGIN + value;
+				String name = normalizeName(value);
+				Integer id = parseId(value);
+				boolean partial = (matchType & NAME) != 0;
+				boolean byName = (matchType & (EXACT_NAME | NAME)) != 0 && !name.isEmpty();
+
+				if ((matchType & KEYS) != 0) {
+					addScores(scores, postings.get(mail), MAIL_WEIGHT, skipped);
+					addScores(scores, postings.get(login), LOGIN_WEIGHT, skipped);
+					if (id != null && keysByUser.containsKey(id) && !skipped.contains(id)) addScore(scores, id, ID_WEIGHT);
+				}
+				if ((matchType & SIMILAR_NAME) != 0) {
+					addScores(scores, postings.get(SIMILAR + name), SIMILAR_NAME_WEIGHT, skipped);
+				}
+				if (byName) {
+					scoreNames(scores, name, partial, skipped);
+				}
+
+				for (Map.Entry<Integer, Set<String>> entry : changedKeys.entrySet()) {
+					int userId = entry.getKey();
+					Set<String> keys = entry.getValue();
+					if ((matchType & KEYS) != 0) {
+						if (keys.contains(mail)) addScore(scores, userId, MAIL_WEIGHT);
+						if (keys.contains(login)) addScore(scores, userId, LOGIN_WEIGHT);
+						if (id != null && id == userId) addScore(scores, userId, ID_WEIGHT);
+					}
+					if ((matchType & SIMILAR_NAME) != 0 && keys.contains(SIMILAR + name)) addScore(scores, userId, SIMILAR_NAME_WEIGHT);
+					if (byName) scoreName(scores, userId, changedNames.get(userId), name, partial);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return rank(scores, maxResults);
+
+	}
+
+	/**
+	 * Search users directly in DB of current transaction. Used when index is not enabled.
+	 */
+	private List<Integer> searchInDb(Collection<String> searchStrings, int matchType, int maxResults) throws InternalErrorException {
+
+		Map<Integer, Integer> scores = new HashMap<Integer, Integer>();
+
+		try {
+			for (String searchString : searchStrings) {
+				if (searchString == null || searchString.trim().isEmpty()) continue;
+				String value = searchString.trim();
+				String name = normalizeName(value);
+				Integer id = parseId(value);
+				boolean partial = (matchType & NAME) != 0;
+
+				if ((matchType & KEYS) != 0) {
+					Set<Integer> byMail = new HashSet<Integer>();
+					byMail.addAll(jdbc.queryForList("select members.user_id from members join member_attr_values on members.id=member_attr_values.member_id" +
+							" join attr_names on member_attr_values.attr_id=attr_names.id where attr_names.attr_name=? and lower(member_attr_values.attr_value)=?",
+							Integer.class, A_M_MAIL, value.toLowerCase()));
+					byMail.addAll(jdbc.queryForList("select user_attr_values.user_id from user_attr_values join attr_names on user_attr_values.attr_id=attr_names.id" +
+							" where attr_names.attr_name=? and lower(user_attr_values.attr_value)=?", Integer.class, A_U_PREFERRED_MAIL, value.toLowerCase()));
+					for (Integer userId : byMail) addScore(scores, userId, MAIL_WEIGHT);
+
+					Set<Integer> byLogin = new HashSet<Integer>();
+					byLogin.addAll(jdbc.queryForList("select user_id from user_ext_sources where login_ext=?", Integer.class, value));
+					byLogin.addAll(jdbc.queryForList("select user_attr_values.user_id from user_attr_values join attr_names on user_attr_values.attr_id=attr_names.id" +
+							" where attr_names.friendly_name like 'login-namespace:%' and user_attr_values.attr_value=?", Integer.class, value));
+					for (Integer userId : byLogin) addScore(scores, userId, LOGIN_WEIGHT);
+
+					if (id != null && jdbc.queryForInt("select count(*) from users where id=?", id) > 0) addScore(scores, id, ID_WEIGHT);
+				}
+
+				if (name.isEmpty()) continue;
+				String fullName = "lower(replace(" + Compatibility.convertToAscii("coalesce(first_name,'') || coalesce(middle_name,'') || coalesce(last_name,'')") + ", ' ', ''))";
+
+				if ((matchType & SIMILAR_NAME) != 0) {
+					String shortName = "lower(replace(" + Compatibility.convertToAscii("coalesce(first_name,'') || coalesce(last_name,'')") + ", ' ', ''))";
+					for (Map.Entry<Integer, String[]> user : selectNames("where " + fullName + "=? or " + shortName + "=?", name, name).entrySet()) {
+						String[] parts = user.getValue();
+						if (name.equals(normalizeName(parts[0] + parts[1] + parts[2])) || (!parts[1].isEmpty() && name.equals(normalizeName(parts[0] + parts[2])))) {
+							addScore(scores, user.getKey(), SIMILAR_NAME_WEIGHT);
+						}
+					}
+				}
+				if ((matchType & (EXACT_NAME | NAME)) != 0) {
+					String where = partial ? "where " + fullName + " like '%' || ? || '%'" : "where " + fullName + "=?";
+					for (Map.Entry<Integer, String[]> user : selectNames(where, name).entrySet()) {
+						String[] parts = user.getValue();
+						scoreName(scores, user.getKey(), normalizeName(parts[0] + parts[1] + parts[2]), name, partial);
+					}
+				}
+			}
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+
+		return rank(scores, maxResults);
+
+	}
+
+	/**
+	 * Select first, middle and last names (never null) of users matching where clause.
+	 */
+	private Map<Integer, String[]> selectNames(String where, Object... args) {
+		final Map<Integer, String[]> result = new HashMap<Integer, String[]>();
+		jdbc.query("select id, first_name, middle_name, last_name from users " + where, args, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				String first = (rs.getString("first_name") == null) ? "" : rs.getString("first_name");
+				String middle = (rs.getString("middle_name") == null) ? "" : rs.getString("middle_name");
+				String last = (rs.getString("last_name") == null) ? "" : rs.getString("last_name");
+				result.put(rs.getInt("id"), new String[] { first, middle, last });
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Order IDs of users by their score (most relevant first) and by ID.
+	 */
+	private static List<Integer> rank(final Map<Integer, Integer> scores, int maxResults) {
+		List<Integer> result = new ArrayList<Integer>(scores.keySet());
+		Collections.sort(result, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int byScore = scores.get(o2).compareTo(scores.get(o1));
+				return (byScore != 0) ? byScore : o1.compareTo(o2);
+			}
+		});
+		return (result.size() > maxResults) ? new ArrayList<Integer>(result.subList(0, maxResults)) : result;
+	}
+
+	/**
+	 * Score all indexed names matching search string. Must be called with read lock.
+	 */
+	private void scoreNames(Map<Integer, Integer> scores, String name, boolean partial, Set<Integer> skipped) {
+
+		if (name.length() >= 3) {
+			// only names containing least common trigram of search string need to be checked
+			int[] candidates = null;
+			for (int i = 0; i + 3 <= name.length(); i++) {
+				int[] positions = trigrams.get(name.substring(i, i + 3));
+				if (positions == null) {
+					candidates = NO_USERS;
+					break;
+				}
+				if (candidates == null || positions.length < candidates.length) candidates = positions;
+			}
+			for (int position : candidates) {
+				int userId = nameUserIds[position];
+				if (!namesDelta.containsKey(userId) && !skipped.contains(userId)) scoreName(scores, userId, names[position], name, partial);
+			}
+		} else {
+			for (int position = 0; position < names.length; position++) {
+				int userId = nameUserIds[position];
+				if (!namesDelta.containsKey(userId) && !skipped.contains(userId)) scoreName(scores, userId, names[position], name, partial);
+			}
+		}
+
+		for (Map.Entry<Integer, String> entry : namesDelta.entrySet()) {
+			if (!skipped.contains(entry.getKey())) scoreName(scores, entry.getKey(), entry.getValue(), name, partial);
+		}
+
+	}
+
+	private static void scoreName(Map<Integer, Integer> scores, int userId, String userName, String name, boolean partial) {
+		if (userName == null) return;
+		if (userName.equals(name)) {
+			addScore(scores, userId, EQUAL_NAME_WEIGHT);
+		} else if (partial && userName.startsWith(name)) {
+			addScore(scores, userId, PREFIX_NAME_WEIGHT);
+		} else if (partial && userName.contains(name)) {
+			addScore(scores, userId, PART_NAME_WEIGHT);
+		}
+	}
+
+	/**
+	 * Load whole index from DB.
+	 */
+	private void load() {
+		synchronized (refreshLock) {
+			loadIndex();
+		}
+	}
+
+	private void loadIndex() {
+
+		long start = System.currentTimeMillis();
+		lastAuditMessageId = jdbc.queryForInt("select coalesce(max(id),0) from auditer_log");
+		processedAuditMessageIds.clear();
+		// changes from already stored messages will be loaded with users
+		processedAuditMessageIds.addAll(jdbc.queryForList("select id from auditer_log where id > ?", Integer.class, lastAuditMessageId - AUDIT_LOOKBACK));
+
+		Map<Integer, Set<String>> keys = new HashMap<Integer, Set<String>>();
+		Map<Integer, String> userNames = new HashMap<Integer, String>();
+		collectKeys(keys, userNames, null);
+
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			keysByUser.clear();
+			for (Map.Entry<Integer, Set<String>> entry : keys.entrySet()) {
+				putKeys(entry.getKey(), entry.getValue());
+			}
+			namesDelta.clear();
+			buildNames(userNames);
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("UserSearchIndex loaded {} users with {} keys in {} ms.", new Object[] { keysByUser.size(), postings.size(), System.currentTimeMillis() - start });
+
+	}
+
+	/**
+	 * Read new messages from auditer_log and re-index all users mentioned by them.
+	 * Called periodically by background thread.
+	 */
+	void processAuditMessages() {
+		synchronized (refreshLock) {
+			processNewAuditMessages();
+		}
+	}
+
+	private void processNewAuditMessages() {
+
+		// IDs of messages are assigned before commit, so some of them can appear later than
+		// messages with higher IDs. Look back to find them and skip already processed ones.
+		List<Integer> ids = jdbc.queryForList("select id from auditer_log where id > ?", Integer.class, lastAuditMessageId - AUDIT_LOOKBACK);
+		ids.removeAll(processedAuditMessageIds);
+		if (ids.isEmpty()) return;
+
+		final Set<Integer> userIds = new HashSet<Integer>();
+		final Set<Integer> userExtSourceIds = new HashSet<Integer>();
+		for (int i = 0; i < ids.size(); i += 1000) {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids.subList(i, Math.min(i + 1000, ids.size())));
+			namedParameterJdbcTemplate.query("select msg from auditer_log where id in (:ids)", parameters, new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet rs) throws SQLException {
+					addMentionedIds(userIds, userExtSourceIds, rs.getString("msg"));
+				}
+			});
+		}
+		addUsersOfUserExtSources(userIds, userExtSourceIds);
+
+		for (Integer userId : userIds) {
+			reindexUser(userId);
+		}
+
+		for (Integer id : ids) {
+			processedAuditMessageIds.add(id);
+			if (id > lastAuditMessageId) lastAuditMessageId = id;
+		}
+		processedAuditMessageIds.headSet(lastAuditMessageId - AUDIT_LOOKBACK, true).clear();
+
+		lock.writeLock().lock();
+		try {
+			if (namesDelta.size() > Math.max(MIN_DELTA_SIZE, names.length / 10)) mergeNames();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.debug("UserSearchIndex processed {} audit messages and re-indexed {} users.", ids.size(), userIds.size());
+
+	}
+
+	/**
+	 * Replace all keys and name of user by current state in DB. Removes user from index, if he doesn't exist.
+	 *
+	 * @param userId ID of user
+	 */
+	private void reindexUser(int userId) {
+
+		Map<Integer, Set<String>> keys = new HashMap<Integer, Set<String>>();
+		Map<Integer, String> userNames = new HashMap<Integer, String>();
+		collectKeys(keys, userNames, userId);
+
+		lock.writeLock().lock();
+		try {
+			removeKeys(userId);
+			if (keys.containsKey(userId)) putKeys(userId, keys.get(userId));
+			namesDelta.put(userId, userNames.get(userId));
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+	}
+
+	/**
+	 * Read keys and names of users from DB.
+	 *
+	 * @param keys map to collect keys of users into
+	 * @param userNames map to collect normalized names of users into
+	 * @param userId ID of user to read keys for or null for all users
+	 */
+	private void collectKeys(final Map<Integer, Set<String>> keys, final Map<Integer, String> userNames, Integer userId) {
+
+		Object[] args = (userId == null) ? new Object[0] : new Object[] { userId };
+
+		jdbc.query("select id, first_name, middle_name, last_name from users" + (userId == null ? "" : " where id=?"), args, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				String first = (rs.getString("first_name") == null) ? "" : rs.getString("first_name");
+				String middle = (rs.getString("middle_name") == null) ? "" : rs.getString("middle_name");
+				String last = (rs.getString("last_name") == null) ? "" : rs.getString("last_name");
+				String name = normalizeName(first + middle + last);
+				Set<String> userKeys = getKeys(keys, rs.getInt("id"));
+				userNames.put(rs.getInt("id"), name);
+				addKey(userKeys, SIMILAR, name);
+				// match also names without middle name
+				if (!middle.isEmpty()) addKey(userKeys, SIMILAR, normalizeName(first + last));
+			}
+		});
+
+		// users, which don't exist, are not indexed
+		if (userId != null && !keys.containsKey(userId)) return;
+
+		jdbc.query("select user_id, login_ext from user_ext_sources where login_ext is not null" + (userId == null ? "" : " and user_id=?"), args, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				Set<String> userKeys = keys.get(rs.getInt("user_id"));
+				if (userKeys != null) addKey(userKeys, LOGIN, rs.getString("login_ext"));
+			}
+		});
+
+		Object[] attrArgs = (userId == null) ? new Object[] { A_U_PREFERRED_MAIL } : new Object[] { A_U_PREFERRED_MAIL, userId };
+
+		jdbc.query("select user_attr_values.user_id as user_id, attr_names.attr_name as attr_name, user_attr_values.attr_value as attr_value" +
+				" from user_attr_values join attr_names on user_attr_values.attr_id=attr_names.id" +
+				" where (attr_names.attr_name=? or attr_names.friendly_name like 'login-namespace:%')" +
+				(userId == null ? "" : " and user_attr_values.user_id=?"), attrArgs, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				Set<String> userKeys = keys.get(rs.getInt("user_id"));
+				if (userKeys == null) return;
+				String value = rs.getString("attr_value");
+				if (A_U_PREFERRED_MAIL.equals(rs.getString("attr_name"))) {
+					if (value != null) addKey(userKeys, MAIL, value.toLowerCase());
+				} else {
+					addKey(userKeys, LOGIN, value);
+				}
+			}
+		});
+
+		attrArgs[0] = A_M_MAIL;
+		jdbc.query("select members.user_id as user_id, member_attr_values.attr_value as attr_value" +
+				" from members join member_attr_values on members.id=member_attr_values.member_id" +
+				" join attr_names on member_attr_values.attr_id=attr_names.id where attr_names.attr_name=?" +
+				(userId == null ? "" : " and members.user_id=?"), attrArgs, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				Set<String> userKeys = keys.get(rs.getInt("user_id"));
+				String value = rs.getString("attr_value");
+				if (userKeys != null && value != null) addKey(userKeys, MAIL, value.toLowerCase());
+			}
+		});
+
+	}
+
+	/**
+	 * Build names ordered by user ID and their trigram postings. Must be called with write lock.
+	 *
+	 * @param userNames normalized names of all users
+	 */
+	private void buildNames(Map<Integer, String> userNames) {
+
+		TreeMap<Integer, String> sorted = new TreeMap<Integer, String>(userNames);
+		int[] newUserIds = new int[sorted.size()];
+		String[] newNames = new String[sorted.size()];
+		int position = 0;
+		for (Map.Entry<Integer, String> entry : sorted.entrySet()) {
+			newUserIds[position] = entry.getKey();
+			newNames[position] = entry.getValue();
+			position++;
+		}
+
+		// count positions of each trigram first to allocate postings of exact size
+		Map<String, int[]> counts = new HashMap<String, int[]>();
+		for (String name : newNames) {
+			for (String trigram : getTrigrams(name)) {
+				int[] count = counts.get(trigram);
+				if (count == null) {
+					count = new int[1];
+					counts.put(trigram, count);
+				}
+				count[0]++;
+			}
+		}
+		Map<String, int[]> newTrigrams = new HashMap<String, int[]>(counts.size() * 2);
+		for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+			newTrigrams.put(entry.getKey(), new int[entry.getValue()[0]]);
+			entry.getValue()[0] = 0;
+		}
+		for (position = 0; position < newNames.length; position++) {
+			for (String trigram : getTrigrams(newNames[position])) {
+				newTrigrams.get(trigram)[counts.get(trigram)[0]++] = position;
+			}
+		}
+
+		nameUserIds = newUserIds;
+		names = newNames;
+		trigrams = newTrigrams;
+
+	}
+
+	/**
+	 * Merge delta of names into trigram postings. Must be called with write lock.
+	 */
+	private void mergeNames() {
+		Map<Integer, String> userNames = new HashMap<Integer, String>(names.length * 2);
+		for (int position = 0; position < names.length; position++) {
+			userNames.put(nameUserIds[position], names[position]);
+		}
+		for (Map.Entry<Integer, String> entry : namesDelta.entrySet()) {
+			if (entry.getValue() == null) {
+				userNames.remove(entry.getKey());
+			} else {
+				userNames.put(entry.getKey(), entry.getValue());
+			}
+		}
+		namesDelta.clear();
+		buildNames(userNames);
+	}
+
+	private static Set<String> getTrigrams(String name) {
+		Set<String> result = new HashSet<String>();
+		for (int i = 0; i + 3 <= name.length(); i++) {
+			result.add(name.substring(i, i + 3));
+		}
+		return result;
+	}
+
+	private static void addMentionedIds(Set<Integer> userIds, Set<Integer> userExtSourceIds, String message) {
+		if (message == null) return;
+		Matcher matcher = USER_ID_PATTERN.matcher(message);
+		while (matcher.find()) {
+			userIds.add(Integer.valueOf(matcher.group(1)));
+		}
+		matcher = USER_EXT_SOURCE_ID_PATTERN.matcher(message);
+		while (matcher.find()) {
+			userExtSourceIds.add(Integer.valueOf(matcher.group(1)));
+		}
+	}
+
+	/**
+	 * Add IDs of users owning user ext sources. Removed user ext sources are skipped, their
+	 * removal is audited together with the user.
+	 */
+	private void addUsersOfUserExtSources(final Set<Integer> userIds, Set<Integer> userExtSourceIds) {
+		List<Integer> ids = new ArrayList<Integer>(userExtSourceIds);
+		for (int i = 0; i < ids.size(); i += 1000) {
+			MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids.subList(i, Math.min(i + 1000, ids.size())));
+			namedParameterJdbcTemplate.query("select user_id from user_ext_sources where id in (:ids)", parameters, new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet rs) throws SQLException {
+					userIds.add(rs.getInt("user_id"));
+				}
+			});
+		}
+	}
+
+	private static Integer parseId(String value) {
+		try {
+			return Integer.valueOf(value);
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	private static Set<String> getKeys(Map<Integer, Set<String>> keys, int userId) {
+		Set<String> userKeys = keys.get(userId);
+		if (userKeys == null) {
+			userKeys = new HashSet<String>();
+			keys.put(userId, userKeys);
+		}
+		return userKeys;
+	}
+
+	private static void addKey(Set<String> userKeys, String prefix, String value) {
+		if (value != null && !value.isEmpty()) userKeys.add((prefix + value).intern());
+	}
+
+	private static void addScore(Map<Integer, Integer> scores, int userId, int weight) {
+		Integer score = scores.get(userId);
+		scores.put(userId, (score == null) ? weight : score + weight);
+	}
+
+	private static void addScores(Map<Integer, Integer> scores, List<Integer> userIds, int weight, Set<Integer> skipped) {
+		if (userIds == null) return;
+		for (int userId : userIds) {
+			if (!skipped.contains(userId)) addScore(scores, userId, weight);
+		}
+	}
+
+	/**
+	 * Must be called with write lock.
+	 */
+	private void putKeys(int userId, Set<String> userKeys) {
+		keysByUser.put(userId, userKeys.toArray(new String[userKeys.size()]));
+		for (String key : userKeys) {
+			List<Integer> userIds = postings.get(key);
+			if (userIds == null) {
+				// most keys belong to single user
+				userIds = new ArrayList<Integer>(1);
+				postings.put(key, userIds);
+			}
+			userIds.add(userId);
+		}
+	}
+
+	/**
+	 * Must be called with write lock.
+	 */
+	private void removeKeys(int userId) {
+		String[] userKeys = keysByUser.remove(userId);
+		if (userKeys == null) return;
+		for (String key : userKeys) {
+			List<Integer> userIds = postings.get(key);
+			if (userIds == null) continue;
+			userIds.remove(Integer.valueOf(userId));
+			if (userIds.isEmpty()) postings.remove(key);
+		}
+	}
+
+}
@@ -97,6 +97,8 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 
 	private JdbcPerunTemplate jdbc;
 	private NamedParameterJdbcTemplate  namedParameterJdbcTemplate;
+	private UserSearchIndex userSearchIndex;
+	private Auditer auditer;
 
 	protected static final RowMapper<User> USER_MAPPER = new RowMapper<User>() {
 		public User mapRow(ResultSet rs, int i) throws SQLException {
@@ -183,6 +185,39 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 	public UsersManagerImpl(DataSource perunPool) {
 		this.jdbc = new JdbcPerunTemplate(perunPool);
 		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(perunPool);
+		this.userSearchIndex = new UserSearchIndex(jdbc, isUserSearchIndexEnabled());
+	}
+
+	/**
+	 * Return true if in-memory index of users is enabled by property perun.userSearchIndex.enabled.
+	 * It is disabled by default, so processes which don't search users don't load it.
+	 *
+	 * @return true if index is enabled
+	 */
+	private static boolean isUserSearchIndexEnabled() {
+		try {
+			return Boolean.parseBoolean(BeansUtils.getPropertyFromConfiguration("perun.userSearchIndex.enabled").trim());
+		} catch (InternalErrorException e) {
+			log.debug("Property perun.userSearchIndex.enabled is not set, users are searched in DB.");
+			return false;
+		}
+	}
+
+	/**
+	 * Load index of users for searching (if enabled), it is then synchronized with audit log in background.
+	 *
+	 * @throws InternalErrorException
+	 */
+	public void initialize() throws InternalErrorException {
+		userSearchIndex.start();
+	}
+
+	public void shutdown() {
+		userSearchIndex.shutdown();
+	}
+
+	public void setAuditer(Auditer auditer) {
+		this.auditer = auditer;
 	}
 
 	public List<Pair<User, Attribute>> getAllRichUsersWithAllNonVirutalAttributes(PerunSession sess) throws InternalErrorException {
@@ -358,6 +393,7 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 		try {
 			// delete all relations like  user -> sponsor -> service
 			jdbc.update("delete from specific_user_users where specific_user_id=? or user_id=?", user.getId(), user.getId());
+			ResourceMembersCache.invalidate();
 			int numAffected = jdbc.update("delete from users where id=?", user.getId());
 			if(numAffected == 0) {
 				if (user.isSpecificUser()) throw new SpecificUserAlreadyRemovedException("SpecificUser: " + user);
@@ -429,6 +465,8 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 				userDb.setTitleAfter(user.getTitleAfter());
 			}
 		
+			// cached allowed users would have old names
+			ResourceMembersCache.invalidate();
 			return userDb;
 		} catch (RuntimeException err) {
 			throw new InternalErrorException(err);
@@ -458,6 +496,8 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 				userDb.setTitleAfter(user.getTitleAfter());
 			}
 			
+			// cached allowed users would have old names
+			ResourceMembersCache.invalidate();
 			return userDb;
 		} catch (RuntimeException err) {
 			throw new InternalErrorException(err);
@@ -712,134 +752,26 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 	}
 
 	public List<User> findUsers(PerunSession sess, String searchString) throws InternalErrorException {
-		Set<User> users = new HashSet<User>();
+		return findUsers(sess, searchString, Integer.MAX_VALUE);
+	}
 
+	public List<User> findUsers(PerunSession sess, String searchString, int maxResults) throws InternalErrorException {
 		log.debug("Searching for users using searchString '{}'", searchString);
-
-		// Search by mail (member)
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-					" from users, members, member_attr_values, attr_names " +
-					"where members.user_id=users.id and members.id=member_attr_values.member_id and member_attr_values.attr_id=attr_names.id and " +
-					"attr_names.attr_name='urn:perun:member:attribute-def:def:mail' and " +
-					"lower(member_attr_values.attr_value)=lower(?)", USER_MAPPER, searchString.toLowerCase()));
-
-		// Search preferred email (user)
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-					" from users, user_attr_values, attr_names " +
-					"where users.id=user_attr_values.user_id and user_attr_values.attr_id=attr_names.id and " +
-					"attr_names.attr_name='urn:perun:user:attribute-def:def:preferredMail' and " +
-					"lower(user_attr_values.attr_value)=lower(?)", USER_MAPPER, searchString.toLowerCase()));
-
-		// Search logins in userExtSources
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-					" from users, user_ext_sources " +
-					"where user_ext_sources.login_ext=? and user_ext_sources.user_id=users.id", USER_MAPPER, searchString));
-
-		// Search logins in attributes: login-namespace:*
-		users.addAll(jdbc.query("select distinct " + userMappingSelectQuery +
-					" from attr_names, user_attr_values, users " +
-					"where attr_names.friendly_name like 'login-namespace:%' and user_attr_values.attr_value=? " +
-					"and attr_names.id=user_attr_values.attr_id and user_attr_values.user_id=users.id",
-					USER_MAPPER, searchString));
-
-		// Search by userId
-		try {
-			int userId = Integer.parseInt(searchString);
-			users.addAll(jdbc.query("select " + userMappingSelectQuery + " from users where id=?", USER_MAPPER, userId));
-		} catch (NumberFormatException e) {
-			// IGNORE
-		}
-
-		users.addAll(findUsersByName(sess, searchString));
-
-		return new ArrayList<User>(users);
+		return getUsersInOrder(sess, userSearchIndex.findUserIds(searchString, UserSearchIndex.KEYS | UserSearchIndex.NAME, maxResults, getChangedUserIds()));
 	}
 
 	public List<User> findUsersByExactMatch(PerunSession sess, String searchString) throws InternalErrorException {
-		Set<User> users = new HashSet<User>();
-
 		log.debug("Searching for users using searchString '{}'", searchString);
+		return getUsersInOrder(sess, userSearchIndex.findUserIds(searchString, UserSearchIndex.KEYS | UserSearchIndex.EXACT_NAME, Integer.MAX_VALUE, getChangedUserIds()));
+	}
 
-		// Search by mail (member)
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-				" from users, members, member_attr_values, attr_names " +
-				"where members.user_id=users.id and members.id=member_attr_values.member_id and member_attr_values.attr_id=attr_names.id and " +
-				"attr_names.attr_name='urn:perun:member:attribute-def:def:mail' and " +
-				"lower(member_attr_values.attr_value)=lower(?)", USER_MAPPER, searchString.toLowerCase()));
-
-		// Search preferred email (user)
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-				" from users, user_attr_values, attr_names " +
-				"where users.id=user_attr_values.user_id and user_attr_values.attr_id=attr_names.id and " +
-				"attr_names.attr_name='urn:perun:user:attribute-def:def:preferredMail' and " +
-				"lower(user_attr_values.attr_value)=lower(?)", USER_MAPPER, searchString.toLowerCase()));
-
-		// Search logins in userExtSources
-		users.addAll(jdbc.query("select " + userMappingSelectQuery +
-				" from users, user_ext_sources " +
-				"where user_ext_sources.login_ext=? and user_ext_sources.user_id=users.id", USER_MAPPER, searchString));
-
-		// Search logins in attributes: login-namespace:*
-		users.addAll(jdbc.query("select distinct " + userMappingSelectQuery +
-						" from attr_names, user_attr_values, users " +
-						"where attr_names.friendly_name like 'login-namespace:%' and user_attr_values.attr_value=? " +
-						"and attr_names.id=user_attr_values.attr_id and user_attr_values.user_id=users.id",
-				USER_MAPPER, searchString));
-
-		// Search by userId
-		try {
-			int userId = Integer.parseInt(searchString);
-			users.addAll(jdbc.query("select " + userMappingSelectQuery + " from users where id=?", USER_MAPPER, userId));
-		} catch (NumberFormatException e) {
-			// IGNORE
-		}
-
-		users.addAll(findUsersByExactName(sess, searchString));
-
-		return new ArrayList<User>(users);
+	public List<User> findSimilarUsers(PerunSession sess, List<String> searchStrings) throws InternalErrorException {
+		return getUsersInOrder(sess, userSearchIndex.findSimilarUserIds(searchStrings, getChangedUserIds()));
 	}
 
 	public List<User> findUsersByName(PerunSession sess, String searchString) throws InternalErrorException {
-		if (searchString == null || searchString.isEmpty()) {
-			return new ArrayList<User>();
-		}
-
-		// Convert to lower case
-		searchString = searchString.toLowerCase();
-		log.debug("Search string '{}' converted into the lowercase", searchString);
-
-		// Convert to ASCII
-		searchString = Utils.utftoasci(searchString);
-		log.debug("Search string '{}' converted into the ASCII", searchString);
-
-		// remove spaces from the search string
-		searchString = searchString.replaceAll(" ", "");
-
 		log.debug("Searching users by name using searchString '{}'", searchString);
-
-		// the searchString is already lower cased and converted into the ASCII
-		try {
-			if (Compatibility.isOracle()) {
-				// Search users' names
-				return (jdbc.query("select " + userMappingSelectQuery + " from users " +
-							"where lower("+Compatibility.convertToAscii("users.first_name || users.middle_name || users.last_name")+") like '%' || ? || '%'",
-							USER_MAPPER, searchString));
-			} else if (Compatibility.isPostgreSql()) {
-				return jdbc.query("select " + userMappingSelectQuery + "  from users " +
-						"where strpos(lower("+Compatibility.convertToAscii("COALESCE(users.first_name,'') || COALESCE(users.middle_name,'') || COALESCE(users.last_name,'')")+"),?) > 0",
-						USER_MAPPER, searchString);
-			} else if (Compatibility.isHSQLDB()) {
-				return jdbc.query("select " + userMappingSelectQuery + "  from users " +
-								"where lower("+Compatibility.convertToAscii("COALESCE(users.first_name,'') || COALESCE(users.middle_name,'') || COALESCE(users.last_name,'')")+") like '%' || ? || '%'",
-						USER_MAPPER, searchString);
-			} else {
-				throw new InternalErrorException("Unsupported db type");
-			}
-		} catch (EmptyResultDataAccessException e) {
-			return new ArrayList<User>();
-		} catch (RuntimeException e) {
-			throw new InternalErrorException(e);
-		}
+		return getUsersInOrder(sess, userSearchIndex.findUserIds(searchString, UserSearchIndex.NAME, Integer.MAX_VALUE, getChangedUserIds()));
 	}
 
 	public List<User> findUsersByName(PerunSession sess, String titleBefore, String firstName, String middleName, String lastName, String titleAfter) throws InternalErrorException {
@@ -874,46 +806,51 @@ public class UsersManagerImpl implements UsersManagerImplApi {
 	}
 
 	public List<User> findUsersByExactName(PerunSession sess, String searchString) throws InternalErrorException {
-		if (searchString == null || searchString.isEmpty()) {
-			return new ArrayList<User>();
-		}
-
-		// Convert to lower case
-		searchString = searchString.toLowerCase();
-		log.debug("Search string '{}' converted into the lowercase", searchString);
-
-		// Convert to ASCII
-		searchString = Utils.utftoasci(searchString);
-		log.debug("Search string '{}' converted into the ASCII", searchString);
-
-		// remove spaces from the search string
-		searchString = searchString.replaceAll(" ", "");
+		log.debug("Searching users by exact name using searchString '{}'", searchString);
+		return getUsersInOrder(sess, userSearchIndex.findUserIds(searchString, UserSearchIndex.EXACT_NAME, Integer.MAX_VALUE, getChangedUserIds()));
+	}
 
-		log.debug("Searching users by name using searchString '{}'", searchString);
+	/**
+	 * Return IDs of users mentioned by audit messages of current transaction. Such changes
+	 * are not committed yet, so users must be searched in DB instead of UserSearchIndex.
+	 *
+	 * @return IDs of users changed by current transaction
+	 * @throws InternalErrorException
+	 */
+	private Set<Integer> getChangedUserIds() throws InternalErrorException {
+		// users are searched in DB of current transaction
+		if (auditer == null || !userSearchIndex.isEnabled()) return null;
+		List<String> messages = new ArrayList<String>();
+		for (AuditerMessage message : auditer.getPendingMessages()) {
+			messages.add(message.getMessage());
+		}
+		return userSearchIndex.getMentionedUserIds(messages);
+	}
 
-		// the searchString is already lower cased and converted into the ASCII
-		try {
-			if (Compatibility.isOracle()) {
-				// Search users' names
-				return (jdbc.query("select " + userMappingSelectQuery + " from users "
-								+ "where lower(" + Compatibility.convertToAscii("users.first_name || users.middle_name || users.last_name") + ")=?",
-						USER_MAPPER, searchString));
-			} else if (Compatibility.isPostgreSql()) {
-				return jdbc.query("select " + userMappingSelectQuery + " from users "
-								+ "where lower(" + Compatibility.convertToAscii("COALESCE(users.first_name,'') || COALESCE(users.middle_name,'') || COALESCE(users.last_name,'')") + ")=?",
-						USER_MAPPER, searchString);
-			} else if (Compatibility.isHSQLDB()) {
-				return jdbc.query("select " + userMappingSelectQuery + "  from users " +
-								"where lower("+Compatibility.convertToAscii("COALESCE(users.first_name,'') || COALESCE(users.middle_name,'') || COALESCE(users.last_name,'')")+")=?",
-						USER_MAPPER, searchString);
-			} else {
-				throw new InternalErrorException("Unsupported db type");
+	/**
+	 * Load users by IDs and keep order of IDs (relevance of search).
+	 *
+	 * @param sess
+	 * @param ids ordered IDs of users
+	 * @return users in the same order
+	 * @throws InternalErrorException
+	 */
+	private List<User> getUsersInOrder(PerunSession sess, List<Integer> ids) throws InternalErrorException {
+		if (ids.isEmpty()) return new ArrayList<User>();
+
+		// load users in chunks because of limited size of IN clause in Oracle
+		Map<Integer, User> users = new HashMap<Integer, User>();
+		for (int i = 0; i < ids.size(); i += 1000) {
+			for (User user : getUsersByIds(sess, ids.subList(i, Math.min(i + 1000, ids.size())))) {
+				users.put(user.getId(), user);
 			}
-		} catch (EmptyResultDataAccessException e) {
-			return new ArrayList<User>();
-		} catch (RuntimeException e) {
-			throw new InternalErrorException(e);
 		}
+
+		List<User> result = new ArrayList<User>();
+		for (Integer id : ids) {
+			if (users.containsKey(id)) result.add(users.get(id));
+		}
+		return result;
 	}
 
 	public boolean isUserPerunAdmin(PerunSession sess, User user) throws InternalErrorException {
@@ -11,11 +11,10 @@ import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.exceptions.AttributeNotExistsException;
-import cz.metacentrum.perun.core.api.exceptions.FacilityNotExistsException;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
-import cz.metacentrum.perun.core.api.exceptions.UserNotExistsException;
 import cz.metacentrum.perun.core.api.exceptions.WrongAttributeAssignmentException;
 import cz.metacentrum.perun.core.api.exceptions.WrongReferenceAttributeValueException;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
 import cz.metacentrum.perun.core.impl.PerunSessionImpl;
 import cz.metacentrum.perun.core.implApi.modules.attributes.ResourceMemberVirtualAttributesModuleAbstract;
 import cz.metacentrum.perun.core.implApi.modules.attributes.ResourceMemberVirtualAttributesModuleImplApi;
@@ -48,25 +47,9 @@ public class urn_perun_member_resource_attribute_def_virt_isBanned extends Resou
 		//Default value is false
 		attribute.setValue(false);
 
-		Facility facility;
-		try {
-			facility = sess.getPerunBl().getFacilitiesManagerBl().getFacilityById(sess, resource.getFacilityId());
-		} catch (FacilityNotExistsException ex) {
-			throw new InternalErrorException("Facility for Resource " + resource + " not exists!");
-		}
-
-		User user;
-		try {
-			user = sess.getPerunBl().getUsersManagerBl().getUserById(sess, member.getUserId());
-		} catch (UserNotExistsException ex) {
-			throw new InternalErrorException("User for Member " + member + " not exists!");
-		}
+		//Ban on resource or on facility exists? (all bans of facility are loaded once per transaction)
+		if(FacilityBansEvaluator.getInstance(sess, resource.getFacilityId()).isMemberBanned(member, resource)) attribute.setValue(true);
 
-		//Ban on resource exists?
-		if(sess.getPerunBl().getResourcesManagerBl().banExists(sess, member.getId(), resource.getId())) attribute.setValue(true);
-		//Ban on facility exists?
-        if(sess.getPerunBl().getFacilitiesManagerBl().banExists(sess, user.getId(), facility.getId())) attribute.setValue(true);
-        
         return attribute;
 
     }
@@ -148,18 +131,7 @@ public class urn_perun_member_resource_attribute_def_virt_isBanned extends Resou
 	 * @throws InternalErrorException
 	 */
 	private List<Pair<Resource, Member>> getAffectedMemberResourceObjects(PerunSessionImpl perunSession, User user, Facility facility) throws InternalErrorException {
-		List<Pair<Resource, Member>> listOfAffectedObjects = new ArrayList<>();
-		List<Resource> assignedResources = perunSession.getPerunBl().getFacilitiesManagerBl().getAssignedResources(perunSession, facility);
-		for(Resource resource: assignedResources) {
-			List<Member> assignedMembers = perunSession.getPerunBl().getResourcesManagerBl().getAssignedMembers(perunSession, resource);
-			for(Member member: assignedMembers) {
-				if(member.getUserId() == user.getId()) {
-					listOfAffectedObjects.add(new Pair(resource, member));
-					break;
-				}
-			}
-		}
-		return listOfAffectedObjects;
+		return perunSession.getPerunBl().getResourcesManagerBl().getAssignedResourcesWithMembers(perunSession, facility, user);
 	}
 
 }
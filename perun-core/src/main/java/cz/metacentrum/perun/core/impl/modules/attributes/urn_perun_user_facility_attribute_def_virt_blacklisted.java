@@ -2,11 +2,10 @@ package cz.metacentrum.perun.core.impl.modules.attributes;
 
 import cz.metacentrum.perun.core.api.*;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
 import cz.metacentrum.perun.core.impl.PerunSessionImpl;
 import cz.metacentrum.perun.core.implApi.modules.attributes.FacilityUserVirtualAttributesModuleAbstract;
 
-import java.util.List;
-
 /**
  * Get boolean value. TRUE if user is blacklisted by one of the security teams which are added to facilty.
  *
@@ -17,13 +16,10 @@ public class urn_perun_user_facility_attribute_def_virt_blacklisted extends Faci
 	public Attribute getAttributeValue(PerunSessionImpl sess, Facility facility, User user, AttributeDefinition attributeDefinition) throws InternalErrorException {
 		Attribute attribute = new Attribute(attributeDefinition);
 
-		List<SecurityTeam> securityTeams = sess.getPerunBl().getFacilitiesManagerBl().getAssignedSecurityTeams(sess, facility);
-
-		for (SecurityTeam st : securityTeams) {
-			if (sess.getPerunBl().getSecurityTeamsManagerBl().isUserBlacklisted(sess, st, user)) {
-				attribute.setValue(true);
-				return attribute;
-			}
+		// blacklists of all security teams of facility are loaded once per transaction
+		if (FacilityBansEvaluator.getInstance(sess, facility.getId()).isUserBlacklisted(user)) {
+			attribute.setValue(true);
+			return attribute;
 		}
 
 		attribute.setValue(null);
@@ -717,6 +717,20 @@ public interface AttributesManagerImplApi {
 	 */
 	boolean setAttribute(PerunSession sess, Object object, Attribute attribute) throws InternalErrorException, WrongAttributeAssignmentException;
 
+	/**
+	 * Store the attributes associated with the given perun bean (or key of entityless attributes).
+	 * Stored values of all attributes are read by one query and new or changed values are written
+	 * by batch statements. Large attributes and attributes with null value are stored one by one.
+	 *
+	 * @param sess perun session
+	 * @param object object of setting the attributes, must be one of perunBean or string
+	 * @param attributes attributes to set
+	 * @return attributes whose values changed
+	 * @throws InternalErrorException if an exception raise in concrete implementation, the exception is wrapped in InternalErrorException
+	 * @throws WrongAttributeAssignmentException if the namespace of any attribute does not match the perunBean
+	 */
+	List<Attribute> setAttributes(PerunSession sess, Object object, List<Attribute> attributes) throws InternalErrorException, WrongAttributeAssignmentException;
+
 	/**
 	 * Store the particular attribute associated with the bean1 and bean2. If an attribute is core attribute then the attribute isn't stored (It's skkiped whithout any notification).
 	 *
@@ -746,6 +760,30 @@ public interface AttributesManagerImplApi {
 	 */
 	public boolean insertAttribute(PerunSession sess, String valueColName, Attribute attribute, String tableName, List<String> columnNames, List<Object> columnValues) throws InternalErrorException;
 
+	/**
+	 * Insert values of attributes of one holder in DB by one batch.
+	 *
+	 * @param sess perun session
+	 * @param attributes attributes (not large) which will be inserted
+	 * @param tableName in the database in which the attributes will be inserted
+	 * @param columnName column with id of holder (or subject of entityless attributes)
+	 * @param identificator id of holder (or subject of entityless attributes)
+	 * @throws InternalErrorException
+	 */
+	void insertAttributes(PerunSession sess, List<Attribute> attributes, String tableName, String columnName, Object identificator) throws InternalErrorException;
+
+	/**
+	 * Update values of attributes of one holder in DB by one batch.
+	 *
+	 * @param sess perun session
+	 * @param attributes attributes (not large) which will be updated
+	 * @param tableName in the database for updating
+	 * @param columnName column with id of holder (or subject of entityless attributes)
+	 * @param identificator id of holder (or subject of entityless attributes)
+	 * @throws InternalErrorException
+	 */
+	void updateAttributes(PerunSession sess, List<Attribute> attributes, String tableName, String columnName, Object identificator) throws InternalErrorException;
+
 	/**
 	 * Update attribute value in DB.
 	 *
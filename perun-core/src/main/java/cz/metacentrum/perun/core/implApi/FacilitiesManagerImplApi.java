@@ -434,6 +434,17 @@ public interface FacilitiesManagerImplApi {
 	 */
 	List<User> getAssignedUsers(PerunSession sess, Facility facility) throws InternalErrorException;
 
+	/**
+	 * Return all users allowed on Facility (assigned to any of its resources through member,
+	 * which is not INVALID nor DISABLED).
+	 *
+	 * @param sess
+	 * @param facility
+	 * @return list of users
+	 * @throws InternalErrorException
+	 */
+	List<User> getAllowedUsers(PerunSession sess, Facility facility) throws InternalErrorException;
+
 	/**
 	 * Returns list of Users assigned with chosen Facility containing resources where service is assigned.
 	 *
@@ -819,4 +830,14 @@ public interface FacilitiesManagerImplApi {
 	 * @throws BanNotExistsException
 	 */
 	void removeBan(PerunSession sess, int userId, int facilityId) throws InternalErrorException, BanNotExistsException;
+
+	/**
+	 * Remove bans by their ids from facilities bans at once.
+	 *
+	 * @param sess
+	 * @param banIds ids of bans to remove
+	 * @return ids of removed bans, bans which didn't exist anymore are not included
+	 * @throws InternalErrorException
+	 */
+	List<Integer> removeBans(PerunSession sess, List<Integer> banIds) throws InternalErrorException;
 }
\ No newline at end of file
@@ -137,6 +137,20 @@ public interface MembersManagerImplApi {
 	 */
 	void setStatus(PerunSession sess, Member member, Status status) throws InternalErrorException;
 
+	/**
+	 * Set status of members, which have the old status, to specified status. All members are updated in one batch,
+	 * members with other than old status are skipped.
+	 *
+	 * @param sess
+	 * @param members
+	 * @param oldStatus status the members must have to be changed
+	 * @param status new status
+	 * @return members whose status was changed
+	 *
+	 * @throws InternalErrorException
+	 */
+	List<Member> setStatus(PerunSession sess, List<Member> members, Status oldStatus, Status status) throws InternalErrorException;
+
 	/**
 	 * Convert list of users' ids into the list of members.
 	 *
@@ -7,6 +7,7 @@ import cz.metacentrum.perun.core.api.BanOnResource;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.Group;
 import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.PerunSession;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.ResourceTag;
@@ -627,6 +628,27 @@ public interface ResourcesManagerImplApi {
 	 */
 	List<BanOnResource> getBansForResource(PerunSession sess, int resourceId) throws InternalErrorException;
 
+	/**
+	 * Get all members bans for all resources of facility
+	 *
+	 * @param sess
+	 * @param facilityId the facility id
+	 * @return list of all members bans on resources of facility
+	 * @throws InternalErrorException
+	 */
+	List<BanOnResource> getBansForResourcesOfFacility(PerunSession sess, int facilityId) throws InternalErrorException;
+
+	/**
+	 * Get all resources of facility, where user is assigned, together with member of user in VO of resource.
+	 *
+	 * @param sess
+	 * @param facility
+	 * @param user
+	 * @return list of pairs of resource and assigned member of user
+	 * @throws InternalErrorException
+	 */
+	List<Pair<Resource, Member>> getAssignedResourcesWithMembers(PerunSession sess, Facility facility, User user) throws InternalErrorException;
+
 	/**
 	 * Get all expired bans on any resource to now date
 	 *
@@ -666,4 +688,14 @@ public interface ResourcesManagerImplApi {
 	 * @throws BanNotExistsException
 	 */
 	void removeBan(PerunSession sess, int memberId, int resourceId) throws InternalErrorException, BanNotExistsException;
+
+	/**
+	 * Remove bans by their ids from resources bans at once.
+	 *
+	 * @param sess
+	 * @param banIds ids of bans to remove
+	 * @return ids of removed bans, bans which didn't exist anymore are not included
+	 * @throws InternalErrorException
+	 */
+	List<Integer> removeBans(PerunSession sess, List<Integer> banIds) throws InternalErrorException;
 }
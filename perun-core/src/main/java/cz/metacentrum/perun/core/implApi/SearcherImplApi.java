@@ -3,6 +3,7 @@ package cz.metacentrum.perun.core.implApi;
 import cz.metacentrum.perun.core.api.Attribute;
 import cz.metacentrum.perun.core.api.Member;
 import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
 import cz.metacentrum.perun.core.api.exceptions.AttributeNotExistsException;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
@@ -57,4 +58,19 @@ public interface SearcherImplApi {
 	 */
 	List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date, int days) throws InternalErrorException;
 
+	/**
+	 * Return members with expiration date set and with specified status, which will expire on specified date.
+	 * You can specify operator for comparison (by default "=") returning exact match.
+	 *
+	 * Query can use index on expiration values, so only matching members are read.
+	 *
+	 * @param sess PerunSession
+	 * @param operator One of "=", "<", ">", "<=", ">=". If null, "=" is anticipated.
+	 * @param date Date to compare expiration with (if null, current date is used).
+	 * @param status Status of returned members (if null, status is ignored).
+	 * @return Members with expiration and status relative to method params.
+	 * @throws InternalErrorException
+	 */
+	List<Member> getMembersByExpiration(PerunSession sess, String operator, Calendar date, Status status) throws InternalErrorException;
+
 }
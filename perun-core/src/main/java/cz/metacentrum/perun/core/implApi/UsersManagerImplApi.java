@@ -447,6 +447,18 @@ public interface UsersManagerImplApi {
 	 */
 	List<User> findUsers(PerunSession sess, String searchString) throws InternalErrorException;
 
+	/**
+	 * Returns list of users who matches the searchString, searching name, email and logins.
+	 * Users are ordered by relevance and only first maxResults of them are returned.
+	 *
+	 * @param sess
+	 * @param searchString
+	 * @param maxResults maximal number of returned users
+	 * @return list of users
+	 * @throws InternalErrorException
+	 */
+	List<User> findUsers(PerunSession sess, String searchString, int maxResults) throws InternalErrorException;
+
 	/**
 	 * Returns list of users who matches the searchString, searching name, email and logins.
 	 *
@@ -457,6 +469,17 @@ public interface UsersManagerImplApi {
 	 */
 	List<User> findUsersByExactMatch(PerunSession sess, String searchString) throws InternalErrorException;
 
+	/**
+	 * Returns list of users similar to the searchStrings (matching their email, login or name).
+	 * Users are ordered by relevance, most similar first. Uses in-memory index of users.
+	 *
+	 * @param sess
+	 * @param searchStrings emails, logins or names
+	 * @return list of users
+	 * @throws InternalErrorException
+	 */
+	List<User> findSimilarUsers(PerunSession sess, List<String> searchStrings) throws InternalErrorException;
+
 	/**
 	 * Returns list of users who matches the searchString
 	 *
@@ -549,6 +549,23 @@ create table application_mail_texts (
 	modified_by_uid integer
 );
 
+create table application_mail_outbox (
+	id integer not null,
+	app_id integer,
+	mail_type varchar(30) not null,
+	mail_from varchar(1024),
+	reply_to varchar(1024),
+	mail_to varchar(1024) not null,
+	subject varchar(1024),
+	text longvarchar,
+	state varchar(10) not null,
+	attempts integer default 0 not null,
+	next_attempt_at timestamp default now not null,
+	last_error varchar(4000),
+	sent_at timestamp,
+	created_at timestamp default now not null
+);
+
 create table application_reserved_logins (
 	login varchar(256) not null,
 	namespace varchar(30) not null,
@@ -1160,6 +1177,7 @@ create sequence application_form_items_id_seq;
 create sequence application_id_seq;
 create sequence application_data_id_seq;
 create sequence application_mails_id_seq;
+create sequence application_mail_outbox_id_seq;
 create sequence pn_object_id_seq;
 create sequence pn_pool_message_id_seq;
 create sequence pn_receiver_id_seq;
@@ -1227,6 +1245,7 @@ create index idx_fk_task_eng on tasks(engine_id);
 create index idx_fk_taskres_task on tasks_results(task_id);
 create index idx_fk_taskres_dest on tasks_results(destination_id);
 create index idx_fk_taskres_eng on tasks_results(engine_id);
+create index idx_taskres_task_dest_time on tasks_results(task_id, destination_id, timestamp);
 create index idx_fk_srvden_exsrv on service_denials(exec_service_id);
 create index idx_fk_srvden_fac on service_denials(facility_id);
 create index idx_fk_srvden_dest on service_denials(destination_id);
@@ -1287,11 +1306,15 @@ create index idx_fk_applfrmittxt_applfrmit on application_form_item_texts(item_i
 create index idx_fk_app_vo on application(vo_id);
 create index idx_fk_app_user on application(user_id);
 create index idx_fk_app_group on application(group_id);
+create index idx_app_vo_created on application(vo_id, created_at, id, state);
+create index idx_app_group_created on application(group_id, created_at, id, state);
 create index idx_fk_appdata_app on application_data(app_id);
 create index idx_fk_appdata_applfrmit on application_data(item_id);
 create index idx_fk_applogin_appid on application_reserved_logins(app_id);
 create index idx_fk_appmail_appform on application_mails(form_id);
 create index idx_fk_appmailtxt_appmails on application_mail_texts(mail_id);
+create index idx_appmailout_state on application_mail_outbox(state, next_attempt_at);
+create index idx_appmailout_app on application_mail_outbox(app_id);
 create index idx_fk_cabaut_pub on cabinet_authorships(publicationid);
 create index idx_fk_cabaut_usr on cabinet_authorships(userid);
 create index idx_fk_pn_poolmsg_tmpl on pn_pool_message(template_id);
@@ -1323,6 +1346,8 @@ create index idx_fk_res_ban_member_res on resources_bans (member_id, resource_id
 create index idx_fk_fac_ban_user on facilities_bans (user_id);
 create index idx_fk_fac_ban_fac on facilities_bans (facility_id);
 create index idx_fk_fac_ban_user_fac on facilities_bans (user_id, facility_id);
+create index idx_res_ban_banned_to on resources_bans (banned_to);
+create index idx_fac_ban_banned_to on facilities_bans (banned_to);
 create index idx_fk_ues_attr_values_ues on user_ext_source_attr_values (user_ext_source_id);
 create index idx_fk_ues_attr_values_attr on user_ext_source_attr_values (attr_id);
 
@@ -1551,6 +1576,8 @@ alter table application_mails add constraint appmail_appform_fk foreign key (for
 
 alter table application_mail_texts add constraint appmailtxt_pk primary key (mail_id, locale);
 alter table application_mail_texts add constraint appmailtxt_appmails_fk foreign key (mail_id) references application_mails(id) on delete cascade;
+alter table application_mail_outbox add constraint appmailout_pk primary key (id);
+alter table application_mail_outbox add constraint appmailout_state_chk check (state in ('NEW','SENDING','SENT','FAILED'));
 
 alter table reserved_logins add constraint reservlogins_pk primary key (login,namespace);
 
@@ -3,6 +3,7 @@ package cz.metacentrum.perun.core.entry;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -17,6 +18,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import cz.metacentrum.perun.core.AbstractPerunIntegrationTest;
+import cz.metacentrum.perun.core.impl.AuditerMessage;
 import cz.metacentrum.perun.core.api.ActionType;
 import cz.metacentrum.perun.core.api.Attribute;
 import cz.metacentrum.perun.core.api.AttributeDefinition;
@@ -2053,6 +2055,42 @@ public class AttributesManagerEntryIntegrationTest extends AbstractPerunIntegrat
 
 	}
 
+	@Test
+	public void setMemberAttributesOnlyChanged() throws Exception {
+		System.out.println(CLASS_NAME + "setMemberAttributesOnlyChanged");
+
+		vo = setUpVo();
+		member = setUpMember();
+		attributes = setUpMemberAttribute();
+		attributesManager.setAttributes(sess, member, attributes);
+
+		Attribute attr = new Attribute();
+		attr.setNamespace("urn:perun:member:attribute-def:opt");
+		attr.setFriendlyName("member-test-attribute2");
+		attr.setType(String.class.getName());
+		attr = new Attribute(attributesManager.createAttribute(sess, attr));
+		attr.setValue("MemberAttribute2");
+		attributes.add(attr);
+
+		// first attribute is unchanged, second is new
+		int messagesBefore = perun.getAuditer().getPendingMessages().size();
+		attributesManager.setAttributes(sess, member, attributes);
+		List<AuditerMessage> messages = perun.getAuditer().getPendingMessages();
+		List<AuditerMessage> setMessages = new ArrayList<AuditerMessage>();
+		for (AuditerMessage message : messages.subList(messagesBefore, messages.size())) {
+			if (message.getMessage().contains(" set for ")) setMessages.add(message);
+		}
+		assertEquals(1, setMessages.size());
+		assertTrue(setMessages.get(0).getMessage().contains("member-test-attribute2"));
+
+		// both are changed
+		attributes.get(0).setValue("MemberAttributeChanged");
+		attributes.get(1).setValue("MemberAttribute2Changed");
+		attributesManager.setAttributes(sess, member, attributes);
+		assertEquals("MemberAttributeChanged", attributesManager.getAttribute(sess, member, attributes.get(0).getName()).getValue());
+		assertEquals("MemberAttribute2Changed", attributesManager.getAttribute(sess, member, attributes.get(1).getName()).getValue());
+	}
+
 	@Test (expected=MemberNotExistsException.class)
 	public void setMemberAttributesWhenMemberNotExists() throws Exception {
 		System.out.println(CLASS_NAME + "setMemberAttributesWhenMemberNotExists");
@@ -2467,6 +2505,28 @@ public class AttributesManagerEntryIntegrationTest extends AbstractPerunIntegrat
 
 	}
 
+	@Test
+	public void getFacilityAttributeCachedInTransaction() throws Exception {
+		System.out.println(CLASS_NAME + "getFacilityAttributeCachedInTransaction");
+
+		facility = setUpFacility();
+		attributes = setUpFacilityAttribute();
+		String attributeName = attributes.get(0).getName();
+		attributesManager.setAttribute(sess, facility, attributes.get(0));
+
+		Attribute retAttr = perun.getAttributesManagerBl().getAttribute(sess, facility, attributeName);
+		assertEquals("FacilityAttribute", retAttr.getValue());
+		// returned attribute is a copy of cached one
+		retAttr.setValue("changed");
+		assertEquals("FacilityAttribute", perun.getAttributesManagerBl().getAttribute(sess, facility, attributeName).getValue());
+
+		// write invalidates cached value
+		attributesManager.setAttribute(sess, facility, retAttr);
+		assertEquals("changed", perun.getAttributesManagerBl().getAttribute(sess, facility, attributeName).getValue());
+		attributesManager.removeAttribute(sess, facility, retAttr);
+		assertNull(perun.getAttributesManagerBl().getAttribute(sess, facility, attributeName).getValue());
+	}
+
 	@Test (expected=FacilityNotExistsException.class)
 	public void getFacilityAttributeWhenFacilityNotExists() throws Exception {
 		System.out.println(CLASS_NAME + "getFacilityAttributeWhenFacilityNotExists");
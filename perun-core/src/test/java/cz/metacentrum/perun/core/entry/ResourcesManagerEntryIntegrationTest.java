@@ -1,6 +1,7 @@
 package cz.metacentrum.perun.core.entry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -15,6 +16,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import cz.metacentrum.perun.core.AbstractPerunIntegrationTest;
+import cz.metacentrum.perun.core.impl.AuditerMessage;
+import cz.metacentrum.perun.core.impl.FacilityBansEvaluator;
 import cz.metacentrum.perun.core.api.exceptions.FacilityNotExistsException;
 import cz.metacentrum.perun.core.api.exceptions.GroupAlreadyAssignedException;
 import cz.metacentrum.perun.core.api.exceptions.GroupNotDefinedOnResourceException;
@@ -28,6 +31,7 @@ import cz.metacentrum.perun.core.api.exceptions.ServicesPackageNotExistsExceptio
 import cz.metacentrum.perun.core.api.exceptions.SubGroupCannotBeRemovedException;
 import cz.metacentrum.perun.core.api.exceptions.VoNotExistsException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import static org.junit.Assert.assertEquals;
 
@@ -346,6 +350,32 @@ public class ResourcesManagerEntryIntegrationTest extends AbstractPerunIntegrati
 
 	}
 
+	@Test
+	public void getAllowedMembersAfterChanges() throws Exception {
+		System.out.println(CLASS_NAME + "getAllowedMembersAfterChanges");
+
+		vo = setUpVo();
+		facility = setUpFacility();
+		resource = setUpResource();
+		member = setUpMember(vo);
+		User user = perun.getUsersManagerBl().getUserByMember(sess, member);
+		group = setUpGroup(vo, member);
+		resourcesManager.assignGroupToResource(sess, group, resource);
+
+		// read in the same transaction are served from memory, changes must be visible
+		assertEquals(Arrays.asList(member), resourcesManager.getAllowedMembers(sess, resource));
+		assertEquals(Arrays.asList(user), perun.getFacilitiesManagerBl().getAllowedUsers(sess, facility));
+
+		perun.getMembersManagerBl().setStatus(sess, member, Status.DISABLED);
+		assertTrue(resourcesManager.getAllowedMembers(sess, resource).isEmpty());
+		assertTrue(resourcesManager.getAllowedUsers(sess, resource).isEmpty());
+		assertTrue(perun.getFacilitiesManagerBl().getAllowedUsers(sess, facility).isEmpty());
+		assertEquals(Arrays.asList(member), resourcesManager.getAssignedMembers(sess, resource));
+
+		resourcesManager.removeGroupFromResource(sess, group, resource);
+		assertTrue(resourcesManager.getAssignedMembers(sess, resource).isEmpty());
+	}
+
 	@Test (expected=ResourceNotExistsException.class)
 	public void getAllowedMembersWhenResourceNotExists() throws Exception {
 		System.out.println(CLASS_NAME + "getAllowedMembersResourceNotExists");
@@ -1195,6 +1225,51 @@ public class ResourcesManagerEntryIntegrationTest extends AbstractPerunIntegrati
 		assertEquals(banOnResource, returnedBans.get(0));
 	}
 
+	@Test
+	public void getBansForResourcesOfFacility() throws Exception {
+		System.out.println(CLASS_NAME + "getBansForResourcesOfFacility");
+		vo = setUpVo();
+		facility = setUpFacility();
+		resource = setUpResource();
+		member = setUpMember(vo);
+		group = setUpGroup(vo, member);
+		perun.getResourcesManagerBl().assignGroupToResource(sess, group, resource);
+
+		// evaluator loaded before ban is set must not be used after it
+		assertFalse(FacilityBansEvaluator.getInstance(sess, facility.getId()).isMemberBanned(member, resource));
+
+		BanOnResource banOnResource = new BanOnResource();
+		banOnResource.setMemberId(member.getId());
+		banOnResource.setResourceId(resource.getId());
+		banOnResource.setDescription("Popisek");
+		banOnResource.setValidityTo(new Date());
+		banOnResource = resourcesManager.setBan(sess, banOnResource);
+
+		List<BanOnResource> returnedBans = perun.getResourcesManagerBl().getBansForResourcesOfFacility(sess, facility.getId());
+		assertEquals(1, returnedBans.size());
+		assertEquals(banOnResource, returnedBans.get(0));
+		assertTrue(FacilityBansEvaluator.getInstance(sess, facility.getId()).isMemberBanned(member, resource));
+	}
+
+	@Test
+	public void getAssignedResourcesWithMembers() throws Exception {
+		System.out.println(CLASS_NAME + "getAssignedResourcesWithMembers");
+		vo = setUpVo();
+		facility = setUpFacility();
+		resource = setUpResource();
+		Resource sndResource = setUpResource2();
+		member = setUpMember(vo);
+		group = setUpGroup(vo, member);
+		perun.getResourcesManagerBl().assignGroupToResource(sess, group, resource);
+		perun.getResourcesManagerBl().assignGroupToResource(sess, group, sndResource);
+		User user = perun.getUsersManagerBl().getUserByMember(sess, member);
+
+		List<Pair<Resource, Member>> pairs = perun.getResourcesManagerBl().getAssignedResourcesWithMembers(sess, facility, user);
+		assertEquals(2, pairs.size());
+		assertTrue(pairs.contains(new Pair<Resource, Member>(resource, member)));
+		assertTrue(pairs.contains(new Pair<Resource, Member>(sndResource, member)));
+	}
+
 	@Test
 	public void updateBan() throws Exception {
 		System.out.println(CLASS_NAME + "updateBan");
@@ -1327,6 +1402,42 @@ public class ResourcesManagerEntryIntegrationTest extends AbstractPerunIntegrati
 		assertTrue(bansOnResource.size() == 1);
 	}
 
+	@Test
+	public void removeBans() throws Exception {
+		System.out.println(CLASS_NAME + "removeBans");
+		vo = setUpVo();
+		facility = setUpFacility();
+		resource = setUpResource();
+		member = setUpMember(vo);
+		group = setUpGroup(vo, member);
+		perun.getResourcesManagerBl().assignGroupToResource(sess, group, resource);
+
+		BanOnResource banOnResource = new BanOnResource();
+		banOnResource.setMemberId(member.getId());
+		banOnResource.setResourceId(resource.getId());
+		banOnResource.setDescription("Popisek");
+		banOnResource.setValidityTo(new Date());
+		banOnResource = resourcesManager.setBan(sess, banOnResource);
+
+		perun.getResourcesManagerBl().removeBans(sess, Arrays.asList(banOnResource));
+
+		assertTrue(resourcesManager.getBansForResource(sess, resource.getId()).isEmpty());
+		// one message for the whole facility
+		int facilityMessages = 0;
+		for (AuditerMessage message : perun.getAuditer().getPendingMessages()) {
+			if (message.getMessage().startsWith("Expired bans on resources of Facility")) facilityMessages++;
+		}
+		assertEquals(1, facilityMessages);
+
+		// ban which was already removed is not audited again
+		perun.getResourcesManagerBl().removeBans(sess, Arrays.asList(banOnResource));
+		int banMessages = 0;
+		for (AuditerMessage message : perun.getAuditer().getPendingMessages()) {
+			if (message.getMessage().startsWith("Ban " + banOnResource.serializeToString() + " was removed")) banMessages++;
+		}
+		assertEquals(1, banMessages);
+	}
+
 	// PRIVATE METHODS -----------------------------------------------------------
 
 	private Vo setUpVo() throws Exception {
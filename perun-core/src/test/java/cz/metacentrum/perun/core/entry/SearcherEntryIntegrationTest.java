@@ -241,6 +241,43 @@ public class SearcherEntryIntegrationTest extends AbstractPerunIntegrationTest {
 
 	}
 
+	@Test
+	public void getMembersByExpirationWithStatus() throws Exception {
+		System.out.println(CLASS_NAME + "getMembersByExpirationWithStatus");
+
+		// setup required attribute if not exists
+		try {
+			perun.getAttributesManager().getAttributeDefinition(sess, "urn:perun:member:attribute-def:def:membershipExpiration");
+		} catch (AttributeNotExistsException ex) {
+			setUpMembershipExpirationAttribute();
+		}
+
+		Calendar calendar = Calendar.getInstance();
+		Attribute attribute = new Attribute(perun.getAttributesManager().getAttributeDefinition(sess, "urn:perun:member:attribute-def:def:membershipExpiration"));
+		attribute.setValue(BeansUtils.getDateFormatterWithoutTime().format(calendar.getTime()));
+		perun.getAttributesManager().setAttribute(sess, member1, attribute);
+		perun.getAttributesManager().setAttribute(sess, member2, attribute);
+		perun.getMembersManager().setStatus(sess, member1, Status.VALID);
+		perun.getMembersManager().setStatus(sess, member2, Status.EXPIRED);
+
+		List<Member> valid = perun.getSearcherBl().getMembersByExpiration(sess, "<=", calendar, Status.VALID);
+		assertTrue("Valid member was not found.", valid.contains(member1));
+		assertTrue("Expired member was found for VALID status.", !valid.contains(member2));
+
+		List<Member> expired = perun.getSearcherBl().getMembersByExpiration(sess, "=", calendar, Status.EXPIRED);
+		assertTrue("Expired member was not found.", expired.contains(member2));
+		assertTrue("Valid member was found for EXPIRED status.", !expired.contains(member1));
+
+		List<Member> all = perun.getSearcherBl().getMembersByExpiration(sess, "=", calendar, null);
+		assertTrue("Members were not found without status.", all.contains(member1) && all.contains(member2));
+
+		// batch switch changes only members with the old status
+		List<Member> switched = perun.getMembersManagerBl().switchMembersStatus(sess, Arrays.asList(member1, member2), Status.VALID, Status.EXPIRED);
+		assertEquals(Arrays.asList(member1), switched);
+		assertEquals(Status.EXPIRED, perun.getMembersManager().getMemberById(sess, member1.getId()).getStatus());
+		assertEquals(Status.EXPIRED, perun.getMembersManager().getMemberById(sess, member2.getId()).getStatus());
+	}
+
 	// PRIVATE METHODS -----------------------------------------------------------
 
 	private void setUpUser1() throws Exception {
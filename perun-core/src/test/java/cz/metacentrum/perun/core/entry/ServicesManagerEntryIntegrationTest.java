@@ -10,6 +10,8 @@ import java.util.HashMap;
 import java.util.List;
 
 import org.junit.Test;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import cz.metacentrum.perun.core.AbstractPerunIntegrationTest;
 import cz.metacentrum.perun.core.api.Attribute;
@@ -1212,6 +1214,56 @@ public class ServicesManagerEntryIntegrationTest extends AbstractPerunIntegratio
 
 	}
 
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void getDataWithVosInReadOnlyTransaction() throws Exception {
+		System.out.println(CLASS_NAME + "getDataWithVosInReadOnlyTransaction");
+
+		// data must be committed to be seen by workers building VOs in own transactions, they are removed at the end
+		List<Vo> vos = new ArrayList<Vo>();
+		Facility facility = null;
+		Service service = null;
+		try {
+			facility = setUpFacility();
+			service = setUpService();
+			for (int i = 1; i <= 3; i++) {
+				Vo vo = perun.getVosManager().createVo(sess, new Vo(0, "ServicesManagerTestVo" + i, "SMTestVo" + i));
+				vos.add(vo);
+				Resource resource = new Resource();
+				resource.setName("ServicesManagerTestResource" + i);
+				resource = perun.getResourcesManager().createResource(sess, resource, vo, facility);
+				perun.getResourcesManager().assignService(sess, resource, service);
+			}
+			perun.getServicesManager().addRequiredAttribute(sess, service, perun.getAttributesManager().getAttributeDefinition(sess, "urn:perun:facility:attribute-def:core:name"));
+			perun.getServicesManager().addRequiredAttribute(sess, service, perun.getAttributesManager().getAttributeDefinition(sess, "urn:perun:vo:attribute-def:core:name"));
+			perun.getServicesManager().addRequiredAttribute(sess, service, perun.getAttributesManager().getAttributeDefinition(sess, "urn:perun:resource:attribute-def:core:name"));
+
+			// entry method runs in read-only transaction, so VOs are built in parallel
+			ServiceAttributes parallel = perun.getServicesManager().getDataWithVos(sess, service, facility);
+			// without transaction VOs are built sequentially
+			ServiceAttributes sequential = perun.getServicesManagerBl().getDataWithVos(sess, service, facility);
+
+			assertEquals("All VOs should be returned", 3, sequential.getChildElements().size());
+			assertEquals("Data built in parallel differ from sequential run", serialize(sequential), serialize(parallel));
+		} finally {
+			for (Vo vo : vos) {
+				perun.getVosManager().deleteVo(sess, vo, true);
+			}
+			if (service != null) perun.getServicesManager().deleteService(sess, service);
+			if (facility != null) perun.getFacilitiesManager().deleteFacility(sess, facility);
+		}
+
+	}
+
+	private static String serialize(ServiceAttributes serviceAttributes) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(serviceAttributes.getAttributes()).append("[");
+		for (ServiceAttributes child : serviceAttributes.getChildElements()) {
+			sb.append(serialize(child)).append(",");
+		}
+		return sb.append("]").toString();
+	}
+
 	// TODO getFlatData() - not implemented yet
 
 	@Test
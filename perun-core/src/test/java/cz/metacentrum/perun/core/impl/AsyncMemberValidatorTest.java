@@ -0,0 +1,120 @@
+package cz.metacentrum.perun.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.PerunSession;
+import cz.metacentrum.perun.core.api.Status;
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import cz.metacentrum.perun.core.bl.MembersManagerBl;
+import cz.metacentrum.perun.core.bl.PerunBl;
+
+/**
+ * Tests of AsyncMemberValidator.
+ */
+public class AsyncMemberValidatorTest {
+
+	private final static String CLASS_NAME = "AsyncMemberValidator.";
+
+	private AsyncMemberValidator validator;
+	private PerunSessionImpl session;
+	private MembersManagerBl membersManagerBl;
+	private Auditer auditer;
+
+	@Before
+	public void setUp() {
+		validator = new AsyncMemberValidator();
+		validator.setPoolSize(2);
+		validator.setDelay(500);
+		session = mock(PerunSessionImpl.class);
+		PerunBl perunBl = mock(PerunBl.class);
+		membersManagerBl = mock(MembersManagerBl.class);
+		auditer = mock(Auditer.class);
+		when(session.getPerunBl()).thenReturn(perunBl);
+		when(perunBl.getMembersManagerBl()).thenReturn(membersManagerBl);
+		when(perunBl.getAuditer()).thenReturn(auditer);
+	}
+
+	@After
+	public void tearDown() {
+		validator.shutdown();
+	}
+
+	@Test
+	public void validationsAreCoalescedAndBounded() throws Exception {
+		System.out.println(CLASS_NAME + "validationsAreCoalescedAndBounded");
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		doAnswer(new Answer<Member>() {
+			public Member answer(InvocationOnMock invocation) throws Throwable {
+				int now = running.incrementAndGet();
+				if (now > maxRunning.get()) maxRunning.set(now);
+				Thread.sleep(50);
+				running.decrementAndGet();
+				return (Member) invocation.getArguments()[1];
+			}
+		}).when(membersManagerBl).validateMember(any(PerunSession.class), any(Member.class));
+
+		Member member1 = createMember(1);
+		validator.validateMemberAsync(session, member1);
+		validator.validateMemberAsync(session, member1);
+		for (int i = 2; i <= 6; i++) {
+			validator.validateMemberAsync(session, createMember(i));
+		}
+		assertEquals(6, validator.getQueueSize());
+		assertEquals(1, validator.getCoalescedValidations());
+		assertEquals(7, validator.getRequestedValidations());
+
+		waitForValidations(6);
+		verify(membersManagerBl, times(1)).validateMember(session, member1);
+		assertTrue("More validations run than pool size.", maxRunning.get() <= 2);
+		assertEquals(0, validator.getQueueSize());
+		assertEquals(0, validator.getFailedValidations());
+		assertTrue(validator.getMaxLatency() >= 500);
+	}
+
+	@Test
+	public void failedValidationIsAudited() throws Exception {
+		System.out.println(CLASS_NAME + "failedValidationIsAudited");
+
+		Member member = createMember(1);
+		doThrow(new InternalErrorException("test")).when(membersManagerBl).validateMember(session, member);
+
+		validator.validateMemberAsync(session, member);
+		waitForValidations(1);
+		assertEquals(1, validator.getFailedValidations());
+		verify(auditer).log(eq(session), anyString(), eq(member), eq(Status.INVALID));
+	}
+
+	private void waitForValidations(int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 10000;
+		while (validator.getFinishedValidations() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(20);
+		}
+		assertEquals(count, validator.getFinishedValidations());
+	}
+
+	private static Member createMember(int id) {
+		return new Member(id, id, 1, Status.INVALID);
+	}
+
+}
@@ -1,13 +1,22 @@
 package cz.metacentrum.perun.core.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.sql.DataSource;
+
+import cz.metacentrum.perun.core.api.AttributeDefinition;
 import cz.metacentrum.perun.core.api.BeansUtils;
+import cz.metacentrum.perun.core.impl.modules.attributes.urn_perun_user_attribute_def_def_login_namespace;
+import cz.metacentrum.perun.core.impl.modules.attributes.urn_perun_user_attribute_def_def_preferredMail;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -50,6 +59,39 @@ public class AttributesManagerImplIntegrationTest {
 		}
 	}
 
+	@Test
+	public void getAttributesModule() throws Exception {
+		System.out.println("AttributesManagerImpl.getAttributesModule");
+		AttributesManagerImpl attributesManagerImpl = new AttributesManagerImpl(mock(DataSource.class));
+
+		AttributeDefinition preferredMail = getAttributeDefinition(1, "urn:perun:user:attribute-def:def", "preferredMail");
+		Object module = attributesManagerImpl.getAttributesModule(null, preferredMail);
+		assertTrue(module instanceof urn_perun_user_attribute_def_def_preferredMail);
+		assertSame(module, attributesManagerImpl.getAttributesModule(null, preferredMail));
+
+		// parametrized attribute without own module uses module of its base name
+		AttributeDefinition login = getAttributeDefinition(2, "urn:perun:user:attribute-def:def", "login-namespace:test");
+		assertTrue(attributesManagerImpl.getAttributesModule(null, login) instanceof urn_perun_user_attribute_def_def_login_namespace);
+
+		// missing module is remembered too
+		AttributeDefinition withoutModule = getAttributeDefinition(3, "urn:perun:user:attribute-def:opt", "withoutModule");
+		assertNull(attributesManagerImpl.getAttributesModule(null, withoutModule));
+		assertNull(attributesManagerImpl.getAttributesModule(null, withoutModule));
+
+		// other attribute with the same id is resolved again
+		assertNull(attributesManagerImpl.getAttributesModule(null, getAttributeDefinition(1, "urn:perun:user:attribute-def:opt", "withoutModule")));
+		assertTrue(attributesManagerImpl.getAttributesModule(null, preferredMail) instanceof urn_perun_user_attribute_def_def_preferredMail);
+	}
+
+	public AttributeDefinition getAttributeDefinition(int id, String namespace, String friendlyName) {
+		AttributeDefinition attribute = new AttributeDefinition();
+		attribute.setId(id);
+		attribute.setNamespace(namespace);
+		attribute.setFriendlyName(friendlyName);
+		attribute.setType(String.class.getName());
+		return attribute;
+	}
+
 	public Attribute getArrayAttribute(String ... value) {
 		Attribute attribute = new Attribute();
 		attribute.setFriendlyName("test");
@@ -0,0 +1,220 @@
+package cz.metacentrum.perun.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcPerunTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import cz.metacentrum.perun.core.AbstractPerunIntegrationTest;
+import cz.metacentrum.perun.core.api.ExtSource;
+import cz.metacentrum.perun.core.api.ExtSourcesManager;
+import cz.metacentrum.perun.core.api.User;
+import cz.metacentrum.perun.core.api.UserExtSource;
+
+public class UserSearchIndexIntegrationTest extends AbstractPerunIntegrationTest {
+
+	@Autowired
+	private DataSource dataSource;
+
+	private JdbcPerunTemplate jdbc;
+	private UserSearchIndex index;
+	private User user;
+	private User namesake;
+
+	@Before
+	public void setUp() throws Exception {
+		jdbc = new JdbcPerunTemplate(dataSource);
+		// index is loaded before test data are created, it contains only committed data
+		index = new UserSearchIndex(jdbc);
+		index.start();
+	}
+
+	@After
+	public void tearDown() {
+		index.shutdown();
+	}
+
+	@Test
+	public void findSimilarUserIds() throws Exception {
+		System.out.println("UserSearchIndex.findSimilarUserIds");
+
+		createUsers();
+		Set<Integer> changed = getChangedUserIds();
+
+		List<Integer> byName = index.findSimilarUserIds(Arrays.asList("jan novacek"), changed);
+		assertTrue("User should be found by name without diacritics.", byName.contains(user.getId()));
+		assertTrue("User should be found by name without middle name.", byName.contains(namesake.getId()));
+
+		List<Integer> ranked = index.findSimilarUserIds(Arrays.asList("Jan Nováček", "novacek@idp.example.com"), changed);
+		assertEquals("User matching by login and name should be first.", user.getId(), (int) ranked.get(0));
+
+		assertTrue(index.findSimilarUserIds(Arrays.asList("nobody@nowhere.example.com"), changed).isEmpty());
+
+	}
+
+	@Test
+	public void findUserIds() throws Exception {
+		System.out.println("UserSearchIndex.findUserIds");
+
+		createUsers();
+		Set<Integer> changed = getChangedUserIds();
+
+		List<Integer> byPart = index.findUserIds("nováč", UserSearchIndex.NAME, Integer.MAX_VALUE, changed);
+		assertTrue("User should be found by part of name.", byPart.contains(user.getId()));
+		assertTrue("User should be found by part of name.", byPart.contains(namesake.getId()));
+
+		List<Integer> ranked = index.findUserIds("jan novacek", UserSearchIndex.NAME, 1, changed);
+		assertEquals("Only first user should be returned.", 1, ranked.size());
+		assertEquals("User with equal name should be first.", user.getId(), (int) ranked.get(0));
+
+		assertEquals(Arrays.asList(namesake.getId()), index.findUserIds("Jan Petr Nováček", UserSearchIndex.EXACT_NAME, Integer.MAX_VALUE, changed));
+		assertEquals(Arrays.asList(user.getId()), index.findUserIds("novacek@idp.example.com", UserSearchIndex.KEYS, Integer.MAX_VALUE, changed));
+		assertEquals(Arrays.asList(user.getId()), index.findUserIds(String.valueOf(user.getId()), UserSearchIndex.KEYS, Integer.MAX_VALUE, changed));
+
+		// uncommitted changes are not in the index, they are visible only to the transaction
+		assertFalse(index.findUserIds("novacek", UserSearchIndex.NAME, Integer.MAX_VALUE, null).contains(user.getId()));
+		user.setLastName("Krátký");
+		perun.getUsersManagerBl().updateUser(sess, user);
+		assertFalse(index.findUserIds("novacek", UserSearchIndex.NAME, Integer.MAX_VALUE, changed).contains(user.getId()));
+		assertTrue(index.findUserIds("kratky", UserSearchIndex.NAME, Integer.MAX_VALUE, changed).contains(user.getId()));
+
+	}
+
+	@Test
+	public void findUserIdsInDb() throws Exception {
+		System.out.println("UserSearchIndex.findUserIdsInDb");
+
+		User novak = perun.getUsersManagerBl().createUser(sess, new User(0, "Jan", "Novák", "", "", ""));
+		User namesake = perun.getUsersManagerBl().createUser(sess, new User(0, "Jan", "Novak", "Petr", "", ""));
+		ExtSource extSource = perun.getExtSourcesManagerBl().createExtSource(sess, new ExtSource("UserSearchIndexTestExtSource", ExtSourcesManager.EXTSOURCE_INTERNAL), null);
+		perun.getUsersManagerBl().addUserExtSource(sess, novak, new UserExtSource(extSource, "novak@idp.example.com"));
+
+		// disabled index searches uncommitted data of current transaction
+		UserSearchIndex dbIndex = new UserSearchIndex(jdbc, false);
+		dbIndex.start();
+
+		List<Integer> byPart = dbIndex.findUserIds("novák", UserSearchIndex.NAME, Integer.MAX_VALUE, null);
+		assertTrue("User should be found by part of name.", byPart.contains(novak.getId()));
+		assertTrue("User should be found by part of name.", byPart.contains(namesake.getId()));
+		assertEquals("Only first user should be returned.", Arrays.asList(novak.getId()), dbIndex.findUserIds("jan novak", UserSearchIndex.NAME, 1, null));
+
+		assertEquals(Arrays.asList(namesake.getId()), dbIndex.findUserIds("Jan Petr Novák", UserSearchIndex.EXACT_NAME, Integer.MAX_VALUE, null));
+		assertEquals(Arrays.asList(novak.getId()), dbIndex.findUserIds("novak@idp.example.com", UserSearchIndex.KEYS, Integer.MAX_VALUE, null));
+		assertEquals(Arrays.asList(novak.getId()), dbIndex.findUserIds(String.valueOf(novak.getId()), UserSearchIndex.KEYS, Integer.MAX_VALUE, null));
+
+		List<Integer> similar = dbIndex.findSimilarUserIds(Arrays.asList("Jan Novák", "novak@idp.example.com"), null);
+		assertEquals("User matching by login and name should be first.", novak.getId(), (int) similar.get(0));
+		assertTrue("User should be found by name without middle name.", similar.contains(namesake.getId()));
+
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void reindexUserFromAuditLog() throws Exception {
+		System.out.println("UserSearchIndex.reindexUserFromAuditLog");
+
+		// data are committed, so they must be removed at the end
+		int userId = Utils.getNewId(jdbc, "users_id_seq");
+		List<Integer> messageIds = new ArrayList<Integer>();
+		try {
+			jdbc.update("insert into users (id, first_name, last_name) values (?,?,?)", userId, "Jan", "Nováček");
+			User committed = new User(userId, "Jan", "Nováček", "", "", "");
+			assertFalse(index.findSimilarUserIds(Arrays.asList("Jan Novacek"), null).contains(userId));
+
+			messageIds.add(logMessage(committed.serializeToString() + " created."));
+			index.processAuditMessages();
+			assertTrue(index.findSimilarUserIds(Arrays.asList("Jan Novacek"), null).contains(userId));
+
+			jdbc.update("update users set last_name=? where id=?", "Dlouhý", userId);
+			committed.setLastName("Dlouhý");
+			messageIds.add(logMessage(committed.serializeToString() + " updated."));
+			index.processAuditMessages();
+
+			assertFalse(index.findSimilarUserIds(Arrays.asList("Jan Novacek"), null).contains(userId));
+			assertTrue(index.findSimilarUserIds(Arrays.asList("jan dlouhy"), null).contains(userId));
+		} finally {
+			for (Integer id : messageIds) {
+				jdbc.update("delete from auditer_log where id=?", id);
+			}
+			jdbc.update("delete from users where id=?", userId);
+		}
+
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void reindexUserOnLoginChange() throws Exception {
+		System.out.println("UserSearchIndex.reindexUserOnLoginChange");
+
+		// data are committed, so they must be removed at the end
+		int userId = Utils.getNewId(jdbc, "users_id_seq");
+		int extSourceId = Utils.getNewId(jdbc, "ext_sources_id_seq");
+		int userExtSourceId = Utils.getNewId(jdbc, "user_ext_sources_id_seq");
+		List<Integer> messageIds = new ArrayList<Integer>();
+		try {
+			jdbc.update("insert into users (id, first_name, last_name) values (?,?,?)", userId, "Jan", "Nováček");
+			jdbc.update("insert into ext_sources (id, name, type) values (?,?,?)", extSourceId, "UserSearchIndexTestExtSource", ExtSourcesManager.EXTSOURCE_INTERNAL);
+			jdbc.update("insert into user_ext_sources (id, user_id, login_ext, ext_sources_id, loa) values (?,?,?,?,?)", userExtSourceId, userId, "novacek@idp.example.com", extSourceId, 0);
+			User committed = new User(userId, "Jan", "Nováček", "", "", "");
+			messageIds.add(logMessage(committed.serializeToString() + " created."));
+			index.processAuditMessages();
+			assertEquals(Arrays.asList(userId), index.findUserIds("novacek@idp.example.com", UserSearchIndex.KEYS, Integer.MAX_VALUE, null));
+
+			// message about changed login doesn't mention the user
+			jdbc.update("update user_ext_sources set login_ext=? where id=?", "jan@idp.example.com", userExtSourceId);
+			UserExtSource userExtSource = new UserExtSource(userExtSourceId, new ExtSource(extSourceId, "UserSearchIndexTestExtSource", ExtSourcesManager.EXTSOURCE_INTERNAL), "jan@idp.example.com");
+			messageIds.add(logMessage(userExtSource.serializeToString() + " updated."));
+			index.processAuditMessages();
+
+			assertTrue(index.findUserIds("novacek@idp.example.com", UserSearchIndex.KEYS, Integer.MAX_VALUE, null).isEmpty());
+			assertEquals(Arrays.asList(userId), index.findUserIds("jan@idp.example.com", UserSearchIndex.KEYS, Integer.MAX_VALUE, null));
+			assertEquals(Collections.singleton(userId), index.getMentionedUserIds(Arrays.asList(userExtSource.serializeToString() + " updated.")));
+		} finally {
+			for (Integer id : messageIds) {
+				jdbc.update("delete from auditer_log where id=?", id);
+			}
+			jdbc.update("delete from user_ext_sources where id=?", userExtSourceId);
+			jdbc.update("delete from ext_sources where id=?", extSourceId);
+			jdbc.update("delete from users where id=?", userId);
+		}
+
+	}
+
+	private void createUsers() throws Exception {
+		user = perun.getUsersManagerBl().createUser(sess, new User(0, "Jan", "Nováček", "", "", ""));
+		namesake = perun.getUsersManagerBl().createUser(sess, new User(0, "Jan", "Novacek", "Petr", "", ""));
+
+		ExtSource extSource = perun.getExtSourcesManagerBl().createExtSource(sess, new ExtSource("UserSearchIndexTestExtSource", ExtSourcesManager.EXTSOURCE_INTERNAL), null);
+		perun.getUsersManagerBl().addUserExtSource(sess, user, new UserExtSource(extSource, "novacek@idp.example.com"));
+	}
+
+	private Set<Integer> getChangedUserIds() throws Exception {
+		List<String> messages = new ArrayList<String>();
+		for (AuditerMessage message : perun.getAuditer().getPendingMessages()) {
+			messages.add(message.getMessage());
+		}
+		return index.getMentionedUserIds(messages);
+	}
+
+	private int logMessage(String message) throws Exception {
+		int id = Utils.getNewId(jdbc, "auditer_log_id_seq");
+		jdbc.update("insert into auditer_log (id, msg, actor) values (?,?,?)", id, message, "perunTests");
+		return id;
+	}
+
+}
@@ -5,6 +5,7 @@ import cz.metacentrum.perun.core.api.BanOnFacility;
 import cz.metacentrum.perun.core.api.BanOnResource;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.Member;
+import cz.metacentrum.perun.core.api.Pair;
 import cz.metacentrum.perun.core.api.Resource;
 import cz.metacentrum.perun.core.api.Status;
 import cz.metacentrum.perun.core.api.User;
@@ -93,8 +94,7 @@ public class urn_perun_member_resource_attribute_def_virt_isBannedTest {
 		//for message 4, 5 and 6
 		when(session.getPerunBl().getUsersManagerBl().getUserById(any(PerunSessionImpl.class), anyInt())).thenReturn(user);
 		when(session.getPerunBl().getFacilitiesManagerBl().getFacilityById(any(PerunSessionImpl.class), anyInt())).thenReturn(facility);
-		when(session.getPerunBl().getFacilitiesManagerBl().getAssignedResources(any(PerunSessionImpl.class), any(Facility.class))).thenReturn(Arrays.asList(resource));
-		when(session.getPerunBl().getResourcesManagerBl().getAssignedMembers(any(PerunSessionImpl.class), any(Resource.class))).thenReturn(Arrays.asList(member));
+		when(session.getPerunBl().getResourcesManagerBl().getAssignedResourcesWithMembers(any(PerunSessionImpl.class), any(Facility.class), any(User.class))).thenReturn(Arrays.asList(new Pair<Resource, Member>(resource, member)));
 		resolvedMessages = classInstance.resolveVirtualAttributeValueChange(session, message4);
 		assertEquals(resolvedMessages.get(0), isBanned.serializeToString() + " set for " + resource.serializeToString() + " and " + member.serializeToString());
 		resolvedMessages = classInstance.resolveVirtualAttributeValueChange(session, message5);
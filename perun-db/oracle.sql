@@ -558,6 +558,23 @@ create table application_mail_texts (
 	modified_by_uid integer
 );
 
+create table application_mail_outbox (
+	id integer not null,
+	app_id integer,
+	mail_type nvarchar2(30) not null,
+	mail_from nvarchar2(1024),
+	reply_to nvarchar2(1024),
+	mail_to nvarchar2(1024) not null,
+	subject nvarchar2(1024),
+	text clob,
+	state nvarchar2(10) not null,
+	attempts integer default 0 not null,
+	next_attempt_at date default sysdate not null,
+	last_error nvarchar2(2000),
+	sent_at date,
+	created_at date default sysdate not null
+);
+
 create table application_reserved_logins (
 	login nvarchar2(256) not null,
 	namespace nvarchar2(30) not null,
@@ -1167,6 +1184,7 @@ create sequence APPLICATION_FORM_ITEMS_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence APPLICATION_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence APPLICATION_DATA_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence APPLICATION_MAILS_ID_SEQ maxvalue 1.0000E+28 nocache;
+create sequence APPLICATION_MAIL_OUTBOX_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence PN_OBJECT_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence PN_POOL_MESSAGE_ID_SEQ maxvalue 1.0000E+28 nocache;
 create sequence PN_RECEIVER_ID_SEQ maxvalue 1.0000E+28 nocache;
@@ -1237,6 +1255,7 @@ create index IDX_FK_TASK_ENG on tasks(engine_id);
 create index IDX_FK_TASKRES_TASK on tasks_results(task_id);
 create index IDX_FK_TASKRES_DEST on tasks_results(destination_id);
 create index IDX_FK_TASKRES_ENG on tasks_results(engine_id);
+create index IDX_TASKRES_TASK_DEST_TIME on tasks_results(task_id, destination_id, timestamp);
 create index IDX_FK_SRVDEN_EXSRV on service_denials(exec_service_id);
 create index IDX_FK_SRVDEN_FAC on service_denials(facility_id);
 create index IDX_FK_SRVDEN_DEST on service_denials(destination_id);
@@ -1252,6 +1271,7 @@ create index IDX_FK_SERVPR_SERV on service_processing_rule(service_id);
 create index IDX_FK_SERVPR_PR on service_processing_rule(processing_rule_id);
 create index IDX_FK_MEMATTVAL_MEM on member_attr_values(member_id);
 create index IDX_FK_MEMATTVAL_ATTR on member_attr_values(attr_id);
+create index IDX_MEMATTVAL_ATTR_DATE on member_attr_values(attr_id, substr(attr_value, 1, 10));
 create index IDX_FK_GRPATTVAL_GRP on group_attr_values(group_id);
 create index IDX_FK_GRPATTVAL_ATTR on group_attr_values(attr_id);
 create index IDX_FK_GRPRESAV_GRP on group_resource_attr_values(group_id);
@@ -1287,11 +1307,15 @@ create index IDX_FK_APPLFRMITTXT_APPLFRMIT on application_form_item_texts(item_i
 create index IDX_FK_APP_VO on application(vo_id);
 create index IDX_FK_APP_USER on application(user_id);
 create index IDX_FK_APP_GROUP on application(group_id);
+create index IDX_APP_VO_CREATED on application(vo_id, created_at, id, state);
+create index IDX_APP_GROUP_CREATED on application(group_id, created_at, id, state);
 create index IDX_FK_APPDATA_APP on application_data(app_id);
 create index IDX_FK_APPDATA_APPLFRMIT on application_data(item_id);
 create index IDX_FK_APPLOGIN_APPID on application_reserved_logins(app_id);
 create index IDX_FK_APPMAIL_APPFORM on application_mails(form_id);
 create index IDX_FK_APPMAILTXT_APPMAILS on application_mail_texts(mail_id);
+create index IDX_APPMAILOUT_STATE on application_mail_outbox(state, next_attempt_at);
+create index IDX_APPMAILOUT_APP on application_mail_outbox(app_id);
 create index IDX_FK_CABAUT_PUB on cabinet_authorships(publicationId);
 create index IDX_FK_CABAUT_USR on cabinet_authorships(userId);
 create index IDX_FK_PN_POOLMSG_TMPL on pn_pool_message(template_id);
@@ -1321,6 +1345,8 @@ create index IDX_FK_RES_BAN_MEMBER on resources_bans (member_id);
 create index IDX_FK_RES_BAN_RES on resources_bans (resource_id);
 create index IDX_FK_FAC_BAN_USER on facilities_bans (user_id);
 create index IDX_FK_FAC_BAN_FAC on facilities_bans (facility_id);
+create index IDX_RES_BAN_BANNED_TO on resources_bans (banned_to);
+create index IDX_FAC_BAN_BANNED_TO on facilities_bans (banned_to);
 create index IDX_FK_UES_ATTR_VALUES_UES on user_ext_source_attr_values (user_ext_source_id);
 create index IDX_FK_UES_ATTR_VALUES_ATTR on user_ext_source_attr_values (attr_id);
 
@@ -1692,6 +1718,11 @@ constraint APPMAILTXT_PK primary key (mail_id, locale),
 constraint APPMAILTXT_APPMAILS_FK foreign key (mail_id) references application_mails(id) on delete cascade
 );
 
+alter table application_mail_outbox add (
+constraint APPMAILOUT_PK primary key (id),
+constraint APPMAILOUT_STATE_CHK check (state in ('NEW','SENDING','SENT','FAILED'))
+);
+
 alter table reserved_logins add (
 constraint RESERVLOGINS_PK primary key (login,namespace)
 );
@@ -1800,7 +1831,7 @@ constraint UESATTRVAL_ATTR_FK foreign key (attr_id) references attr_names(id)
 );
 
 -- set initial Perun DB version
-insert into configurations values ('DATABASE VERSION','3.1.39');
+insert into configurations values ('DATABASE VERSION','3.1.44');
 
 -- insert membership types
 insert into membership_types (id, membership_type, description) values (1, 'DIRECT', 'Member is directly added into group');
@@ -596,6 +596,24 @@ create table "application_mail_texts" (
 	modified_by_uid integer
 );
 
+-- APPLICATION_MAIL_OUTBOX - notification mails stored for asynchronous delivery
+create table "application_mail_outbox" (
+	id integer not null,
+	app_id integer,                       --identifier of application (application.id)
+	mail_type varchar(30) not null,       --type of mail (user/administrator/invitation)
+	mail_from varchar(1024),              --sender of mail
+	reply_to varchar(1024),               --reply-to address of mail
+	mail_to varchar(1024) not null,       --recipient of mail
+	subject varchar(1024),                --subject of mail
+	text text,                            --text of mail
+	state varchar(10) not null,           --state of delivery (NEW/SENDING/SENT/FAILED)
+	attempts integer default 0 not null,  --number of delivery attempts
+	next_attempt_at timestamp default now() not null, --time of next delivery attempt
+	last_error varchar(4000),             --error of last failed delivery attempt
+	sent_at timestamp,                    --time of successful delivery
+	created_at timestamp default now() not null
+);
+
 -- APPLICATION_RESERVED_LOGINS - lognames reserved for new users who has not been saved at users table yet
 create table "application_reserved_logins" (
 	login varchar(256) not null,        --logname
@@ -1249,6 +1267,7 @@ create sequence "application_form_items_id_seq" maxvalue 9223372036854775807;
 create sequence "application_id_seq" maxvalue 9223372036854775807;
 create sequence "application_data_id_seq" maxvalue 9223372036854775807;
 create sequence "application_mails_id_seq" maxvalue 9223372036854775807;
+create sequence "application_mail_outbox_id_seq" maxvalue 9223372036854775807;
 create sequence "pn_object_id_seq" maxvalue 9223372036854775807;
 create sequence "pn_pool_message_id_seq" maxvalue 9223372036854775807;
 create sequence "pn_receiver_id_seq" maxvalue 9223372036854775807;
@@ -1320,6 +1339,7 @@ create index idx_fk_task_eng on tasks(engine_id);
 create index idx_fk_taskres_task on tasks_results(task_id);
 create index idx_fk_taskres_dest on tasks_results(destination_id);
 create index idx_fk_taskres_eng on tasks_results(engine_id);
+create index idx_taskres_task_dest_time on tasks_results(task_id, destination_id, timestamp);
 create index idx_fk_srvden_exsrv on service_denials(exec_service_id);
 create index idx_fk_srvden_fac on service_denials(facility_id);
 create index idx_fk_srvden_dest on service_denials(destination_id);
@@ -1336,6 +1356,7 @@ create index idx_fk_servpr_serv on service_processing_rule(service_id);
 create index idx_fk_servpr_pr on service_processing_rule(processing_rule_id);
 create index idx_fk_memattval_mem on member_attr_values(member_id);
 create index idx_fk_memattval_attr on member_attr_values(attr_id);
+create index idx_memattval_attr_date on member_attr_values(attr_id, substr(attr_value, 1, 10));
 create index idx_fk_grpattval_grp on group_attr_values(group_id);
 create index idx_fk_grpattval_attr on group_attr_values(attr_id);
 create index idx_fk_grpresav_grp on group_resource_attr_values(group_id);
@@ -1375,11 +1396,15 @@ create index idx_fk_applfrmittxt_applfrmit on application_form_item_texts(item_i
 create index idx_fk_app_vo on application(vo_id);
 create index idx_fk_app_user on application(user_id);
 create index idx_fk_app_group on application(group_id);
+create index idx_app_vo_created on application(vo_id, created_at, id, state);
+create index idx_app_group_created on application(group_id, created_at, id, state);
 create index idx_fk_appdata_app on application_data(app_id);
 create index idx_fk_appdata_applfrmit on application_data(item_id);
 create index idx_fk_applogin_appid on application_reserved_logins(app_id);
 create index idx_fk_appmail_appform on application_mails(form_id);
 create index idx_fk_appmailtxt_appmails on application_mail_texts(mail_id);
+create index idx_appmailout_state on application_mail_outbox(state, next_attempt_at);
+create index idx_appmailout_app on application_mail_outbox(app_id);
 create index idx_fk_cabaut_pub on cabinet_authorships(publicationid);
 create index idx_fk_cabaut_usr on cabinet_authorships(userid);
 create index idx_fk_pn_poolmsg_tmpl on pn_pool_message(template_id);
@@ -1411,6 +1436,8 @@ create index idx_fk_res_ban_member_res on resources_bans (member_id, resource_id
 create index idx_fk_fac_ban_user on facilities_bans (user_id);
 create index idx_fk_fac_ban_fac on facilities_bans (facility_id);
 create index idx_fk_fac_ban_user_fac on facilities_bans (user_id, facility_id);
+create index idx_res_ban_banned_to on resources_bans (banned_to);
+create index idx_fac_ban_banned_to on facilities_bans (banned_to);
 create index idx_fk_ues_attr_values_ues on user_ext_source_attr_values (user_ext_source_id);
 create index idx_fk_ues_attr_values_attr on user_ext_source_attr_values (attr_id);
 
@@ -1639,6 +1666,8 @@ alter table application_mails add constraint appmail_appform_fk foreign key (for
 
 alter table application_mail_texts add constraint appmailtxt_pk primary key (mail_id, locale);
 alter table application_mail_texts add constraint appmailtxt_appmails_fk foreign key (mail_id) references application_mails(id) on delete cascade;
+alter table application_mail_outbox add constraint appmailout_pk primary key (id);
+alter table application_mail_outbox add constraint appmailout_state_chk check (state in ('NEW','SENDING','SENT','FAILED'));
 
 alter table reserved_logins add constraint reservlogins_pk primary key (login,namespace);
 
@@ -1820,6 +1849,7 @@ grant all on groups_members to perun;
 grant all on service_principals to perun;
 grant all on application_mails to perun;
 grant all on application_mail_texts to perun;
+grant all on application_mail_outbox to perun;
 grant all on reserved_logins to perun;
 grant all on pn_audit_message to perun;
 grant all on pn_object to perun;
@@ -1848,7 +1878,7 @@ grant all on membership_types to perun;
 grant all on user_ext_source_attr_values to perun;
 
 -- set initial Perun DB version
-insert into configurations values ('DATABASE VERSION','3.1.39');
+insert into configurations values ('DATABASE VERSION','3.1.44');
 
 -- insert membership types
 insert into membership_types (id, membership_type, description) values (1, 'DIRECT', 'Member is directly added into group');
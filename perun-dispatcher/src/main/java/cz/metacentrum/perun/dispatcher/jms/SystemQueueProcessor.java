@@ -1,6 +1,8 @@
 package cz.metacentrum.perun.dispatcher.jms;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -21,12 +23,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.task.TaskExecutor;
 import org.hornetq.core.remoting.impl.netty.TransportConstants;
 
+import cz.metacentrum.perun.core.api.Destination;
 import cz.metacentrum.perun.dispatcher.exceptions.MessageFormatException;
 import cz.metacentrum.perun.dispatcher.exceptions.PerunHornetQServerException;
 import cz.metacentrum.perun.dispatcher.hornetq.PerunHornetQServer;
 import cz.metacentrum.perun.dispatcher.processing.SmartMatcher;
 import cz.metacentrum.perun.dispatcher.scheduling.PropagationMaintainer;
 import cz.metacentrum.perun.dispatcher.scheduling.TaskScheduler;
+import cz.metacentrum.perun.taskslib.jms.SystemMessageCodec;
+import cz.metacentrum.perun.taskslib.model.TaskResult;
 
 /**
  * 
@@ -262,6 +267,42 @@ public class SystemQueueProcessor {
 		}
 	}
 
+	/**
+	 * Process binary message of engine with batch of task statuses and task results
+	 * (see SystemMessageCodec). Records are processed in order until the first malformed one.
+	 *
+	 * @param message binary message
+	 * @throws PerunHornetQServerException
+	 * @throws MessageFormatException if message is malformed
+	 */
+	protected void processBinaryMessage(byte[] message)
+			throws PerunHornetQServerException, MessageFormatException {
+		if (!perunHornetQServer.isServerRunning()
+				|| perunHornetQServer.getJMSServerManager() == null) {
+			throw new PerunHornetQServerException(
+					"It looks like the HornetQ server is not running or JMSServerManager is fucked up...");
+		}
+		try {
+			int count = SystemMessageCodec.decode(message, new SystemMessageCodec.Handler() {
+				@Override
+				public void onTaskStatus(int engineId, int taskId, String status, List<Destination> destinations) {
+					// task complete...
+					propagationMaintainer.onTaskComplete(taskId, engineId, status, destinations);
+				}
+
+				@Override
+				public void onTaskResult(int engineId, TaskResult taskResult) {
+					// destination complete for task
+					propagationMaintainer.onTaskDestinationComplete(engineId, taskResult);
+				}
+			});
+			log.debug("Processed binary system message with {} records", count);
+		} catch (IOException e) {
+			throw new MessageFormatException(
+					"Client (Perun-Engine) sent a malformed binary message", e);
+		}
+	}
+
 	public void createDispatcherQueuesForClients(Set<Integer> clientIDs)
 			throws PerunHornetQServerException {
 		if (perunHornetQServer.isServerRunning()
@@ -1,6 +1,8 @@
 package cz.metacentrum.perun.dispatcher.jms;
 
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.Queue;
 import javax.jms.Session;
@@ -59,24 +61,33 @@ public class SystemQueueReceiver implements Runnable {
 		} catch (Exception e) {
 			log.error(e.toString(), e);
 		}
-		TextMessage messageReceived = null;
+		Message messageReceived = null;
 		while (running) {
 
 			// Step 11. Receive the message
 			messageReceived = null;
 			try {
 				log.debug("Gonna call messageConsumer.receive(timeout)...");
-				messageReceived = (TextMessage) messageConsumer
-						.receive(timeout);
+				messageReceived = messageConsumer.receive(timeout);
 				if (messageReceived != null) {
-					if (log.isDebugEnabled()) {
-						log.debug("System message received["
-								+ messageReceived.getText() + "]");
-					}
 					try {
-						systemQueueProcessor
-								.processDispatcherQueueAndMatchingRule(messageReceived
-										.getText());
+						if (messageReceived instanceof BytesMessage) {
+							// batch of task statuses and results in binary format
+							BytesMessage bytesMessage = (BytesMessage) messageReceived;
+							byte[] data = new byte[(int) bytesMessage.getBodyLength()];
+							bytesMessage.readBytes(data);
+							if (log.isDebugEnabled()) {
+								log.debug("Binary system message received[" + data.length + " bytes]");
+							}
+							systemQueueProcessor.processBinaryMessage(data);
+						} else {
+							// text messages (register, goodbye and messages of older engines)
+							String text = ((TextMessage) messageReceived).getText();
+							if (log.isDebugEnabled()) {
+								log.debug("System message received[" + text + "]");
+							}
+							systemQueueProcessor.processDispatcherQueueAndMatchingRule(text);
+						}
 					} catch (MessageFormatException ex) {
 						// engine sent wrongly formatted messages
 						// shouldn't kill whole messaging process
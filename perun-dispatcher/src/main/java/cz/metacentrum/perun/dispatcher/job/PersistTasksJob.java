@@ -0,0 +1,47 @@
+package cz.metacentrum.perun.dispatcher.job;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+import cz.metacentrum.perun.dispatcher.scheduling.PropagationMaintainer;
+import cz.metacentrum.perun.dispatcher.scheduling.SchedulingPool;
+
+/**
+ * Periodically stores tasks changed in SchedulingPool and task results reported by engines
+ * into database in batches.
+ */
+public class PersistTasksJob extends QuartzJobBean {
+
+	private final static Logger log = LoggerFactory.getLogger(PersistTasksJob.class);
+
+	private SchedulingPool schedulingPool;
+	private PropagationMaintainer propagationMaintainer;
+
+	protected void executeInternal(JobExecutionContext arg0)
+			throws JobExecutionException {
+		log.trace("Entering PersistTasksJob...");
+		schedulingPool.persistChangedTasks();
+		propagationMaintainer.flushTaskResults();
+		log.trace("PersistTasksJob done.");
+	}
+
+	public SchedulingPool getSchedulingPool() {
+		return schedulingPool;
+	}
+
+	public void setSchedulingPool(SchedulingPool schedulingPool) {
+		this.schedulingPool = schedulingPool;
+	}
+
+	public PropagationMaintainer getPropagationMaintainer() {
+		return propagationMaintainer;
+	}
+
+	public void setPropagationMaintainer(PropagationMaintainer propagationMaintainer) {
+		this.propagationMaintainer = propagationMaintainer;
+	}
+
+}
@@ -157,6 +157,8 @@ public class EventProcessorImpl implements EventProcessor {
 						task.setSourceUpdated(true);
 						task.setPropagationForced(false);
 						task.setRecurrence(0);
+						// ERROR and DONE tasks with updated source are rescheduled by next check
+						schedulingPool.setTaskDeadline(task, new Date(System.currentTimeMillis()));
 					} else {
 						// no such task yet, create one
 						task = new Task();
@@ -2,8 +2,10 @@ package cz.metacentrum.perun.dispatcher.scheduling;
 
 import java.util.List;
 
+import cz.metacentrum.perun.core.api.Destination;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.taskslib.model.ExecService;
+import cz.metacentrum.perun.taskslib.model.TaskResult;
 
 /**
  * 
@@ -24,6 +26,30 @@ public interface PropagationMaintainer {
 
 	void onTaskComplete(int parseInt, int clientID, String status, String string);
 
+	/**
+	 * Process task finished by engine.
+	 *
+	 * @param taskId ID of task
+	 * @param clientID ID of engine
+	 * @param status reported status (DONE or ERROR)
+	 * @param destinations remaining (failed) destinations of the task, null if engine didn't report them
+	 */
+	void onTaskComplete(int taskId, int clientID, String status, List<Destination> destinations);
+
 	void onTaskDestinationComplete(int clientID, String string);
 
+	/**
+	 * Store result of task on one destination reported by engine. Result is buffered
+	 * and stored in batch by flushTaskResults().
+	 *
+	 * @param clientID ID of engine
+	 * @param taskResult result of task
+	 */
+	void onTaskDestinationComplete(int clientID, TaskResult taskResult);
+
+	/**
+	 * Store all buffered task results into database in batches.
+	 */
+	void flushTaskResults();
+
 }
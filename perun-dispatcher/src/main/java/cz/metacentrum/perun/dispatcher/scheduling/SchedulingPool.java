@@ -1,6 +1,7 @@
 package cz.metacentrum.perun.dispatcher.scheduling;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import cz.metacentrum.perun.core.api.Facility;
@@ -28,7 +29,8 @@ public interface SchedulingPool {
 	int getSize();
 
 	/**
-	 * Add Task to the waiting list.
+	 * Add Task to the waiting list. New task (without ID) is stored into database immediately,
+	 * task with ID is stored by next persistChangedTasks().
 	 * 
 	 * @param task
 	 * @param dispatcherQueue
@@ -50,8 +52,46 @@ public interface SchedulingPool {
 
 	void setQueueForTask(Task task, DispatcherQueue queueForTask) throws InternalErrorException;
 
+	/**
+	 * Set status of the task. Change is stored into database by next persistChangedTasks().
+	 *
+	 * @param task
+	 * @param status
+	 */
 	void setTaskStatus(Task task, TaskStatus status);
 
+	/**
+	 * Store all tasks changed by setTaskStatus() or added by addToPool() since the last call
+	 * into database in one batch. Tasks missing in database are created.
+	 */
+	void persistChangedTasks();
+
+	/**
+	 * Remove and return tasks, whose deadline for check by PropagationMaintainer has passed.
+	 * Added tasks and tasks with changed status are due immediately.
+	 *
+	 * @return due tasks
+	 */
+	List<Task> pollDueTasks();
+
+	/**
+	 * Set time, when the task should be checked by PropagationMaintainer.
+	 * Previous deadline of the task is replaced.
+	 *
+	 * @param task
+	 * @param deadline
+	 */
+	void setTaskDeadline(Task task, Date deadline);
+
+	/**
+	 * Set time, when the task should be checked by PropagationMaintainer,
+	 * only if the task has no deadline yet.
+	 *
+	 * @param task
+	 * @param deadline
+	 */
+	void setTaskDeadlineIfAbsent(Task task, Date deadline);
+
 	List<Task> getTasksForEngine(int clientID);
 
 	List<Task> getDoneTasks();
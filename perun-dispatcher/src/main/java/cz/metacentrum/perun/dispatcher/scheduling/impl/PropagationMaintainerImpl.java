@@ -3,7 +3,13 @@ package cz.metacentrum.perun.dispatcher.scheduling.impl;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.JMSException;
 
@@ -45,6 +51,17 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 	private final static Logger log = LoggerFactory
 			.getLogger(PropagationMaintainerImpl.class);
 
+	// PLANNED or PROCESSING task is stuck after 1 hour
+	private final static long STUCK_TIMEOUT = 1000L * 60 * 60;
+	// ERROR task without retries is rescheduled after 12 hours
+	private final static long NO_RETRIES_TIMEOUT = 1000L * 60 * 60 * 12;
+	// DONE SEND task is rescheduled after 2 days
+	private final static long DONE_TIMEOUT = 1000L * 60 * 60 * 24 * 2;
+	// task still due after it was checked is checked again after 4 minutes
+	private final static long RECHECK_INTERVAL = 1000L * 60 * 4;
+	// buffered task results are stored immediately when there is this many of them
+	private final static int RESULTS_BATCH_SIZE = 500;
+
 	/*
 	 * @Autowired private TaskManager taskManager;
 	 * 
@@ -71,6 +88,10 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 	private Properties dispatcherPropertiesBean;
 	private PerunSession perunSession;
 
+	// engine ID -> task results waiting to be stored by flushTaskResults()
+	private final ConcurrentMap<Integer, Queue<TaskResult>> taskResultsToStore = new ConcurrentHashMap<Integer, Queue<TaskResult>>();
+	private final AtomicInteger taskResultsToStoreCount = new AtomicInteger();
+
 	/**
 	 * TODO: Improve logic here: i.e.: stuck ExecutorEngine threads vs. Time-Out
 	 * etc...
@@ -97,12 +118,79 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 
 		checkFinishedTasks();
 
-		rescheduleErrorTasks();
+		checkDueTasks();
 
-		endStuckTasks();
+	}
 
-		rescheduleOldDoneTasks();
+	/**
+	 * Check tasks with passed deadline - end stuck tasks, reschedule ERROR tasks
+	 * and reschedule old DONE tasks. Tasks which were added or changed their status
+	 * since the last check are due immediately, so they only get their real deadline here.
+	 */
+	private void checkDueTasks() {
+		List<Task> dueTasks = schedulingPool.pollDueTasks();
+		log.info("I am gonna check {} tasks with passed deadline...", dueTasks.size());
+
+		long now = System.currentTimeMillis();
+		for (Task task : dueTasks) {
+			Long deadline = getDeadline(task, now);
+			if (deadline != null && deadline <= now) {
+				if (TaskStatus.ERROR.equals(task.getStatus())) {
+					rescheduleErrorTask(task);
+				} else if (TaskStatus.DONE.equals(task.getStatus())) {
+					rescheduleOldDoneTask(task);
+				} else {
+					endStuckTask(task);
+				}
+				deadline = getDeadline(task, now);
+				// task still due (e.g. rescheduling failed) is checked again later
+				if (deadline != null && deadline <= now) {
+					deadline = now + RECHECK_INTERVAL;
+				}
+			}
+			// task with changed status was already given new deadline by scheduling pool
+			if (deadline != null) {
+				schedulingPool.setTaskDeadlineIfAbsent(task, new Date(deadline));
+			}
+		}
+	}
 
+	/**
+	 * Return time, when the task must be checked, according to its status:
+	 * PLANNED and PROCESSING tasks are stuck after STUCK_TIMEOUT, ERROR tasks are rescheduled after
+	 * delay growing with recurrence (or after 12 hours, if they have no more retries) and SEND tasks
+	 * in DONE are rescheduled after 2 days. ERROR and DONE tasks with updated source are due immediately.
+	 *
+	 * @param task
+	 * @param now current time in milliseconds
+	 * @return deadline in milliseconds or null, if task doesn't need to be checked
+	 */
+	private Long getDeadline(Task task, long now) {
+		TaskStatus status = task.getStatus();
+		if (status == null) return now;
+
+		switch (status) {
+			case PLANNED:
+			case PROCESSING:
+				Date started = (task.getStartTime() == null) ? task.getSchedule() : task.getStartTime();
+				if (started == null) return now;
+				return started.getTime() + STUCK_TIMEOUT;
+			case ERROR:
+				if (task.isSourceUpdated() || task.getEndTime() == null || task.getEndTime().getTime() > now) return now;
+				int recurrence = task.getRecurrence() + 1;
+				long deadline = task.getEndTime().getTime() + recurrence * task.getDelay() * 60000L;
+				if (recurrence > task.getExecService().getDefaultRecurrence()) {
+					deadline = Math.max(deadline, task.getEndTime().getTime() + NO_RETRIES_TIMEOUT);
+				}
+				return deadline;
+			case DONE:
+				if (task.getExecService() != null &&
+						task.getExecService().getExecServiceType().equals(ExecService.ExecServiceType.GENERATE)) return null;
+				if (task.isSourceUpdated() || task.getEndTime() == null) return now;
+				return task.getEndTime().getTime() + DONE_TIMEOUT;
+			default:
+				return null;
+		}
 	}
 
 	private void checkFinishedTasks() {
@@ -114,110 +202,106 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 		 */
 	}
 
-	private void rescheduleErrorTasks() {
-		log.info("I am gonna list tasks in ERROR and reschedule if necessary...");
-
-		for (Task task : schedulingPool.getErrorTasks()) {
-			if (task.getEndTime() == null) {
-				log.error("RECOVERY FROM INCONSISTENT STATE: ERROR task does not have end_time! Setting end_time to task.getDelay + 1.");
-				// getDelay is in minutes, therefore we multiply it with 60*1000
-				Date endTime = new Date(System.currentTimeMillis()
-						- ((task.getDelay() + 1) * 60000));
-				task.setEndTime(endTime);
-			}
-			int howManyMinutesAgo = (int) (System.currentTimeMillis() - task
-					.getEndTime().getTime()) / 1000 / 60;
-			if(howManyMinutesAgo < 0) {
-				log.error("RECOVERY FROM INCONSISTENT STATE: ERROR task appears to have ended in future.");
-				Date endTime = new Date(System.currentTimeMillis()
-						- ((task.getDelay() + 1) * 60000));
-				task.setEndTime(endTime);
-				howManyMinutesAgo = task.getDelay() + 1;
-			}
-			log.info("TASK [" + task + "] in ERROR state completed "
-					+ howManyMinutesAgo + " minutes ago.");
-			// XXX - apparently this is not what the authors had in mind,
-			// commented out
-			// check and set recurrence
-			// int recurrence = task.getRecurrence() - 1;
-			// if(recurrence < 0) {
-			// // no more retries, sorry
-			// log.info("TASK [ " + task +
-			// "] in ERROR state has no more retries, bailing out.");
-			// continue;
-			// }
-			// task.setRecurrence(recurrence);
-			// If DELAY time has passed, we reschedule...
-			int recurrence = task.getRecurrence() + 1;
-			if(recurrence > task.getExecService().getDefaultRecurrence() &&
-					howManyMinutesAgo < 60 * 12 &&
-					!task.isSourceUpdated()) {
-				log.info("TASK [ " + task + "] in ERROR state has no more retries, bailing out.");
-			} else if (howManyMinutesAgo >= recurrence * task.getDelay() ||
-					task.isSourceUpdated()) {
-				// check if service is still assigned on facility
-				try {
-					List<Service> assignedServices = perun.getServicesManager().getAssignedServices(perunSession, task.getFacility());
-					if (assignedServices.contains(task.getExecService().getService())) {
-						ExecService execService = task.getExecService();
-						Facility facility = task.getFacility();
-						if(recurrence > execService.getDefaultRecurrence()) {
-							// this ERROR task is rescheduled for being here too long
-							task.setRecurrence(0);
-							task.setDestinations(null);
-							log.info("TASK id " + task.getId() + " is in ERROR state long enough, ");
-						}
-						task.setRecurrence(recurrence);
-						log.info("TASK ["
-								+ task
-								+ "] in ERROR state is going to be rescheduled: taskScheduler.propagateService(execService:ID "
-								+ execService.getId()
-								+ ", new Date(System.currentTimeMillis()), facility:ID "
-								+ facility.getId() + ");");
-						// taskScheduler.propagateService(task, new
-						// Date(System.currentTimeMillis()));
-						taskScheduler.scheduleTask(task);
-						log.info("TASK [" + task
-								+ "] in ERROR state has been rescheduled.");
-
-						// Also (to be sure) reschedule all Tasks that depend on
-						// this Task
-						//
-						// While engine starts in state GEN = ERROR, SEND = DONE
-						// => GEN will be rescheduled but without this SEND will
-						// never be propagated
-						List<ExecService> dependantServices = dependenciesResolver.listDependantServices(execService);
-						for (ExecService dependantService : dependantServices) {
-							Task dependantTask = schedulingPool.getTask(dependantService, facility);
-							if (dependantTask == null) {
-								dependantTask = new Task();
-								dependantTask.setExecService(dependantService);
-								dependantTask.setFacility(facility);
-								dependantTask.setRecurrence(dependantService.getDefaultRecurrence());
-								schedulingPool.addToPool(dependantTask,	schedulingPool.getQueueForTask(task));
-								taskScheduler.scheduleTask(dependantTask);
-								log.info("{} was rescheduled because it depends on {}",
-										dependantTask, task);
-							}
+	private void rescheduleErrorTask(Task task) {
+		if (task.getEndTime() == null) {
+			log.error("RECOVERY FROM INCONSISTENT STATE: ERROR task does not have end_time! Setting end_time to task.getDelay + 1.");
+			// getDelay is in minutes, therefore we multiply it with 60*1000
+			Date endTime = new Date(System.currentTimeMillis()
+					- ((task.getDelay() + 1) * 60000));
+			task.setEndTime(endTime);
+		}
+		int howManyMinutesAgo = (int) (System.currentTimeMillis() - task
+				.getEndTime().getTime()) / 1000 / 60;
+		if(howManyMinutesAgo < 0) {
+			log.error("RECOVERY FROM INCONSISTENT STATE: ERROR task appears to have ended in future.");
+			Date endTime = new Date(System.currentTimeMillis()
+					- ((task.getDelay() + 1) * 60000));
+			task.setEndTime(endTime);
+			howManyMinutesAgo = task.getDelay() + 1;
+		}
+		log.info("TASK [" + task + "] in ERROR state completed "
+				+ howManyMinutesAgo + " minutes ago.");
+		// XXX - apparently this is not what the authors had in mind,
+		// commented out
+		// check and set recurrence
+		// int recurrence = task.getRecurrence() - 1;
+		// if(recurrence < 0) {
+		// // no more retries, sorry
+		// log.info("TASK [ " + task +
+		// "] in ERROR state has no more retries, bailing out.");
+		// continue;
+		// }
+		// task.setRecurrence(recurrence);
+		// If DELAY time has passed, we reschedule...
+		int recurrence = task.getRecurrence() + 1;
+		if(recurrence > task.getExecService().getDefaultRecurrence() &&
+				howManyMinutesAgo < NO_RETRIES_TIMEOUT / 1000 / 60 &&
+				!task.isSourceUpdated()) {
+			log.info("TASK [ " + task + "] in ERROR state has no more retries, bailing out.");
+		} else if (howManyMinutesAgo >= recurrence * task.getDelay() ||
+				task.isSourceUpdated()) {
+			// check if service is still assigned on facility
+			try {
+				List<Service> assignedServices = perun.getServicesManager().getAssignedServices(perunSession, task.getFacility());
+				if (assignedServices.contains(task.getExecService().getService())) {
+					ExecService execService = task.getExecService();
+					Facility facility = task.getFacility();
+					if(recurrence > execService.getDefaultRecurrence()) {
+						// this ERROR task is rescheduled for being here too long
+						task.setRecurrence(0);
+						task.setDestinations(null);
+						log.info("TASK id " + task.getId() + " is in ERROR state long enough, ");
+					}
+					task.setRecurrence(recurrence);
+					log.info("TASK ["
+							+ task
+							+ "] in ERROR state is going to be rescheduled: taskScheduler.propagateService(execService:ID "
+							+ execService.getId()
+							+ ", new Date(System.currentTimeMillis()), facility:ID "
+							+ facility.getId() + ");");
+					// taskScheduler.propagateService(task, new
+					// Date(System.currentTimeMillis()));
+					taskScheduler.scheduleTask(task);
+					log.info("TASK [" + task
+							+ "] in ERROR state has been rescheduled.");
+
+					// Also (to be sure) reschedule all Tasks that depend on
+					// this Task
+					//
+					// While engine starts in state GEN = ERROR, SEND = DONE
+					// => GEN will be rescheduled but without this SEND will
+					// never be propagated
+					List<ExecService> dependantServices = dependenciesResolver.listDependantServices(execService);
+					for (ExecService dependantService : dependantServices) {
+						Task dependantTask = schedulingPool.getTask(dependantService, facility);
+						if (dependantTask == null) {
+							dependantTask = new Task();
+							dependantTask.setExecService(dependantService);
+							dependantTask.setFacility(facility);
+							dependantTask.setRecurrence(dependantService.getDefaultRecurrence());
+							schedulingPool.addToPool(dependantTask,	schedulingPool.getQueueForTask(task));
+							taskScheduler.scheduleTask(dependantTask);
+							log.info("{} was rescheduled because it depends on {}",
+									dependantTask, task);
 						}
-					} else {
-						// delete this tasks (SEND and GEN) because service is
-						// no longer assigned to facility
-						schedulingPool.removeTask(task);
-						log.warn(
-								"Removed TASK {} from database, beacuse service is no longer assigned to this facility.",
-								task.toString());
 					}
-				} catch (FacilityNotExistsException e) {
+				} else {
+					// delete this tasks (SEND and GEN) because service is
+					// no longer assigned to facility
 					schedulingPool.removeTask(task);
-					log.error("Removed TASK {} from database, facility no longer exists.",
-							task.getId());
-				
-				} catch (InternalErrorException e) {
-					log.error("{}", e);
-				} catch (PrivilegeException e) {
-					log.error("Consistency error. {}", e);
+					log.warn(
+							"Removed TASK {} from database, beacuse service is no longer assigned to this facility.",
+							task.toString());
 				}
+			} catch (FacilityNotExistsException e) {
+				schedulingPool.removeTask(task);
+				log.error("Removed TASK {} from database, facility no longer exists.",
+						task.getId());
+			
+			} catch (InternalErrorException e) {
+				log.error("{}", e);
+			} catch (PrivilegeException e) {
+				log.error("Consistency error. {}", e);
 			}
 		}
 
@@ -292,49 +376,39 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 		 */
 	}
 
-	private void endStuckTasks() {
-		// list all tasks in processing and planned and check if any have beeen
-		// running for too long.
-		log.info("I am gonna list planned and processing tasks and kill them if necessary...");
-
-		List<Task> suspiciousTasks = schedulingPool.getProcessingTasks();
-		suspiciousTasks.addAll(schedulingPool.getPlannedTasks());
-
-		for (Task task : suspiciousTasks) {
-			// count how many minutes the task stays in one state - if the state
-			// is PLANNED count it from when it was scheduled ; if it is
-			// PROCESSING count it from when it started
-			Date started = task.getStartTime();
-			Date scheduled = task.getSchedule();
-			TaskStatus status = task.getStatus();
-
-			if (status == null) {
-				log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but does not have a valid status. Switching to ERROR. {}",
-						task);
-				task.setEndTime(new Date(System.currentTimeMillis()));
-				schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
-				continue;
-			}
-
-			if (started == null && scheduled == null) {
-				log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but does not have a valid scheduled or started time. Switching to ERROR. {}",
-						task);
-				task.setEndTime(new Date(System.currentTimeMillis()));
-				schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
-				continue;
-			}
+	private void endStuckTask(Task task) {
+		// count how many minutes the task stays in one state - if the state
+		// is PLANNED count it from when it was scheduled ; if it is
+		// PROCESSING count it from when it started
+		Date started = task.getStartTime();
+		Date scheduled = task.getSchedule();
+		TaskStatus status = task.getStatus();
+
+		if (status == null) {
+			log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but does not have a valid status. Switching to ERROR. {}",
+					task);
+			task.setEndTime(new Date(System.currentTimeMillis()));
+			schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
+			return;
+		}
 
-			int howManyMinutesAgo = (int) (System.currentTimeMillis() - (started == null ? scheduled
-					: started).getTime()) / 1000 / 60;
+		if (started == null && scheduled == null) {
+			log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but does not have a valid scheduled or started time. Switching to ERROR. {}",
+					task);
+			task.setEndTime(new Date(System.currentTimeMillis()));
+			schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
+			return;
+		}
 
-			// If too much time has passed something is broken
-			if (howManyMinutesAgo >= 60) {
-				log.error("ERROR: Task is stuck in PLANNED or PROCESSING state. Switching it to ERROR. {}",
-						task);
-				task.setEndTime(new Date(System.currentTimeMillis()));
-				schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
-			}
+		int howManyMinutesAgo = (int) (System.currentTimeMillis() - (started == null ? scheduled
+				: started).getTime()) / 1000 / 60;
 
+		// If too much time has passed something is broken
+		if (howManyMinutesAgo >= STUCK_TIMEOUT / 1000 / 60) {
+			log.error("ERROR: Task is stuck in PLANNED or PROCESSING state. Switching it to ERROR. {}",
+					task);
+			task.setEndTime(new Date(System.currentTimeMillis()));
+			schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
 		}
 		/*
 		 * 
@@ -361,38 +435,33 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 		 */
 	}
 
-	private void rescheduleOldDoneTasks() {
+	private void rescheduleOldDoneTask(Task task) {
 		// Reschedule SEND tasks in DONE that haven't been running for quite a
 		// while
-		log.info("I am gonna list complete tasks and reschedule if they are too old...");
-
-		for (Task task : schedulingPool.getDoneTasks()) {
-			// skip GEN tasks
-			if (task.getExecService() != null && 
-			    task.getExecService().getExecServiceType().equals(ExecService.ExecServiceType.GENERATE)) {
-				log.debug(
-						"Found finished GEN TASK {} that was not running for a while, leaving it as is.",
-						task.toString());
-				continue;
-			}
-
-			Date twoDaysAgo = new Date(System.currentTimeMillis() - 1000 * 60 * 60 * 24 * 2);
-			if (task.isSourceUpdated()) {
-				// reschedule the task
-				log.info("TASK ["
-						+ task
-						+ "] data changed. Going to schedule for propagation now.");
-				taskScheduler.scheduleTask(task);
-			} else 	if (task.getEndTime() == null || task.getEndTime().before(twoDaysAgo)) {
-				// reschedule the task
-				log.info("TASK ["
-						+ task
-						+ "] wasn't propagated for more then 2 days. Going to schedule it for propagation now.");
-				taskScheduler.scheduleTask(task);
-			} else {
-				log.info("TASK [" + task + "] has finished recently, leaving it for now.");
-			}
+		// skip GEN tasks
+		if (task.getExecService() != null && 
+		    task.getExecService().getExecServiceType().equals(ExecService.ExecServiceType.GENERATE)) {
+			log.debug(
+					"Found finished GEN TASK {} that was not running for a while, leaving it as is.",
+					task.toString());
+			return;
+		}
 
+		Date twoDaysAgo = new Date(System.currentTimeMillis() - DONE_TIMEOUT);
+		if (task.isSourceUpdated()) {
+			// reschedule the task
+			log.info("TASK ["
+					+ task
+					+ "] data changed. Going to schedule for propagation now.");
+			taskScheduler.scheduleTask(task);
+		} else 	if (task.getEndTime() == null || !task.getEndTime().after(twoDaysAgo)) {
+			// reschedule the task
+			log.info("TASK ["
+					+ task
+					+ "] wasn't propagated for more then 2 days. Going to schedule it for propagation now.");
+			taskScheduler.scheduleTask(task);
+		} else {
+			log.info("TASK [" + task + "] has finished recently, leaving it for now.");
 		}
 		/*
 		 * 
@@ -495,6 +564,28 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 	@Override
 	public void onTaskComplete(int taskId, int clientID, String status_s,
 			String string) {
+		List<Destination> destinationList = null;
+		if (!status_s.equals("DONE") && !string.isEmpty()) {
+			// task failed, some destinations remain
+			// resolve list of destinations
+			List<PerunBean> listOfBeans;
+			destinationList = new ArrayList<Destination>();
+			try {
+				listOfBeans = AuditParser.parseLog(string);
+				log.debug("Found list of destination beans: " + listOfBeans);
+				for (PerunBean bean : listOfBeans) {
+					destinationList.add((Destination) bean);
+				}
+			} catch (InternalErrorException e) {
+				log.error("Could not resolve destination from destination list");
+			}
+		}
+		onTaskComplete(taskId, clientID, status_s, destinationList);
+	}
+
+	@Override
+	public void onTaskComplete(int taskId, int clientID, String status_s,
+			List<Destination> destinationList) {
 		Task completedTask = schedulingPool.getTaskById(taskId);
 
 		if (completedTask == null) {
@@ -550,25 +641,13 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 			} 
 			completedTask.setPropagationForced(false);
 		} else {
-			if (string.isEmpty()) {
+			if (destinationList == null) {
 				// weird - task is in error and no destinations reported as
 				// failed...
 				log.warn("TASK {} ended in ERROR state with no remaining destinations.",
 						completedTask.toString());
 			} else {
 				// task failed, some destinations remain
-				// resolve list of destinations
-				List<PerunBean> listOfBeans;
-				List<Destination> destinationList = new ArrayList<Destination>();
-				try {
-					listOfBeans = AuditParser.parseLog(string);
-					log.debug("Found list of destination beans: " + listOfBeans);
-					for (PerunBean bean : listOfBeans) {
-						destinationList.add((Destination) bean);
-					}
-				} catch (InternalErrorException e) {
-					log.error("Could not resolve destination from destination list");
-				}
 				if(completedTask.getDestinations() != null && 
 				   !completedTask.getDestinations().isEmpty()) {
 					completedTask.setDestinations(destinationList);
@@ -591,7 +670,7 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 			List<PerunBean> listOfBeans = AuditParser.parseLog(string);
 			if(!listOfBeans.isEmpty()) {
 				TaskResult taskResult = (TaskResult)listOfBeans.get(0);
-				resultManager.insertNewTaskResult(taskResult, clientID);
+				onTaskDestinationComplete(clientID, taskResult);
 			} else {
 				log.error("No TaskResult bean found in message {} from engine {}", string, clientID);
 			}
@@ -600,6 +679,57 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 			log.debug("Error storing taskresult message: " + e.getMessage());
 		}
 	}
+
+	@Override
+	public void onTaskDestinationComplete(int clientID, TaskResult taskResult) {
+		Queue<TaskResult> taskResults = taskResultsToStore.get(clientID);
+		if (taskResults == null) {
+			taskResultsToStore.putIfAbsent(clientID, new ConcurrentLinkedQueue<TaskResult>());
+			taskResults = taskResultsToStore.get(clientID);
+		}
+		taskResults.add(taskResult);
+		if (taskResultsToStoreCount.incrementAndGet() >= RESULTS_BATCH_SIZE) {
+			flushTaskResults();
+		}
+	}
+
+	@Override
+	public void flushTaskResults() {
+		for (Map.Entry<Integer, Queue<TaskResult>> entry : taskResultsToStore.entrySet()) {
+			List<TaskResult> taskResults = new ArrayList<TaskResult>();
+			TaskResult taskResult;
+			while ((taskResult = entry.getValue().poll()) != null) {
+				taskResults.add(taskResult);
+			}
+			if (taskResults.isEmpty()) continue;
+			taskResultsToStoreCount.addAndGet(-taskResults.size());
+			try {
+				resultManager.insertNewTaskResults(taskResults, entry.getKey());
+				log.debug("Stored {} task results from engine {}", taskResults.size(), entry.getKey());
+			} catch (Exception e) {
+				// batch was rolled back, store results one by one and skip only the bad ones
+				log.warn("Could not save batch of {} task results from engine {}, saving them one by one: {}",
+						new Object[] { taskResults.size(), entry.getKey(), e.getMessage() });
+				insertTaskResults(taskResults, entry.getKey());
+			}
+		}
+	}
+
+	private void insertTaskResults(List<TaskResult> taskResults, int engineId) {
+		int stored = 0;
+		for (TaskResult taskResult : taskResults) {
+			try {
+				resultManager.insertNewTaskResult(taskResult, engineId);
+				stored++;
+			} catch (Exception e) {
+				// e.g. task was deleted meanwhile or result is incomplete
+				log.error("Could not save taskresult {} from engine {}", taskResult, engineId);
+				log.debug("Error storing taskresult: " + e.getMessage());
+			}
+		}
+		log.debug("Stored {} of {} task results from engine {}", new Object[] { stored, taskResults.size(), engineId });
+	}
+
 	/*
 	 * public TaskManager getTaskManager() { return taskManager; }
 	 * 
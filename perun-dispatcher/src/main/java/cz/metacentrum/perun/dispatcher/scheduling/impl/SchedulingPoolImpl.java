@@ -1,11 +1,13 @@
 package cz.metacentrum.perun.dispatcher.scheduling.impl;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,33 +21,26 @@ import cz.metacentrum.perun.dispatcher.scheduling.SchedulingPool;
 import cz.metacentrum.perun.taskslib.model.ExecService;
 import cz.metacentrum.perun.taskslib.model.Task;
 import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
+import cz.metacentrum.perun.taskslib.scheduling.TaskPool;
 import cz.metacentrum.perun.taskslib.service.TaskManager;
 
-// TODO: this shares a lot of code with engine.SchedulingPoolImpl - create abstract base with implementation specific indexes
-
 @org.springframework.stereotype.Service("schedulingPool")
 public class SchedulingPoolImpl implements SchedulingPool {
 
 	private final static Logger log = LoggerFactory.getLogger(SchedulingPoolImpl.class);
 
-	private final Map<Integer, Pair<Task, DispatcherQueue>> tasksById = new ConcurrentHashMap<Integer, Pair<Task, DispatcherQueue>>();
-	private final Map<Pair<Integer, Integer>, Task> tasksByServiceAndFacility = new ConcurrentHashMap<Pair<Integer, Integer>, Task>();
-	private final Map<TaskStatus, List<Task>> pool = new EnumMap<TaskStatus, List<Task>>(TaskStatus.class);
+	private final TaskPool pool = new TaskPool();
+	// task ID -> queue of engine the task is assigned to (tasks without queue are not present)
+	private final Map<Integer, DispatcherQueue> queuesByTaskId = new ConcurrentHashMap<Integer, DispatcherQueue>();
 
 	@Autowired
 	private TaskManager taskManager;
 	@Autowired
 	private DispatcherQueuePool dispatcherQueuePool;
 
-	public SchedulingPoolImpl() {
-		for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-			pool.put(status, new ArrayList<Task>());
-		}
-	}
-
 	@Override
 	public int getSize() {
-		return tasksById.size();
+		return pool.size();
 	}
 
 	@Override
@@ -56,8 +51,8 @@ public class SchedulingPoolImpl implements SchedulingPool {
 
 			// this task was created new, so we have to check the
 			// ExecService,Facility pair
-			synchronized (tasksByServiceAndFacility) {
-				if (!tasksByServiceAndFacility.containsKey(new Pair<Integer, Integer>(task.getExecServiceId(), task.getFacilityId()))) {
+			synchronized (pool.getLock(task.getExecServiceId(), task.getFacilityId())) {
+				if (pool.get(task.getExecServiceId(), task.getFacilityId()) == null) {
 					log.debug("Adding new task to pool " + task);
 					if (null == task.getStatus()) {
 						task.setStatus(TaskStatus.NONE);
@@ -71,125 +66,113 @@ public class SchedulingPoolImpl implements SchedulingPool {
 						throw new InternalErrorException(
 								"Could not assign id to newly created task", e);
 					}
-					tasksByServiceAndFacility.put(
-							new Pair<Integer, Integer>(task
-									.getExecServiceId(), task.getFacilityId()),
-							task);
-					tasksById.put(task.getId(),
-							new Pair<Task, DispatcherQueue>(task,
-									dispatcherQueue));
-					List<Task> list = pool.get(task.getStatus());
-					if(list == null) {
-						log.info("Making new list for task status " + task.getStatus().toString());
-						list = new ArrayList<Task>();
-						pool.put(task.getStatus(), list);
-					}
-					list.add(task);
+					setQueue(task, dispatcherQueue);
+					pool.add(task);
 				} else {
 					log.debug("There already is task for given ExecService and Facility pair");
 				}
 			}
 		} else {
 			// weird - we should not be adding tasks with id present...
-			synchronized (tasksById) {
-				if (!tasksById.containsKey(task.getId())) {
-					log.debug("Adding task to pool " + task);
-					if (null == task.getStatus()) {
-						task.setStatus(TaskStatus.NONE);
-					}
-					tasksById.put(task.getId(), new Pair<Task, DispatcherQueue>(task, dispatcherQueue));
-					tasksByServiceAndFacility.put(new Pair<Integer, Integer>(task.getExecServiceId(), task.getFacilityId()), task);
-					List<Task> list = pool.get(task.getStatus());
-					if(list == null) {
-						log.info("Making new list for task status " + task.getStatus().toString());
-						list = new ArrayList<Task>();
-						pool.put(task.getStatus(), list);
-					}
-					list.add(task);
-					// pool.get(task.getStatus()).add(task);
-				}
-			}
-			try {
-				Task existingTask = taskManager.getTaskById(task.getId());
-				if (existingTask == null) {
-					taskManager.scheduleNewTask(task, engineId);
-				} else {
-					taskManager.updateTask(task);
-				}
-			} catch (InternalErrorException e) {
-				log.error("Error storing task " + task + " into database: "
-						+ e.getMessage());
+			if (pool.get(task.getId()) == null) {
+				log.debug("Adding task to pool " + task);
+				setQueue(task, dispatcherQueue);
+				pool.add(task);
 			}
+			// task is stored (or created, when missing in database) by next persistChangedTasks()
+			pool.markChanged(task);
 		}
 		return getSize();
 	}
 
 	@Override
 	public Task getTaskById(int id) {
-		Pair<Task, DispatcherQueue> entry = tasksById.get(id);
-		if (entry == null) {
-			return null;
-		} else {
-			return entry.getLeft();
-		}
+		return pool.get(id);
 	}
 
 	@Override
 	public void removeTask(Task task) {
-		Pair<Task, DispatcherQueue> val;
-		synchronized (pool) {
-			pool.get(task.getStatus()).remove(task);
-			val = tasksById.remove(task.getId());
-			tasksByServiceAndFacility.remove(new Pair<Integer, Integer>(task.getExecServiceId(),
-					task.getFacilityId()));
-		}
+		pool.remove(task);
+		queuesByTaskId.remove(task.getId());
 		taskManager.removeTask(task.getId());
 	}
 
 	@Override
 	public Task getTask(ExecService execService, Facility facility) {
-		return tasksByServiceAndFacility.get(new Pair<Integer, Integer>(
-				execService.getId(), facility.getId()));
+		return pool.get(execService.getId(), facility.getId());
 	}
 
 	@Override
 	public DispatcherQueue getQueueForTask(Task task)
 			throws InternalErrorException {
-		Pair<Task, DispatcherQueue> entry = tasksById.get(task.getId());
-		if (entry == null) {
+		if (pool.get(task.getId()) == null) {
 			throw new InternalErrorException("no such task");
 		}
-		return entry.getRight();
+		return queuesByTaskId.get(task.getId());
 	}
 
 	@Override
 	public void setTaskStatus(Task task, TaskStatus status) {
-		TaskStatus old = task.getStatus();
-		task.setStatus(status);
 		// move task to the appropriate place
-		synchronized(pool) {
-			if (!old.equals(status)) {
-				if(pool.get(old) != null) {
-					pool.get(old).remove(task);
-				} else {
-					log.warn("task unknown by status");
-				}
-				if(pool.get(status) != null) {
-					pool.get(status).add(task);
-				} else {
-					log.error("no task pool for status " + status.toString());
+		pool.setStatus(task, status);
+		// change is stored by next persistChangedTasks()
+		pool.markChanged(task);
+	}
+
+	@Override
+	public void persistChangedTasks() {
+		List<Task> tasks = pool.drainChangedTasks();
+		if (tasks.isEmpty()) return;
+		try {
+			List<Task> missing = taskManager.updateTasks(tasks);
+			for (Task task : missing) {
+				DispatcherQueue queue = queuesByTaskId.get(task.getId());
+				try {
+					taskManager.scheduleNewTask(task, (queue == null) ? -1 : queue.getClientID());
+				} catch (InternalErrorException e) {
+					log.error("Error storing task " + task + " into database: " + e.getMessage());
 				}
 			}
+			log.debug("Stored {} changed tasks into database.", tasks.size());
+		} catch (RuntimeException e) {
+			// try again next time
+			for (Task task : tasks) {
+				if (pool.get(task.getId()) == task) pool.markChanged(task);
+			}
+			log.error("Error storing changed tasks into database: " + e.getMessage());
 		}
-		taskManager.updateTask(task);
+	}
+
+	/**
+	 * Store changes, which were not persisted yet, before dispatcher is stopped.
+	 */
+	@PreDestroy
+	public void destroy() {
+		persistChangedTasks();
+	}
+
+	@Override
+	public List<Task> pollDueTasks() {
+		return pool.pollDueTasks(System.currentTimeMillis());
+	}
+
+	@Override
+	public void setTaskDeadline(Task task, Date deadline) {
+		pool.setDeadline(task, deadline.getTime());
+	}
+
+	@Override
+	public void setTaskDeadlineIfAbsent(Task task, Date deadline) {
+		pool.setDeadlineIfAbsent(task, deadline.getTime());
 	}
 
 	@Override
 	public List<Task> getTasksForEngine(int clientID) {
 		List<Task> result = new ArrayList<Task>();
-		for (Pair<Task, DispatcherQueue> value : tasksById.values()) {
-			if (value.getRight() != null && clientID == value.getRight().getClientID()) {
-				result.add(value.getLeft());
+		for (Map.Entry<Integer, DispatcherQueue> entry : queuesByTaskId.entrySet()) {
+			if (clientID == entry.getValue().getClientID()) {
+				Task task = pool.get(entry.getKey());
+				if (task != null) result.add(task);
 			}
 		}
 		return result;
@@ -197,48 +180,33 @@ public class SchedulingPoolImpl implements SchedulingPool {
 
 	@Override
 	public List<Task> getWaitingTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.NONE));
-		}
+		return pool.getTasks(TaskStatus.NONE);
 	}
 
 	@Override
 	public List<Task> getDoneTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.DONE));
-		}
+		return pool.getTasks(TaskStatus.DONE);
 	}
 
 	@Override
 	public List<Task> getErrorTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.ERROR));
-		}
+		return pool.getTasks(TaskStatus.ERROR);
 	}
 
 	@Override
 	public List<Task> getProcessingTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.PROCESSING));
-		}
+		return pool.getTasks(TaskStatus.PROCESSING);
 	}
 
 	@Override
 	public List<Task> getPlannedTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.PLANNED));
-		}
+		return pool.getTasks(TaskStatus.PLANNED);
 	}
 
 	@Override
 	public void clear() {
-		synchronized (tasksById) {
-			tasksById.clear();
-			tasksByServiceAndFacility.clear();
-			for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-				pool.get(status).clear();
-			}
-		}
+		pool.clear();
+		queuesByTaskId.clear();
 		// taskManager.removeAllTasks();
 	}
 
@@ -248,10 +216,6 @@ public class SchedulingPoolImpl implements SchedulingPool {
 		this.clear();
 		for (Pair<Task, Integer> pair : taskManager.listAllTasksAndClients()) {
 			Task task = pair.getLeft();
-			TaskStatus status = task.getStatus();
-			if (status == null) {
-				task.setStatus(TaskStatus.NONE);
-			}
 			/* TESTING ONLY: skip all tasks for other facilities than meant for testing */
 			/*
 			if(task.getFacility().getName().equals("alcor.ics.muni.cz") ||
@@ -264,34 +228,27 @@ public class SchedulingPoolImpl implements SchedulingPool {
                     continue;
             }
             */
-			if (!pool.get(task.getStatus()).contains(task)) {
-				pool.get(task.getStatus()).add(task);
-			}
 			DispatcherQueue queue = dispatcherQueuePool.getDispatcherQueueByClient(pair.getRight());
-			// XXX should this be synchronized too?
-			tasksById.put(
-					task.getId(),
-					new Pair<Task, DispatcherQueue>(task, queue));
-			tasksByServiceAndFacility.put(
-					new Pair<Integer, Integer>(task.getExecServiceId(),
-								task.getFacilityId()), task);
-			// TODO: what about possible duplicates?
+			setQueue(task, queue);
+			if (!pool.add(task)) {
+				log.warn("Duplicate task " + task.toString() + " skipped.");
+				continue;
+			}
 			log.debug("Added task " + task.toString() + " belonging to queue " + pair.getRight());
 		}
 		log.info("Pool contains: ");
 		for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-			log.info("  - {} tasks in state {}", pool.get(status).size(),
+			log.info("  - {} tasks in state {}", pool.size(status),
 					status.toString());
 		}
 	}
 
 	@Override
 	public void setQueueForTask(Task task, DispatcherQueue queueForTask) throws InternalErrorException {
-		Pair<Task, DispatcherQueue> pair = tasksById.get(task.getId());
-		if(pair == null) {
+		if(pool.get(task.getId()) == null) {
 			throw new InternalErrorException("no task by that id");
 		} else {
-			tasksById.get(task.getId()).put(task, queueForTask);
+			setQueue(task, queueForTask);
 		}
 		// if queue is removed, set -1 to task as it's done on task creation if queue is null
 		int queueId = (queueForTask != null) ? queueForTask.getClientID() : -1;
@@ -301,6 +258,8 @@ public class SchedulingPoolImpl implements SchedulingPool {
 	@Override
 	public void checkTasksDb() {
 		log.debug("Going to cross-check tasks in database...");
+		// local changes must be in database before comparing
+		persistChangedTasks();
 		for (Pair<Task, Integer> pair : taskManager.listAllTasksAndClients()) {
 			Task task = pair.getLeft();
 			DispatcherQueue taskQueue = dispatcherQueuePool.getDispatcherQueueByClient(pair.getRight());
@@ -308,35 +267,14 @@ public class SchedulingPoolImpl implements SchedulingPool {
 			if (status == null) {
 				task.setStatus(TaskStatus.NONE);
 			}
-			Task local_task = null;
-			TaskStatus local_status = null;
 			log.debug("  checking task " + task.toString());
 			if(taskQueue == null) {
 				log.warn("  there is no task queue for client " + pair.getRight());
 				// continue;
 			}
-			synchronized (tasksById) {
-				Pair<Task, DispatcherQueue> local_pair = tasksById.get(task.getId());
-				if(local_pair != null) {
-					local_task = local_pair.getLeft();
-				}
-				if(local_task == null) {
-					local_task = tasksByServiceAndFacility.get(new Pair<Integer,Integer>(
-							task.getExecServiceId(),
-							task.getFacilityId()));
-				}
-				if(local_task == null) {
-					for (TaskStatus sts : TaskStatus.class.getEnumConstants()) {
-						List<Task> tasklist = pool.get(sts);
-						if(tasklist != null) {
-							local_task = tasklist.get(task.getId());
-						}
-						if(local_task != null) {
-							local_status = sts;
-							break;
-						}
-					}
-				}
+			Task local_task = pool.get(task.getId());
+			if(local_task == null) {
+				local_task = pool.get(task.getExecServiceId(), task.getFacilityId());
 			}
 			if(local_task == null) {
 				try {
@@ -346,38 +284,23 @@ public class SchedulingPoolImpl implements SchedulingPool {
 					log.error("Error adding task to the local structures: " + e.getMessage());
 				}
 			} else {
-				synchronized(tasksById) {
-					if(!tasksById.containsKey(local_task.getId())) {
-						log.debug("  task not known by id, adding");
-						tasksById.put(local_task.getId(),
-								new Pair<Task, DispatcherQueue>(local_task, taskQueue));
-					}
-					if(!tasksByServiceAndFacility.containsKey(new Pair<Integer, Integer>(
-							local_task.getExecServiceId(), local_task.getFacilityId()))) {
-						log.debug("  task not known by ExecService and Facility, adding");
-						tasksByServiceAndFacility.put(
-								new Pair<Integer, Integer>(
-										local_task.getExecServiceId(),
-										local_task.getFacilityId()),
-								task);
-
-					}
-					if(local_status != null && local_status != local_task.getStatus()) {
-						log.debug("  task listed with wrong status, removing");
-						if(pool.get(local_status) != null) {
-							pool.get(local_status).remove(local_task.getId());
-						} else {
-							log.error("  no task list for status " + local_status);
-						}
-					}
-					if(pool.get(local_task.getStatus()) != null &&
-							!pool.get(local_task.getStatus()).contains(local_task)) {
-						log.debug("  task not listed with its status, adding");
-						pool.get(local_task.getStatus()).add(local_task);
-					}
+				if(pool.reindex(local_task)) {
+					log.debug("  task not listed with its status, fixed");
+				}
+				if(taskQueue != null && !queuesByTaskId.containsKey(local_task.getId())) {
+					log.debug("  task not known by queue, adding");
+					queuesByTaskId.put(local_task.getId(), taskQueue);
 				}
 			}
 		}
 	}
 
+	private void setQueue(Task task, DispatcherQueue queue) {
+		if (queue == null) {
+			queuesByTaskId.remove(task.getId());
+		} else {
+			queuesByTaskId.put(task.getId(), queue);
+		}
+	}
+
 }
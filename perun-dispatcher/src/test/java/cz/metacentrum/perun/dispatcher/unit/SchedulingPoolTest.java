@@ -21,6 +21,7 @@ import cz.metacentrum.perun.dispatcher.scheduling.SchedulingPool;
 import cz.metacentrum.perun.taskslib.model.ExecService;
 import cz.metacentrum.perun.taskslib.model.Task;
 import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
+import cz.metacentrum.perun.taskslib.service.TaskManager;
 
 /**
  * @author Michal Karm Babacek
@@ -33,6 +34,8 @@ public class SchedulingPoolTest extends AbstractDispatcherTest {
 
 	@Autowired
 	private SchedulingPool schedulingPool;
+	@Autowired
+	private TaskManager taskManager;
 	private DispatcherQueue dispatcherQueue;
 	private List<Pair<ExecService, Facility>> testPairs = new ArrayList<Pair<ExecService, Facility>>();
 	private List<Destination> destinations = new ArrayList<Destination>() {{
@@ -113,4 +116,14 @@ public class SchedulingPoolTest extends AbstractDispatcherTest {
 		Task task = schedulingPool.getTaskById(task1.getId());
 		Assert.isTrue(task == task1);
 	}
+
+	@IfProfileValue(name = "perun.test.groups", values = ("unit-tests"))
+	@Test
+	public void persistAddedTaskTest() {
+		System.out.println("SchedulingPool.persistAddedTaskTest()");
+		// task with ID is stored by next persist, it is created when missing in database
+		Assert.isNull(taskManager.getTask(execservice1, facility1, dispatcherQueue.getClientID()));
+		schedulingPool.persistChangedTasks();
+		Assert.notNull(taskManager.getTask(execservice1, facility1, dispatcherQueue.getClientID()));
+	}
 }
@@ -1,9 +1,12 @@
 package cz.metacentrum.perun.engine.jms;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
@@ -23,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.task.TaskExecutor;
 
 import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.taskslib.jms.SystemMessageCodec;
 import cz.metacentrum.perun.taskslib.model.Task;
 import cz.metacentrum.perun.taskslib.model.TaskResult;
 
@@ -163,20 +167,64 @@ public class JMSQueueManager {
 
 	}
 
-	public void reportFinishedTask(Task task, String destinations)
+	/**
+	 * Report finished task to dispatcher.
+	 *
+	 * @param task DONE or ERROR task
+	 * @param destinations remaining (failed) destinations of the task
+	 * @throws JMSException
+	 */
+	public void reportFinishedTask(Task task, List<Destination> destinations)
 			throws JMSException {
-		TextMessage message = session.createTextMessage("task:"
-				+ propertiesBean.getProperty("engine.unique.id") + ":"
-				+ task.getId() + ":" + task.getStatus().toString() + ":"
-				+ destinations);
-		// + ":" + task.getId() + ":DONE:Destinations []");
-		message.setJMSPriority(6);
-		producer.send(message);
-		log.debug("Task result message [" + message.getText()
-				+ "] has been sent...");
+		Map<Task, List<Destination>> tasks = new LinkedHashMap<Task, List<Destination>>();
+		tasks.put(task, destinations);
+		reportFinishedTasks(tasks);
+	}
+
+	/**
+	 * Report finished tasks to dispatcher. In binary protocol all tasks are sent in one message.
+	 *
+	 * @param tasks DONE or ERROR tasks with their remaining (failed) destinations
+	 * @throws JMSException
+	 */
+	public void reportFinishedTasks(Map<Task, List<Destination>> tasks)
+			throws JMSException {
+		if (tasks.isEmpty()) return;
+		if (isBinaryProtocol()) {
+			SystemMessageCodec.Writer writer = new SystemMessageCodec.Writer(getEngineId());
+			for (Map.Entry<Task, List<Destination>> entry : tasks.entrySet()) {
+				writer.addTaskStatus(entry.getKey().getId(), entry.getKey().getStatus().toString(), entry.getValue());
+			}
+			BytesMessage message = session.createBytesMessage();
+			message.writeBytes(writer.toByteArray());
+			message.setJMSPriority(6);
+			producer.send(message);
+			log.debug("Task result message with {} tasks has been sent...", writer.size());
+		} else {
+			for (Map.Entry<Task, List<Destination>> entry : tasks.entrySet()) {
+				Task task = entry.getKey();
+				TextMessage message = session.createTextMessage("task:"
+						+ propertiesBean.getProperty("engine.unique.id") + ":"
+						+ task.getId() + ":" + task.getStatus().toString() + ":"
+						+ serializeDestinations(entry.getValue()));
+				// + ":" + task.getId() + ":DONE:Destinations []");
+				message.setJMSPriority(6);
+				producer.send(message);
+				log.debug("Task result message [" + message.getText()
+						+ "] has been sent...");
+			}
+		}
 	}
 
 	public void reportFinishedDestination(Task task, Destination destination, TaskResult result) throws JMSException {
+		if (isBinaryProtocol() && result != null) {
+			BytesMessage message = session.createBytesMessage();
+			message.writeBytes(new SystemMessageCodec.Writer(getEngineId()).addTaskResult(result).toByteArray());
+			message.setJMSPriority(2);
+			producer.send(message);
+			log.debug("Task destination result message for task {} has been sent...", result.getTaskId());
+			return;
+		}
 		TextMessage message = session.createTextMessage("taskresult:"
 				+ propertiesBean.getProperty("engine.unique.id") + ":"
 				+ (result == null ? "" : result.serializeToString()));
@@ -186,6 +234,30 @@ public class JMSQueueManager {
 				+ "] has been sent...");
 	}
 
+	/**
+	 * Task statuses and results are sent in binary format (see SystemMessageCodec), unless
+	 * property engine.jms.binary is false (for dispatchers understanding only text messages).
+	 */
+	private boolean isBinaryProtocol() {
+		return !"false".equalsIgnoreCase(propertiesBean.getProperty("engine.jms.binary"));
+	}
+
+	private int getEngineId() {
+		return Integer.parseInt(propertiesBean.getProperty("engine.unique.id"));
+	}
+
+	private String serializeDestinations(List<Destination> destinations) {
+		StringBuilder destinations_s = new StringBuilder("Destinations [");
+		if (destinations != null) {
+			for (int i = 0; i < destinations.size(); i++) {
+				if (i > 0) destinations_s.append(",");
+				destinations_s.append(destinations.get(i).serializeToString());
+			}
+		}
+		destinations_s.append("]");
+		return destinations_s.toString();
+	}
+
 	public void sendGoodByeAndClose() {
 		try {
 			TextMessage message = session.createTextMessage("goodbye:"
@@ -5,16 +5,65 @@ import java.util.List;
 import cz.metacentrum.perun.taskslib.model.Task;
 
 /**
- * 
- * @author Michal Karm Babacek JavaDoc coming soon...
- * 
+ * Local storage of dependencies between Tasks (typically SEND depends on GEN).
+ *
+ * Dependencies are kept as graph indexed by Task ID in both directions. SchedulingPool
+ * reports when tasks enter the pool, change their status or leave it. Dependency blocks
+ * its dependants until it is DONE, also when it left the pool unfinished (e.g. in ERROR).
+ * Waiting dependants of task, which moved to ERROR, are set to ERROR by SchedulingPool.
+ *
+ * @author Michal Karm Babacek
  */
 public interface DependenciesResolver {
 
+	/**
+	 * Return tasks from the pool, which the task depends on.
+	 *
+	 * @param task
+	 * @return list of dependencies
+	 */
 	List<Task> getDependencies(Task task);
 
+	/**
+	 * Return tasks, which depend on the task.
+	 *
+	 * @param task
+	 * @return list of dependants
+	 */
 	List<Task> getDependants(Task task);
 
+	/**
+	 * Add dependency of task on task with passed ID.
+	 *
+	 * @param task dependant task
+	 * @param dependency ID of task the task depends on
+	 */
 	void addDependency(Task task, int dependency);
 
+	/**
+	 * Update state of task in the pool according to its current status.
+	 * Called when task is added to the pool or its status is changed.
+	 *
+	 * @param task task with changed status
+	 * @return dependants, which are no longer blocked by any dependency
+	 */
+	List<Task> updateTask(Task task);
+
+	/**
+	 * Remove task and its own dependencies. Called when task leaves the pool.
+	 * Dependants are unblocked only if the task is DONE, otherwise they stay blocked.
+	 *
+	 * @param task removed task
+	 * @return dependants, which are no longer blocked by any dependency
+	 */
+	List<Task> removeTask(Task task);
+
+	/**
+	 * Check if task is not blocked by any of its dependencies.
+	 *
+	 * @param task
+	 * @return true if all dependencies are DONE
+	 */
+	boolean isReady(Task task);
+
 }
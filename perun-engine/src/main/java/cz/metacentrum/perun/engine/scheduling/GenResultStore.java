@@ -0,0 +1,64 @@
+package cz.metacentrum.perun.engine.scheduling;
+
+import java.io.File;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.core.api.Service;
+
+/**
+ * Store of hashes of data generated by GEN scripts, so SEND of data, which were already
+ * delivered to the destination, can be skipped.
+ *
+ * GEN script of service writes its data to spool/[facility name]/[service name] in its working
+ * directory. After successful GEN the whole directory is hashed. After successful SEND the hash
+ * is remembered for the destination. Hashes are kept only in memory, so after restart of engine
+ * data are sent to all destinations again. Delivered hash expires after configured time, so data
+ * are sent again from time to time even if they didn't change.
+ */
+public interface GenResultStore {
+
+	/**
+	 * Hash data generated for the service and facility and remember the hash as current.
+	 *
+	 * @param service
+	 * @param facility
+	 * @param genDirectory working directory of GEN scripts
+	 * @return hash of generated data or null if there are no data
+	 */
+	String storeGenResult(Service service, Facility facility, File genDirectory);
+
+	/**
+	 * Forget hash of generated data, e.g. when GEN failed.
+	 *
+	 * @param service
+	 * @param facility
+	 */
+	void removeGenResult(Service service, Facility facility);
+
+	/**
+	 * @param service
+	 * @param facility
+	 * @return hash of data generated by last successful GEN or null if not known
+	 */
+	String getGenResult(Service service, Facility facility);
+
+	/**
+	 * @param service
+	 * @param facility
+	 * @param destination
+	 * @return hash of data last delivered to the destination or null if not known or expired
+	 */
+	String getDeliveredResult(Service service, Facility facility, Destination destination);
+
+	/**
+	 * Remember hash of data delivered to the destination.
+	 *
+	 * @param service
+	 * @param facility
+	 * @param destination
+	 * @param hash hash of delivered data, null to forget the previous one (e.g. when SEND failed)
+	 */
+	void setDeliveredResult(Service service, Facility facility, Destination destination, String hash);
+
+}
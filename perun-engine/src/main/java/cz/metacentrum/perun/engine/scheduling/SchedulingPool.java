@@ -1,5 +1,6 @@
 package cz.metacentrum.perun.engine.scheduling;
 
+import java.util.Date;
 import java.util.List;
 
 import cz.metacentrum.perun.core.api.Facility;
@@ -81,6 +82,23 @@ public interface SchedulingPool {
 
 	void removeTask(Task task);
 
+	/**
+	 * Remove and return tasks, whose deadline for check by PropagationMaintainer has passed.
+	 * Added tasks and tasks with changed status are due immediately.
+	 *
+	 * @return due tasks
+	 */
+	List<Task> pollDueTasks();
+
+	/**
+	 * Set time, when the task should be checked by PropagationMaintainer,
+	 * only if the task has no deadline yet.
+	 *
+	 * @param task
+	 * @param deadline
+	 */
+	void setTaskDeadlineIfAbsent(Task task, Date deadline);
+
 	void reloadTasks(int engineID);
 
 }
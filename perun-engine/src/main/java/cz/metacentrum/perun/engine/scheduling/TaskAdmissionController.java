@@ -0,0 +1,80 @@
+package cz.metacentrum.perun.engine.scheduling;
+
+import java.util.List;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.taskslib.model.Task;
+
+/**
+ * Decides which planned Tasks can start their workers, so the pools of GEN and SEND
+ * workers are not overloaded and no single facility or destination takes all of them.
+ *
+ * Each started worker holds one slot, which is released when its result is reported.
+ */
+public interface TaskAdmissionController {
+
+	/**
+	 * Order tasks in which they should be started. Retried, forced and long overdue tasks go first,
+	 * tasks of different services are interleaved, services with less running workers go first.
+	 *
+	 * @param tasks tasks to start
+	 * @param now current time in milliseconds
+	 * @return ordered copy of tasks
+	 */
+	List<Task> orderForExecution(List<Task> tasks, long now);
+
+	/**
+	 * Take slots for workers of the task, if all limits allow it.
+	 *
+	 * @param task task to start
+	 * @param destinations destinations to start workers for
+	 * @param now current time in milliseconds
+	 * @return true if the task was admitted, false if it must wait
+	 */
+	boolean tryAdmit(Task task, List<Destination> destinations, long now);
+
+	/**
+	 * @return true if some task was not admitted since the last call of clearWaitingTasks(),
+	 * so released slots should be offered to waiting tasks
+	 */
+	boolean hasWaitingTasks();
+
+	/**
+	 * Forget tasks which were not admitted, called before all planned tasks are tried again.
+	 */
+	void clearWaitingTasks();
+
+	/**
+	 * Release slot of one worker of the task.
+	 *
+	 * @param task
+	 * @param destination destination of finished worker
+	 */
+	void release(Task task, Destination destination);
+
+	/**
+	 * @return number of running GEN workers
+	 */
+	int getRunningGenWorkers();
+
+	/**
+	 * @return number of running SEND workers
+	 */
+	int getRunningSendWorkers();
+
+	/**
+	 * @return number of tasks admitted since start
+	 */
+	long getAdmittedTasks();
+
+	/**
+	 * @return moving average of time in milliseconds, which recently admitted tasks waited after their schedule
+	 */
+	long getAverageWaitTime();
+
+	/**
+	 * @return maximal time in milliseconds, which admitted task waited after its schedule
+	 */
+	long getMaxWaitTime();
+
+}
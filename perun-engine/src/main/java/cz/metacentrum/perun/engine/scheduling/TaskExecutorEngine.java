@@ -13,7 +13,14 @@ public interface TaskExecutorEngine {
 
 	void beginExecuting();
 
-	public void runTask(Task task);
+	/**
+	 * Start workers of the task, if it is admitted. Task which is not admitted stays PLANNED
+	 * and it is started, when some running worker finishes.
+	 *
+	 * @param task task to start
+	 * @return true if the task was started, false if it waits for admission
+	 */
+	public boolean runTask(Task task);
 
 	public DependenciesResolver getDependencyResolver();
 
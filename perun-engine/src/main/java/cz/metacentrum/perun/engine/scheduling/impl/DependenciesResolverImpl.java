@@ -1,7 +1,6 @@
 package cz.metacentrum.perun.engine.scheduling.impl;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,11 +9,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import cz.metacentrum.perun.engine.scheduling.DependenciesResolver;
 import cz.metacentrum.perun.engine.scheduling.SchedulingPool;
 import cz.metacentrum.perun.taskslib.model.Task;
+import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
 
 /**
  * Local resolver of Task dependencies (typically GEN->SEND), but
  * can by dependency between other services too.
  *
+ * Dependencies are stored by Task IDs in both directions, so dependencies and dependants
+ * of task are found in O(degree). For each task there is kept number of its dependencies,
+ * which block it (are not DONE), so finishing of task unblocks its dependants without scanning
+ * the whole graph. Task removed from the pool unblocks its dependants only if it was DONE.
+ *
  * @author Michal Karm Babacek
  * @author Michal Voců
  * @author Pavel Zlámal <zlamal@cesnet.cz>
@@ -24,21 +29,36 @@ public class DependenciesResolverImpl implements DependenciesResolver {
 
 	private final static Logger log = LoggerFactory.getLogger(DependenciesResolverImpl.class);
 
-	private Map<Task, HashSet<Integer>> taskDependencies = new ConcurrentHashMap<Task, HashSet<Integer>>();
+	// all structures are guarded by this lock
+	private final Object lock = new Object();
+	// task ID -> IDs of tasks it depends on
+	private final Map<Integer, Set<Integer>> dependencies = new HashMap<Integer, Set<Integer>>();
+	// task ID -> IDs of tasks depending on it
+	private final Map<Integer, Set<Integer>> dependants = new HashMap<Integer, Set<Integer>>();
+	// dependant tasks as passed to addDependency (they don't have to be in the pool yet)
+	private final Map<Integer, Task> dependantTasks = new HashMap<Integer, Task>();
+	// IDs of tasks in the pool, which are not DONE, and of tasks removed from the pool before they were DONE
+	private final Set<Integer> blockingTasks = new HashSet<Integer>();
+	// task ID -> number of its blocking dependencies
+	private final Map<Integer, Integer> blockedBy = new HashMap<Integer, Integer>();
 
 	@Autowired
 	private SchedulingPool schedulingPool;
 
 	@Override
 	public List<Task> getDependencies(Task task) {
-		if (!taskDependencies.containsKey(task)) {
-			return new ArrayList<Task>();
+		List<Integer> ids;
+		synchronized (lock) {
+			if (!dependencies.containsKey(task.getId())) {
+				return new ArrayList<Task>();
+			}
+			ids = new ArrayList<Integer>(dependencies.get(task.getId()));
 		}
-		List<Task> results = new ArrayList<Task>(taskDependencies.get(task).size());
-		for (int id : taskDependencies.get(task)) {
-			Task dependant = schedulingPool.getTaskById(id);
-			if (dependant != null) {
-				results.add(dependant);
+		List<Task> results = new ArrayList<Task>(ids.size());
+		for (int id : ids) {
+			Task dependency = schedulingPool.getTaskById(id);
+			if (dependency != null) {
+				results.add(dependency);
 			}
 		}
 		return results;
@@ -46,25 +66,147 @@ public class DependenciesResolverImpl implements DependenciesResolver {
 
 	@Override
 	public List<Task> getDependants(Task task) {
-		// now this is a bit harder than simply getting the value out of hash map
-		List<Task> results = new ArrayList<Task>();
-		for (Map.Entry<Task, HashSet<Integer>> entry : taskDependencies.entrySet()) {
-			if (entry.getValue().contains(task.getId())) {
-				results.add(entry.getKey());
+		synchronized (lock) {
+			if (!dependants.containsKey(task.getId())) {
+				return new ArrayList<Task>();
 			}
+			return getTasks(dependants.get(task.getId()));
 		}
-		return results;
 	}
 
 	@Override
 	public void addDependency(Task task, int dependency) {
-		if (taskDependencies.containsKey(task)) {
-			taskDependencies.get(task).add(dependency);
-		} else {
-			HashSet<Integer> dependencies = new HashSet<Integer>();
-			dependencies.add(dependency);
-			taskDependencies.put(task, dependencies);
+		synchronized (lock) {
+			dependantTasks.put(task.getId(), task);
+			if (getIds(dependencies, task.getId()).add(dependency)) {
+				getIds(dependants, dependency).add(task.getId());
+				if (blockingTasks.contains(dependency)) {
+					changeBlockedBy(task.getId(), 1);
+				}
+			}
+		}
+	}
+
+	@Override
+	public List<Task> updateTask(Task task) {
+		boolean blocking = !TaskStatus.DONE.equals(task.getStatus());
+		synchronized (lock) {
+			if (blocking) {
+				if (blockingTasks.add(task.getId())) {
+					changeBlockedByOfDependants(task.getId(), 1);
+				}
+				return new ArrayList<Task>();
+			} else {
+				if (blockingTasks.remove(task.getId())) {
+					return changeBlockedByOfDependants(task.getId(), -1);
+				}
+				return new ArrayList<Task>();
+			}
+		}
+	}
+
+	@Override
+	public List<Task> removeTask(Task task) {
+		int id = task.getId();
+		synchronized (lock) {
+			List<Task> unblocked = new ArrayList<Task>();
+			if (TaskStatus.DONE.equals(task.getStatus())) {
+				if (blockingTasks.remove(id)) {
+					unblocked = changeBlockedByOfDependants(id, -1);
+				}
+			} else if (!dependants.containsKey(id)) {
+				blockingTasks.remove(id);
+			} else if (blockingTasks.add(id)) {
+				// task which was not DONE keeps blocking its dependants until it is DONE again
+				changeBlockedByOfDependants(id, 1);
+			}
+			// dependants still depend on removed task, so only its own dependencies are removed
+			Set<Integer> ids = dependencies.remove(id);
+			if (ids != null) {
+				for (Integer dependency : ids) {
+					Set<Integer> dependantIds = dependants.get(dependency);
+					if (dependantIds != null) {
+						dependantIds.remove(id);
+						if (dependantIds.isEmpty()) {
+							dependants.remove(dependency);
+							// nobody waits for unfinished dependency, which already left the pool
+							if (schedulingPool.getTaskById(dependency) == null) blockingTasks.remove(dependency);
+						}
+					}
+				}
+			}
+			blockedBy.remove(id);
+			dependantTasks.remove(id);
+			return unblocked;
+		}
+	}
+
+	@Override
+	public boolean isReady(Task task) {
+		synchronized (lock) {
+			return !blockedBy.containsKey(task.getId());
+		}
+	}
+
+	/**
+	 * Change number of blocking dependencies of all dependants of task. Must be called with lock.
+	 *
+	 * @param id ID of task
+	 * @param delta change of number of blocking dependencies
+	 * @return dependants, which are no longer blocked
+	 */
+	private List<Task> changeBlockedByOfDependants(int id, int delta) {
+		Set<Integer> dependantIds = dependants.get(id);
+		if (dependantIds == null) return new ArrayList<Task>();
+		Set<Integer> unblocked = new HashSet<Integer>();
+		for (Integer dependant : dependantIds) {
+			if (changeBlockedBy(dependant, delta)) unblocked.add(dependant);
+		}
+		if (!unblocked.isEmpty()) {
+			log.debug("TASK {} unblocked tasks {}", id, unblocked);
+		}
+		return getTasks(unblocked);
+	}
+
+	/**
+	 * Change number of blocking dependencies of task. Must be called with lock.
+	 *
+	 * @param id ID of task
+	 * @param delta change of number of blocking dependencies
+	 * @return true if task is no longer blocked
+	 */
+	private boolean changeBlockedBy(int id, int delta) {
+		Integer count = blockedBy.get(id);
+		int newCount = (count == null ? 0 : count) + delta;
+		if (newCount > 0) {
+			blockedBy.put(id, newCount);
+			return false;
+		}
+		blockedBy.remove(id);
+		return count != null;
+	}
+
+	/**
+	 * Must be called with lock.
+	 */
+	private List<Task> getTasks(Set<Integer> ids) {
+		List<Task> results = new ArrayList<Task>(ids.size());
+		for (Integer id : ids) {
+			// prefer current instance from the pool
+			Task task = schedulingPool.getTaskById(id);
+			if (task == null) task = dependantTasks.get(id);
+			if (task != null) results.add(task);
+		}
+		return results;
+	}
+
+	private static Set<Integer> getIds(Map<Integer, Set<Integer>> graph, int id) {
+		Set<Integer> ids = graph.get(id);
+		if (ids == null) {
+			ids = new HashSet<Integer>();
+			graph.put(id, ids);
 		}
+		return ids;
 	}
 
 }
@@ -15,6 +15,7 @@ import cz.metacentrum.perun.core.api.Destination;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.engine.scheduling.ExecutorEngineWorker;
+import cz.metacentrum.perun.engine.scheduling.GenResultStore;
 import cz.metacentrum.perun.engine.scheduling.TaskResultListener;
 import cz.metacentrum.perun.taskslib.dao.TaskResultDao;
 import cz.metacentrum.perun.taskslib.model.ExecService;
@@ -36,6 +37,8 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 	private Destination destination;
 	@Autowired
 	private Properties propertiesBean;
+	@Autowired
+	private GenResultStore genResultStore;
 	private int engineId = -1;
 
 	// where gen scripts are located (relative to engine working directory = where you started the jar)
@@ -88,8 +91,10 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 					log.info("GEN task failed. Ret code " + returnCode
 							+ ". STDOUT: {}  STDERR: {}. Task: " + task.getId(),
 							stdout, stderr);
+					genResultStore.removeGenResult(execService.getService(), task.getFacility());
 					resultListener.onTaskDestinationError(task, destination, null);
 				} else {
+					genResultStore.storeGenResult(execService.getService(), task.getFacility(), genDirectory);
 					resultListener.onTaskDestinationDone(task, destination, null);
 					log.info("GEN task completed. Ret code " + returnCode
 							+ ". STDOUT: {}  STDERR: {}. Task: " + task.getId(),
@@ -100,11 +105,13 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 				log.error(e.toString(), e);
 				// task.setStatus(TaskStatus.ERROR);
 				task.setEndTime(new Date(System.currentTimeMillis()));
+				genResultStore.removeGenResult(execService.getService(), task.getFacility());
 				resultListener.onTaskDestinationError(task, destination, null);
 			} catch (Exception e) {
 				log.error(e.toString(), e);
 				// task.setStatus(TaskStatus.ERROR);
 				task.setEndTime(new Date(System.currentTimeMillis()));
+				genResultStore.removeGenResult(execService.getService(), task.getFacility());
 				resultListener.onTaskDestinationError(task, destination, null);
 			} finally {
 				String ret = returnCode == -1 ? "unknown" : String
@@ -116,13 +123,33 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 			}
 		} else if (execService.getExecServiceType().equals(ExecServiceType.SEND)) {
 
-			ProcessBuilder pb = new ProcessBuilder(execService.getScript(), facility.getName(), destination.getDestination(), destination.getType());
-			if (sendDirectory != null) {
-				// set path relative to current working dir
-				pb.directory(sendDirectory);
-			}
+			// hash of data, which are going to be sent
+			String genHash = null;
 
 			try {
+				genHash = genResultStore.getGenResult(execService.getService(), facility);
+				if (isSkipUnchanged() && genHash != null && !task.isPropagationForced()
+						&& genHash.equals(genResultStore.getDeliveredResult(execService.getService(), facility, destination))) {
+					log.info("SEND task skipped, generated data were already delivered to destination {}. Task: " + task.getId(),
+							destination.getDestination());
+					TaskResult taskResult = new TaskResult();
+					taskResult.setTaskId(task.getId());
+					taskResult.setDestinationId(destination.getId());
+					taskResult.setStandardMessage("Generated data are the same as the data already delivered, nothing was sent.");
+					taskResult.setReturnCode(0);
+					taskResult.setStatus(TaskResultStatus.DONE);
+					taskResult.setTimestamp(new Date(System.currentTimeMillis()));
+					taskResult.setService(execService.getService());
+					task.setEndTime(new Date(System.currentTimeMillis()));
+					resultListener.onTaskDestinationDone(task, destination, taskResult);
+					return;
+				}
+
+				ProcessBuilder pb = new ProcessBuilder(execService.getScript(), facility.getName(), destination.getDestination(), destination.getType());
+				if (sendDirectory != null) {
+					// set path relative to current working dir
+					pb.directory(sendDirectory);
+				}
 
 				Process process = pb.start();
 
@@ -150,6 +177,8 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 				taskResult.setService(execService.getService());
 				
 				task.setEndTime(new Date(System.currentTimeMillis()));
+				genResultStore.setDeliveredResult(execService.getService(), facility, destination,
+						taskResult.getStatus().equals(TaskResultStatus.DONE) ? genHash : null);
 				if (taskResult.getStatus().equals(TaskResultStatus.ERROR)) {
 					resultListener.onTaskDestinationError(task, destination,
 							taskResult);
@@ -181,6 +210,7 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 				taskResult.setTimestamp(new Date(System.currentTimeMillis()));
 				taskResult.setService(execService.getService());
 
+				genResultStore.setDeliveredResult(execService.getService(), facility, destination, null);
 				resultListener.onTaskDestinationError(task, destination, taskResult);
 			} finally {
 				String ret = returnCode == -1 ? "unknown" : String.valueOf(returnCode);
@@ -238,6 +268,21 @@ public class ExecutorEngineWorkerImpl implements ExecutorEngineWorker {
 		}
 	}
 
+	/**
+	 * @return true if SEND of data already delivered to the destination should be skipped
+	 */
+	private boolean isSkipUnchanged() {
+		return propertiesBean != null && !"false".equalsIgnoreCase(propertiesBean.getProperty("engine.send.skipunchanged"));
+	}
+
+	public GenResultStore getGenResultStore() {
+		return genResultStore;
+	}
+
+	public void setGenResultStore(GenResultStore genResultStore) {
+		this.genResultStore = genResultStore;
+	}
+
 	public int getEngineId() {
 		if (engineId == -1) {
 			this.engineId = Integer.parseInt(propertiesBean.getProperty("engine.unique.id"));
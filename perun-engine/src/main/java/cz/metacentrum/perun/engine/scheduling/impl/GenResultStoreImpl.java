@@ -0,0 +1,178 @@
+package cz.metacentrum.perun.engine.scheduling.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.core.api.Service;
+import cz.metacentrum.perun.engine.scheduling.GenResultStore;
+
+/**
+ * In-memory store of hashes of generated data.
+ *
+ * Hash is SHA-256 of all files in the spool directory of service and facility, files are processed
+ * in order of their relative paths and both paths and contents are hashed, so renamed, added
+ * or removed file changes the hash too.
+ *
+ * Hash delivered to the destination is valid only for limited time (engine.send.skipunchanged.ttl),
+ * so periodic re-send of DONE tasks by dispatcher repairs data changed on the destination.
+ */
+@org.springframework.stereotype.Service(value = "genResultStore")
+public class GenResultStoreImpl implements GenResultStore {
+
+	private final static Logger log = LoggerFactory.getLogger(GenResultStoreImpl.class);
+
+	private static final String SPOOL_DIRECTORY = "spool";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long DEFAULT_DELIVERED_RESULT_TTL = 1000L * 60 * 60 * 24;
+
+	// (service, facility) -> hash of data of last successful GEN
+	private final ConcurrentMap<Long, String> genResults = new ConcurrentHashMap<Long, String>();
+	// (service, facility) -> destination -> hash of data delivered by last successful SEND
+	private final ConcurrentMap<Long, ConcurrentMap<String, DeliveredResult>> deliveredResults = new ConcurrentHashMap<Long, ConcurrentMap<String, DeliveredResult>>();
+	// time in milliseconds, how long is delivered hash valid
+	private long deliveredResultTimeToLive = DEFAULT_DELIVERED_RESULT_TTL;
+
+	@Autowired(required = false)
+	public void setPropertiesBean(Properties propertiesBean) {
+		String timeToLive = propertiesBean.getProperty("engine.send.skipunchanged.ttl");
+		if (timeToLive != null && !timeToLive.trim().isEmpty()) {
+			setDeliveredResultTimeToLive(Long.parseLong(timeToLive.trim()));
+		}
+	}
+
+	/**
+	 * @param deliveredResultTimeToLive time in milliseconds, after which delivered data are sent again even if they didn't change
+	 */
+	public void setDeliveredResultTimeToLive(long deliveredResultTimeToLive) {
+		this.deliveredResultTimeToLive = deliveredResultTimeToLive;
+	}
+
+	@Override
+	public String storeGenResult(Service service, Facility facility, File genDirectory) {
+		File spool = new File(new File(new File(genDirectory, SPOOL_DIRECTORY), facility.getName()), service.getName());
+		String hash = null;
+		if (spool.isDirectory()) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				hashDirectory(digest, spool, "");
+				hash = toHex(digest.digest());
+			} catch (IOException e) {
+				log.error("Unable to hash generated data in " + spool + ", they will be sent to all destinations.", e);
+			} catch (NoSuchAlgorithmException e) {
+				log.error("Unable to hash generated data, they will be sent to all destinations.", e);
+			}
+		}
+		if (hash == null) {
+			genResults.remove(getKey(service, facility));
+		} else {
+			genResults.put(getKey(service, facility), hash);
+			log.debug("Data generated for service {} and facility {} have hash " + hash, service.getName(), facility.getName());
+		}
+		return hash;
+	}
+
+	@Override
+	public void removeGenResult(Service service, Facility facility) {
+		genResults.remove(getKey(service, facility));
+	}
+
+	@Override
+	public String getGenResult(Service service, Facility facility) {
+		return genResults.get(getKey(service, facility));
+	}
+
+	@Override
+	public String getDeliveredResult(Service service, Facility facility, Destination destination) {
+		ConcurrentMap<String, DeliveredResult> delivered = deliveredResults.get(getKey(service, facility));
+		if (delivered == null) return null;
+		DeliveredResult result = delivered.get(getDestinationKey(destination));
+		if (result == null) return null;
+		if (System.currentTimeMillis() - result.time > deliveredResultTimeToLive) {
+			delivered.remove(getDestinationKey(destination), result);
+			return null;
+		}
+		return result.hash;
+	}
+
+	@Override
+	public void setDeliveredResult(Service service, Facility facility, Destination destination, String hash) {
+		Long key = getKey(service, facility);
+		ConcurrentMap<String, DeliveredResult> delivered = deliveredResults.get(key);
+		if (hash == null) {
+			if (delivered != null) delivered.remove(getDestinationKey(destination));
+			return;
+		}
+		if (delivered == null) {
+			deliveredResults.putIfAbsent(key, new ConcurrentHashMap<String, DeliveredResult>());
+			delivered = deliveredResults.get(key);
+		}
+		delivered.put(getDestinationKey(destination), new DeliveredResult(hash, System.currentTimeMillis()));
+	}
+
+	private static void hashDirectory(MessageDigest digest, File directory, String path) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) throw new IOException("Unable to list directory " + directory);
+		Arrays.sort(files);
+		byte[] buffer = new byte[8192];
+		for (File file : files) {
+			String filePath = path + "/" + file.getName();
+			if (file.isDirectory()) {
+				digest.update(("d" + filePath + "\n").getBytes(UTF8));
+				hashDirectory(digest, file, filePath);
+			} else {
+				digest.update(("f" + filePath + "\n" + file.length() + "\n").getBytes(UTF8));
+				InputStream in = new FileInputStream(file);
+				try {
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				} finally {
+					in.close();
+				}
+			}
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+
+	private static Long getKey(Service service, Facility facility) {
+		return ((long) service.getId() << 32) | (facility.getId() & 0xffffffffL);
+	}
+
+	private static String getDestinationKey(Destination destination) {
+		return destination.getType() + ":" + destination.getDestination();
+	}
+
+	private static class DeliveredResult {
+		private final String hash;
+		private final long time;
+
+		DeliveredResult(String hash, long time) {
+			this.hash = hash;
+			this.time = time;
+		}
+	}
+
+}
@@ -1,7 +1,10 @@
 package cz.metacentrum.perun.engine.scheduling.impl;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.jms.JMSException;
 
@@ -30,6 +33,13 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 	private final static Logger log = LoggerFactory
 			.getLogger(PropagationMaintainerImpl.class);
 
+	// PLANNED or PROCESSING task is stuck after 3 hours
+	private final static long STUCK_TIMEOUT = 1000L * 60 * 60 * 3;
+	// task still due after it was checked is checked again after 4 minutes
+	private final static long RECHECK_INTERVAL = 1000L * 60 * 4;
+	// max number of finished tasks reported in one message
+	private final static int REPORT_BATCH_SIZE = 100;
+
 	/*
 	 * @Autowired private TaskManager taskManager;
 	 * 
@@ -63,7 +73,7 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 
 		log.info("Going to check propagation status for " + schedulingPool.getSize() + " tasks");
 
-		endStuckTasks();
+		checkDueTasks();
 
 		checkFinishedTasks();
 
@@ -298,24 +308,59 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 	 * bro... // TODO: Time out... } }
 	 */
 
+	/**
+	 * End PLANNED and PROCESSING tasks with passed deadline. Tasks which were added or changed
+	 * their status since the last check are due immediately, so they only get their real deadline here.
+	 */
+	private void checkDueTasks() {
+		List<Task> dueTasks = schedulingPool.pollDueTasks();
+		log.debug("There are {} tasks with passed deadline", dueTasks.size());
+
+		long now = System.currentTimeMillis();
+		for (Task task : dueTasks) {
+			Long deadline = getDeadline(task, now);
+			if (deadline != null && deadline <= now) {
+				endStuckTask(task);
+				deadline = getDeadline(task, now);
+				// task still due is checked again later
+				if (deadline != null && deadline <= now) {
+					deadline = now + RECHECK_INTERVAL;
+				}
+			}
+			// task with changed status was already given new deadline by scheduling pool
+			if (deadline != null) {
+				schedulingPool.setTaskDeadlineIfAbsent(task, new Date(deadline));
+			}
+		}
+	}
+
+	/**
+	 * Return time, when the task must be checked. PLANNED and PROCESSING tasks are stuck after STUCK_TIMEOUT
+	 * from their schedule or start, tasks in other states are reported by checkFinishedTasks().
+	 *
+	 * @param task
+	 * @param now current time in milliseconds
+	 * @return deadline in milliseconds or null, if task doesn't need to be checked
+	 */
+	private Long getDeadline(Task task, long now) {
+		if (!TaskStatus.PLANNED.equals(task.getStatus()) && !TaskStatus.PROCESSING.equals(task.getStatus())) return null;
+		if (task.getEndTime() != null) return now;
+		Date checkDate = task.getStatus().equals(TaskStatus.PLANNED) ? task.getSchedule() : task.getStartTime();
+		if (checkDate == null) return now;
+		return checkDate.getTime() + STUCK_TIMEOUT;
+	}
+
 	private void checkFinishedTasks() {
 		// report finished tasks back to scheduler
 		// clear all tasks we are done with (ie. DONE, ERROR with no recurrence
 		// left)
+		Map<Task, List<Destination>> finishedTasks = new LinkedHashMap<Task, List<Destination>>();
+
 		List<Task> tasklist = schedulingPool.getDoneTasks();
 		log.debug("There are {} DONE tasks", tasklist.size());
 		for (Task task : tasklist) {
 			log.debug("TASK " + task.toString() + " finished");
-			try {
-				log.debug("TASK reported as finished at "
-						+ System.currentTimeMillis());
-				jmsQueueManager.reportFinishedTask(task, "Destinations []");
-				schedulingPool.removeTask(task);
-				log.debug("TASK {} removed from database.", task.getId());
-			} catch (JMSException e) {
-				log.error("Failed to report finished task " + task.toString()
-						+ ": " + e.getMessage());
-			}
+			finishedTasks.put(task, new ArrayList<Destination>());
 		}
 
 		tasklist = schedulingPool.getErrorTasks();
@@ -332,36 +377,41 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 
 			List<Destination> destinations = taskStatusManager.getTaskStatus(
 					task).getSuccessfulDestinations();
-			List<Destination> failedDestinations = task.getDestinations();
+			List<Destination> failedDestinations = new ArrayList<Destination>(task.getDestinations());
 			failedDestinations.removeAll(destinations);
 
-			StringBuilder destinations_s = new StringBuilder("Destinations [");
-			if (!failedDestinations.isEmpty()) {
-				destinations_s.append(failedDestinations.remove(0)
-						.serializeToString());
-				for (Destination destination : failedDestinations) {
-					destinations_s.append(",");
-					destinations_s.append(destination.serializeToString());
-				}
-			}
-			destinations_s.append("]");
-
 			log.debug("TASK " + task.toString()
 					+ " finished in error, remaining destinations: "
-					+ destinations_s);
-			try {
-				jmsQueueManager.reportFinishedTask(task,
-						destinations_s.toString());
+					+ failedDestinations);
+			finishedTasks.put(task, failedDestinations);
+		}
+
+		// finished tasks are reported in batches, each batch is sent as one message
+		Map<Task, List<Destination>> batch = new LinkedHashMap<Task, List<Destination>>();
+		for (Map.Entry<Task, List<Destination>> entry : finishedTasks.entrySet()) {
+			batch.put(entry.getKey(), entry.getValue());
+			if (batch.size() >= REPORT_BATCH_SIZE) {
+				reportFinishedTasks(batch);
+				batch.clear();
+			}
+		}
+		reportFinishedTasks(batch);
+	}
+
+	private void reportFinishedTasks(Map<Task, List<Destination>> tasks) {
+		if (tasks.isEmpty()) return;
+		try {
+			log.debug("{} TASKs reported as finished at {}", tasks.size(), System.currentTimeMillis());
+			jmsQueueManager.reportFinishedTasks(tasks);
+			for (Task task : tasks.keySet()) {
 				schedulingPool.removeTask(task);
 				log.debug("TASK {} removed from database.", task.getId());
-			} catch (JMSException e) {
-				log.error("Failed to report finished task " + task.toString()
-						+ ": " + e.getMessage());
 			}
+		} catch (JMSException e) {
+			log.error("Failed to report " + tasks.size() + " finished tasks: " + e.getMessage());
 		}
 	}
 
-
 	@Deprecated
 	private void rescheduleErrorTasks() {
 		// log.info("I am gonna list tasks in ERROR and reschedule if necessary...");
@@ -500,69 +550,56 @@ public class PropagationMaintainerImpl implements PropagationMaintainer {
 		 */
 	}
 
-	private void endStuckTasks() {
-		// list all tasks in processing and planned and check if any have beeen
-		// running for too long.
-		List<Task> suspiciousTasks = schedulingPool.getProcessingTasks();
-
-		log.debug("There are {} PROCESSING tasks", suspiciousTasks.size());
-		
-		suspiciousTasks.addAll(schedulingPool.getPlannedTasks());
-
-		log.debug("There are {} tasks that are PLANNED or PROCESSING", suspiciousTasks.size());
-
-		for (Task task : suspiciousTasks) {
-			log.debug("checking task " + task.toString()
-					+ " for staying around too long...");
-			// count how many minutes the task stays in one state - if the state
-			// is PLANNED count it from when it was scheduled ; if it is
-			// PROCESSING count it from when it started
-			Date checkDate = task.getStatus().equals(TaskStatus.PLANNED) ? task
-					.getSchedule() : task.getStartTime();
-			if (checkDate == null) {
-				log.error(
-						"ERROR: task in state {} has no corresponding timestamp",
-						task.getStatus());
-				checkDate = new Date(System.currentTimeMillis());
-				if (task.getStatus().equals(TaskStatus.PLANNED)) {
-					task.setSchedule(checkDate);
-				} else {
-					task.setStartTime(checkDate);
-				}
+	private void endStuckTask(Task task) {
+		log.debug("checking task " + task.toString()
+				+ " for staying around too long...");
+		// count how many minutes the task stays in one state - if the state
+		// is PLANNED count it from when it was scheduled ; if it is
+		// PROCESSING count it from when it started
+		Date checkDate = task.getStatus().equals(TaskStatus.PLANNED) ? task
+				.getSchedule() : task.getStartTime();
+		if (checkDate == null) {
+			log.error(
+					"ERROR: task in state {} has no corresponding timestamp",
+					task.getStatus());
+			checkDate = new Date(System.currentTimeMillis());
+			if (task.getStatus().equals(TaskStatus.PLANNED)) {
+				task.setSchedule(checkDate);
+			} else {
+				task.setStartTime(checkDate);
 			}
-			Date ended = task.getEndTime();
-			TaskStatus status = task.getStatus();
-			if(ended != null ||
-					status.equals(TaskStatus.DONE) ||
-					status.equals(TaskStatus.ERROR)) {
-				log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but appears to have ended.");
-				cz.metacentrum.perun.engine.scheduling.TaskStatus taskStatus = taskStatusManager.getTaskStatus(task);
-				if (taskStatus.isTaskFinished()) {
-					schedulingPool.setTaskStatus(task, taskStatus.getTaskStatus());
-					log.debug("TASK " + task.getId() + " status set to DONE");
-				} else {
-					// there is something deeply wrong...
-					log.error("ERROR: Task is weird. Switching it to ERROR. {}",
-							task);
-					task.setEndTime(new Date(System.currentTimeMillis()));
-					schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
-				}
-
-			}
-			
-			int howManyMinutesAgo = (int) (System.currentTimeMillis() - checkDate
-					.getTime()) / 1000 / 60;
-
-			// If too much time has passed something is broken
-			if (howManyMinutesAgo >= 180) {
-				log.error(
-						"ERROR: Task is stuck in PLANNED or PROCESSING state. Switching it to ERROR. {}",
+		}
+		Date ended = task.getEndTime();
+		TaskStatus status = task.getStatus();
+		if(ended != null ||
+				status.equals(TaskStatus.DONE) ||
+				status.equals(TaskStatus.ERROR)) {
+			log.error("ERROR: Task presumably in PLANNED or PROCESSING state, but appears to have ended.");
+			cz.metacentrum.perun.engine.scheduling.TaskStatus taskStatus = taskStatusManager.getTaskStatus(task);
+			if (taskStatus.isTaskFinished()) {
+				schedulingPool.setTaskStatus(task, taskStatus.getTaskStatus());
+				log.debug("TASK " + task.getId() + " status set to DONE");
+			} else {
+				// there is something deeply wrong...
+				log.error("ERROR: Task is weird. Switching it to ERROR. {}",
 						task);
 				task.setEndTime(new Date(System.currentTimeMillis()));
 				schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
 			}
 
 		}
+		
+		int howManyMinutesAgo = (int) (System.currentTimeMillis() - checkDate
+				.getTime()) / 1000 / 60;
+
+		// If too much time has passed something is broken
+		if (howManyMinutesAgo >= STUCK_TIMEOUT / 1000 / 60) {
+			log.error(
+					"ERROR: Task is stuck in PLANNED or PROCESSING state. Switching it to ERROR. {}",
+					task);
+			task.setEndTime(new Date(System.currentTimeMillis()));
+			schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
+		}
 		/*
 		 * 
 		 * List<Task> suspiciousTasks =
@@ -1,11 +1,7 @@
 package cz.metacentrum.perun.engine.scheduling.impl;
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PreDestroy;
 
@@ -18,12 +14,14 @@ import cz.metacentrum.perun.core.api.Destination;
 import cz.metacentrum.perun.core.api.Facility;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.engine.model.Pair;
+import cz.metacentrum.perun.engine.scheduling.DependenciesResolver;
 import cz.metacentrum.perun.engine.scheduling.SchedulingPool;
 import cz.metacentrum.perun.engine.scheduling.TaskResultListener;
 import cz.metacentrum.perun.taskslib.model.ExecService;
 import cz.metacentrum.perun.taskslib.model.Task;
 import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
 import cz.metacentrum.perun.taskslib.model.TaskResult;
+import cz.metacentrum.perun.taskslib.scheduling.TaskPool;
 import cz.metacentrum.perun.taskslib.service.TaskManager;
 
 @org.springframework.stereotype.Service(value = "schedulingPool")
@@ -33,8 +31,10 @@ public class SchedulingPoolImpl implements SchedulingPool{
 
 	private final static Logger log = LoggerFactory.getLogger(SchedulingPoolImpl.class);
 
-	private final Map<TaskStatus, List<Task>> pool = new EnumMap<TaskStatus, List<Task>>(TaskStatus.class);
-	private final Map<Integer, Task> taskIdMap = new ConcurrentHashMap<Integer, Task>();
+	private final TaskPool pool = new TaskPool();
+
+	@Autowired
+	private DependenciesResolver dependenciesResolver;
 
 	/*
 	 * private BufferedWriter out = null; private FileWriter fstream = null;
@@ -43,113 +43,98 @@ public class SchedulingPoolImpl implements SchedulingPool{
 	 * private boolean writerInitialized = false;
 	 */
 
-	public SchedulingPoolImpl() {
-		for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-			pool.put(status, new ArrayList<Task>());
-		}
-	}
-
 	@Override
 	public int addToPool(Task task) {
-		synchronized (pool) {
-			if (taskIdMap.containsKey(task.getId())) {
-				log.warn("Task already is in the pool " + task.toString());
-				return this.getSize();
-			}
-			taskIdMap.put(task.getId(), task);
-			TaskStatus status = task.getStatus();
-			if (status == null) {
-				task.setStatus(TaskStatus.NONE);
-			}
-			if (!pool.get(task.getStatus()).contains(task)) {
-				pool.get(task.getStatus()).add(task);
-			}
+		if (!pool.add(task)) {
+			log.warn("Task already is in the pool " + task.toString());
+			return this.getSize();
 		}
+		dependenciesResolver.updateTask(task);
 		return this.getSize();
 	}
 
 	@Override
 	public List<Task> getPlannedTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.PLANNED));
-		}
+		return pool.getTasks(TaskStatus.PLANNED);
 	}
 
 	@Override
 	public List<Task> getNewTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.NONE));
-		}
+		return pool.getTasks(TaskStatus.NONE);
 	}
 
 	@Override
 	public List<Task> getProcessingTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.PROCESSING));
-		}
+		return pool.getTasks(TaskStatus.PROCESSING);
 	}
 
 	@Override
 	public List<Task> getErrorTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.ERROR));
-		}
+		return pool.getTasks(TaskStatus.ERROR);
 	}
 
 	@Override
 	public List<Task> getDoneTasks() {
-		synchronized(pool) {
-			return new ArrayList<Task>(pool.get(TaskStatus.DONE));
-		}
+		return pool.getTasks(TaskStatus.DONE);
 	}
 
 	@Override
 	public void setTaskStatus(Task task, TaskStatus status) {
-		TaskStatus old = task.getStatus();
-		task.setStatus(status);
 		// move task to the appropriate place
-		synchronized(pool) {
-			if (!old.equals(status)) {
-				if(pool.get(old) != null) {
-					pool.get(old).remove(task);
-				} else {
-					log.warn("Task " + task.getId() + "not known by old status");
-				}
-				if(pool.get(status) != null) {
-					pool.get(status).add(task);
-				} else {
-					log.error("No task pool for status " + status.toString());
-				}
-			}
+		if (pool.setStatus(task, status)) {
+			logUnblockedTasks(task, dependenciesResolver.updateTask(task));
+			if (TaskStatus.ERROR.equals(status)) failDependants(task);
 		}
 	}
 
 	@Override
 	public int getSize() {
-		/*
-		 * int size = 0; for(TaskStatus status :
-		 * TaskStatus.class.getEnumConstants()) { size +=
-		 * pool.get(status).size(); } return size;
-		 */
-		return taskIdMap.size();
+		return pool.size();
 	}
 
 	@Override
 	public Task getTaskById(int id) {
-		return taskIdMap.get(id);
+		return pool.get(id);
 	}
 
 	@Override
 	public void removeTask(Task task) {
-		synchronized (pool) {
-			for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-				// remove from everywhere, just to be sure
-				List<Task> tasklist = pool.get(status /* task.getStatus() */);
-				if (tasklist != null) {
-					tasklist.remove(task);
-				}
+		pool.remove(task);
+		logUnblockedTasks(task, dependenciesResolver.removeTask(task));
+		// dependants could be added to the pool after the task failed
+		if (TaskStatus.ERROR.equals(task.getStatus())) failDependants(task);
+	}
+
+	@Override
+	public List<Task> pollDueTasks() {
+		return pool.pollDueTasks(System.currentTimeMillis());
+	}
+
+	@Override
+	public void setTaskDeadlineIfAbsent(Task task, Date deadline) {
+		pool.setDeadlineIfAbsent(task, deadline.getTime());
+	}
+
+	/**
+	 * Set waiting (NONE or PLANNED) dependants of failed task to ERROR. Dependants waiting
+	 * for failed task would work with its missing or stale results, or stay blocked for good.
+	 *
+	 * @param task failed task
+	 */
+	private void failDependants(Task task) {
+		for (Task dependant : dependenciesResolver.getDependants(task)) {
+			if (pool.get(dependant.getId()) == dependant && (TaskStatus.NONE.equals(dependant.getStatus())
+					|| TaskStatus.PLANNED.equals(dependant.getStatus()))) {
+				log.warn("TASK {} failed, setting its dependant TASK {} to ERROR", task.getId(), dependant.getId());
+				dependant.setEndTime(new Date(System.currentTimeMillis()));
+				setTaskStatus(dependant, TaskStatus.ERROR);
 			}
-			taskIdMap.remove(task.getId());
+		}
+	}
+
+	private void logUnblockedTasks(Task task, List<Task> unblocked) {
+		for (Task dependant : unblocked) {
+			log.debug("TASK {} is no longer blocked by its dependencies, last one was {}", dependant.getId(), task.getId());
 		}
 	}
 
@@ -206,16 +191,6 @@ public class SchedulingPoolImpl implements SchedulingPool{
 		 */
 	}
 
-	/* FIXME - if ever used, do not re-assign, but clear final variables
-	private void clearPool() {
-		pool = new EnumMap<TaskStatus, List<Task>>(TaskStatus.class);
-		taskIdMap = new ConcurrentHashMap<Integer, Task>();
-		for (TaskStatus status : TaskStatus.class.getEnumConstants()) {
-			pool.put(status, new ArrayList<Task>());
-		}
-	}
-	*/
-
 	/*
 	 * class Serializator implements Runnable { private Pair<ExecService,
 	 * Facility> pair = null;
@@ -0,0 +1,307 @@
+package cz.metacentrum.perun.engine.scheduling.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.engine.scheduling.TaskAdmissionController;
+import cz.metacentrum.perun.taskslib.model.ExecService.ExecServiceType;
+import cz.metacentrum.perun.taskslib.model.Task;
+
+/**
+ * Admission of planned Tasks to the pools of GEN and SEND workers.
+ *
+ * Running workers are counted per type, per facility (running tasks), per destination
+ * and per service. Task is admitted only when all its workers fit into the limits, otherwise
+ * it stays PLANNED and is tried again in the next round, which is started also when some worker
+ * releases its slot. All counters are guarded by this object,
+ * they are changed by the executor job and by the finishing workers.
+ *
+ * Limits are set in perun-engine.xml from engine properties.
+ */
+public class TaskAdmissionControllerImpl implements TaskAdmissionController {
+
+	private final static Logger log = LoggerFactory.getLogger(TaskAdmissionControllerImpl.class);
+
+	// weight of the last wait time in its moving average
+	private static final double WAIT_TIME_WEIGHT = 0.1;
+
+	private int maxGenWorkers = 10;
+	private int maxSendWorkers = 1000;
+	private int maxTasksPerFacility = 10;
+	private int maxWorkersPerDestination = 5;
+	private long overdueTimeout = 10 * 60 * 1000;
+
+	private int runningGenWorkers = 0;
+	private int runningSendWorkers = 0;
+	// task ID -> number of its running workers
+	private final Map<Integer, Integer> workersByTask = new HashMap<Integer, Integer>();
+	// facility ID -> number of its running tasks
+	private final Map<Integer, Integer> tasksByFacility = new HashMap<Integer, Integer>();
+	// destination -> number of its running workers
+	private final Map<String, Integer> workersByDestination = new HashMap<String, Integer>();
+	// exec service ID -> number of its running workers
+	private final Map<Integer, Integer> workersByService = new HashMap<Integer, Integer>();
+
+	// some task was not admitted since the last round
+	private boolean tasksWaiting = false;
+
+	private long admittedTasks = 0;
+	private double averageWaitTime = 0;
+	private long maxWaitTime = 0;
+
+	@Override
+	public List<Task> orderForExecution(List<Task> tasks, long now) {
+		List<Task> priorityTasks = new ArrayList<Task>();
+		List<Task> otherTasks = new ArrayList<Task>();
+		for (Task task : tasks) {
+			if (isPriority(task, now)) {
+				priorityTasks.add(task);
+			} else {
+				otherTasks.add(task);
+			}
+		}
+		Map<Integer, Integer> runningByService;
+		synchronized (this) {
+			runningByService = new HashMap<Integer, Integer>(workersByService);
+		}
+		List<Task> ordered = new ArrayList<Task>(tasks.size());
+		ordered.addAll(interleaveServices(priorityTasks, runningByService));
+		ordered.addAll(interleaveServices(otherTasks, runningByService));
+		return ordered;
+	}
+
+	@Override
+	public synchronized boolean tryAdmit(Task task, List<Destination> destinations, long now) {
+		if (admit(task, destinations, now)) return true;
+		tasksWaiting = true;
+		return false;
+	}
+
+	private boolean admit(Task task, List<Destination> destinations, long now) {
+		int workers = destinations.size();
+		if (workers == 0) return false;
+		boolean gen = isGen(task);
+		if (gen) {
+			if (runningGenWorkers > 0 && runningGenWorkers + workers > maxGenWorkers) {
+				log.debug("TASK {} must wait, all GEN workers are busy.", task.getId());
+				return false;
+			}
+		} else if (runningSendWorkers > 0 && runningSendWorkers + workers > maxSendWorkers) {
+			log.debug("TASK {} must wait, all SEND workers are busy.", task.getId());
+			return false;
+		}
+		if (!workersByTask.containsKey(task.getId()) && count(tasksByFacility, task.getFacilityId()) >= maxTasksPerFacility) {
+			log.debug("TASK {} must wait, facility {} has too many running tasks.", task.getId(), task.getFacilityId());
+			return false;
+		}
+		if (!gen) {
+			Map<String, Integer> requested = new HashMap<String, Integer>();
+			for (Destination destination : destinations) {
+				String key = destination.getDestination();
+				requested.put(key, count(requested, key) + 1);
+				int running = count(workersByDestination, key);
+				if (running > 0 && running + count(requested, key) > maxWorkersPerDestination) {
+					log.debug("TASK {} must wait, destination {} has too many running workers.", task.getId(), key);
+					return false;
+				}
+			}
+		}
+
+		// take slots
+		if (gen) {
+			runningGenWorkers += workers;
+		} else {
+			runningSendWorkers += workers;
+			for (Destination destination : destinations) {
+				increment(workersByDestination, destination.getDestination(), 1);
+			}
+		}
+		if (increment(workersByTask, task.getId(), workers) == workers) {
+			increment(tasksByFacility, task.getFacilityId(), 1);
+		}
+		increment(workersByService, task.getExecServiceId(), workers);
+
+		long waitTime = task.getSchedule() == null ? 0 : Math.max(0, now - task.getSchedule().getTime());
+		admittedTasks++;
+		averageWaitTime = admittedTasks == 1 ? waitTime : averageWaitTime + WAIT_TIME_WEIGHT * (waitTime - averageWaitTime);
+		if (waitTime > maxWaitTime) maxWaitTime = waitTime;
+		return true;
+	}
+
+	@Override
+	public synchronized void release(Task task, Destination destination) {
+		if (!workersByTask.containsKey(task.getId())) {
+			log.warn("Released worker of TASK {}, which was not admitted.", task.getId());
+			return;
+		}
+		if (isGen(task)) {
+			runningGenWorkers--;
+		} else {
+			runningSendWorkers--;
+			if (destination != null) {
+				increment(workersByDestination, destination.getDestination(), -1);
+			}
+		}
+		if (increment(workersByTask, task.getId(), -1) == 0) {
+			increment(tasksByFacility, task.getFacilityId(), -1);
+		}
+		increment(workersByService, task.getExecServiceId(), -1);
+	}
+
+	@Override
+	public synchronized boolean hasWaitingTasks() {
+		return tasksWaiting;
+	}
+
+	@Override
+	public synchronized void clearWaitingTasks() {
+		tasksWaiting = false;
+	}
+
+	@Override
+	public synchronized int getRunningGenWorkers() {
+		return runningGenWorkers;
+	}
+
+	@Override
+	public synchronized int getRunningSendWorkers() {
+		return runningSendWorkers;
+	}
+
+	@Override
+	public synchronized long getAdmittedTasks() {
+		return admittedTasks;
+	}
+
+	@Override
+	public synchronized long getAverageWaitTime() {
+		return Math.round(averageWaitTime);
+	}
+
+	@Override
+	public synchronized long getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	/**
+	 * Task has priority, if it is retried after error, forced by user or waits too long after its schedule.
+	 */
+	private boolean isPriority(Task task, long now) {
+		if (task.isPropagationForced()) return true;
+		if (task.getExecService() != null && task.getRecurrence() < task.getExecService().getDefaultRecurrence()) return true;
+		return task.getSchedule() != null && now - task.getSchedule().getTime() > overdueTimeout;
+	}
+
+	/**
+	 * Take tasks from services in turns, so one service with many tasks doesn't delay others.
+	 * Services with less running workers start the turn, tasks of one service keep order of their schedule.
+	 */
+	private List<Task> interleaveServices(List<Task> tasks, final Map<Integer, Integer> runningByService) {
+		Collections.sort(tasks, new Comparator<Task>() {
+			@Override
+			public int compare(Task t1, Task t2) {
+				long s1 = t1.getSchedule() == null ? 0 : t1.getSchedule().getTime();
+				long s2 = t2.getSchedule() == null ? 0 : t2.getSchedule().getTime();
+				if (s1 != s2) return s1 < s2 ? -1 : 1;
+				return t1.getId() < t2.getId() ? -1 : (t1.getId() == t2.getId() ? 0 : 1);
+			}
+		});
+		Map<Integer, List<Task>> tasksByService = new LinkedHashMap<Integer, List<Task>>();
+		for (Task task : tasks) {
+			List<Task> serviceTasks = tasksByService.get(task.getExecServiceId());
+			if (serviceTasks == null) {
+				serviceTasks = new ArrayList<Task>();
+				tasksByService.put(task.getExecServiceId(), serviceTasks);
+			}
+			serviceTasks.add(task);
+		}
+		List<Integer> services = new ArrayList<Integer>(tasksByService.keySet());
+		// stable sort keeps services with the same load in order of their oldest task
+		Collections.sort(services, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer s1, Integer s2) {
+				return count(runningByService, s1) - count(runningByService, s2);
+			}
+		});
+		List<Task> interleaved = new ArrayList<Task>(tasks.size());
+		for (int round = 0; interleaved.size() < tasks.size(); round++) {
+			for (Integer service : services) {
+				List<Task> serviceTasks = tasksByService.get(service);
+				if (round < serviceTasks.size()) interleaved.add(serviceTasks.get(round));
+			}
+		}
+		return interleaved;
+	}
+
+	private static boolean isGen(Task task) {
+		return ExecServiceType.GENERATE.equals(task.getExecService().getExecServiceType());
+	}
+
+	private static <K> int count(Map<K, Integer> counts, K key) {
+		Integer count = counts.get(key);
+		return count == null ? 0 : count;
+	}
+
+	private static <K> int increment(Map<K, Integer> counts, K key, int delta) {
+		int count = count(counts, key) + delta;
+		if (count <= 0) {
+			counts.remove(key);
+		} else {
+			counts.put(key, count);
+		}
+		return count;
+	}
+
+	public int getMaxGenWorkers() {
+		return maxGenWorkers;
+	}
+
+	public void setMaxGenWorkers(int maxGenWorkers) {
+		this.maxGenWorkers = maxGenWorkers;
+	}
+
+	public int getMaxSendWorkers() {
+		return maxSendWorkers;
+	}
+
+	public void setMaxSendWorkers(int maxSendWorkers) {
+		this.maxSendWorkers = maxSendWorkers;
+	}
+
+	public int getMaxTasksPerFacility() {
+		return maxTasksPerFacility;
+	}
+
+	public void setMaxTasksPerFacility(int maxTasksPerFacility) {
+		this.maxTasksPerFacility = maxTasksPerFacility;
+	}
+
+	public int getMaxWorkersPerDestination() {
+		return maxWorkersPerDestination;
+	}
+
+	public void setMaxWorkersPerDestination(int maxWorkersPerDestination) {
+		this.maxWorkersPerDestination = maxWorkersPerDestination;
+	}
+
+	public long getOverdueTimeout() {
+		return overdueTimeout;
+	}
+
+	/**
+	 * @param overdueTimeout time in milliseconds after schedule, when the task gets priority
+	 */
+	public void setOverdueTimeout(long overdueTimeout) {
+		this.overdueTimeout = overdueTimeout;
+	}
+
+}
@@ -1,19 +1,23 @@
 package cz.metacentrum.perun.engine.scheduling.impl;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 
 import cz.metacentrum.perun.core.api.Destination;
 import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
 import cz.metacentrum.perun.engine.scheduling.DependenciesResolver;
 import cz.metacentrum.perun.engine.scheduling.ExecutorEngineWorker;
 import cz.metacentrum.perun.engine.scheduling.SchedulingPool;
+import cz.metacentrum.perun.engine.scheduling.TaskAdmissionController;
 import cz.metacentrum.perun.engine.scheduling.TaskExecutorEngine;
 import cz.metacentrum.perun.engine.scheduling.TaskResultListener;
 import cz.metacentrum.perun.engine.scheduling.TaskStatusManager;
@@ -21,6 +25,7 @@ import cz.metacentrum.perun.engine.scheduling.TaskStatus.TaskDestinationStatus;
 import cz.metacentrum.perun.taskslib.model.ExecService.ExecServiceType;
 import cz.metacentrum.perun.taskslib.model.Task;
 import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
+import cz.metacentrum.perun.taskslib.model.TaskResult;
 
 /**
  * 
@@ -43,6 +48,8 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 	@Autowired
 	private TaskExecutor taskExecutorSendWorkers;
 	@Autowired
+	private TaskExecutor taskExecutorAdmission;
+	@Autowired
 	private BeanFactory beanFactory;
 	@Autowired
 	private DependenciesResolver dependencyResolver;
@@ -51,43 +58,43 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 	@Autowired
 	private SchedulingPool schedulingPool;
 	
-	final int MAX_RUNNING_GEN = 20;
-	final int MAX_RUNNING = 1000;
-	
-	@Override
-	public void beginExecuting() {
-		int currentlyRunningGenTasks = 0;
+	@Autowired
+	private TaskAdmissionController taskAdmissionController;
 
-		// TODO count gen tasks when they run and finish
-		for(Task task : schedulingPool.getProcessingTasks()) {
-			if(task.getExecService().getExecServiceType().equals(ExecServiceType.GENERATE)) {
-				currentlyRunningGenTasks++;
-			}
-		}
-		log.debug("There are " + currentlyRunningGenTasks + " running gen tasks.");
-		if(currentlyRunningGenTasks >= MAX_RUNNING_GEN) {
-			log.warn("Reached the maximum number of concurrently running gen tasks.");
-		}
-		
-		// run all tasks in scheduled state
-		Date now = new Date(System.currentTimeMillis());
-		for (Task task : schedulingPool.getPlannedTasks()) {
-			/*
-			if(schedulingPool.getProcessingTasks().size() > MAX_RUNNING) {
-				log.warn("Reached the maximum number of concurrently running tasks.");
-				break;
-			}
-			if(currentlyRunningGenTasks >= MAX_RUNNING_GEN) {
+	// admission of waiting tasks is already queued
+	private final AtomicBoolean admissionQueued = new AtomicBoolean(false);
+
+	@Override
+	public synchronized void beginExecuting() {
+		long now = System.currentTimeMillis();
+		int waiting = 0;
+		// tasks rejected from now on will get the slots released by finishing workers
+		taskAdmissionController.clearWaitingTasks();
+		// run tasks in planned state, retried and overdue tasks first, services take turns
+		for (Task task : taskAdmissionController.orderForExecution(schedulingPool.getPlannedTasks(), now)) {
+			if (task.getStatus() != TaskStatus.PLANNED) {
+				// started meanwhile by forced propagation
 				continue;
 			}
-			*/
 			log.debug("TASK " + task.toString() + " is to be run at "
-					+ task.getSchedule() + ", now is " + now);
-			if (task.getSchedule().before(now)) {
+					+ task.getSchedule() + ", now is " + new Date(now));
+			if (!dependencyResolver.isReady(task)) {
+				// stays planned until its dependencies are done
+				log.debug("TASK " + task.toString() + " is blocked by its dependencies");
+				continue;
+			}
+			if (task.getSchedule().getTime() < now) {
 				log.debug("TASK " + task.toString() + " is going to run");
-				runTask(task);
+				if (!runTask(task, now)) {
+					waiting++;
+				}
 			}
 		}
+		log.info("Running GEN workers: " + taskAdmissionController.getRunningGenWorkers()
+				+ ", SEND workers: " + taskAdmissionController.getRunningSendWorkers()
+				+ ", tasks waiting for admission: " + waiting
+				+ ", average wait time: " + taskAdmissionController.getAverageWaitTime() / 1000
+				+ " s, max wait time: " + taskAdmissionController.getMaxWaitTime() / 1000 + " s.");
 		/*
 		 * int executorWorkersCreated = 0;
 		 * log.debug("Begin execution process..."); List<Task> tasks = null;
@@ -138,18 +145,44 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 	/**
 	 * Put the task into PROCESSING state and create workers for all
 	 * destinations that have satisfied dependencies (or no dependencies at
-	 * all).
+	 * all), if the task is admitted by TaskAdmissionController. Task which
+	 * is not admitted stays PLANNED and it is started, when some running
+	 * worker releases its slot.
 	 * 
 	 * @param task
 	 *            Task to start.
+	 * @return true if the task was started, false if it waits for admission
 	 * 
 	 */
-	public void runTask(Task task) {
-		schedulingPool.setTaskStatus(task, TaskStatus.PROCESSING);
-		task.setStartTime(new Date(System.currentTimeMillis()));
+	@Override
+	public synchronized boolean runTask(Task task) {
+		return runTask(task, System.currentTimeMillis());
+	}
+
+	/**
+	 * Offer slots released by finished worker to the tasks, which were not admitted.
+	 * Admission runs in its own thread and requests are merged, so finishing workers are not delayed.
+	 */
+	private void admitWaitingTasks() {
+		if (!taskAdmissionController.hasWaitingTasks() || !admissionQueued.compareAndSet(false, true)) return;
+		try {
+			taskExecutorAdmission.execute(new Runnable() {
+				@Override
+				public void run() {
+					admissionQueued.set(false);
+					beginExecuting();
+				}
+			});
+		} catch (TaskRejectedException e) {
+			admissionQueued.set(false);
+			log.error("Error queuing admission of waiting tasks: " + e.toString());
+		}
+	}
+
+	private boolean runTask(Task task, long now) {
+		List<Destination> destinations = new ArrayList<Destination>();
 		List<Task> dependencies = dependencyResolver.getDependencies(task);
 		// TODO: handle GEN tasks with no destinations
-		boolean started = false;
 		for (Destination destination : taskStatusManager.getTaskStatus(task)
 				.getWaitingDestinations()) {
 			// check if all the dependency destinations are done
@@ -168,22 +201,33 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 						task.toString());
 			}
 			if (proceed) {
-				try {
-					if (task.getExecService().getExecServiceType().equals(ExecServiceType.SEND)) {
-						taskStatusManager.getTaskStatus(task).setDestinationStatus(
-								destination,
-								TaskDestinationStatus.PROCESSING);
-					}
-				} catch (InternalErrorException e) {
-					log.error("Error setting status for destination {} of task {}",
-							destination, task.toString());
-				}
-				try {
-					startWorker(task, destination);
-					started = true;
-				} catch(Exception e) {
-					log.error("Error queuing worker for execution: " + e.toString());
+				destinations.add(destination);
+			}
+		}
+		if (!destinations.isEmpty() && !taskAdmissionController.tryAdmit(task, destinations, now)) {
+			log.debug("TASK " + task.toString() + " is not admitted, stays planned");
+			return false;
+		}
+		schedulingPool.setTaskStatus(task, TaskStatus.PROCESSING);
+		task.setStartTime(new Date(now));
+		boolean started = false;
+		for (Destination destination : destinations) {
+			try {
+				if (task.getExecService().getExecServiceType().equals(ExecServiceType.SEND)) {
+					taskStatusManager.getTaskStatus(task).setDestinationStatus(
+							destination,
+							TaskDestinationStatus.PROCESSING);
 				}
+			} catch (InternalErrorException e) {
+				log.error("Error setting status for destination {} of task {}",
+						destination, task.toString());
+			}
+			try {
+				startWorker(task, destination);
+				started = true;
+			} catch(Exception e) {
+				log.error("Error queuing worker for execution: " + e.toString());
+				taskAdmissionController.release(task, destination);
 			}
 		}
 		if(!started) {
@@ -191,6 +235,7 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 			task.setEndTime(new Date(System.currentTimeMillis()));
 			schedulingPool.setTaskStatus(task, TaskStatus.ERROR);
 		}
+		return true;
 	}
 
 	/**
@@ -204,7 +249,7 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 		executorEngineWorker.setFacility(task.getFacility());
 		executorEngineWorker.setExecService(task.getExecService());
 		executorEngineWorker.setDestination(destination);
-		executorEngineWorker.setResultListener((TaskResultListener) taskStatusManager);
+		executorEngineWorker.setResultListener(new AdmissionReleasingListener((TaskResultListener) taskStatusManager));
 		if (task.getExecService().getExecServiceType().equals(ExecServiceType.GENERATE)) {
 			taskExecutorGenWorkers.execute(executorEngineWorker);
 		} else {
@@ -286,6 +331,39 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 	 * -1; } return executorWorkersCreated; }
 	 */
 
+	/**
+	 * Releases slot of the worker in TaskAdmissionController, when the worker reports its result.
+	 */
+	private class AdmissionReleasingListener implements TaskResultListener {
+
+		private final TaskResultListener listener;
+
+		private AdmissionReleasingListener(TaskResultListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void onTaskDestinationDone(Task task, Destination destination, TaskResult result) {
+			try {
+				listener.onTaskDestinationDone(task, destination, result);
+			} finally {
+				taskAdmissionController.release(task, destination);
+				admitWaitingTasks();
+			}
+		}
+
+		@Override
+		public void onTaskDestinationError(Task task, Destination destination, TaskResult result) {
+			try {
+				listener.onTaskDestinationError(task, destination, result);
+			} finally {
+				taskAdmissionController.release(task, destination);
+				admitWaitingTasks();
+			}
+		}
+
+	}
+
 	protected ExecutorEngineWorker createExecutorEngineWorker() {
 		ExecutorEngineWorker worker = (ExecutorEngineWorker) this.beanFactory.getBean("executorEngineWorker");
 		return worker;
@@ -307,6 +385,14 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 		this.taskExecutorGenWorkers = taskExecutorGenWorkers;
 	}
 
+	public TaskExecutor getTaskExecutorAdmission() {
+		return taskExecutorAdmission;
+	}
+
+	public void setTaskExecutorAdmission(TaskExecutor taskExecutorAdmission) {
+		this.taskExecutorAdmission = taskExecutorAdmission;
+	}
+
 	public TaskExecutor getTaskExecutorSendWorkers() {
 		return taskExecutorSendWorkers;
 	}
@@ -331,6 +417,14 @@ public class TaskExecutorEngineImpl implements TaskExecutorEngine {
 		this.taskStatusManager = taskStatusManager;
 	}
 
+	public TaskAdmissionController getTaskAdmissionController() {
+		return taskAdmissionController;
+	}
+
+	public void setTaskAdmissionController(TaskAdmissionController taskAdmissionController) {
+		this.taskAdmissionController = taskAdmissionController;
+	}
+
 	public SchedulingPool getSchedulingPool() {
 		return schedulingPool;
 	}
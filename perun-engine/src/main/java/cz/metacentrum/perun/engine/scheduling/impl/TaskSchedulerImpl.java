@@ -61,7 +61,9 @@ public class TaskSchedulerImpl implements TaskScheduler {
 				task.setSchedule(time);
 				if(task.isPropagationForced()) {
 					// we are in special thread anyway...
-					taskExecutorEngine.runTask(task);
+					if (!taskExecutorEngine.runTask(task)) {
+						log.info("Forced TASK {} is not admitted now, it will be started when some worker finishes.", task.getId());
+					}
 				}
 			}
 		}
@@ -1,5 +1,6 @@
 package cz.metacentrum.perun.engine.scheduling.impl;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -93,7 +94,7 @@ public class TaskStatusManagerImpl implements TaskStatusManager,
 			try {
 				log.debug("TASK reported as finished at "
 						+ System.currentTimeMillis());
-				jmsQueueManager.reportFinishedTask(task, "Destinations []");
+				jmsQueueManager.reportFinishedTask(task, new ArrayList<Destination>());
 				schedulingPool.removeTask(task);
 				log.debug("TASK {} removed from database.", task.getId());
 			} catch (JMSException e) {
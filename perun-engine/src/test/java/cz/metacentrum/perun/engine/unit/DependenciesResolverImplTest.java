@@ -12,6 +12,7 @@ import cz.metacentrum.perun.engine.AbstractEngineTest;
 import cz.metacentrum.perun.engine.scheduling.DependenciesResolver;
 import cz.metacentrum.perun.engine.scheduling.SchedulingPool;
 import cz.metacentrum.perun.taskslib.model.Task;
+import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
 
 /**
  * Test of DependenciesResolverImpl which is a local storage of Task dependencies.
@@ -56,9 +57,86 @@ public class DependenciesResolverImplTest extends AbstractEngineTest {
 		Assert.isTrue(dependants2.size() == 0, "size is 0");
 	}
 
+	@Test
+	public void isReadyTest() {
+		System.out.println("DependenciesResolverImplTest.isReady");
+
+		Assert.isTrue(!dependenciesResolver.isReady(task2), "task2 is blocked by task1");
+		Assert.isTrue(dependenciesResolver.isReady(task1), "task1 has no dependencies");
+
+		schedulingPool.setTaskStatus(task1, TaskStatus.DONE);
+		Assert.isTrue(dependenciesResolver.isReady(task2), "task2 is unblocked by done task1");
+
+		schedulingPool.setTaskStatus(task1, TaskStatus.PLANNED);
+		Assert.isTrue(!dependenciesResolver.isReady(task2), "task2 is blocked by planned task1");
+	}
+
+	@Test
+	public void updateTaskTest() {
+		System.out.println("DependenciesResolverImplTest.updateTask");
+
+		task1.setStatus(TaskStatus.DONE);
+		List<Task> unblocked = dependenciesResolver.updateTask(task1);
+		Assert.isTrue(unblocked.size() == 1, "size is 1");
+		Assert.isTrue(unblocked.get(0) == task2, "task2 is unblocked");
+		Assert.isTrue(dependenciesResolver.updateTask(task1).isEmpty(), "no change");
+	}
+
+	@Test
+	public void removeTaskTest() {
+		System.out.println("DependenciesResolverImplTest.removeTask");
+
+		schedulingPool.setTaskStatus(task1, TaskStatus.DONE);
+		schedulingPool.setTaskStatus(task1, TaskStatus.PLANNED);
+		Assert.isTrue(!dependenciesResolver.isReady(task2), "task2 is blocked by planned task1");
+		schedulingPool.setTaskStatus(task1, TaskStatus.DONE);
+		schedulingPool.removeTask(task1);
+		Assert.isTrue(dependenciesResolver.isReady(task2), "task2 is not blocked by removed done task1");
+		Assert.isTrue(dependenciesResolver.getDependencies(task2).isEmpty(), "task1 is not in pool");
+
+		dependenciesResolver.removeTask(task2);
+		Assert.isTrue(dependenciesResolver.getDependants(task1).isEmpty(), "no dependants");
+	}
+
+	@Test
+	public void removeFailedTaskTest() {
+		System.out.println("DependenciesResolverImplTest.removeFailedTask");
+
+		task2.setStatus(TaskStatus.PLANNED);
+		schedulingPool.addToPool(task2);
+		schedulingPool.setTaskStatus(task1, TaskStatus.ERROR);
+		schedulingPool.removeTask(task1);
+		Assert.isTrue(!dependenciesResolver.isReady(task2), "task2 is still blocked by failed task1");
+		Assert.isTrue(TaskStatus.ERROR.equals(task2.getStatus()), "planned task2 failed with task1");
+
+		// the same task planned again unblocks its dependants when done
+		task1.setStatus(TaskStatus.PLANNED);
+		schedulingPool.addToPool(task1);
+		Assert.isTrue(!dependenciesResolver.isReady(task2), "task2 is blocked by planned task1");
+		schedulingPool.setTaskStatus(task1, TaskStatus.DONE);
+		Assert.isTrue(dependenciesResolver.isReady(task2), "task2 is unblocked by done task1");
+
+		schedulingPool.removeTask(task2);
+	}
+
+	@Test
+	public void failedTaskInPoolTest() {
+		System.out.println("DependenciesResolverImplTest.failedTaskInPool");
+
+		task2.setStatus(TaskStatus.PLANNED);
+		schedulingPool.addToPool(task2);
+		schedulingPool.setTaskStatus(task1, TaskStatus.ERROR);
+		Assert.isTrue(schedulingPool.getTaskById(task1.getId()) == task1, "failed task1 stays in the pool");
+		Assert.isTrue(TaskStatus.ERROR.equals(task2.getStatus()), "planned task2 failed with task1");
+		Assert.isTrue(schedulingPool.getPlannedTasks().isEmpty(), "no task is left planned");
+
+		schedulingPool.removeTask(task2);
+	}
+
 	@After
 	public void cleanup() {
 		schedulingPool.removeTask(task1);
+		dependenciesResolver.removeTask(task2);
 	}
 
 }
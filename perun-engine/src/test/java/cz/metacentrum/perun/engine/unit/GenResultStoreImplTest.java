@@ -0,0 +1,107 @@
+package cz.metacentrum.perun.engine.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.core.api.Service;
+import cz.metacentrum.perun.engine.scheduling.impl.GenResultStoreImpl;
+
+/**
+ * Tests of GenResultStoreImpl which remembers hashes of generated and delivered data.
+ */
+public class GenResultStoreImplTest {
+
+	@Rule
+	public TemporaryFolder genDirectory = new TemporaryFolder();
+
+	private GenResultStoreImpl store;
+	private Service service = new Service(1, "passwd");
+	private Facility facility = new Facility(2, "cluster");
+	private File spool;
+
+	@Before
+	public void setup() {
+		store = new GenResultStoreImpl();
+		spool = new File(genDirectory.getRoot(), "spool/cluster/passwd");
+	}
+
+	@Test
+	public void storeGenResult() throws Exception {
+		System.out.println("GenResultStoreImpl.storeGenResult");
+
+		// no generated data
+		assertNull(store.storeGenResult(service, facility, genDirectory.getRoot()));
+
+		writeFile("passwd", "user:x:1000:1000::/home/user:/bin/bash\n");
+		writeFile("facility_name", "cluster");
+		String hash = store.storeGenResult(service, facility, genDirectory.getRoot());
+		assertNotNull(hash);
+		assertEquals(hash, store.getGenResult(service, facility));
+
+		// the same data give the same hash
+		assertEquals(hash, store.storeGenResult(service, facility, genDirectory.getRoot()));
+
+		// changed content or renamed file change the hash
+		writeFile("passwd", "user:x:1001:1000::/home/user:/bin/bash\n");
+		String changed = store.storeGenResult(service, facility, genDirectory.getRoot());
+		assertFalse(hash.equals(changed));
+		new File(spool, "facility_name").renameTo(new File(spool, "facility"));
+		assertFalse(changed.equals(store.storeGenResult(service, facility, genDirectory.getRoot())));
+
+		store.removeGenResult(service, facility);
+		assertNull(store.getGenResult(service, facility));
+	}
+
+	@Test
+	public void deliveredResult() throws Exception {
+		System.out.println("GenResultStoreImpl.deliveredResult");
+
+		Destination destination1 = new Destination(1, "host1.example.com", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		Destination destination2 = new Destination(2, "host2.example.com", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		assertNull(store.getDeliveredResult(service, facility, destination1));
+
+		store.setDeliveredResult(service, facility, destination1, "abc");
+		assertEquals("abc", store.getDeliveredResult(service, facility, destination1));
+		assertNull(store.getDeliveredResult(service, facility, destination2));
+		assertNull(store.getDeliveredResult(new Service(3, "group"), facility, destination1));
+
+		// failed delivery forgets the hash
+		store.setDeliveredResult(service, facility, destination1, null);
+		assertNull(store.getDeliveredResult(service, facility, destination1));
+	}
+
+	@Test
+	public void deliveredResultExpires() throws Exception {
+		System.out.println("GenResultStoreImpl.deliveredResultExpires");
+
+		Destination destination = new Destination(1, "host1.example.com", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		store.setDeliveredResultTimeToLive(-1);
+		store.setDeliveredResult(service, facility, destination, "abc");
+		// expired hash is forgotten, so the data are sent again
+		assertNull(store.getDeliveredResult(service, facility, destination));
+	}
+
+	private void writeFile(String name, String content) throws IOException {
+		spool.mkdirs();
+		FileOutputStream out = new FileOutputStream(new File(spool, name));
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package cz.metacentrum.perun.engine.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.engine.scheduling.impl.TaskAdmissionControllerImpl;
+import cz.metacentrum.perun.taskslib.model.ExecService;
+import cz.metacentrum.perun.taskslib.model.ExecService.ExecServiceType;
+import cz.metacentrum.perun.taskslib.model.Task;
+
+/**
+ * Tests of TaskAdmissionControllerImpl which decides, which planned Tasks can start their workers.
+ */
+public class TaskAdmissionControllerImplTest {
+
+	private TaskAdmissionControllerImpl controller;
+	private long now;
+
+	@Before
+	public void setup() {
+		controller = new TaskAdmissionControllerImpl();
+		controller.setMaxGenWorkers(2);
+		controller.setMaxSendWorkers(3);
+		controller.setMaxTasksPerFacility(2);
+		controller.setMaxWorkersPerDestination(1);
+		controller.setOverdueTimeout(60000);
+		now = System.currentTimeMillis();
+	}
+
+	@Test
+	public void genAndSendLimits() {
+		System.out.println("TaskAdmissionControllerImpl.genAndSendLimits");
+
+		Task gen1 = createTask(1, 10, 100, ExecServiceType.GENERATE, now);
+		Task gen2 = createTask(2, 10, 101, ExecServiceType.GENERATE, now);
+		Task gen3 = createTask(3, 10, 102, ExecServiceType.GENERATE, now);
+		Destination dest = new Destination(1, "host1", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		assertTrue(controller.tryAdmit(gen1, Arrays.asList(dest), now));
+		assertTrue(controller.tryAdmit(gen2, Arrays.asList(dest), now));
+		assertFalse(controller.tryAdmit(gen3, Arrays.asList(dest), now));
+		assertEquals(2, controller.getRunningGenWorkers());
+
+		// SEND workers have their own pool
+		Task send = createTask(4, 11, 103, ExecServiceType.SEND, now);
+		assertTrue(controller.tryAdmit(send, destinations(3), now));
+		assertEquals(3, controller.getRunningSendWorkers());
+		assertFalse(controller.tryAdmit(createTask(5, 11, 104, ExecServiceType.SEND, now), destinations(1), now));
+
+		controller.release(gen1, dest);
+		assertTrue(controller.tryAdmit(gen3, Arrays.asList(dest), now));
+		assertEquals(2, controller.getRunningGenWorkers());
+		assertEquals(4, controller.getAdmittedTasks());
+	}
+
+	@Test
+	public void facilityAndDestinationLimits() {
+		System.out.println("TaskAdmissionControllerImpl.facilityAndDestinationLimits");
+
+		controller.setMaxSendWorkers(100);
+		Destination host1 = new Destination(1, "host1", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		Destination host2 = new Destination(2, "host2", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+
+		Task task1 = createTask(1, 10, 100, ExecServiceType.SEND, now);
+		Task task2 = createTask(2, 11, 100, ExecServiceType.SEND, now);
+		Task task3 = createTask(3, 12, 100, ExecServiceType.SEND, now);
+		assertTrue(controller.tryAdmit(task1, Arrays.asList(host1), now));
+		// destination is busy
+		assertFalse(controller.tryAdmit(task2, Arrays.asList(host1), now));
+		assertTrue(controller.tryAdmit(task2, Arrays.asList(host2), now));
+		// facility has two running tasks
+		Destination host3 = new Destination(3, "host3", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		assertFalse(controller.tryAdmit(task3, Arrays.asList(host3), now));
+		// other facility is not affected
+		assertTrue(controller.tryAdmit(createTask(4, 12, 101, ExecServiceType.SEND, now), Arrays.asList(host3), now));
+
+		controller.release(task1, host1);
+		assertTrue(controller.tryAdmit(task3, Arrays.asList(host1), now));
+	}
+
+	@Test
+	public void waitingTasks() {
+		System.out.println("TaskAdmissionControllerImpl.waitingTasks");
+
+		Destination dest = new Destination(1, "host1", "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		Task gen1 = createTask(1, 10, 100, ExecServiceType.GENERATE, now);
+		Task gen2 = createTask(2, 10, 101, ExecServiceType.GENERATE, now);
+		Task gen3 = createTask(3, 10, 102, ExecServiceType.GENERATE, now);
+		assertTrue(controller.tryAdmit(gen1, Arrays.asList(dest), now));
+		assertTrue(controller.tryAdmit(gen2, Arrays.asList(dest), now));
+		assertFalse(controller.hasWaitingTasks());
+
+		// rejected task waits for released slot
+		assertFalse(controller.tryAdmit(gen3, Arrays.asList(dest), now));
+		controller.release(gen1, dest);
+		assertTrue(controller.hasWaitingTasks());
+
+		controller.clearWaitingTasks();
+		assertTrue(controller.tryAdmit(gen3, Arrays.asList(dest), now));
+		assertFalse(controller.hasWaitingTasks());
+	}
+
+	@Test
+	public void orderForExecution() {
+		System.out.println("TaskAdmissionControllerImpl.orderForExecution");
+
+		Task a1 = createTask(1, 10, 100, ExecServiceType.SEND, now - 3000);
+		Task a2 = createTask(2, 10, 101, ExecServiceType.SEND, now - 2000);
+		Task a3 = createTask(3, 10, 102, ExecServiceType.SEND, now - 1000);
+		Task b1 = createTask(4, 11, 100, ExecServiceType.SEND, now - 1500);
+		Task overdue = createTask(5, 10, 103, ExecServiceType.SEND, now - 120000);
+		Task retried = createTask(6, 11, 104, ExecServiceType.SEND, now);
+		retried.setRecurrence(retried.getExecService().getDefaultRecurrence() - 1);
+
+		List<Task> ordered = controller.orderForExecution(Arrays.asList(a3, b1, retried, a1, overdue, a2), now);
+		assertEquals(Arrays.asList(overdue, retried, a1, b1, a2, a3), ordered);
+
+		// service with running workers gives way to others
+		controller.tryAdmit(createTask(7, 10, 105, ExecServiceType.SEND, now), destinations(1), now);
+		ordered = controller.orderForExecution(Arrays.asList(a1, b1), now);
+		assertSame(b1, ordered.get(0));
+		assertEquals(Collections.emptyList(), controller.orderForExecution(Collections.<Task>emptyList(), now));
+	}
+
+	@Test
+	public void waitTimeStatistics() {
+		System.out.println("TaskAdmissionControllerImpl.waitTimeStatistics");
+
+		controller.tryAdmit(createTask(1, 10, 100, ExecServiceType.SEND, now - 10000), destinations(1), now);
+		assertEquals(10000, controller.getAverageWaitTime());
+		controller.tryAdmit(createTask(2, 11, 101, ExecServiceType.SEND, now), destinations(1), now);
+		assertEquals(9000, controller.getAverageWaitTime());
+		assertEquals(10000, controller.getMaxWaitTime());
+	}
+
+	private static List<Destination> destinations(int count) {
+		Destination[] destinations = new Destination[count];
+		for (int i = 0; i < count; i++) {
+			destinations[i] = new Destination(i, "dest" + i + "-" + System.nanoTime(), "host", Destination.PROPAGATIONTYPE_PARALLEL);
+		}
+		return Arrays.asList(destinations);
+	}
+
+	private static Task createTask(int id, int execServiceId, int facilityId, ExecServiceType type, long schedule) {
+		Task task = new Task();
+		task.setId(id);
+		ExecService execService = new ExecService();
+		execService.setId(execServiceId);
+		execService.setExecServiceType(type);
+		execService.setDefaultRecurrence(2);
+		task.setExecService(execService);
+		task.setRecurrence(2);
+		task.setFacility(new Facility(facilityId, "facility" + facilityId));
+		task.setSchedule(new Date(schedule));
+		return task;
+	}
+
+}
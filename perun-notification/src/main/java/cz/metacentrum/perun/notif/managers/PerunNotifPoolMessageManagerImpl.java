@@ -47,6 +47,18 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 
 	private static final Map<String, ParsedMethod> parsedMethodCache = new ConcurrentHashMap<String, ParsedMethod>();
 
+	// methods resolved for manager calls, key is (target class, method name, argument types)
+	private static final Map<MethodKey, Method> methodCache = new ConcurrentHashMap<MethodKey, Method>();
+
+	// getters of objects from messages, key is (class, method name)
+	private static final Map<MethodKey, Method> getterCache = new ConcurrentHashMap<MethodKey, Method>();
+
+	// class names used as keys of usable objects
+	private static final Map<Class<?>, String> classNameCache = new ConcurrentHashMap<Class<?>, String>();
+
+	// classes used in primary properties of templates
+	private static final Map<String, Class<?>> templateClassCache = new ConcurrentHashMap<String, Class<?>>();
+
 	@SuppressWarnings("unused")
 	@PostConstruct
 	private void init() throws Exception {
@@ -74,7 +86,7 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 
 		// Objects which can be later used when proccessing managerCalls
 		Map<String, Object> usableObjects = parseRetrievedObjects(retrievedObjects);
-		usableObjects.put(parseClassName(PerunSession.class.toString()), session);
+		usableObjects.put(getClassName(PerunSession.class), session);
 
 		Map<String, String> retrievedProperties = new HashMap<String, String>();
 
@@ -92,13 +104,13 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 						if (className != null && !className.equals(METHOD_CLASSNAME)) {
 							// Listing through all classNames
 							try {
-								logger.debug("Resolving class with name: " + className);
-								Class resolvedClass = Class.forName(className);
+								logger.debug("Resolving class with name: {}", className);
+								Class resolvedClass = resolveTemplateClass(className);
 								Object matchingObject = null;
 								for (Object myObject : retrievedObjects) {
 									if (resolvedClass.isAssignableFrom(myObject.getClass())) {
 										matchingObject = myObject;
-										logger.debug("Parsed object: " + matchingObject.toString() + " from message recognized for class: " + className);
+										logger.debug("Parsed object: {} from message recognized for class: {}", matchingObject, className);
 									}
 								}
 								if (matchingObject != null) {
@@ -147,7 +159,7 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 		for (String methodName : methods) {
 			if (retrievedProperties.containsKey(className + "." + methodName)) {
 				resultProperties.put(className + "." + methodName, retrievedProperties.get(className + "." + methodName));
-				logger.debug("Method resolved from already retrievedProperties: " + className + "." + methodName);
+				logger.debug("Method resolved from already retrievedProperties: {}.{}", className, methodName);
 			} else {
 
 				Object methodResult = invokeMethodOnClassAndObject(methodName, matchingObject);
@@ -187,13 +199,24 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 
 		Map<String, Object> result = new HashMap<String, Object>();
 		for (Object object : retrievedObjects) {
-			result.put(parseClassName(object.getClass().toString()), object);
+			result.put(getClassName(object.getClass()), object);
 		}
 
 		return result;
 	}
 
-	private String parseClassName(String className) {
+	private static String getClassName(Class<?> clazz) {
+
+		String result = classNameCache.get(clazz);
+		if (result == null) {
+			result = parseClassName(clazz.toString());
+			classNameCache.put(clazz, result);
+		}
+
+		return result;
+	}
+
+	private static String parseClassName(String className) {
 
 		String result = className.replace("class", "");
 		result = result.trim();
@@ -201,6 +224,17 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 		return result;
 	}
 
+	private static Class<?> resolveTemplateClass(String className) throws ClassNotFoundException {
+
+		Class<?> result = templateClassCache.get(className);
+		if (result == null) {
+			result = Class.forName(className);
+			templateClassCache.put(className, result);
+		}
+
+		return result;
+	}
+
 	@SuppressWarnings({"rawtypes"})
 	private Object processManagerCall(Object target, ParsedMethod parsedMethod, Map<String, String> retrievedProperties, Map<String, Object> usableObjects) {
 
@@ -228,7 +262,7 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 						target = perun;
 					}
 					Class targetClass = target.getClass();
-					Method method = findMethod(targetClass, parsedMethod.getMethodName(), partypes);
+					Method method = findCachedMethod(targetClass, parsedMethod.getMethodName(), partypes);
 					Object resultObject = method.invoke(target, argList);
 
 					if (parsedMethod.getNextMethod() == null) {
@@ -262,8 +296,26 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 		return null;
 	}
 
+	/**
+	 * Find method using cache, so methods of the class are scanned only once for each combination of argument types.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Method findCachedMethod(Class targetClass, String methodName, Class[] partypes) {
+
+		MethodKey key = new MethodKey(targetClass, methodName, partypes);
+		Method method = methodCache.get(key);
+		if (method == null) {
+			method = findMethod(targetClass, methodName, partypes);
+			if (method != null) {
+				methodCache.put(key, method);
+			}
+		}
+
+		return method;
+	}
+
 	@SuppressWarnings("rawtypes")
-	private Method findMethod(Class targetClass, String methodName, Class[] partypes) {
+	private static Method findMethod(Class targetClass, String methodName, Class[] partypes) {
 
 		for (Method method : targetClass.getMethods()) {
 			if (!method.getName().equals(methodName)) {
@@ -379,9 +431,14 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 		Class resolvedClass = matchingObject.getClass();
 
 		try {
-			String preparedMethodName = prepareMethodName(methodName);
-			logger.debug("Using reflection to get values for method: " + preparedMethodName);
-			Method method = resolvedClass.getMethod(preparedMethodName);
+			MethodKey key = new MethodKey(resolvedClass, methodName, null);
+			Method method = getterCache.get(key);
+			if (method == null) {
+				String preparedMethodName = prepareMethodName(methodName);
+				logger.debug("Using reflection to get values for method: {}", preparedMethodName);
+				method = resolvedClass.getMethod(preparedMethodName);
+				getterCache.put(key, method);
+			}
 			return method.invoke(matchingObject);
 		} catch (NoSuchMethodException ex) {
 			logger.error("Method for class: " + resolvedClass.toString() + " cannot be resolved: " + methodName);
@@ -429,4 +486,35 @@ public class PerunNotifPoolMessageManagerImpl implements PerunNotifPoolMessageMa
 	public void setPerun(PerunBl perun) {
 		this.perun = perun;
 	}
+
+	/**
+	 * Key of the method cache, argument types can contain nulls for null arguments.
+	 */
+	private static final class MethodKey {
+
+		private final Class<?> targetClass;
+		private final String methodName;
+		private final Class<?>[] parameterTypes;
+		private final int hash;
+
+		MethodKey(Class<?> targetClass, String methodName, Class<?>[] parameterTypes) {
+			this.targetClass = targetClass;
+			this.methodName = methodName;
+			this.parameterTypes = parameterTypes;
+			this.hash = 31 * (31 * targetClass.hashCode() + methodName.hashCode()) + Arrays.hashCode(parameterTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof MethodKey)) return false;
+			MethodKey other = (MethodKey) obj;
+			return targetClass.equals(other.targetClass) && methodName.equals(other.methodName) && Arrays.equals(parameterTypes, other.parameterTypes);
+		}
+	}
 }
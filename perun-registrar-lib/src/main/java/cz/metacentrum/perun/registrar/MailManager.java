@@ -119,6 +119,9 @@ public interface MailManager {
 	 * Consumes all exceptions since sending mail is not mandatory,
 	 * exceptions are loged into perun-registrar.log
 	 *
+	 * Mail is only stored in MailOutbox within current transaction
+	 * and delivered asynchronously after it's committed.
+	 *
 	 * @param app application to send notification for
 	 * @param mailType MailType action which caused sending
 	 * @param reason custom text passed to mail by admin (e.g. reason of application reject)
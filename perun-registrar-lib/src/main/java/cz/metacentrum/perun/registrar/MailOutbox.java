@@ -0,0 +1,70 @@
+package cz.metacentrum.perun.registrar;
+
+import java.util.Map;
+
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import org.springframework.mail.SimpleMailMessage;
+
+/**
+ * Persistent outbox of registrar notifications.
+ *
+ * Mails are stored in DB within transaction of the caller and delivered
+ * later by bounded pool of workers, so processing of applications
+ * doesn't wait for (or fail because of) the mail server.
+ */
+public interface MailOutbox {
+
+	/**
+	 * Store mail message in outbox within current transaction. Message is stored
+	 * once for each of its recipients (TO). If transaction is rolled back,
+	 * message is never delivered. Failure to store the message doesn't mark
+	 * transaction of the caller for rollback, exception is just passed to the caller.
+	 *
+	 * @param message message to deliver
+	 * @param appId ID of related application or null
+	 * @param mailType type of mail (used for logging)
+	 * @throws InternalErrorException When message can't be stored
+	 */
+	public void enqueueMessage(SimpleMailMessage message, Integer appId, String mailType) throws InternalErrorException;
+
+	/**
+	 * Store mail message in outbox in new transaction. Used for notifications about
+	 * errors, which must be delivered even if parent transaction is rolled back.
+	 *
+	 * @param message message to deliver
+	 * @param appId ID of related application or null
+	 * @param mailType type of mail (used for logging)
+	 * @throws InternalErrorException When message can't be stored
+	 */
+	public void enqueueMessageInNewTransaction(SimpleMailMessage message, Integer appId, String mailType) throws InternalErrorException;
+
+	/**
+	 * Deliver messages from outbox which are due. Messages are grouped by domain of recipient,
+	 * limited per domain and each group is sent by single connection to the mail server.
+	 * Failed messages are re-scheduled with exponential backoff until max number of attempts is reached.
+	 *
+	 * Called periodically by scheduler.
+	 *
+	 * @return number of delivered messages
+	 */
+	public int deliverPendingMessages();
+
+	/**
+	 * Remove messages, which were delivered before longer time than configured retention.
+	 *
+	 * Called by delivery run at most once per hour.
+	 *
+	 * @return number of removed messages
+	 * @throws InternalErrorException
+	 */
+	public int removeSentMessages() throws InternalErrorException;
+
+	/**
+	 * Return number of messages in outbox by state of delivery (NEW, SENDING, SENT, FAILED).
+	 *
+	 * @return map of state to number of messages
+	 * @throws InternalErrorException
+	 */
+	public Map<String, Integer> getMessageCountsByState() throws InternalErrorException;
+
+}
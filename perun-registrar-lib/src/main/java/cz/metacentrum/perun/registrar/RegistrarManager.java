@@ -9,6 +9,8 @@ import cz.metacentrum.perun.registrar.model.ApplicationForm;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItem;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemData;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemWithPrefilledValue;
+import cz.metacentrum.perun.registrar.model.ApplicationsPage;
+import cz.metacentrum.perun.registrar.model.ApplicationsPageQuery;
 
 import java.util.List;
 import java.util.Locale;
@@ -250,6 +252,32 @@ public interface RegistrarManager {
 	 */
 	List<Application> getApplicationsForGroup(PerunSession sess, Group group, List<String> state) throws PerunException;
 
+	/**
+	 * Gets one page of applications for a given VO filtered by query.
+	 * Applications are ordered from newest to oldest. Next page is retrieved
+	 * by passing cursor from returned page into the query.
+	 *
+	 * @param sess who is asking
+	 * @param vo VO to get applications for
+	 * @param query filters, page size and position of page
+	 * @return page of applications with total count
+	 * @throws PerunException
+	 */
+	ApplicationsPage getApplicationsPageForVo(PerunSession sess, Vo vo, ApplicationsPageQuery query) throws PerunException;
+
+	/**
+	 * Gets one page of applications for a given Group filtered by query.
+	 * Applications are ordered from newest to oldest. Next page is retrieved
+	 * by passing cursor from returned page into the query.
+	 *
+	 * @param sess who is asking
+	 * @param group Group to get applications for
+	 * @param query filters, page size and position of page
+	 * @return page of applications with total count
+	 * @throws PerunException
+	 */
+	ApplicationsPage getApplicationsPageForGroup(PerunSession sess, Group group, ApplicationsPageQuery query) throws PerunException;
+
 
 	/**
 	 * Validates an email. THis method should receive all URL parameters from a URL sent by an email to validate
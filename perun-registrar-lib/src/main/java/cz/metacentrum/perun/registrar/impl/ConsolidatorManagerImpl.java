@@ -81,7 +81,8 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 		String name = "";
 		String mail = "";
 
-		Set<RichUser> res = new HashSet<RichUser>();
+		// keep order by relevance
+		Set<RichUser> res = new LinkedHashSet<RichUser>();
 
 		List<String> attrNames = new ArrayList<String>();
 		attrNames.add("urn:perun:user:attribute-def:def:preferredMail");
@@ -89,28 +90,23 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 
 		mail = sess.getPerunPrincipal().getAdditionalInformations().get("mail");
 
-		if (mail != null) {
-			if (mail.contains(";")) {
-				String mailSearch[] = mail.split(";");
-				for (String m : mailSearch) {
-					if (m != null && !m.isEmpty())
-						res.addAll(perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, m, attrNames));
-				}
-			} else {
-				res.addAll(perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, mail, attrNames));
-			}
+		if (mail != null && !mail.isEmpty()) {
+			// all mails are searched at once, users matching more of them go first
+			res.addAll(perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, Arrays.asList(mail.split(";")), attrNames));
 		}
 
 		// check by mail is more precise, so check by name only if nothing is found.
 		if (res.isEmpty()) {
 
-			name = sess.getPerunPrincipal().getAdditionalInformations().get("cn");
+			List<String> names = new ArrayList<String>();
 
-			if (name != null && !name.isEmpty()) res.addAll(perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, name, attrNames));
+			name = sess.getPerunPrincipal().getAdditionalInformations().get("cn");
+			if (name != null && !name.isEmpty()) names.add(name);
 
 			name = sess.getPerunPrincipal().getAdditionalInformations().get("displayName");
+			if (name != null && !name.isEmpty()) names.add(name);
 
-			if (name != null && !name.isEmpty()) res.addAll(perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, name, attrNames));
+			if (!names.isEmpty()) res.addAll(perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, names, attrNames));
 
 		}
 
@@ -189,7 +185,7 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 				if (email != null && !email.isEmpty()) break;
 			}
 
-			List<RichUser> users = (email != null && !email.isEmpty()) ? perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, email, attrNames) : new ArrayList<RichUser>();
+			List<RichUser> users = (email != null && !email.isEmpty()) ? perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, Arrays.asList(email), attrNames) : new ArrayList<RichUser>();
 
 			if (users != null && !users.isEmpty()) {
 				// found by preferredMail
@@ -206,7 +202,7 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 				if (email != null && !email.isEmpty()) break;
 			}
 
-			users = (email != null && !email.isEmpty()) ? perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, email, attrNames) : new ArrayList<RichUser>();
+			users = (email != null && !email.isEmpty()) ? perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, Arrays.asList(email), attrNames) : new ArrayList<RichUser>();
 			if (users != null && !users.isEmpty()) {
 				// found by member mail
 				return convertToIdentities(users);
@@ -243,7 +239,7 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 				}
 			}
 
-			users = (name != null && !name.isEmpty()) ? perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, name, attrNames) : new ArrayList<RichUser>();
+			users = (name != null && !name.isEmpty()) ? perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, Arrays.asList(name), attrNames) : new ArrayList<RichUser>();
 			if (users != null && !users.isEmpty()) {
 				// found by member display name
 				return convertToIdentities(users);
@@ -261,7 +257,7 @@ public class ConsolidatorManagerImpl implements ConsolidatorManager {
 
 			if (name != null && !name.isEmpty()) {
 				// what was found by name
-				return convertToIdentities(perun.getUsersManager().findRichUsersWithAttributesByExactMatch(registrarSession, name, attrNames));
+				return convertToIdentities(perun.getUsersManagerBl().findSimilarRichUsersWithAttributes(registrarSession, Arrays.asList(name), attrNames));
 			} else {
 				// not found by name
 				return convertToIdentities(result);
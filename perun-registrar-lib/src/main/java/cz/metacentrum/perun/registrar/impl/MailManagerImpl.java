@@ -23,8 +23,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.mail.MailException;
-import org.springframework.mail.MailSender;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,6 +38,7 @@ import cz.metacentrum.perun.registrar.model.Application.AppType;
 import cz.metacentrum.perun.registrar.model.ApplicationMail.MailText;
 import cz.metacentrum.perun.registrar.model.ApplicationMail.MailType;
 import cz.metacentrum.perun.registrar.MailManager;
+import cz.metacentrum.perun.registrar.MailOutbox;
 import cz.metacentrum.perun.registrar.RegistrarManager;
 
 public class MailManagerImpl implements MailManager {
@@ -70,7 +69,7 @@ public class MailManagerImpl implements MailManager {
 	@Autowired private Properties registrarProperties;
 	private PerunSession registrarSession;
 	private JdbcPerunTemplate jdbc;
-	private MailSender mailSender;
+	private MailOutbox mailOutbox;
 	private AttributesManager attrManager;
 	private MembersManager membersManager;
 	private UsersManager usersManager;
@@ -82,8 +81,8 @@ public class MailManagerImpl implements MailManager {
 		this.jdbc =  new JdbcPerunTemplate(dataSource);
 	}
 
-	public void setMailSender(MailSender mailSender) {
-		this.mailSender = mailSender;
+	public void setMailOutbox(MailOutbox mailOutbox) {
+		this.mailOutbox = mailOutbox;
 	}
 
 	/**
@@ -449,10 +448,10 @@ public class MailManagerImpl implements MailManager {
 				message.setText(mailText);
 
 				try {
-					// send mail
-					mailSender.send(message);
+					// store mail for asynchronous delivery
+					mailOutbox.enqueueMessage(message, app.getId(), MailType.APP_CREATED_USER.toString());
 					log.info("[MAIL MANAGER] Sending mail: APP_CREATED_USER to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-				} catch (MailException ex) {
+				} catch (InternalErrorException ex) {
 					log.error("[MAIL MANAGER] Sending mail: APP_CREATED_USER failed because of exception: {}", ex);
 				}
 
@@ -506,9 +505,10 @@ public class MailManagerImpl implements MailManager {
 				for (String email : toEmail) {
 					message.setTo(email);
 					try {
-						mailSender.send(message);
+						// store mail for asynchronous delivery
+						mailOutbox.enqueueMessage(message, app.getId(), MailType.APP_CREATED_VO_ADMIN.toString());
 						log.info("[MAIL MANAGER] Sending mail: APP_CREATED_VO_ADMIN to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-					} catch (MailException ex) {
+					} catch (InternalErrorException ex) {
 						log.error("[MAIL MANAGER] Sending mail: APP_CREATED_VO_ADMIN failed because of exception: {}", ex);
 					}
 				}
@@ -628,9 +628,10 @@ public class MailManagerImpl implements MailManager {
 							message.setText(mailText);
 
 							try {
-								mailSender.send(message);
+								// store mail for asynchronous delivery
+								mailOutbox.enqueueMessage(message, app.getId(), MailType.MAIL_VALIDATION.toString());
 								log.info("[MAIL MANAGER] Sending mail: MAIL_VALIDATION to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-							} catch (MailException ex) {
+							} catch (InternalErrorException ex) {
 								log.error("[MAIL MANAGER] Sending mail: MAIL_VALIDATION failed because of exception: {}", ex);
 							}
 
@@ -658,10 +659,10 @@ public class MailManagerImpl implements MailManager {
 				message.setText(mailText);
 
 				try {
-					// send mail
-					mailSender.send(message);
+					// store mail for asynchronous delivery
+					mailOutbox.enqueueMessage(message, app.getId(), MailType.APP_APPROVED_USER.toString());
 					log.info("[MAIL MANAGER] Sending mail: APP_APPROVED_USER to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-				} catch (MailException ex) {
+				} catch (InternalErrorException ex) {
 					log.error("[MAIL MANAGER] Sending mail: APP_APPROVED_USER failed because of exception: {}", ex);
 				}
 
@@ -683,10 +684,10 @@ public class MailManagerImpl implements MailManager {
 				message.setText(mailText);
 
 				try {
-					// send mail
-					mailSender.send(message);
+					// store mail for asynchronous delivery
+					mailOutbox.enqueueMessage(message, app.getId(), MailType.APP_REJECTED_USER.toString());
 					log.info("[MAIL MANAGER] Sending mail: APP_REJECTED_USER to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-				} catch (MailException ex) {
+				} catch (InternalErrorException ex) {
 					log.error("[MAIL MANAGER] Sending mail: APP_REJECTED_USER failed because of exception: {}", ex);
 				}
 
@@ -740,9 +741,10 @@ public class MailManagerImpl implements MailManager {
 				for (String email : toEmail) {
 					message.setTo(email);
 					try {
-						mailSender.send(message);
+						// store mail for asynchronous delivery
+						mailOutbox.enqueueMessageInNewTransaction(message, app.getId(), MailType.APP_ERROR_VO_ADMIN.toString());
 						log.info("[MAIL MANAGER] Sending mail: APP_ERROR_VO_ADMIN to: {} / appID: " + app.getId() + " / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-					} catch (MailException ex) {
+					} catch (InternalErrorException ex) {
 						log.error("[MAIL MANAGER] Sending mail: APP_ERROR_VO_ADMIN failed because of exception: {}", ex);
 					}
 				}
@@ -929,9 +931,10 @@ public class MailManagerImpl implements MailManager {
 		message.setText(mailText);
 
 		try {
-			mailSender.send(message);
+			// store mail for asynchronous delivery
+			mailOutbox.enqueueMessage(message, null, MailType.USER_INVITE.toString());
 			log.info("[MAIL MANAGER] Sending mail: USER_INVITE to: {} / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-		} catch (MailException ex) {
+		} catch (InternalErrorException ex) {
 			log.error("[MAIL MANAGER] Sending mail: USER_INVITE failed because of exception: {}", ex);
 			throw new RegistrarException("Unable to send e-mail.", ex);
 		}
@@ -1063,9 +1066,10 @@ public class MailManagerImpl implements MailManager {
 		message.setText(mailText);
 
 		try {
-			mailSender.send(message);
+			// store mail for asynchronous delivery
+			mailOutbox.enqueueMessage(message, null, MailType.USER_INVITE.toString());
 			log.info("[MAIL MANAGER] Sending mail: USER_INVITE to: {} / " + app.getVo() + " / " + app.getGroup(), message.getTo());
-		} catch (MailException ex) {
+		} catch (InternalErrorException ex) {
 			log.error("[MAIL MANAGER] Sending mail: USER_INVITE failed because of exception: {}", ex);
 			throw new RegistrarException("Unable to send e-mail.", ex);
 		}
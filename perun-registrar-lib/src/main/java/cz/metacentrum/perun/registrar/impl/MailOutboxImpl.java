@@ -0,0 +1,430 @@
+package cz.metacentrum.perun.registrar.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import cz.metacentrum.perun.core.api.exceptions.InternalErrorException;
+import cz.metacentrum.perun.core.impl.Compatibility;
+import cz.metacentrum.perun.core.impl.Utils;
+import cz.metacentrum.perun.registrar.MailOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcPerunTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementation of persistent mail outbox of registrar.
+ *
+ * Delivery is configurable in perun-registrar-lib.properties:
+ * <ul>
+ *     <li>mailOutboxWorkers - number of threads delivering mails (default 4)</li>
+ *     <li>mailOutboxBatchSize - max number of mails processed by one delivery run (default 1000)</li>
+ *     <li>mailOutboxDomainLimit - max number of mails sent to one domain by one delivery run (default 100)</li>
+ *     <li>mailOutboxConnectionSize - max number of mails sent by one connection to mail server (default 50)</li>
+ *     <li>mailOutboxMaxAttempts - max number of delivery attempts before mail is marked as FAILED (default 8)</li>
+ *     <li>mailOutboxRetryDelay - delay in seconds before first retry, doubled with each attempt (default 60)</li>
+ *     <li>mailOutboxMaxRetryDelay - max delay in seconds between retries (default 21600)</li>
+ *     <li>mailOutboxSentRetention - number of days for which SENT mails are kept in outbox (default 7)</li>
+ * </ul>
+ */
+public class MailOutboxImpl implements MailOutbox {
+
+	final static Logger log = LoggerFactory.getLogger(MailOutboxImpl.class);
+
+	static final String STATE_NEW = "NEW";
+	static final String STATE_SENDING = "SENDING";
+	static final String STATE_SENT = "SENT";
+	static final String STATE_FAILED = "FAILED";
+
+	// mail claimed by delivery run which didn't finish in this time is considered lost and sent again
+	private static final long SENDING_TIMEOUT = 30 * 60 * 1000L;
+	// SENT mails are removed by delivery run at most once in this interval
+	private static final long CLEANUP_INTERVAL = 60 * 60 * 1000L;
+
+	private static final String OUTBOX_SELECT_DUE = "select id,app_id,mail_type,mail_from,reply_to,mail_to,subject,text,attempts " +
+			"from application_mail_outbox where state=? and next_attempt_at<=? order by next_attempt_at,id";
+
+	@Autowired private Properties registrarProperties;
+	private JdbcPerunTemplate jdbc;
+	private MailSender mailSender;
+	private ThreadPoolExecutor executor;
+
+	private int workers = 4;
+	private int batchSize = 1000;
+	private int domainLimit = 100;
+	private int connectionSize = 50;
+	private int maxAttempts = 8;
+	private long retryDelay = 60 * 1000L;
+	private long maxRetryDelay = 6 * 60 * 60 * 1000L;
+	private long sentRetention = 7 * 24 * 60 * 60 * 1000L;
+	private volatile long lastCleanup = 0;
+
+	// Spring setters
+
+	public void setDataSource(DataSource dataSource) {
+		this.jdbc = new JdbcPerunTemplate(dataSource);
+	}
+
+	public void setMailSender(MailSender mailSender) {
+		this.mailSender = mailSender;
+	}
+
+	/**
+	 * Init method, reads configuration and starts pool of workers
+	 */
+	protected void initialize() {
+
+		workers = getIntProperty("mailOutboxWorkers", workers);
+		batchSize = getIntProperty("mailOutboxBatchSize", batchSize);
+		domainLimit = getIntProperty("mailOutboxDomainLimit", domainLimit);
+		connectionSize = getIntProperty("mailOutboxConnectionSize", connectionSize);
+		maxAttempts = getIntProperty("mailOutboxMaxAttempts", maxAttempts);
+		retryDelay = getIntProperty("mailOutboxRetryDelay", (int) (retryDelay / 1000)) * 1000L;
+		maxRetryDelay = getIntProperty("mailOutboxMaxRetryDelay", (int) (maxRetryDelay / 1000)) * 1000L;
+		sentRetention = getIntProperty("mailOutboxSentRetention", (int) (sentRetention / (24 * 60 * 60 * 1000L))) * 24 * 60 * 60 * 1000L;
+
+		executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+	}
+
+	/**
+	 * Destroy method, stops pool of workers. Mails being delivered are sent again after restart.
+	 */
+	protected void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public void enqueueMessage(SimpleMailMessage message, Integer appId, String mailType) throws InternalErrorException {
+		storeMessage(message, appId, mailType);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public void enqueueMessageInNewTransaction(SimpleMailMessage message, Integer appId, String mailType) throws InternalErrorException {
+		storeMessage(message, appId, mailType);
+	}
+
+	@Override
+	public int deliverPendingMessages() {
+
+		try {
+
+			final long now = System.currentTimeMillis();
+
+			if (now - lastCleanup >= CLEANUP_INTERVAL) {
+				lastCleanup = now;
+				removeSentMessages();
+			}
+
+			// return mails of interrupted delivery runs back to outbox
+			int lost = jdbc.update("update application_mail_outbox set state=? where state=? and next_attempt_at<?",
+					STATE_NEW, STATE_SENDING, Compatibility.getDate(now));
+			if (lost > 0) {
+				log.warn("[MAIL OUTBOX] {} mails of interrupted delivery returned to outbox.", lost);
+			}
+
+			// group due mails by domain of recipient, so each domain has own limit and connection
+			Map<String, List<OutboxMessage>> byDomain = new LinkedHashMap<String, List<OutboxMessage>>();
+			for (OutboxMessage m : selectDueMessages(now)) {
+				String domain = getDomain(m.message.getTo()[0]);
+				List<OutboxMessage> list = byDomain.get(domain);
+				if (list == null) {
+					list = new ArrayList<OutboxMessage>();
+					byDomain.put(domain, list);
+				}
+				// rest is left in outbox for next delivery run
+				if (list.size() < domainLimit) list.add(m);
+			}
+
+			// claim mails, so they are not sent twice by concurrent runs
+			Object claimedUntil = Compatibility.getDate(now + SENDING_TIMEOUT);
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+			for (Map.Entry<String, List<OutboxMessage>> entry : byDomain.entrySet()) {
+				List<OutboxMessage> claimed = new ArrayList<OutboxMessage>();
+				for (OutboxMessage m : entry.getValue()) {
+					if (jdbc.update("update application_mail_outbox set state=?, next_attempt_at=? where id=? and state=?",
+							STATE_SENDING, claimedUntil, m.id, STATE_NEW) == 1) {
+						claimed.add(m);
+					}
+				}
+				for (int i = 0; i < claimed.size(); i += connectionSize) {
+					tasks.add(new DeliveryTask(entry.getKey(), claimed.subList(i, Math.min(i + connectionSize, claimed.size()))));
+				}
+			}
+
+			if (tasks.isEmpty()) return 0;
+
+			int delivered = 0;
+			for (Future<Integer> result : executor.invokeAll(tasks)) {
+				try {
+					delivered += result.get();
+				} catch (ExecutionException ex) {
+					log.error("[MAIL OUTBOX] Delivery of mails failed: {}", ex.getCause());
+				}
+			}
+			log.debug("[MAIL OUTBOX] Delivered {} mails.", delivered);
+			return delivered;
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return 0;
+		} catch (Exception ex) {
+			// scheduled method, exception can't be passed to anyone
+			log.error("[MAIL OUTBOX] Exception thrown when delivering mails: {}", ex);
+			return 0;
+		}
+
+	}
+
+	@Override
+	public int removeSentMessages() throws InternalErrorException {
+
+		try {
+			int removed = jdbc.update("delete from application_mail_outbox where state=? and sent_at<?",
+					STATE_SENT, Compatibility.getDate(System.currentTimeMillis() - sentRetention));
+			if (removed > 0) {
+				log.debug("[MAIL OUTBOX] Removed {} sent mails.", removed);
+			}
+			return removed;
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+
+	}
+
+	@Override
+	public Map<String, Integer> getMessageCountsByState() throws InternalErrorException {
+
+		final Map<String, Integer> result = new HashMap<String, Integer>();
+		try {
+			jdbc.query("select state, count(*) as cnt from application_mail_outbox group by state", new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet rs) throws SQLException {
+					result.put(rs.getString("state"), rs.getInt("cnt"));
+				}
+			});
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+		return result;
+
+	}
+
+	/**
+	 * Store message in outbox, once for each recipient.
+	 *
+	 * @param message message to store
+	 * @param appId ID of related application or null
+	 * @param mailType type of mail
+	 * @throws InternalErrorException
+	 */
+	private void storeMessage(SimpleMailMessage message, Integer appId, String mailType) throws InternalErrorException {
+
+		if (message.getTo() == null || message.getTo().length == 0) {
+			log.warn("[MAIL OUTBOX] Mail {} / appID: {} has no recipient, it's not stored.", mailType, appId);
+			return;
+		}
+
+		for (String to : message.getTo()) {
+			int id = Utils.getNewId(jdbc, "application_mail_outbox_id_seq");
+			try {
+				jdbc.update("insert into application_mail_outbox(id,app_id,mail_type,mail_from,reply_to,mail_to,subject,text,state,attempts,next_attempt_at) " +
+						"values (?,?,?,?,?,?,?,?,?,0,?)", id, appId, mailType, message.getFrom(), message.getReplyTo(), to,
+						message.getSubject(), message.getText(), STATE_NEW, Compatibility.getDate(System.currentTimeMillis()));
+			} catch (RuntimeException ex) {
+				throw new InternalErrorException(ex);
+			}
+			log.info("[MAIL OUTBOX] Mail {} to: {} / appID: {} stored for delivery under ID: {}", new Object[] {mailType, to, appId, id});
+		}
+
+	}
+
+	/**
+	 * Select mails, which should be delivered, limited by batch size.
+	 *
+	 * @param now current time
+	 * @return mails to deliver
+	 * @throws InternalErrorException
+	 */
+	private List<OutboxMessage> selectDueMessages(final long now) throws InternalErrorException {
+
+		final Object nowDate = Compatibility.getDate(now);
+		return jdbc.query(new PreparedStatementCreator() {
+			@Override
+			public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+				PreparedStatement ps = con.prepareStatement(OUTBOX_SELECT_DUE);
+				ps.setMaxRows(batchSize);
+				ps.setString(1, STATE_NEW);
+				ps.setObject(2, nowDate);
+				return ps;
+			}
+		}, OUTBOX_MESSAGE_MAPPER);
+
+	}
+
+	/**
+	 * Mark mail as delivered or schedule its next delivery attempt.
+	 *
+	 * @param m mail
+	 * @param error error of delivery or null if delivered
+	 * @return true if mail was delivered
+	 */
+	private boolean storeResult(OutboxMessage m, Exception error) {
+
+		int attempts = m.attempts + 1;
+		long now = System.currentTimeMillis();
+		try {
+			if (error == null) {
+				jdbc.update("update application_mail_outbox set state=?, attempts=?, sent_at=?, last_error=null where id=?",
+						STATE_SENT, attempts, Compatibility.getDate(now), m.id);
+				log.info("[MAIL OUTBOX] Sending mail: {} to: {} / appID: {} / attempt: {}", new Object[] {m.mailType, m.message.getTo(), m.appId, attempts});
+				return true;
+			}
+			String lastError = String.valueOf(error.getMessage());
+			if (lastError.length() > 2000) lastError = lastError.substring(0, 2000);
+			if (attempts >= maxAttempts) {
+				jdbc.update("update application_mail_outbox set state=?, attempts=?, last_error=? where id=?",
+						STATE_FAILED, attempts, lastError, m.id);
+				log.error("[MAIL OUTBOX] Sending mail: {} to: {} / appID: {} failed permanently after {} attempts: {}", new Object[] {m.mailType, m.message.getTo(), m.appId, attempts, error});
+			} else {
+				// exponential backoff
+				long delay = Math.min(retryDelay << Math.min(attempts - 1, 30), maxRetryDelay);
+				jdbc.update("update application_mail_outbox set state=?, attempts=?, last_error=?, next_attempt_at=? where id=?",
+						STATE_NEW, attempts, lastError, Compatibility.getDate(now + delay), m.id);
+				log.warn("[MAIL OUTBOX] Sending mail: {} to: {} / appID: {} failed (attempt {}), next attempt in {} s: {}", new Object[] {m.mailType, m.message.getTo(), m.appId, attempts, delay / 1000, error});
+			}
+		} catch (Exception ex) {
+			// mail stays in SENDING state and is returned to outbox after timeout
+			log.error("[MAIL OUTBOX] Unable to store result of delivery of mail ID: {}: {}", m.id, ex);
+		}
+		return false;
+
+	}
+
+	private int getIntProperty(String name, int defaultValue) {
+		String value = (registrarProperties != null) ? registrarProperties.getProperty(name) : null;
+		if (value == null || value.trim().isEmpty()) return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException ex) {
+			log.error("[MAIL OUTBOX] Invalid value of property {}: {}, using default: {}", new Object[] {name, value, defaultValue});
+			return defaultValue;
+		}
+	}
+
+	private static String getDomain(String address) {
+		int at = (address != null) ? address.lastIndexOf('@') : -1;
+		return (at >= 0) ? address.substring(at + 1).trim().toLowerCase() : "";
+	}
+
+	/**
+	 * Sends group of mails for the same domain by one connection to the mail server.
+	 */
+	private class DeliveryTask implements Callable<Integer> {
+
+		private final String domain;
+		private final List<OutboxMessage> messages;
+
+		DeliveryTask(String domain, List<OutboxMessage> messages) {
+			this.domain = domain;
+			this.messages = messages;
+		}
+
+		@Override
+		public Integer call() {
+
+			SimpleMailMessage[] toSend = new SimpleMailMessage[messages.size()];
+			for (int i = 0; i < messages.size(); i++) {
+				toSend[i] = messages.get(i).message;
+			}
+
+			Map<Object, Exception> failed = new HashMap<Object, Exception>();
+			MailException connectionError = null;
+			try {
+				mailSender.send(toSend);
+			} catch (MailSendException ex) {
+				if (ex.getFailedMessages().isEmpty()) {
+					connectionError = ex;
+				} else {
+					failed.putAll(ex.getFailedMessages());
+				}
+			} catch (MailException ex) {
+				connectionError = ex;
+			}
+
+			if (connectionError != null) {
+				log.warn("[MAIL OUTBOX] Sending {} mails to domain: {} failed: {}", new Object[] {messages.size(), domain, connectionError});
+			}
+
+			int delivered = 0;
+			for (OutboxMessage m : messages) {
+				Exception error = (connectionError != null) ? connectionError : failed.get(m.message);
+				if (storeResult(m, error)) delivered++;
+			}
+			return delivered;
+
+		}
+
+	}
+
+	/**
+	 * Mail stored in outbox.
+	 */
+	private static class OutboxMessage {
+
+		int id;
+		Integer appId;
+		String mailType;
+		int attempts;
+		SimpleMailMessage message;
+
+	}
+
+	private static final RowMapper<OutboxMessage> OUTBOX_MESSAGE_MAPPER = new RowMapper<OutboxMessage>() {
+		@Override
+		public OutboxMessage mapRow(ResultSet rs, int i) throws SQLException {
+			OutboxMessage m = new OutboxMessage();
+			m.id = rs.getInt("id");
+			m.appId = rs.getInt("app_id");
+			if (rs.wasNull()) m.appId = null;
+			m.mailType = rs.getString("mail_type");
+			m.attempts = rs.getInt("attempts");
+			m.message = new SimpleMailMessage();
+			m.message.setFrom(rs.getString("mail_from"));
+			m.message.setReplyTo(rs.getString("reply_to"));
+			m.message.setTo(rs.getString("mail_to"));
+			m.message.setSubject(rs.getString("subject"));
+			m.message.setText(rs.getString("text"));
+			return m;
+		}
+	};
+
+}
@@ -5,6 +5,9 @@ import cz.metacentrum.perun.core.api.exceptions.*;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.*;
 
 import javax.sql.DataSource;
@@ -18,8 +21,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import cz.metacentrum.perun.core.bl.PerunBl;
@@ -30,6 +36,8 @@ import cz.metacentrum.perun.registrar.model.ApplicationForm;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItem;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemData;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemWithPrefilledValue;
+import cz.metacentrum.perun.registrar.model.ApplicationsPage;
+import cz.metacentrum.perun.registrar.model.ApplicationsPageQuery;
 import cz.metacentrum.perun.registrar.model.Application.AppState;
 import cz.metacentrum.perun.registrar.model.Application.AppType;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItem.ItemTexts;
@@ -57,6 +65,11 @@ public class RegistrarManagerImpl implements RegistrarManager {
 
 	final static Logger log = LoggerFactory.getLogger(RegistrarManagerImpl.class);
 
+	// maximal number of applications returned in one page
+	private static final int MAX_PAGE_SIZE = 1000;
+	// maximal number of IDs in one "in" condition (Oracle limit)
+	private static final int MAX_IDS_IN_QUERY = 1000;
+
 	// identifiers for selected attributes
 	private static final String URN_USER_TITLE_BEFORE = "urn:perun:user:attribute-def:core:titleBefore";
 	private static final String URN_USER_TITLE_AFTER = "urn:perun:user:attribute-def:core:titleAfter";
@@ -134,6 +147,7 @@ public class RegistrarManagerImpl implements RegistrarManager {
 	private RegistrarManager registrarManager;
 	private PerunSession registrarSession;
 	private JdbcPerunTemplate jdbc;
+	private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 	private AttributesManager attrManager;
 	private MembersManager membersManager;
 	private UsersManager usersManager;
@@ -148,6 +162,7 @@ public class RegistrarManagerImpl implements RegistrarManager {
 
 	public void setDataSource(DataSource dataSource) {
 		this.jdbc = new JdbcPerunTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbc);
 	}
 
 	public void setRegistrarManager(RegistrarManager registrarManager) {
@@ -1661,17 +1676,15 @@ public class RegistrarManagerImpl implements RegistrarManager {
 			} catch (EmptyResultDataAccessException ex) {
 				return new ArrayList<Application>();
 			}
+		} else if (state.isEmpty()) {
+			return new ArrayList<Application>();
 		} else {
 			// filter by state
+			MapSqlParameterSource parameters = new MapSqlParameterSource();
+			parameters.addValue("voId", vo.getId());
+			parameters.addValue("states", state);
 			try {
-				String stateString = "";
-				for (String s : state) {
-					stateString += "'"+s+"',";
-				}
-				if (stateString.length() > 1) {
-					stateString = stateString.substring(0, stateString.length()-1);
-				}
-				return jdbc.query(APP_SELECT + " where a.vo_id=? and state in ("+stateString+") order by a.id desc", APP_MAPPER, vo.getId());
+				return namedParameterJdbcTemplate.query(APP_SELECT + " where a.vo_id=:voId and a.state in (:states) order by a.id desc", parameters, APP_MAPPER);
 			} catch (EmptyResultDataAccessException ex) {
 				return new ArrayList<Application>();
 			}
@@ -1695,17 +1708,15 @@ public class RegistrarManagerImpl implements RegistrarManager {
 			} catch (EmptyResultDataAccessException ex) {
 				return new ArrayList<Application>();
 			}
+		} else if (state.isEmpty()) {
+			return new ArrayList<Application>();
 		} else {
 			// filter by state
+			MapSqlParameterSource parameters = new MapSqlParameterSource();
+			parameters.addValue("groupId", group.getId());
+			parameters.addValue("states", state);
 			try {
-				String stateString = "";
-				for (String s : state) {
-					stateString += "'"+s+"',";
-				}
-				if (stateString.length() > 1) {
-					stateString = stateString.substring(0, stateString.length()-1);
-				}
-				return jdbc.query(APP_SELECT + " where a.group_id=? and state in ("+stateString+") order by a.id desc", APP_MAPPER, group.getId());
+				return namedParameterJdbcTemplate.query(APP_SELECT + " where a.group_id=:groupId and a.state in (:states) order by a.id desc", parameters, APP_MAPPER);
 			} catch (EmptyResultDataAccessException ex) {
 				return new ArrayList<Application>();
 			}
@@ -1713,6 +1724,151 @@ public class RegistrarManagerImpl implements RegistrarManager {
 
 	}
 
+	@Override
+	public ApplicationsPage getApplicationsPageForVo(PerunSession userSession, Vo vo, ApplicationsPageQuery query) throws PerunException {
+
+		if (query == null) query = new ApplicationsPageQuery();
+
+		// authz
+		if (!AuthzResolver.isAuthorized(userSession, Role.VOADMIN, vo) &&
+				!AuthzResolver.isAuthorized(userSession, Role.VOOBSERVER, vo)) {
+			throw new PrivilegeException(userSession, "getApplicationsPageForVo");
+		}
+
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("voId", vo.getId());
+		StringBuilder where = new StringBuilder(" where a.vo_id=:voId");
+		if (query.getGroupId() != null) {
+			parameters.addValue("groupId", query.getGroupId());
+			where.append(" and a.group_id=:groupId");
+		}
+		return getApplicationsPage(where, parameters, query);
+
+	}
+
+	@Override
+	public ApplicationsPage getApplicationsPageForGroup(PerunSession userSession, Group group, ApplicationsPageQuery query) throws PerunException {
+
+		if (query == null) query = new ApplicationsPageQuery();
+
+		// authz
+		if (!AuthzResolver.isAuthorized(userSession, Role.VOADMIN, group) &&
+				!AuthzResolver.isAuthorized(userSession, Role.VOOBSERVER, group) &&
+				!AuthzResolver.isAuthorized(userSession, Role.GROUPADMIN, group)) {
+			throw new PrivilegeException(userSession, "getApplicationsPageForGroup");
+		}
+
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue("groupId", group.getId());
+		StringBuilder where = new StringBuilder(" where a.group_id=:groupId");
+		return getApplicationsPage(where, parameters, query);
+
+	}
+
+	/**
+	 * Return one page of applications matching base condition (VO or Group) and filters from query.
+	 *
+	 * Only IDs of applications are selected by paged query (and counted) using index on
+	 * (vo_id/group_id, created_at, id, state). Full applications (with VO, Group and User)
+	 * are then loaded only for IDs on the page. Page size is limited by MAX_PAGE_SIZE.
+	 *
+	 * @param where base where clause
+	 * @param parameters parameters of base where clause
+	 * @param query filters and position of page
+	 * @return page of applications
+	 * @throws PerunException
+	 */
+	private ApplicationsPage getApplicationsPage(StringBuilder where, MapSqlParameterSource parameters, ApplicationsPageQuery query) throws PerunException {
+
+		if (query.getPageSize() <= 0) throw new cz.metacentrum.perun.core.api.exceptions.IllegalArgumentException("Page size must be positive number: " + query.getPageSize());
+		int pageSize = Math.min(query.getPageSize(), MAX_PAGE_SIZE);
+
+		ApplicationsPage page = new ApplicationsPage();
+
+		if (query.getStates() != null) {
+			if (query.getStates().isEmpty()) return page;
+			parameters.addValue("states", query.getStates());
+			where.append(" and a.state in (:states)");
+		}
+		if (query.getUserId() != null) {
+			parameters.addValue("userId", query.getUserId());
+			where.append(" and a.user_id=:userId");
+		}
+		if (query.getDateFrom() != null) {
+			parameters.addValue("dateFrom", new Timestamp(parseDay(query.getDateFrom()).getTime()));
+			where.append(" and a.created_at>=:dateFrom");
+		}
+		if (query.getDateTo() != null) {
+			// whole day is included
+			Calendar to = Calendar.getInstance();
+			to.setTime(parseDay(query.getDateTo()));
+			to.add(Calendar.DAY_OF_MONTH, 1);
+			parameters.addValue("dateTo", new Timestamp(to.getTimeInMillis()));
+			where.append(" and a.created_at<:dateTo");
+		}
+
+		try {
+
+			// total count is not affected by position of page
+			page.setTotalCount(namedParameterJdbcTemplate.queryForInt("select count(*) from application a" + where, parameters));
+			if (page.getTotalCount() == 0) return page;
+
+			if (query.getLastCreatedAt() != null && query.getLastId() != null) {
+				try {
+					parameters.addValue("lastCreatedAt", Timestamp.valueOf(query.getLastCreatedAt()));
+				} catch (java.lang.IllegalArgumentException ex) {
+					throw new cz.metacentrum.perun.core.api.exceptions.IllegalArgumentException("Wrong format of lastCreatedAt: " + query.getLastCreatedAt(), ex);
+				}
+				parameters.addValue("lastId", query.getLastId());
+				where.append(" and (a.created_at<:lastCreatedAt or (a.created_at=:lastCreatedAt and a.id<:lastId))");
+			}
+
+			// fetch one more row to know, if there is next page
+			final List<Integer> ids = new ArrayList<Integer>();
+			final List<Timestamp> created = new ArrayList<Timestamp>();
+			parameters.addValue("rowCount", pageSize + 1);
+			String orderBy = " order by a.created_at desc, a.id desc";
+			String select = Compatibility.getLimitedSelect("a.id, a.created_at", "from application a" + where, orderBy, "rowCount");
+			namedParameterJdbcTemplate.query(select, parameters, new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet rs) throws SQLException {
+					ids.add(rs.getInt("id"));
+					created.add(rs.getTimestamp("created_at"));
+				}
+			});
+
+			if (ids.size() > pageSize) {
+				ids.remove(ids.size()-1);
+				page.setNextCreatedAt(created.get(ids.size()-1).toString());
+				page.setNextId(ids.get(ids.size()-1));
+			}
+			if (ids.isEmpty()) return page;
+
+			List<Application> applications = new ArrayList<Application>(ids.size());
+			for (int i = 0; i < ids.size(); i += MAX_IDS_IN_QUERY) {
+				applications.addAll(namedParameterJdbcTemplate.query(APP_SELECT + " where a.id in (:ids)" + orderBy,
+						new MapSqlParameterSource("ids", ids.subList(i, Math.min(i + MAX_IDS_IN_QUERY, ids.size()))), APP_MAPPER));
+			}
+			page.setApplications(applications);
+
+		} catch (RuntimeException ex) {
+			throw new InternalErrorException(ex);
+		}
+
+		return page;
+
+	}
+
+	private Date parseDay(String day) throws PerunException {
+		try {
+			SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+			format.setLenient(false);
+			return format.parse(day);
+		} catch (ParseException ex) {
+			throw new cz.metacentrum.perun.core.api.exceptions.IllegalArgumentException("Wrong format of date, expected yyyy-MM-dd: " + day, ex);
+		}
+	}
+
 	@Override
 	public List<Application> getApplicationsForUser(User user) {
 
@@ -1842,6 +1998,9 @@ public class RegistrarManagerImpl implements RegistrarManager {
 		RegistrarModule module = getRegistrarModule(form);
 		if (module != null) module.canBeSubmitted(sess, federValues);
 
+		// member of VO resolved by checks below, null if user is not member yet
+		Member member = null;
+
 		// Check if it's not DuplicateRegistrationAttempt (for initial)
 		if (AppType.INITIAL.equals(appType)) {
 
@@ -1849,22 +2008,19 @@ public class RegistrarManagerImpl implements RegistrarManager {
 			if (user != null) {
 				// user is known
 				try {
-					Member m = membersManager.getMemberByUser(registrarSession, vo, user);
+					member = membersManager.getMemberByUser(registrarSession, vo, user);
 					if (group != null) {
 						// get members groups
-						List<Group> g = perun.getGroupsManager().getMemberGroups(registrarSession, m);
+						List<Group> g = perun.getGroupsManager().getMemberGroups(registrarSession, member);
 						if (g.contains(group)) {
 							// user is member of group - can't post more initial applications
 							throw new AlreadyRegisteredException("You are already member of group "+group.getName()+".");
 						} else {
 							// user isn't member of group
 							regs.clear();
-							regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state=? and (user_id=? or (created_by=? and extSourceName=?))",
+							regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state in (?,?) and (user_id=? or (created_by=? and extSourceName=?)) order by id",
 									new SingleColumnRowMapper<Integer>(Integer.class),
-									AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.NEW.toString(), user.getId(), actor, extSourceName));
-							regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state=? and (user_id=? or (created_by=? and extSourceName=?))",
-									new SingleColumnRowMapper<Integer>(Integer.class),
-									AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
+									AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.NEW.toString(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
 							if (!regs.isEmpty()) {
 								// user have unprocessed application for group
 								throw new DuplicateRegistrationAttemptException("Initial application for Group: "+group.getName()+" already exists.", actor, extSourceName, regs.get(0));
@@ -1880,12 +2036,9 @@ public class RegistrarManagerImpl implements RegistrarManager {
 					if (group != null) {
 						// not member of VO - check for unprocessed applications to Group
 						regs.clear();
-						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state=? and (user_id=? or (created_by=? and extSourceName=?))",
-								new SingleColumnRowMapper<Integer>(Integer.class),
-								AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.NEW.toString(), user.getId(), actor, extSourceName));
-						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state=? and (user_id=? or (created_by=? and extSourceName=?))",
+						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id=? and state in (?,?) and (user_id=? or (created_by=? and extSourceName=?)) order by id",
 								new SingleColumnRowMapper<Integer>(Integer.class),
-								AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
+								AppType.INITIAL.toString(), vo.getId(), group.getId(), AppState.NEW.toString(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
 						if (!regs.isEmpty()) {
 							// user have unprocessed application for group - can't post more
 							throw new DuplicateRegistrationAttemptException("Initial application for Group: "+group.getName()+" already exists.", actor, extSourceName, regs.get(0));
@@ -1894,12 +2047,9 @@ public class RegistrarManagerImpl implements RegistrarManager {
 					} else {
 						// not member of VO - check for unprocessed applications
 						regs.clear();
-						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and state=? and (user_id=? or (created_by=? and extSourceName=?))",
+						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and state in (?,?) and (user_id=? or (created_by=? and extSourceName=?)) order by id",
 								new SingleColumnRowMapper<Integer>(Integer.class),
-								AppType.INITIAL.toString(), vo.getId(), AppState.NEW.toString(), user.getId(), actor, extSourceName));
-						regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and state=? and (user_id=? or (created_by=? and extSourceName=?))",
-								new SingleColumnRowMapper<Integer>(Integer.class),
-								AppType.INITIAL.toString(), vo.getId(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
+								AppType.INITIAL.toString(), vo.getId(), AppState.NEW.toString(), AppState.VERIFIED.toString(), user.getId(), actor, extSourceName));
 						if (!regs.isEmpty()) {
 							// user have unprocessed application for VO - can't post more
 							throw new DuplicateRegistrationAttemptException("Initial application for VO: "+vo.getName()+" already exists.", actor, extSourceName, regs.get(0));
@@ -1951,18 +2101,15 @@ public class RegistrarManagerImpl implements RegistrarManager {
 
 			// check for submitted registrations (only for VO)
 			List<Integer> regs = new ArrayList<Integer>();
-			regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and user_id=? and state=?",
-					new SingleColumnRowMapper<Integer>(Integer.class),
-					AppType.EXTENSION.toString(), vo.getId(), user.getId(), AppState.NEW.toString()));
-			regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and user_id=? and state=?",
+			regs.addAll(jdbc.query("select id from application where apptype=? and vo_id=? and group_id is null and user_id=? and state in (?,?) order by id",
 					new SingleColumnRowMapper<Integer>(Integer.class),
-					AppType.EXTENSION.toString(), vo.getId(), user.getId(), AppState.VERIFIED.toString()));
+					AppType.EXTENSION.toString(), vo.getId(), user.getId(), AppState.NEW.toString(), AppState.VERIFIED.toString()));
 			if (!regs.isEmpty()) {
 				// user have unprocessed application for group
 				throw new DuplicateRegistrationAttemptException("Extension application for VO: "+vo.getName()+" already exists.", actor, extSourceName, regs.get(0));
 			}
 
-			Member member = membersManager.getMemberByUser(sess, vo, user);
+			member = membersManager.getMemberByUser(sess, vo, user);
 			// if false, throws exception with reason for GUI
 			membersManager.canExtendMembershipWithReason(sess, member);
 
@@ -1980,22 +2127,32 @@ public class RegistrarManagerImpl implements RegistrarManager {
 		// get user and member attributes from DB for existing users
 		if (user != null) {
 
+			// load only attributes referenced by form items, one call per entity
+			Set<String> userAttrNames = new HashSet<String>();
+			Set<String> memberAttrNames = new HashSet<String>();
+			for (ApplicationFormItem item : formItems) {
+				String dstAtt = item.getPerunDestinationAttribute();
+				if (dstAtt == null || dstAtt.isEmpty()) continue;
+				if (dstAtt.startsWith(AttributesManager.NS_USER_ATTR)) {
+					userAttrNames.add(dstAtt);
+				} else if (dstAtt.startsWith(AttributesManager.NS_MEMBER_ATTR)) {
+					memberAttrNames.add(dstAtt);
+				}
+			}
+
 			Map<String, Attribute> map = new HashMap<String, Attribute>();
 
 			// process user attributes
-			List<Attribute> userAttributes = attrManager.getAttributes(registrarSession, user);
-			for (Attribute att : userAttributes) {
-				map.put(att.getName(), att);
+			if (!userAttrNames.isEmpty()) {
+				for (Attribute att : attrManager.getAttributes(registrarSession, user, new ArrayList<String>(userAttrNames))) {
+					map.put(att.getName(), att);
+				}
 			}
-			// process member attributes
-			try {
-				Member member = membersManager.getMemberByUser(registrarSession, vo, user);
-				List<Attribute> memberAttributes = attrManager.getAttributes(registrarSession, member);
-				for (Attribute att : memberAttributes) {
+			// process member attributes (we don't care if user is not yet member)
+			if (member != null && !memberAttrNames.isEmpty()) {
+				for (Attribute att : attrManager.getAttributes(registrarSession, member, new ArrayList<String>(memberAttrNames))) {
 					map.put(att.getName(), att);
 				}
-			} catch (MemberNotExistsException ex) {
-				// we don't care that user is not yet member
 			}
 
 			Iterator<ApplicationFormItemWithPrefilledValue> it = ((Collection<ApplicationFormItemWithPrefilledValue>) itemsWithValues).iterator();
@@ -2546,8 +2703,32 @@ public class RegistrarManagerImpl implements RegistrarManager {
 		// get all app items
 		List<ApplicationFormItemData> items = getApplicationDataById(registrarSession, app.getId());
 
-		// attributes to set
-		List<Attribute> attributes = new ArrayList<Attribute>();
+		// load all destination attributes at once (for user and member only)
+		Set<String> userAttrNames = new HashSet<String>();
+		Set<String> memberAttrNames = new HashSet<String>();
+		for (ApplicationFormItemData item : items) {
+			String destAttr = item.getFormItem().getPerunDestinationAttribute();
+			if (destAttr == null || destAttr.isEmpty() || item.getValue() == null || item.getValue().isEmpty()) continue;
+			if (destAttr.contains("urn:perun:user:")) {
+				userAttrNames.add(destAttr);
+			} else if (destAttr.contains("urn:perun:member:")) {
+				memberAttrNames.add(destAttr);
+			}
+		}
+		Map<String, Attribute> loaded = new HashMap<String, Attribute>();
+		if (!userAttrNames.isEmpty()) {
+			for (Attribute a : attrManager.getAttributes(registrarSession, user, new ArrayList<String>(userAttrNames))) {
+				loaded.put(a.getName(), a);
+			}
+		}
+		if (!memberAttrNames.isEmpty()) {
+			for (Attribute a : attrManager.getAttributes(registrarSession, member, new ArrayList<String>(memberAttrNames))) {
+				loaded.put(a.getName(), a);
+			}
+		}
+
+		// attributes to set, each only once even if more items have the same destination
+		Map<String, Attribute> attributes = new LinkedHashMap<String, Attribute>();
 		for (ApplicationFormItemData item : items) {
 			String destAttr = item.getFormItem().getPerunDestinationAttribute();
 			String newValue = item.getValue();
@@ -2556,14 +2737,8 @@ public class RegistrarManagerImpl implements RegistrarManager {
 			// if correct destination attribute
 			if (destAttr != null && !destAttr.isEmpty()) {
 				// get attribute (for user and member only)
-				Attribute a = null;
-				if (destAttr.contains("urn:perun:user:")) {
-					a = attrManager.getAttribute(registrarSession, user, destAttr);
-				} else if (destAttr.contains("urn:perun:member:")) {
-					a = attrManager.getAttribute(registrarSession, member, destAttr);
-				} else {
-					continue;
-				}
+				if (!destAttr.contains("urn:perun:user:") && !destAttr.contains("urn:perun:member:")) continue;
+				Attribute a = loaded.get(destAttr);
 
 				// NEVER STORE LOGINS THIS WAY TO PREVENT ACCIDENTAL OVERWRITE
 				if (a != null && "login-namespace".equals(a.getBaseFriendlyName())) {
@@ -2588,12 +2763,12 @@ public class RegistrarManagerImpl implements RegistrarManager {
 							value.add(newValue);
 						}
 						a.setValue(value);
-						attributes.add(a);
+						attributes.put(a.getName(), a);
 						continue;
 					} else {
 						// other attributes are handled like strings
 						a.setValue(newValue);
-						attributes.add(a);
+						attributes.put(a.getName(), a);
 					}
 				}
 			}
@@ -2602,7 +2777,7 @@ public class RegistrarManagerImpl implements RegistrarManager {
 		// set attributes
 		if (!attributes.isEmpty()) {
 			// set them if not empty (member+user)
-			attrManager.setAttributes(registrarSession, member, attributes, true);
+			attrManager.setAttributes(registrarSession, member, new ArrayList<Attribute>(attributes.values()), true);
 		}
 
 	}
@@ -2626,6 +2801,20 @@ public class RegistrarManagerImpl implements RegistrarManager {
 		// get all app items
 		List<ApplicationFormItemData> items = getApplicationDataById(registrarSession, app.getId());
 
+		// load all login attributes at once (for user only)
+		Set<String> loginAttrNames = new HashSet<String>();
+		for (ApplicationFormItemData item : items) {
+			String destAttr = item.getFormItem().getPerunDestinationAttribute();
+			if (destAttr != null && destAttr.contains(AttributesManager.NS_USER_ATTR_DEF+":login-namespace:")) {
+				loginAttrNames.add(destAttr);
+			}
+		}
+		if (loginAttrNames.isEmpty()) return;
+		Map<String, Attribute> loaded = new HashMap<String, Attribute>();
+		for (Attribute a : attrManager.getAttributes(registrarSession, user, new ArrayList<String>(loginAttrNames))) {
+			loaded.put(a.getName(), a);
+		}
+
 		// attributes to set
 		List<Attribute> attributes = new ArrayList<Attribute>();
 		for (ApplicationFormItemData item : items) {
@@ -2636,12 +2825,8 @@ public class RegistrarManagerImpl implements RegistrarManager {
 			// if correct destination attribute
 			if (destAttr != null && !destAttr.isEmpty()) {
 				// get login attribute (for user only)
-				Attribute a = null;
-				if (destAttr.contains(AttributesManager.NS_USER_ATTR_DEF+":login-namespace:")) {
-					a = attrManager.getAttribute(registrarSession, user, destAttr);
-				} else {
-					continue;
-				}
+				if (!destAttr.contains(AttributesManager.NS_USER_ATTR_DEF+":login-namespace:")) continue;
+				Attribute a = loaded.get(destAttr);
 
 				// if attribute exists
 				if (a != null) {
@@ -7,6 +7,7 @@ import cz.metacentrum.perun.core.api.PerunSession;
 import cz.metacentrum.perun.core.api.Vo;
 import cz.metacentrum.perun.core.api.exceptions.*;
 import cz.metacentrum.perun.core.bl.PerunBl;
+import cz.metacentrum.perun.core.impl.Utils;
 import cz.metacentrum.perun.registrar.exceptions.DuplicateRegistrationAttemptException;
 import cz.metacentrum.perun.registrar.model.Application;
 import cz.metacentrum.perun.registrar.model.ApplicationForm;
@@ -14,6 +15,8 @@ import cz.metacentrum.perun.registrar.model.ApplicationFormItem;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemData;
 import cz.metacentrum.perun.registrar.model.ApplicationFormItemWithPrefilledValue;
 import cz.metacentrum.perun.registrar.model.ApplicationMail;
+import cz.metacentrum.perun.registrar.model.ApplicationsPage;
+import cz.metacentrum.perun.registrar.model.ApplicationsPageQuery;
 import cz.metacentrum.perun.registrar.model.Application.AppType;
 import cz.metacentrum.perun.registrar.model.ApplicationMail.MailText;
 import cz.metacentrum.perun.registrar.model.ApplicationMail.MailType;
@@ -23,13 +26,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcPerunTemplate;
+import org.springframework.mail.SimpleMailMessage;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.*;
 
+import javax.sql.DataSource;
+
 import static cz.metacentrum.perun.registrar.model.Application.AppType.INITIAL;
 import static cz.metacentrum.perun.registrar.model.ApplicationFormItem.CS;
 import static cz.metacentrum.perun.registrar.model.ApplicationFormItem.EN;
@@ -51,6 +59,8 @@ public class RegistrarBaseIntegrationTest {
 	@Autowired PerunBl perun;
 	@Autowired RegistrarManager registrarManager;
 	@Autowired MailManager mailManager;
+	@Autowired MailOutbox mailOutbox;
+	@Autowired DataSource dataSource;
 	public PerunSession session;
 	public Vo vo;
 
@@ -152,6 +162,123 @@ System.out.println("APPS ["+result.size()+"]:" + result);
 
 	}
 
+	@Test
+	@Transactional
+	public void enqueueMailToOutbox() throws PerunException {
+		System.out.println("enqueueMailToOutbox()");
+
+		Map<String, Integer> before = mailOutbox.getMessageCountsByState();
+		int newBefore = (before.get("NEW") != null) ? before.get("NEW") : 0;
+
+		SimpleMailMessage message = new SimpleMailMessage();
+		message.setFrom("perun@localhost");
+		message.setTo(new String[] { "first@example.com", "second@example.org" });
+		message.setSubject("Test subject");
+		message.setText("Test text");
+
+		mailOutbox.enqueueMessage(message, null, MailType.USER_INVITE.toString());
+
+		Map<String, Integer> after = mailOutbox.getMessageCountsByState();
+		assertEquals("Message should be stored once for each recipient.", newBefore + 2, (int) after.get("NEW"));
+
+	}
+
+	@Test
+	@Transactional
+	public void removeSentMailsFromOutbox() throws PerunException {
+		System.out.println("removeSentMailsFromOutbox()");
+
+		JdbcPerunTemplate jdbc = new JdbcPerunTemplate(dataSource);
+		jdbc.update("update application_mail_outbox set state='FAILED' where state='SENT'");
+
+		SimpleMailMessage message = new SimpleMailMessage();
+		message.setFrom("perun@localhost");
+		message.setTo(new String[] { "old@example.com", "recent@example.com" });
+		message.setSubject("Test subject");
+		message.setText("Test text");
+		mailOutbox.enqueueMessage(message, null, MailType.USER_INVITE.toString());
+
+		jdbc.update("update application_mail_outbox set state='SENT', sent_at=? where mail_to=?",
+				new Timestamp(System.currentTimeMillis() - 30 * 24 * 60 * 60 * 1000L), "old@example.com");
+		jdbc.update("update application_mail_outbox set state='SENT', sent_at=? where mail_to=?",
+				new Timestamp(System.currentTimeMillis()), "recent@example.com");
+
+		assertEquals("Only mail sent before retention should be removed.", 1, mailOutbox.removeSentMessages());
+		assertEquals(1, (int) mailOutbox.getMessageCountsByState().get("SENT"));
+
+	}
+
+	@Test
+	@Transactional
+	public void getApplicationsPageForVo() throws PerunException {
+		System.out.println("getApplicationsPageForVo()");
+
+		JdbcPerunTemplate jdbc = new JdbcPerunTemplate(dataSource);
+		// two applications created at same time to check ordering by ID
+		int app1 = createApplicationRow(jdbc, "NEW", "2015-01-10 10:00:00.0");
+		int app2 = createApplicationRow(jdbc, "APPROVED", "2015-01-11 10:00:00.0");
+		int app3 = createApplicationRow(jdbc, "NEW", "2015-01-12 10:00:00.0");
+		int app4 = createApplicationRow(jdbc, "NEW", "2015-01-12 10:00:00.0");
+		int app5 = createApplicationRow(jdbc, "REJECTED", "2015-01-13 10:00:00.0");
+
+		ApplicationsPageQuery query = new ApplicationsPageQuery();
+		query.setPageSize(2);
+
+		List<Integer> ids = new ArrayList<Integer>();
+		ApplicationsPage page = registrarManager.getApplicationsPageForVo(session, vo, query);
+		assertEquals("Total count doesn't match.", 5, page.getTotalCount());
+		while (true) {
+			assertTrue("Page is bigger than requested.", page.getApplications().size() <= 2);
+			for (Application app : page.getApplications()) {
+				ids.add(app.getId());
+				assertEquals(vo.getId(), app.getVo().getId());
+			}
+			if (page.getNextId() == null) break;
+			query.setLastCreatedAt(page.getNextCreatedAt());
+			query.setLastId(page.getNextId());
+			page = registrarManager.getApplicationsPageForVo(session, vo, query);
+		}
+		assertEquals("Applications are not ordered from newest.", Arrays.asList(app5, app4, app3, app2, app1), ids);
+
+		// page size is limited by server
+		query = new ApplicationsPageQuery();
+		query.setPageSize(Integer.MAX_VALUE);
+		page = registrarManager.getApplicationsPageForVo(session, vo, query);
+		assertEquals(5, page.getApplications().size());
+		assertNull("There should be no next page.", page.getNextId());
+
+		// missing query returns first page with default size
+		page = registrarManager.getApplicationsPageForVo(session, vo, null);
+		assertEquals(5, page.getTotalCount());
+		assertEquals(5, page.getApplications().size());
+		assertEquals(app5, page.getApplications().get(0).getId());
+
+		// filters
+		query = new ApplicationsPageQuery();
+		query.setStates(Arrays.asList("NEW", "REJECTED"));
+		query.setDateFrom("2015-01-11");
+		query.setDateTo("2015-01-12");
+		page = registrarManager.getApplicationsPageForVo(session, vo, query);
+		assertEquals(2, page.getTotalCount());
+		assertEquals(2, page.getApplications().size());
+		assertEquals(app4, page.getApplications().get(0).getId());
+		assertEquals(app3, page.getApplications().get(1).getId());
+		assertNull("There should be no next page.", page.getNextId());
+
+		List<Application> byState = registrarManager.getApplicationsForVo(session, vo, Arrays.asList("APPROVED"));
+		assertEquals(1, byState.size());
+		assertEquals(app2, byState.get(0).getId());
+
+	}
+
+	private int createApplicationRow(JdbcPerunTemplate jdbc, String state, String createdAt) throws InternalErrorException {
+		int id = Utils.getNewId(jdbc, "APPLICATION_ID_SEQ");
+		jdbc.update("insert into application(id,vo_id,apptype,state,created_at,created_by,modified_at,modified_by) values (?,?,?,?,?,?,?,?)",
+				id, vo.getId(), AppType.INITIAL.toString(), state, Timestamp.valueOf(createdAt), "perunTests",
+				Timestamp.valueOf(createdAt), "perunTests");
+		return id;
+	}
+
 	@Test
 	@Transactional
 	public void createVOformIntegrationTest() throws PerunException, PrivilegeException, InternalErrorException {
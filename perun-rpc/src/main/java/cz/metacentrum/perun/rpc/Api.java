@@ -9,6 +9,12 @@ import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -16,6 +22,7 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 
 import cz.metacentrum.perun.rpc.serializer.JsonSerializerJSONSIMPLE;
 import cz.metacentrum.perun.core.api.PerunClient;
@@ -66,10 +73,64 @@ public class Api extends HttpServlet {
 	private final static String VOOTMANAGER = "vootManager";
 	private final static String OIDCMANAGER = "oidcManager";
 	private final static int timeToLiveWhenDone = 60 * 1000; // in milisec, if requests is done more than this time, remove it from list
+	private final static String CALLERCACHESIZE = "perun.rpc.callerCache.size";
+	private final static String CALLERCACHETTL = "perun.rpc.callerCache.ttl";
+	private final static int DEFAULT_CALLER_CACHE_SIZE = 1000;
+	private final static int DEFAULT_CALLER_CACHE_TTL = 300; // in seconds
+	// headers which differ between requests of the same principal, they are not part of the ApiCaller cache key
+	private final static Set<String> REQUEST_HEADERS = new HashSet<String>(Arrays.asList("accept", "accept-charset",
+			"accept-encoding", "accept-language", "cache-control", "connection", "content-length", "content-type", "cookie",
+			"host", "keep-alive", "origin", "pragma", "referer", "te", "user-agent", "x-requested-with"));
+
+	private ApiCallerCache callerCache;
+	// done requests in order of their expiration, they are removed from pending requests of their sessions by sweeper
+	private final DelayQueue<DoneRequest> doneRequests = new DelayQueue<DoneRequest>();
+	private ScheduledExecutorService doneRequestsSweeper;
 
 	@Override
 	public void init() {
-		// we do not init anything
+		callerCache = new ApiCallerCache(getIntProperty(CALLERCACHESIZE, DEFAULT_CALLER_CACHE_SIZE),
+				getIntProperty(CALLERCACHETTL, DEFAULT_CALLER_CACHE_TTL) * 1000L);
+		doneRequestsSweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "perun-rpc-requests-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		doneRequestsSweeper.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				removeDoneRequests();
+			}
+		}, 10, 10, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		if (doneRequestsSweeper != null) doneRequestsSweeper.shutdownNow();
+	}
+
+	private static int getIntProperty(String name, int defaultValue) {
+		try {
+			return Integer.parseInt(BeansUtils.getPropertyFromConfiguration(name).trim());
+		} catch (InternalErrorException e) {
+			return defaultValue;
+		} catch (NumberFormatException e) {
+			log.warn("Property {} is not a number, default {} is used.", name, defaultValue);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Remove requests, which are done for more than timeToLiveWhenDone, from pending requests of their sessions.
+	 */
+	private void removeDoneRequests() {
+		DoneRequest done;
+		while ((done = doneRequests.poll()) != null) {
+			done.pendingRequests.remove(done.callbackName, done.request);
+		}
 	}
 
 	protected PerunPrincipal setupPerunPrincipal(HttpServletRequest req) throws InternalErrorException, RpcException, UserNotExistsException {
@@ -339,24 +400,20 @@ public class Api extends HttpServlet {
 		String method = "N/A";
 		boolean isJsonp = false;
 		PerunRequest perunRequest = null;
-		ApiCaller caller;
+		ApiCaller caller = null;
 		String callbackName = req.getParameter("callback");
 
 		long timeStart = System.currentTimeMillis();
-		caller = (ApiCaller) req.getSession(true).getAttribute(APICALLER);
 
 		OutputStream out = resp.getOutputStream();
 
-		// init pending request in HTTP session
-		if (req.getSession().getAttribute(PERUNREQUESTS) == null) {
-			req.getSession().setAttribute(PERUNREQUESTS, new ConcurrentSkipListMap<String, PerunRequest>());
-		}
-
 		// store pending requests locally, because accessing it from session object after response is written would cause IllegalStateException
-		ConcurrentSkipListMap<String, PerunRequest> pendingRequests = ((ConcurrentSkipListMap<String, PerunRequest>)req.getSession().getAttribute(PERUNREQUESTS));
+		// HTTP session is created only when pending requests are needed, clients without cookies would get new session on every call
+		ConcurrentSkipListMap<String, PerunRequest> pendingRequests = null;
 
 		// Check if it is request for list of pending operations.
 		if (req.getPathInfo().equals("/jsonp/" + PERUNREQUESTSURL)) {
+			pendingRequests = getPendingRequests(req.getSession(true));
 			// name used to identify pending request
 			String callbackId = req.getParameter("callbackId");
 			JsonSerializerJSONP serializer = new JsonSerializerJSONP(out, req, resp);
@@ -417,24 +474,12 @@ public class Api extends HttpServlet {
 				des = selectDeserializer(fcm[0], req);
 			}
 
-			// We have new request, so do the whole auth/authz stuff
-			if (caller == null) {
-				caller = new ApiCaller(getServletContext(), setupPerunPrincipal(req, des), setupPerunClient(req));
-				// Store the current session
-				req.getSession(true).setAttribute(APICALLER, caller);
-			} else if (!Objects.equals(caller.getSession().getPerunPrincipal().getExtSourceName(), this.getExtSourceName(req, des))) {
-				// If the user is coming from the URL protected by different authN mechanism, destroy and create session again
-				caller = new ApiCaller(getServletContext(), setupPerunPrincipal(req, des), setupPerunClient(req));
-				req.getSession(true).setAttribute(APICALLER, caller);
-			} else if (!Objects.equals(caller.getSession().getPerunPrincipal().getActor(), this.getActor(req, des)) &&
-					!caller.getSession().getPerunPrincipal().getExtSourceName().equals(ExtSourcesManager.EXTSOURCE_NAME_LOCAL)) {
-				// prevent cookie stealing (if remote user changed, rebuild session)
-				caller = new ApiCaller(getServletContext(), setupPerunPrincipal(req, des), setupPerunClient(req));
-				req.getSession(true).setAttribute(APICALLER, caller);
-			}
+			// Get cached caller or do the whole auth/authz stuff
+			caller = getApiCaller(req, des);
 
 			// Does user want to logout from perun?
 			if("utils".equals(manager) && "logout".equals(method)) {
+				callerCache.remove(caller);
 				if (req.getSession(false) != null) {
 					req.getSession().removeAttribute(APICALLER);
 
@@ -526,6 +571,7 @@ public class Api extends HttpServlet {
 
 				// Add perunRequest into the queue of the requests for POST only
 				if(!isGet && !isPut) {
+					pendingRequests = getPendingRequests(req.getSession(true));
 					pendingRequests.put(callbackName, perunRequest);
 				}
 
@@ -588,24 +634,105 @@ public class Api extends HttpServlet {
 				perunRequest.setEndTime(System.currentTimeMillis());
 				if(result instanceof Exception) perunRequest.setResult(result);
 				perunRequest.setEndTime(System.currentTimeMillis());
-			}
-			//Check all resolved requests and remove them if they are old than timeToLiveWhenDone
-			Iterator<String> iterator = pendingRequests.keySet().iterator();
-			while (iterator.hasNext()) {
-				String key = iterator.next();
-				PerunRequest value = pendingRequests.get(key);
-				if (value != null) {
-					if(value.getEndTime()<0) continue;
-					if(System.currentTimeMillis() - value.getEndTime() > timeToLiveWhenDone) {
-						pendingRequests.remove(key);
-					}
+				//resolved request is removed by sweeper when it is older than timeToLiveWhenDone
+				if (pendingRequests != null) {
+					doneRequests.add(new DoneRequest(pendingRequests, callbackName, perunRequest, perunRequest.getEndTime() + timeToLiveWhenDone));
 				}
 			}
 		}
 
 		out.close();
 
-		log.debug("Method {}.{} called by {} from {}, duration {} ms.", new Object[] {manager, method, caller.getSession().getPerunPrincipal().getActor(), caller.getSession().getPerunPrincipal().getExtSourceName(), (System.currentTimeMillis()-timeStart)});
+		if (caller != null) log.debug("Method {}.{} called by {} from {}, duration {} ms.", new Object[] {manager, method, caller.getSession().getPerunPrincipal().getActor(), caller.getSession().getPerunPrincipal().getExtSourceName(), (System.currentTimeMillis()-timeStart)});
+	}
+
+	/**
+	 * Get ApiCaller of the request from the cache or create a new one.
+	 * ApiCaller of LOCAL ext source is kept only in HTTP session, because its actor is generated on the fly.
+	 */
+	private ApiCaller getApiCaller(HttpServletRequest req, Deserializer des) throws PerunException {
+		if (req.getAttribute("EXTSOURCE") != null && ExtSourcesManager.EXTSOURCE_NAME_LOCAL.equals(getExtSourceName(req, des))) {
+			HttpSession session = req.getSession(true);
+			ApiCaller caller = (ApiCaller) session.getAttribute(APICALLER);
+			if (caller == null || !ExtSourcesManager.EXTSOURCE_NAME_LOCAL.equals(caller.getSession().getPerunPrincipal().getExtSourceName())) {
+				caller = new ApiCaller(getServletContext(), setupPerunPrincipal(req, des), setupPerunClient(req));
+				session.setAttribute(APICALLER, caller);
+			}
+			return caller;
+		}
+
+		PerunClient client = setupPerunClient(req);
+		// key consists of all values used to set up the principal (including LoA and additional information from headers)
+		String key = ApiCallerCache.getKey(req.getHeader("Shib-Identity-Provider"), req.getHeader("OIDC_CLAIM_sub"),
+				req.getHeader("OIDC_CLAIM_extSourceName"), req.getHeader("OIDC_CLAIM_extSourceType"),
+				req.getHeader("OIDC_CLAIM_extSourceLoa"), req.getAttribute("EXTSOURCE"), req.getAttribute("EXTSOURCETYPE"),
+				req.getAttribute("EXTSOURCELOA"), req.getRemoteUser(), req.getAttribute("ENV_REMOTE_USER"),
+				req.getAttribute("SSL_CLIENT_VERIFY"), req.getAttribute("SSL_CLIENT_S_DN"), req.getAttribute("SSL_CLIENT_I_DN"),
+				req.getAttribute("SSL_CLIENT_CERT"), des.contains("delegatedLogin") ? des.readString("delegatedLogin") : null,
+				des.contains("delegatedExtSourceName") ? des.readString("delegatedExtSourceName") : null,
+				des.contains("delegatedExtSourceType") ? des.readString("delegatedExtSourceType") : null,
+				getPrincipalHeaders(req), client.getType(), client.getId(), client.getScopes());
+		ApiCaller caller = callerCache.get(key);
+		if (caller == null) {
+			caller = new ApiCaller(getServletContext(), setupPerunPrincipal(req, des), client);
+			callerCache.put(key, caller);
+		}
+		return caller;
+	}
+
+	/**
+	 * Get headers, which are stored into additional information of the principal (e.g. "loa" or attributes
+	 * released by identity provider). Headers specific for the single request (e.g. content length) are skipped.
+	 *
+	 * @return sorted header names with values
+	 */
+	private static Map<String, String> getPrincipalHeaders(HttpServletRequest req) {
+		Map<String, String> headers = new TreeMap<String, String>();
+		for (Enumeration<String> headerNames = req.getHeaderNames(); headerNames.hasMoreElements();) {
+			String headerName = headerNames.nextElement();
+			if (!REQUEST_HEADERS.contains(headerName.toLowerCase())) {
+				headers.put(headerName.toLowerCase(), req.getHeader(headerName));
+			}
+		}
+		return headers;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ConcurrentSkipListMap<String, PerunRequest> getPendingRequests(HttpSession session) {
+		ConcurrentSkipListMap<String, PerunRequest> pendingRequests = (ConcurrentSkipListMap<String, PerunRequest>) session.getAttribute(PERUNREQUESTS);
+		if (pendingRequests == null) {
+			pendingRequests = new ConcurrentSkipListMap<String, PerunRequest>();
+			session.setAttribute(PERUNREQUESTS, pendingRequests);
+		}
+		return pendingRequests;
+	}
+
+	/**
+	 * Done request waiting in the queue for its removal from pending requests.
+	 */
+	private static class DoneRequest implements Delayed {
+		private final ConcurrentSkipListMap<String, PerunRequest> pendingRequests;
+		private final String callbackName;
+		private final PerunRequest request;
+		private final long expiration;
+
+		DoneRequest(ConcurrentSkipListMap<String, PerunRequest> pendingRequests, String callbackName, PerunRequest request, long expiration) {
+			this.pendingRequests = pendingRequests;
+			this.callbackName = callbackName;
+			this.request = request;
+			this.expiration = expiration;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(expiration - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			long other = ((DoneRequest) o).expiration;
+			return expiration < other ? -1 : (expiration == other ? 0 : 1);
+		}
 	}
 
 	private Serializer selectSerializer(String format, OutputStream out, HttpServletRequest req, HttpServletResponse resp) throws IOException, RpcException {
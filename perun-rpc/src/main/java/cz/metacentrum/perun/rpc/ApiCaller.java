@@ -430,18 +430,24 @@ public class ApiCaller {
 		return session;
 	}
 
-	private boolean stateChanging = true;
+	// ApiCaller can be shared by concurrent requests of the same principal, so the flag is kept per request thread
+	private final ThreadLocal<Boolean> stateChanging = new ThreadLocal<Boolean>() {
+		@Override
+		protected Boolean initialValue() {
+			return true;
+		}
+	};
 
 	public boolean isStateChanging() {
-		return stateChanging;
+		return stateChanging.get();
 	}
 
 	public void setStateChanging(boolean stateChanging) {
-		this.stateChanging = stateChanging;
+		this.stateChanging.set(stateChanging);
 	}
 
 	public void stateChangingCheck() throws RpcException {
-		if (!stateChanging) {
+		if (!isStateChanging()) {
 			throw new RpcException(RpcException.Type.STATE_CHANGING_CALL);
 		}
 	}
@@ -0,0 +1,101 @@
+package cz.metacentrum.perun.rpc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of ApiCallers (authenticated principals) shared by all HTTP sessions.
+ * <p>
+ * ApiCaller is cached by values setting up the principal (including LoA and additional information) and by client,
+ * so clients which doesn't keep cookies (scripts, daemons) don't create new ApiCaller and don't refresh
+ * their authz on every call. Each ApiCaller is used at most for time to live since its creation,
+ * so changes of roles of the principal are picked up at the latest after this time.
+ */
+public class ApiCallerCache {
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final Map<String, Entry> callers;
+
+	/**
+	 * @param maxSize maximal number of cached ApiCallers, least recently used are removed first
+	 * @param timeToLive time in milliseconds, how long can be ApiCaller used since its creation
+	 */
+	public ApiCallerCache(final int maxSize, long timeToLive) {
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.callers = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Create key of cached ApiCaller from all values identifying the principal and client of the request.
+	 *
+	 * @param parts values of the request (null allowed)
+	 * @return key of ApiCaller
+	 */
+	public static String getKey(Object... parts) {
+		StringBuilder key = new StringBuilder();
+		for (Object part : parts) {
+			key.append(part).append('\n');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @param key key of ApiCaller
+	 * @return cached ApiCaller or null if not present or expired
+	 */
+	public synchronized ApiCaller get(String key) {
+		Entry entry = callers.get(key);
+		if (entry == null) return null;
+		if (System.currentTimeMillis() - entry.created > timeToLive) {
+			callers.remove(key);
+			return null;
+		}
+		return entry.caller;
+	}
+
+	public synchronized void put(String key, ApiCaller caller) {
+		if (maxSize <= 0) return;
+		callers.put(key, new Entry(caller, System.currentTimeMillis()));
+	}
+
+	/**
+	 * Remove all ApiCallers of the actor, e.g. on logout.
+	 *
+	 * @param caller ApiCaller to remove with all others of the same actor and ext source
+	 */
+	public synchronized void remove(ApiCaller caller) {
+		String actor = caller.getSession().getPerunPrincipal().getActor();
+		String extSourceName = caller.getSession().getPerunPrincipal().getExtSourceName();
+		Iterator<Entry> iterator = callers.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.caller == caller || (actor.equals(entry.caller.getSession().getPerunPrincipal().getActor()) &&
+					extSourceName.equals(entry.caller.getSession().getPerunPrincipal().getExtSourceName()))) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return callers.size();
+	}
+
+	private static class Entry {
+		private final ApiCaller caller;
+		private final long created;
+
+		Entry(ApiCaller caller, long created) {
+			this.caller = caller;
+			this.created = created;
+		}
+	}
+
+}
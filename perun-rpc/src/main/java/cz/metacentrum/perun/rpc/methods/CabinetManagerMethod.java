@@ -570,6 +570,17 @@ public enum CabinetManagerMethod implements ManagerMethod {
 			ac.getCabinetManager().recalculateThanksAttribute(ac.getSession());
 			return null;
 		}
+	},
+
+	/*#
+		* Recalculates "priorityCoeficient" attribute (rank) for
+		* all users who reported any publication
+		*/
+	recalculateRanks {
+		public Object call(ApiCaller ac, Deserializer parms) throws PerunException, CabinetException {
+			ac.getCabinetManager().recalculateRanks(ac.getSession());
+			return null;
+		}
 	};
 
 }
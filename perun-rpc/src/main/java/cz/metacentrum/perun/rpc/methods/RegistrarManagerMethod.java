@@ -448,6 +448,58 @@ public enum RegistrarManagerMethod implements ManagerMethod {
 
 	},
 
+	/*#
+	 * Gets first page of applications for a given VO.
+	 *
+	 * @param vo int VO <code>id</code>
+	 * @return ApplicationsPage Page of applications with total count
+	 */
+	/*#
+	 * Gets page of applications for a given VO filtered by query.
+	 * To get next page, pass nextCreatedAt and nextId from previous page
+	 * as lastCreatedAt and lastId of the query.
+	 *
+	 * @param vo int VO <code>id</code>
+	 * @param query ApplicationsPageQuery Query with pageSize, states, dateFrom, dateTo (yyyy-MM-dd), groupId, userId, lastCreatedAt and lastId
+	 * @return ApplicationsPage Page of applications with total count
+	 */
+	/*#
+	 * Gets first page of applications for a given Group.
+	 *
+	 * @param group int Group <code>id</code>
+	 * @return ApplicationsPage Page of applications with total count
+	 */
+	/*#
+	 * Gets page of applications for a given Group filtered by query.
+	 * To get next page, pass nextCreatedAt and nextId from previous page
+	 * as lastCreatedAt and lastId of the query.
+	 *
+	 * @param group int Group <code>id</code>
+	 * @param query ApplicationsPageQuery Query with pageSize, states, dateFrom, dateTo (yyyy-MM-dd), userId, lastCreatedAt and lastId
+	 * @return ApplicationsPage Page of applications with total count
+	 */
+	getApplicationsPage {
+
+		@Override
+		public ApplicationsPage call(ApiCaller ac, Deserializer parms) throws PerunException {
+
+			ApplicationsPageQuery query = null;
+			if (parms.contains("query")) {
+				query = parms.read("query", ApplicationsPageQuery.class);
+			}
+
+			if (parms.contains("vo")) {
+				return ac.getRegistrarManager().getApplicationsPageForVo(ac.getSession(), ac.getVoById(parms.readInt("vo")), query);
+			} else if (parms.contains("group")) {
+				return ac.getRegistrarManager().getApplicationsPageForGroup(ac.getSession(), ac.getGroupById(parms.readInt("group")), query);
+			} else {
+				throw new RpcException(RpcException.Type.MISSING_VALUE, "vo or group");
+			}
+
+		}
+
+	},
+
 	/*#
 	 * Gets all applications for the current user
 	 * based on authz and internal user ID.
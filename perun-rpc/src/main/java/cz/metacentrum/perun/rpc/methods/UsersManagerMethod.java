@@ -297,11 +297,25 @@ public enum UsersManagerMethod implements ManagerMethod {
 		 * @param attrNames List<String> list of attributes name
 		 * @return List<RichUser> list of RichUsers
 		 */
+	/*#
+		 * Returns list of RichUsers with attributes who matches the searchString.
+		 * Users are ordered by relevance and only first maxResults of them are returned.
+		 *
+		 * @param searchString String searched string
+		 * @param attrNames List<String> list of attributes name
+		 * @param maxResults int maximal number of returned users
+		 * @return List<RichUser> list of RichUsers
+		 */
 	findRichUsersWithAttributes {
 		@Override
 		public List<RichUser> call(ApiCaller ac, Deserializer parms) throws PerunException {
 
-			if (parms.contains("attrsNames")) {
+			if (parms.contains("maxResults")) {
+				return ac.getUsersManager().findRichUsersWithAttributes(ac.getSession(),
+						parms.readString("searchString"),
+						parms.contains("attrsNames") ? parms.readList("attrsNames", String.class) : null,
+						parms.readInt("maxResults"));
+			} else if (parms.contains("attrsNames")) {
 				return ac.getUsersManager().findRichUsersWithAttributes(ac.getSession(),
 						parms.readString("searchString"),
 						parms.readList("attrsNames", String.class));
@@ -44,6 +44,14 @@ public interface TaskDao {
 
 	void updateTask(Task task);
 
+	/**
+	 * Update all passed tasks in one batch.
+	 *
+	 * @param tasks tasks to update
+	 * @return tasks, which were not found in database (nothing was updated)
+	 */
+	List<Task> updateTasks(List<Task> tasks);
+
 	boolean isThereSuchTask(ExecService execService, Facility facility);
 
 	void removeTask(ExecService execService, Facility facility);
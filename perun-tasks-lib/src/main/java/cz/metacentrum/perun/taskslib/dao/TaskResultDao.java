@@ -55,6 +55,16 @@ public interface TaskResultDao {
 
 	int insertNewTaskResult(TaskResult taskResult, int engineID) throws InternalErrorException;
 
+	/**
+	 * Insert TaskResults reported by engine in one batch.
+	 *
+	 * @param taskResults results to store
+	 * @param engineID ID of engine, which reported results
+	 * @return number of inserted TaskResults
+	 * @throws InternalErrorException
+	 */
+	int insertNewTaskResults(List<TaskResult> taskResults, int engineID) throws InternalErrorException;
+
 	List<TaskResult> getTaskResults(int engineID);
 
 	TaskResult getTaskResultById(int taskResultId, int engineID);
@@ -63,10 +73,26 @@ public interface TaskResultDao {
 
 	int clearAll(int engineID);
 
+	/**
+	 * Clear TaskResults of engine older than numDays, newest result of task on each destination is kept.
+	 *
+	 * @param engineID ID of engine
+	 * @param numDays age of results in days
+	 * @return number of deleted TaskResults
+	 * @throws InternalErrorException
+	 */
 	int clearOld(int engineID, int numDays) throws InternalErrorException;
 
 	List<TaskResult> getTaskResultsByTask(int taskId, int engineID);
 
+	/**
+	 * List only newest TaskResult of task for each destination.
+	 *
+	 * @param taskId
+	 * @return newest TaskResults
+	 */
+	List<TaskResult> getTaskResultsByTaskOnlyNewest(int taskId);
+
 	/**
 	 * Returns list of tasks results for defined destinations (string representation).
 	 *
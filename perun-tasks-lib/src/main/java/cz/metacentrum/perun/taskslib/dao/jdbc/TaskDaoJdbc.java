@@ -373,6 +373,30 @@ public class TaskDaoJdbc extends JdbcDaoSupport implements TaskDao {
 				task.getFacilityId(), scheduled, task.getRecurrence(), task.getDelay(), task.getStatus().toString(), startTime, endTime, task.getId());
 	}
 
+	@Override
+	public List<Task> updateTasks(List<Task> tasks) {
+		List<Task> missing = new ArrayList<Task>();
+		if (tasks.isEmpty()) return missing;
+		SimpleDateFormat formatter = getDateFormatter();
+		List<Object[]> batchArgs = new ArrayList<Object[]>(tasks.size());
+		for (Task task : tasks) {
+			batchArgs.add(new Object[] { task.getExecServiceId(), task.getFacilityId(),
+					task.getSchedule() == null ? null : formatter.format(task.getSchedule()),
+					task.getRecurrence(), task.getDelay(), task.getStatus().toString(),
+					task.getStartTime() == null ? null : formatter.format(task.getStartTime()),
+					task.getEndTime() == null ? null : formatter.format(task.getEndTime()),
+					task.getId() });
+		}
+		int[] counts = this.getJdbcTemplate().batchUpdate(
+				"update tasks set exec_service_id = ?, facility_id = ?, schedule = " + Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'") + ", recurrence = ?, delay = ?, "
+				+ "status = ?, start_time = " + Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'") + ", end_time = " + Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'") + " where id = ?", batchArgs);
+		for (int i = 0; i < counts.length; i++) {
+			// drivers may report unknown count (negative value), such task is considered stored
+			if (counts[i] == 0) missing.add(tasks.get(i));
+		}
+		return missing;
+	}
+
 	@Override
 	public void updateTaskEngine(Task task, int engineID) throws InternalErrorException {
 		try {
@@ -9,12 +9,15 @@ import cz.metacentrum.perun.taskslib.model.TaskResult;
 import cz.metacentrum.perun.taskslib.model.TaskResult.TaskResultStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -24,6 +27,9 @@ import java.util.List;
 @Transactional
 public class TaskResultDaoJdbc extends JdbcDaoSupport implements TaskResultDao {
 	private static final Logger log = LoggerFactory.getLogger(TaskResultDaoJdbc.class);
+
+	// number of IDs checked by one delete statement of clearOld()
+	private static final int CLEAR_CHUNK_SIZE = 1000;
 	private NamedParameterJdbcTemplate  namedParameterJdbcTemplate;
 
 	public final static String taskResultMappingSelectQuery = " tasks_results.id as tasks_results_id, tasks_results.task_id as tasks_results_task_id," +
@@ -78,12 +84,8 @@ public class TaskResultDaoJdbc extends JdbcDaoSupport implements TaskResultDao {
 	public int insertNewTaskResult(TaskResult taskResult, int engineID) throws InternalErrorException {
 		int newTaskResultId = Utils.getNewId(this.getJdbcTemplate(), "tasks_results_id_seq");
 
-		// There was probably an issue with too long a String for VARCHAR2 datatype http://goo.gl/caVxp.
-		// Solution might be to shorten the message according to VARCHAR2: http://goo.gl/WrlYm
-		String standardMessage = null;
-		String errorMessage = null;
-		if(taskResult.getStandardMessage() != null) standardMessage = taskResult.getStandardMessage().length() < 4000 ? taskResult.getStandardMessage() : taskResult.getStandardMessage().substring(0, 3998);
-		if(taskResult.getErrorMessage()    != null) errorMessage    = taskResult.getErrorMessage().length() < 4000 ? taskResult.getErrorMessage() : taskResult.getErrorMessage().substring(0, 3998);
+		String standardMessage = shortenMessage(taskResult.getStandardMessage());
+		String errorMessage = shortenMessage(taskResult.getErrorMessage());
 
 		this.getJdbcTemplate()
 			.update(
@@ -109,6 +111,57 @@ public class TaskResultDaoJdbc extends JdbcDaoSupport implements TaskResultDao {
 		return newTaskResultId;
 	}
 
+	@Override
+	public int insertNewTaskResults(final List<TaskResult> taskResults, final int engineID) throws InternalErrorException {
+		if (taskResults.isEmpty()) return 0;
+		try {
+			// IDs are taken from sequence directly by the insert, so there is no extra query per result
+			this.getJdbcTemplate().batchUpdate(
+					"insert into tasks_results(" +
+					"id, " +
+					"task_id, " +
+					"destination_id, " +
+					"status, " +
+					"err_message, " +
+					"std_message, " +
+					"return_code, " +
+					"timestamp, " +
+					"engine_id) values (" + Compatibility.getSequenceNextval("tasks_results_id_seq") + ",?,?,?,?,?,?, " +
+					Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'") + " ,?)",
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							TaskResult taskResult = taskResults.get(i);
+							ps.setInt(1, taskResult.getTaskId());
+							ps.setInt(2, taskResult.getDestinationId());
+							ps.setString(3, taskResult.getStatus().toString());
+							ps.setString(4, shortenMessage(taskResult.getErrorMessage()));
+							ps.setString(5, shortenMessage(taskResult.getStandardMessage()));
+							ps.setInt(6, taskResult.getReturnCode());
+							ps.setString(7, TaskDaoJdbc.getDateFormatter().format(taskResult.getTimestamp()));
+							ps.setInt(8, engineID);
+						}
+
+						@Override
+						public int getBatchSize() {
+							return taskResults.size();
+						}
+					});
+			return taskResults.size();
+		} catch (RuntimeException e) {
+			throw new InternalErrorException(e);
+		}
+	}
+
+	/**
+	 * There was probably an issue with too long a String for VARCHAR2 datatype http://goo.gl/caVxp.
+	 * Solution might be to shorten the message according to VARCHAR2: http://goo.gl/WrlYm
+	 */
+	private static String shortenMessage(String message) {
+		if (message == null) return null;
+		return message.length() < 4000 ? message : message.substring(0, 3998);
+	}
+
 	@Override
 	public List<TaskResult> getTaskResults(int engineID) {
 		List<TaskResult> taskResults = this.getJdbcTemplate().query(
@@ -186,7 +239,14 @@ public class TaskResultDaoJdbc extends JdbcDaoSupport implements TaskResultDao {
 		return this.getJdbcTemplate().update("delete from tasks_results");
 	}
 
+	/**
+	 * Results are deleted in chunks of CLEAR_CHUNK_SIZE IDs, each chunk by its own statement. When called
+	 * out of transaction, each chunk is committed separately, so the table is never locked for long.
+	 * Newest result of task on each destination is always kept, newer results are found by index
+	 * on (task_id, destination_id, timestamp).
+	 */
 	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public int clearOld(int engineID, int numDays) throws InternalErrorException {
 
 		// create sql toDate() with numDay substracted from now
@@ -194,17 +254,43 @@ public class TaskResultDaoJdbc extends JdbcDaoSupport implements TaskResultDao {
 		date.add(Calendar.DAY_OF_MONTH, -numDays);
 		String compareDate = TaskDaoJdbc.getDateFormatter().format(date.getTime());
 
-		return this.getJdbcTemplate().update("delete from tasks_results where engine_id = ? and " +
-				"id in (" +
-				"select otr.id from tasks_results otr " +
-				"         left join ( " +
-				"	select tr.destination_id, tr.task_id, max(tr.timestamp) as maxtimestamp " +
-				"	from tasks_results tr " +
-				"		inner join tasks t on tr.task_id = t.id " +
-				"		group by tr.destination_id,tr.task_id " +
-				"   )  tmp on otr.task_id = tmp.task_id and otr.destination_id = tmp.destination_id " +
-				"where otr.timestamp < maxtimestamp and otr.timestamp < "+Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'")+" )",
-				engineID, compareDate);
+		try {
+			Integer minId = this.getJdbcTemplate().queryForObject("select min(id) from tasks_results where engine_id = ?",
+					Integer.class, engineID);
+			Integer maxId = this.getJdbcTemplate().queryForObject("select max(id) from tasks_results where engine_id = ? and " +
+					"timestamp < " + Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'"), Integer.class, engineID, compareDate);
+			if (minId == null || maxId == null) return 0;
+
+			int deleted = 0;
+			for (long from = minId; from <= maxId; from += CLEAR_CHUNK_SIZE) {
+				deleted += this.getJdbcTemplate().update("delete from tasks_results where engine_id = ? and id >= ? and id < ? and " +
+						"timestamp < " + Compatibility.toDate("?","'DD-MM-YYYY HH24:MI:SS'") + " and " +
+						"exists (select 1 from tasks_results newer where newer.task_id = tasks_results.task_id and " +
+						"newer.destination_id = tasks_results.destination_id and newer.timestamp > tasks_results.timestamp)",
+						engineID, from, Math.min(from + CLEAR_CHUNK_SIZE, (long) maxId + 1), compareDate);
+			}
+			return deleted;
+		} catch (RuntimeException e) {
+			throw new InternalErrorException(e);
+		}
+	}
+
+	@Override
+	public List<TaskResult> getTaskResultsByTaskOnlyNewest(int taskId) {
+		List<TaskResult> taskResults = this.getJdbcTemplate().query(
+				"select " + taskResultMappingSelectQuery + ", " + ServicesManagerImpl.destinationMappingSelectQuery + ", " +
+				ServicesManagerImpl.serviceMappingSelectQuery +
+				" from tasks_results left join destinations on tasks_results.destination_id = destinations.id" +
+				" left join tasks on tasks.id = tasks_results.task_id " +
+				" left join exec_services on exec_services.id = tasks.exec_service_id" +
+				" left join services on services.id = exec_services.service_id" +
+				" where tasks_results.id in (select max(id) from tasks_results where task_id = ? group by destination_id)",
+				new Integer[] { taskId }, TASKRESULT_ROWMAPPER);
+		if (taskResults != null) {
+			return taskResults;
+		} else {
+			return new ArrayList<TaskResult>();
+		}
 	}
 
 	@Override
@@ -0,0 +1,229 @@
+package cz.metacentrum.perun.taskslib.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Service;
+import cz.metacentrum.perun.taskslib.model.TaskResult;
+
+/**
+ * Binary format of messages sent by engine to the system queue of dispatcher.
+ *
+ * One message (JMS BytesMessage) carries batch of task status updates and task results
+ * of one engine. All numbers are big-endian, strings are length-prefixed UTF-8:
+ *
+ * <pre>
+ * message      := version:byte engineId:int count:int record{count}
+ * record       := TASK_STATUS taskStatus | TASK_RESULT taskResult
+ * taskStatus   := taskId:int status:string count:int destination{count}
+ * destination  := id:int destination:string type:string propagationType:string
+ * taskResult   := id:int taskId:int destinationId:int status:string errorMessage:string
+ *                 standardMessage:string returnCode:int timestamp:long hasService:boolean
+ *                 [serviceId:int serviceName:string]
+ * string       := length:int (-1 for null) bytes{length}
+ * timestamp    := milliseconds or Long.MIN_VALUE for null
+ * </pre>
+ *
+ * Messages of unknown version are rejected. Register and goodbye messages of engine
+ * stay in the old text format.
+ */
+public class SystemMessageCodec {
+
+	public static final byte VERSION = 1;
+
+	public static final byte TASK_STATUS = 1;
+	public static final byte TASK_RESULT = 2;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private SystemMessageCodec() {
+	}
+
+	/**
+	 * Receives records of decoded message in the order they were written.
+	 */
+	public interface Handler {
+
+		/**
+		 * @param engineId ID of engine, which sent the message
+		 * @param taskId ID of finished task
+		 * @param status status of task (DONE or ERROR)
+		 * @param destinations remaining (failed) destinations of the task
+		 */
+		void onTaskStatus(int engineId, int taskId, String status, List<Destination> destinations);
+
+		/**
+		 * @param engineId ID of engine, which sent the message
+		 * @param taskResult result of task on one destination
+		 */
+		void onTaskResult(int engineId, TaskResult taskResult);
+
+	}
+
+	/**
+	 * Builds one message from records.
+	 */
+	public static class Writer {
+
+		private final int engineId;
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private int count = 0;
+
+		public Writer(int engineId) {
+			this.engineId = engineId;
+		}
+
+		public Writer addTaskStatus(int taskId, String status, List<Destination> destinations) {
+			try {
+				out.writeByte(TASK_STATUS);
+				out.writeInt(taskId);
+				writeString(out, status);
+				out.writeInt(destinations == null ? 0 : destinations.size());
+				if (destinations != null) {
+					for (Destination destination : destinations) {
+						out.writeInt(destination.getId());
+						writeString(out, destination.getDestination());
+						writeString(out, destination.getType());
+						writeString(out, destination.getPropagationType());
+					}
+				}
+			} catch (IOException e) {
+				// can't happen when writing to byte array
+				throw new IllegalStateException(e);
+			}
+			count++;
+			return this;
+		}
+
+		public Writer addTaskResult(TaskResult taskResult) {
+			try {
+				out.writeByte(TASK_RESULT);
+				out.writeInt(taskResult.getId());
+				out.writeInt(taskResult.getTaskId());
+				out.writeInt(taskResult.getDestinationId());
+				writeString(out, taskResult.getStatus() == null ? null : taskResult.getStatus().toString());
+				writeString(out, taskResult.getErrorMessage());
+				writeString(out, taskResult.getStandardMessage());
+				out.writeInt(taskResult.getReturnCode());
+				out.writeLong(taskResult.getTimestamp() == null ? Long.MIN_VALUE : taskResult.getTimestamp().getTime());
+				out.writeBoolean(taskResult.getService() != null);
+				if (taskResult.getService() != null) {
+					out.writeInt(taskResult.getService().getId());
+					writeString(out, taskResult.getService().getName());
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			count++;
+			return this;
+		}
+
+		/**
+		 * @return number of records in the message
+		 */
+		public int size() {
+			return count;
+		}
+
+		public byte[] toByteArray() {
+			ByteArrayOutputStream message = new ByteArrayOutputStream(9 + bytes.size());
+			DataOutputStream header = new DataOutputStream(message);
+			try {
+				header.writeByte(VERSION);
+				header.writeInt(engineId);
+				header.writeInt(count);
+				bytes.writeTo(message);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			return message.toByteArray();
+		}
+
+	}
+
+	/**
+	 * Decode message and pass its records to the handler.
+	 *
+	 * @param message binary message
+	 * @param handler receiver of records
+	 * @return number of decoded records
+	 * @throws IOException if message is truncated, has unknown version or contains unknown record
+	 */
+	public static int decode(byte[] message, Handler handler) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+		byte version = in.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version + " of system message");
+		}
+		int engineId = in.readInt();
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			byte type = in.readByte();
+			if (type == TASK_STATUS) {
+				int taskId = in.readInt();
+				String status = readString(in);
+				int destinationsCount = in.readInt();
+				List<Destination> destinations = new ArrayList<Destination>();
+				for (int j = 0; j < destinationsCount; j++) {
+					int id = in.readInt();
+					destinations.add(new Destination(id, readString(in), readString(in), readString(in)));
+				}
+				handler.onTaskStatus(engineId, taskId, status, destinations);
+			} else if (type == TASK_RESULT) {
+				TaskResult taskResult = new TaskResult();
+				taskResult.setId(in.readInt());
+				taskResult.setTaskId(in.readInt());
+				taskResult.setDestinationId(in.readInt());
+				String status = readString(in);
+				try {
+					taskResult.setStatus(status == null ? null : TaskResult.TaskResultStatus.valueOf(status));
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Unknown status " + status + " of task result", e);
+				}
+				taskResult.setErrorMessage(readString(in));
+				taskResult.setStandardMessage(readString(in));
+				taskResult.setReturnCode(in.readInt());
+				long timestamp = in.readLong();
+				taskResult.setTimestamp(timestamp == Long.MIN_VALUE ? null : new Date(timestamp));
+				if (in.readBoolean()) {
+					int serviceId = in.readInt();
+					taskResult.setService(new Service(serviceId, readString(in)));
+				}
+				handler.onTaskResult(engineId, taskResult);
+			} else {
+				throw new IOException("Unknown record type " + type + " in system message");
+			}
+		}
+		return count;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) return null;
+		// length is checked before allocation, so broken message can't exhaust memory
+		if (length > in.available()) throw new IOException("String longer than rest of system message");
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+
+}
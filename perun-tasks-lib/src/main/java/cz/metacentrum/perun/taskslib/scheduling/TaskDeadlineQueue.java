@@ -0,0 +1,109 @@
+package cz.metacentrum.perun.taskslib.scheduling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Queue of deadlines of tasks ordered by time.
+ *
+ * Each task has at most one deadline, setting new deadline replaces the previous one. Deadlines
+ * are kept in sorted set, so setting a deadline is O(log n) and polling due tasks costs
+ * only the number of due tasks, no matter how many tasks are waiting for the future.
+ */
+public class TaskDeadlineQueue {
+
+	private final TreeSet<Deadline> deadlines = new TreeSet<Deadline>();
+	private final Map<Integer, Deadline> deadlinesByTaskId = new HashMap<Integer, Deadline>();
+
+	/**
+	 * Set deadline of the task, previous deadline of the task is replaced.
+	 *
+	 * @param taskId ID of task
+	 * @param time deadline in milliseconds
+	 */
+	public synchronized void schedule(int taskId, long time) {
+		cancel(taskId);
+		Deadline deadline = new Deadline(taskId, time);
+		deadlines.add(deadline);
+		deadlinesByTaskId.put(taskId, deadline);
+	}
+
+	/**
+	 * Set deadline of the task only if it has no deadline yet.
+	 *
+	 * @param taskId ID of task
+	 * @param time deadline in milliseconds
+	 * @return true if deadline was set
+	 */
+	public synchronized boolean scheduleIfAbsent(int taskId, long time) {
+		if (deadlinesByTaskId.containsKey(taskId)) return false;
+		schedule(taskId, time);
+		return true;
+	}
+
+	/**
+	 * Remove deadline of the task.
+	 *
+	 * @param taskId ID of task
+	 */
+	public synchronized void cancel(int taskId) {
+		Deadline deadline = deadlinesByTaskId.remove(taskId);
+		if (deadline != null) deadlines.remove(deadline);
+	}
+
+	/**
+	 * Remove and return tasks with deadline not later than given time.
+	 *
+	 * @param time time in milliseconds
+	 * @return IDs of due tasks ordered by their deadlines
+	 */
+	public synchronized List<Integer> pollDue(long time) {
+		List<Integer> due = new ArrayList<Integer>();
+		while (!deadlines.isEmpty() && deadlines.first().time <= time) {
+			Deadline deadline = deadlines.pollFirst();
+			deadlinesByTaskId.remove(deadline.taskId);
+			due.add(deadline.taskId);
+		}
+		return due;
+	}
+
+	/**
+	 * @param taskId ID of task
+	 * @return deadline of the task in milliseconds or null if the task has no deadline
+	 */
+	public synchronized Long getDeadline(int taskId) {
+		Deadline deadline = deadlinesByTaskId.get(taskId);
+		return deadline == null ? null : deadline.time;
+	}
+
+	public synchronized int size() {
+		return deadlinesByTaskId.size();
+	}
+
+	public synchronized void clear() {
+		deadlines.clear();
+		deadlinesByTaskId.clear();
+	}
+
+	private static class Deadline implements Comparable<Deadline> {
+
+		private final int taskId;
+		private final long time;
+
+		private Deadline(int taskId, long time) {
+			this.taskId = taskId;
+			this.time = time;
+		}
+
+		@Override
+		public int compareTo(Deadline other) {
+			if (time != other.time) return time < other.time ? -1 : 1;
+			return taskId < other.taskId ? -1 : (taskId == other.taskId ? 0 : 1);
+		}
+
+	}
+
+}
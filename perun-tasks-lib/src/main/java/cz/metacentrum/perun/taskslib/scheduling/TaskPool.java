@@ -0,0 +1,278 @@
+package cz.metacentrum.perun.taskslib.scheduling;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cz.metacentrum.perun.taskslib.model.Task;
+import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
+
+/**
+ * Thread-safe in-memory store of Tasks shared by scheduling pools of engine and dispatcher.
+ *
+ * Tasks are indexed by ID, by (ExecService, Facility) pair and by status. All indexes are concurrent
+ * maps, so lookups and status listings don't take any lock and status transition of task is O(1).
+ * Changes of one task (add, remove, status transition) are serialized by one of striped locks
+ * chosen by task ID, so changes of different tasks don't block each other.
+ *
+ * Pool can also collect changed tasks to be persisted later in one batch (see markChanged()
+ * and drainChangedTasks()).
+ *
+ * Each task in the pool can have a deadline, when its owner should check it again (e.g. whether
+ * it is not stuck or whether it should be rescheduled). Added tasks and tasks with changed status
+ * are due immediately, so the owner can compute their real deadline (see pollDueTasks()).
+ *
+ * Owner of the pool holds its own data related to tasks (e.g. queue of engine) by task ID.
+ */
+public class TaskPool {
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final Object[] locks = new Object[LOCK_STRIPES];
+	// locks of (ExecService, Facility) pairs are separate, they are held while task locks are taken
+	private final Object[] pairLocks = new Object[LOCK_STRIPES];
+	private final ConcurrentMap<Integer, Task> tasksById = new ConcurrentHashMap<Integer, Task>();
+	private final ConcurrentMap<Long, Task> tasksByServiceAndFacility = new ConcurrentHashMap<Long, Task>();
+	private final Map<TaskStatus, ConcurrentMap<Integer, Task>> tasksByStatus = new EnumMap<TaskStatus, ConcurrentMap<Integer, Task>>(TaskStatus.class);
+	private final ConcurrentMap<Integer, Task> changedTasks = new ConcurrentHashMap<Integer, Task>();
+	private final TaskDeadlineQueue deadlines = new TaskDeadlineQueue();
+
+	public TaskPool() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+			pairLocks[i] = new Object();
+		}
+		// map is never modified after construction, so it can be read without locking
+		for (TaskStatus status : TaskStatus.values()) {
+			tasksByStatus.put(status, new ConcurrentHashMap<Integer, Task>());
+		}
+	}
+
+	/**
+	 * Add task to the pool. Task without status gets status NONE.
+	 *
+	 * @param task task with ID
+	 * @return false if task with the same ID is already in the pool
+	 */
+	public boolean add(Task task) {
+		synchronized (getLock(task.getId())) {
+			if (tasksById.containsKey(task.getId())) return false;
+			if (task.getStatus() == null) {
+				task.setStatus(TaskStatus.NONE);
+			}
+			tasksById.put(task.getId(), task);
+			tasksByServiceAndFacility.put(getKey(task.getExecServiceId(), task.getFacilityId()), task);
+			tasksByStatus.get(task.getStatus()).put(task.getId(), task);
+			deadlines.schedule(task.getId(), System.currentTimeMillis());
+			return true;
+		}
+	}
+
+	/**
+	 * Remove task from the pool.
+	 *
+	 * @param task
+	 * @return removed task or null if task was not in the pool
+	 */
+	public Task remove(Task task) {
+		synchronized (getLock(task.getId())) {
+			Task removed = tasksById.remove(task.getId());
+			if (removed == null) return null;
+			tasksByServiceAndFacility.remove(getKey(removed.getExecServiceId(), removed.getFacilityId()), removed);
+			// remove from all statuses, status could have been changed without the pool
+			for (ConcurrentMap<Integer, Task> tasks : tasksByStatus.values()) {
+				tasks.remove(removed.getId());
+			}
+			changedTasks.remove(removed.getId());
+			deadlines.cancel(removed.getId());
+			return removed;
+		}
+	}
+
+	/**
+	 * Set status of the task and move it to the index of new status. Task with changed
+	 * status is due immediately. Status is set also for tasks, which are not in the pool.
+	 *
+	 * @param task
+	 * @param status new status
+	 * @return true if status was changed
+	 */
+	public boolean setStatus(Task task, TaskStatus status) {
+		synchronized (getLock(task.getId())) {
+			TaskStatus old = task.getStatus();
+			task.setStatus(status);
+			if (status.equals(old)) return false;
+			if (old != null) {
+				tasksByStatus.get(old).remove(task.getId());
+			}
+			if (tasksById.get(task.getId()) == task) {
+				tasksByStatus.get(status).put(task.getId(), task);
+				deadlines.schedule(task.getId(), System.currentTimeMillis());
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Move task to the index of its current status, if it is listed under another status.
+	 *
+	 * @param task task from the pool
+	 * @return true if index was fixed
+	 */
+	public boolean reindex(Task task) {
+		synchronized (getLock(task.getId())) {
+			if (tasksById.get(task.getId()) != task) return false;
+			boolean fixed = false;
+			for (Map.Entry<TaskStatus, ConcurrentMap<Integer, Task>> entry : tasksByStatus.entrySet()) {
+				if (!entry.getKey().equals(task.getStatus()) && entry.getValue().remove(task.getId()) != null) {
+					fixed = true;
+				}
+			}
+			if (tasksByStatus.get(task.getStatus()).put(task.getId(), task) == null) {
+				fixed = true;
+			}
+			tasksByServiceAndFacility.putIfAbsent(getKey(task.getExecServiceId(), task.getFacilityId()), task);
+			if (fixed) {
+				deadlines.schedule(task.getId(), System.currentTimeMillis());
+			}
+			return fixed;
+		}
+	}
+
+	public Task get(int id) {
+		return tasksById.get(id);
+	}
+
+	public Task get(int execServiceId, int facilityId) {
+		return tasksByServiceAndFacility.get(getKey(execServiceId, facilityId));
+	}
+
+	/**
+	 * @param status
+	 * @return snapshot of tasks in the status
+	 */
+	public List<Task> getTasks(TaskStatus status) {
+		return new ArrayList<Task>(tasksByStatus.get(status).values());
+	}
+
+	/**
+	 * @return snapshot of all tasks in the pool
+	 */
+	public List<Task> getTasks() {
+		return new ArrayList<Task>(tasksById.values());
+	}
+
+	public int size() {
+		return tasksById.size();
+	}
+
+	public int size(TaskStatus status) {
+		return tasksByStatus.get(status).size();
+	}
+
+	public void clear() {
+		for (Task task : getTasks()) {
+			remove(task);
+		}
+	}
+
+	/**
+	 * Lock guarding creation of task for (ExecService, Facility) pair. Callers creating new task
+	 * hold it while checking, that there is no such task yet, and adding the new one.
+	 * Lock is not shared with locks of tasks, so methods of the pool can be called while holding it.
+	 *
+	 * @param execServiceId
+	 * @param facilityId
+	 * @return lock object
+	 */
+	public Object getLock(int execServiceId, int facilityId) {
+		return pairLocks[(getKey(execServiceId, facilityId).hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
+
+	/**
+	 * Remember task to be persisted by next drainChangedTasks(). Repeated changes
+	 * of the same task are persisted only once.
+	 *
+	 * @param task changed task
+	 */
+	public void markChanged(Task task) {
+		changedTasks.put(task.getId(), task);
+	}
+
+	/**
+	 * @return tasks changed since the last call, which are still in the pool
+	 */
+	public List<Task> drainChangedTasks() {
+		List<Task> tasks = new ArrayList<Task>();
+		for (Integer id : new ArrayList<Integer>(changedTasks.keySet())) {
+			Task task = changedTasks.remove(id);
+			if (task != null) tasks.add(task);
+		}
+		return tasks;
+	}
+
+	/**
+	 * Set time, when the task should be checked again. Previous deadline of the task is replaced.
+	 *
+	 * @param task task from the pool
+	 * @param time deadline in milliseconds
+	 */
+	public void setDeadline(Task task, long time) {
+		synchronized (getLock(task.getId())) {
+			if (tasksById.get(task.getId()) == task) {
+				deadlines.schedule(task.getId(), time);
+			}
+		}
+	}
+
+	/**
+	 * Set time, when the task should be checked again, only if the task has no deadline yet
+	 * (e.g. its status was not changed since it was returned by pollDueTasks()).
+	 *
+	 * @param task task from the pool
+	 * @param time deadline in milliseconds
+	 */
+	public void setDeadlineIfAbsent(Task task, long time) {
+		synchronized (getLock(task.getId())) {
+			if (tasksById.get(task.getId()) == task) {
+				deadlines.scheduleIfAbsent(task.getId(), time);
+			}
+		}
+	}
+
+	/**
+	 * @param task
+	 * @return deadline of the task in milliseconds or null if the task has no deadline
+	 */
+	public Long getDeadline(Task task) {
+		return deadlines.getDeadline(task.getId());
+	}
+
+	/**
+	 * Remove deadlines of tasks, which are due at given time, and return the tasks.
+	 * Owner must set new deadline of returned task, if it should be checked again.
+	 *
+	 * @param time time in milliseconds
+	 * @return due tasks ordered by their deadlines
+	 */
+	public List<Task> pollDueTasks(long time) {
+		List<Task> tasks = new ArrayList<Task>();
+		for (Integer id : deadlines.pollDue(time)) {
+			Task task = tasksById.get(id);
+			if (task != null) tasks.add(task);
+		}
+		return tasks;
+	}
+
+	private Object getLock(int hash) {
+		return locks[(hash & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
+
+	private static Long getKey(int execServiceId, int facilityId) {
+		return ((long) execServiceId << 32) | (facilityId & 0xffffffffL);
+	}
+
+}
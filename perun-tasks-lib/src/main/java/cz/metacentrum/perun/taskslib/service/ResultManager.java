@@ -27,6 +27,16 @@ public interface ResultManager {
 
 	int insertNewTaskResult(TaskResult taskResult, int engineID) throws InternalErrorException;
 
+	/**
+	 * Insert TaskResults reported by engine in one batch.
+	 *
+	 * @param taskResults results to store
+	 * @param engineID ID of engine, which reported results
+	 * @return number of inserted TaskResults
+	 * @throws InternalErrorException
+	 */
+	int insertNewTaskResults(List<TaskResult> taskResults, int engineID) throws InternalErrorException;
+
 	List<TaskResult> getTaskResults(int engineID);
 
 	TaskResult getTaskResultById(int taskResultId, int engineID);
@@ -47,6 +47,14 @@ public interface TaskManager {
 	void updateTask(Task task, int engineID);
 
 	void updateTask(Task task);
+
+	/**
+	 * Update all passed tasks in one batch.
+	 *
+	 * @param tasks tasks to update
+	 * @return tasks, which were not found in database (nothing was updated)
+	 */
+	List<Task> updateTasks(List<Task> tasks);
 	
 	void updateTaskEngine(Task task, int engineID) throws InternalErrorException;
 
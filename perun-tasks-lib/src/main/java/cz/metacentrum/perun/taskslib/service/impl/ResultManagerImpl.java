@@ -9,6 +9,7 @@ import cz.metacentrum.perun.taskslib.service.ResultManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import cz.metacentrum.perun.core.api.Facility;
@@ -59,6 +60,11 @@ public class ResultManagerImpl implements ResultManager {
 		return taskResultDao.insertNewTaskResult(taskResult, engineID);
 	}
 
+	@Override
+	public int insertNewTaskResults(List<TaskResult> taskResults, int engineID) throws InternalErrorException {
+		return taskResultDao.insertNewTaskResults(taskResults, engineID);
+	}
+
 	@Override
 	public List<TaskResult> getTaskResults(int engineID) {
 		return taskResultDao.getTaskResults(engineID);
@@ -80,6 +86,7 @@ public class ResultManagerImpl implements ResultManager {
 	}
 
 	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
 	public int clearOld(int engineID, int numDays) throws InternalErrorException {
 		return taskResultDao.clearOld(engineID, numDays);
 	}
@@ -109,6 +109,11 @@ public class TaskManagerImpl implements TaskManager {
 		taskDao.updateTask(task);
 	}
 
+	@Override
+	public List<Task> updateTasks(List<Task> tasks) {
+		return taskDao.updateTasks(tasks);
+	}
+
 	@Override
 	public void updateTaskEngine(Task task, int engineID) throws InternalErrorException {
 		taskDao.updateTaskEngine(task, engineID);
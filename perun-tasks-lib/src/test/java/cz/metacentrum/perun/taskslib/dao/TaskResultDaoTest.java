@@ -18,8 +18,10 @@ import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -251,6 +253,67 @@ public class TaskResultDaoTest {
 		assertEquals(uniqueTaskResult2, foundTaskResult6);
 
 	}
+	@Test
+	public void testInsertNewTaskResultsAndGetNewest() throws Exception {
+		System.out.println("TaskResultDao.insertNewTaskResults");
+
+		Service testService = servicesManager.createService(perunSession, new Service(0, "Test_service_batch_" + Long.toHexString(System.currentTimeMillis())));
+		Facility facility = facilitiesManager.createFacility(perunSession, new Facility(0, "Facility batch-" + Long.toHexString(System.currentTimeMillis())));
+
+		ExecService testExecService = new ExecService();
+		testExecService.setDefaultDelay(1);
+		testExecService.setDefaultRecurrence(1);
+		testExecService.setEnabled(true);
+		testExecService.setService(testService);
+		testExecService.setScript("serviceSend.bash");
+		testExecService.setExecServiceType(ExecService.ExecServiceType.SEND);
+		testExecService.setId(execServiceDao.insertExecService(testExecService));
+
+		Destination destination1 = servicesManager.addDestination(perunSession, testService, facility,
+				new Destination(0, "Destination-batch-1-" + Long.toHexString(System.currentTimeMillis()), Destination.DESTINATIONEMAILTYPE));
+		Destination destination2 = servicesManager.addDestination(perunSession, testService, facility,
+				new Destination(0, "Destination-batch-2-" + Long.toHexString(System.currentTimeMillis()), Destination.DESTINATIONEMAILTYPE));
+
+		Task task = new Task();
+		task.setDelay(10);
+		task.setExecService(testExecService);
+		task.setFacility(facility);
+		task.setRecurrence(10);
+		task.setSchedule(new Date());
+		task.setStatus(Task.TaskStatus.PROCESSING);
+		task.setId(taskDao.scheduleNewTask(task, virtualEngineID));
+
+		List<TaskResult> taskResults = new ArrayList<TaskResult>();
+		taskResults.add(createTaskResult(task, destination1, TaskResult.TaskResultStatus.ERROR));
+		taskResults.add(createTaskResult(task, destination2, TaskResult.TaskResultStatus.DONE));
+		taskResults.add(createTaskResult(task, destination1, TaskResult.TaskResultStatus.DONE));
+
+		assertEquals(3, taskResultDao.insertNewTaskResults(taskResults, virtualEngineID));
+		assertEquals(0, taskResultDao.insertNewTaskResults(new ArrayList<TaskResult>(), virtualEngineID));
+		assertEquals(3, taskResultDao.getTaskResultsByTask(task.getId()).size());
+
+		// later result on destination1 is the newest one
+		List<TaskResult> newest = taskResultDao.getTaskResultsByTaskOnlyNewest(task.getId());
+		assertEquals(2, newest.size());
+		for (TaskResult result : newest) {
+			assertEquals(TaskResult.TaskResultStatus.DONE, result.getStatus());
+			assertEquals("std message", result.getStandardMessage());
+		}
+	}
+
+	private TaskResult createTaskResult(Task task, Destination destination, TaskResult.TaskResultStatus status) {
+		TaskResult taskResult = new TaskResult();
+		taskResult.setDestinationId(destination.getId());
+		taskResult.setErrorMessage("error message");
+		taskResult.setReturnCode(status == TaskResult.TaskResultStatus.DONE ? 0 : 1);
+		taskResult.setStandardMessage("std message");
+		taskResult.setStatus(status);
+		taskResult.setTaskId(task.getId());
+		taskResult.setTimestamp(new Date());
+		taskResult.setService(task.getExecService().getService());
+		return taskResult;
+	}
+
 		 /*import static org.junit.Assert.assertEquals;
 	import static org.junit.Assert.fail;
 
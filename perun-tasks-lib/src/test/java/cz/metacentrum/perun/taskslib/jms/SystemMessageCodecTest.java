@@ -0,0 +1,182 @@
+package cz.metacentrum.perun.taskslib.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import cz.metacentrum.perun.auditparser.AuditParser;
+import cz.metacentrum.perun.core.api.Destination;
+import cz.metacentrum.perun.core.api.Service;
+import cz.metacentrum.perun.taskslib.model.TaskResult;
+
+/**
+ * Tests of SystemMessageCodec - binary format of messages from engine to dispatcher.
+ */
+public class SystemMessageCodecTest {
+
+	@Test
+	public void encodeAndDecode() throws Exception {
+		System.out.println("SystemMessageCodec.encodeAndDecode");
+
+		List<Destination> destinations = Arrays.asList(
+				new Destination(1, "host:1.example.com", "host", Destination.PROPAGATIONTYPE_SERIAL),
+				new Destination(2, "user@host<2>, \"quoted\"", "user@host", Destination.PROPAGATIONTYPE_PARALLEL));
+		TaskResult taskResult = createTaskResult();
+
+		byte[] message = new SystemMessageCodec.Writer(5)
+				.addTaskStatus(10, "DONE", new ArrayList<Destination>())
+				.addTaskStatus(11, "ERROR", destinations)
+				.addTaskResult(taskResult)
+				.toByteArray();
+
+		final List<Object> records = new ArrayList<Object>();
+		int count = SystemMessageCodec.decode(message, new SystemMessageCodec.Handler() {
+			@Override
+			public void onTaskStatus(int engineId, int taskId, String status, List<Destination> destinations) {
+				assertEquals(5, engineId);
+				records.add(taskId + ":" + status);
+				records.add(destinations);
+			}
+
+			@Override
+			public void onTaskResult(int engineId, TaskResult taskResult) {
+				assertEquals(5, engineId);
+				records.add(taskResult);
+			}
+		});
+
+		assertEquals(3, count);
+		assertEquals("10:DONE", records.get(0));
+		assertEquals(new ArrayList<Destination>(), records.get(1));
+		assertEquals("11:ERROR", records.get(2));
+		@SuppressWarnings("unchecked")
+		List<Destination> decodedDestinations = (List<Destination>) records.get(3);
+		assertEquals(destinations, decodedDestinations);
+		assertEquals(Destination.PROPAGATIONTYPE_SERIAL, decodedDestinations.get(0).getPropagationType());
+		TaskResult decodedResult = (TaskResult) records.get(4);
+		assertEquals(taskResult, decodedResult);
+		assertEquals(taskResult.getTimestamp(), decodedResult.getTimestamp());
+	}
+
+	@Test
+	public void encodeAndDecodeNulls() throws Exception {
+		System.out.println("SystemMessageCodec.encodeAndDecodeNulls");
+
+		TaskResult taskResult = new TaskResult();
+		taskResult.setTaskId(1);
+		byte[] message = new SystemMessageCodec.Writer(1).addTaskResult(taskResult).toByteArray();
+
+		final List<TaskResult> results = new ArrayList<TaskResult>();
+		SystemMessageCodec.decode(message, new SystemMessageCodec.Handler() {
+			@Override
+			public void onTaskStatus(int engineId, int taskId, String status, List<Destination> destinations) {
+				fail("No task status expected");
+			}
+
+			@Override
+			public void onTaskResult(int engineId, TaskResult taskResult) {
+				results.add(taskResult);
+			}
+		});
+
+		assertEquals(1, results.size());
+		assertEquals(taskResult, results.get(0));
+		assertNull(results.get(0).getTimestamp());
+		assertNull(results.get(0).getService());
+	}
+
+	@Test
+	public void decodeMalformedMessage() throws Exception {
+		System.out.println("SystemMessageCodec.decodeMalformedMessage");
+
+		byte[] message = new SystemMessageCodec.Writer(1).addTaskResult(createTaskResult()).toByteArray();
+
+		byte[] truncated = Arrays.copyOf(message, message.length - 10);
+		try {
+			SystemMessageCodec.decode(truncated, new CountingHandler());
+			fail("Truncated message must be rejected");
+		} catch (IOException e) {
+			// expected
+		}
+
+		byte[] unknownVersion = Arrays.copyOf(message, message.length);
+		unknownVersion[0] = SystemMessageCodec.VERSION + 1;
+		try {
+			SystemMessageCodec.decode(unknownVersion, new CountingHandler());
+			fail("Message of unknown version must be rejected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void throughputComparedToText() throws Exception {
+		System.out.println("SystemMessageCodec.throughputComparedToText");
+
+		final int messages = 20000;
+		TaskResult taskResult = createTaskResult();
+
+		// warm up both paths
+		for (int i = 0; i < 2000; i++) {
+			AuditParser.parseLog(taskResult.serializeToString());
+			SystemMessageCodec.decode(new SystemMessageCodec.Writer(1).addTaskResult(taskResult).toByteArray(), new CountingHandler());
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			String text = "taskresult:1:" + taskResult.serializeToString();
+			AuditParser.parseLog(text.split(":", 3)[2]);
+		}
+		long textTime = System.nanoTime() - start;
+
+		CountingHandler handler = new CountingHandler();
+		start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			SystemMessageCodec.decode(new SystemMessageCodec.Writer(1).addTaskResult(taskResult).toByteArray(), handler);
+		}
+		long binaryTime = System.nanoTime() - start;
+
+		assertEquals(messages, handler.count);
+		System.out.println("  " + messages + " task results encoded and decoded: text " + textTime / 1000000
+				+ " ms, binary " + binaryTime / 1000000 + " ms");
+	}
+
+	private static TaskResult createTaskResult() {
+		TaskResult taskResult = new TaskResult();
+		taskResult.setId(1);
+		taskResult.setTaskId(11);
+		taskResult.setDestinationId(2);
+		taskResult.setStatus(TaskResult.TaskResultStatus.ERROR);
+		taskResult.setErrorMessage("Error: <something>, went wrong: \\ [x]\nsecond line");
+		taskResult.setStandardMessage("standard output: ěščř");
+		taskResult.setReturnCode(3);
+		taskResult.setTimestamp(new Date(1000000000000L));
+		taskResult.setService(new Service(4, "passwd"));
+		return taskResult;
+	}
+
+	private static class CountingHandler implements SystemMessageCodec.Handler {
+
+		private int count = 0;
+
+		@Override
+		public void onTaskStatus(int engineId, int taskId, String status, List<Destination> destinations) {
+			count++;
+		}
+
+		@Override
+		public void onTaskResult(int engineId, TaskResult taskResult) {
+			count++;
+		}
+
+	}
+
+}
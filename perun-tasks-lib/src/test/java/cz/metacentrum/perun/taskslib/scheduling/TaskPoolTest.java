@@ -0,0 +1,218 @@
+package cz.metacentrum.perun.taskslib.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.metacentrum.perun.core.api.Facility;
+import cz.metacentrum.perun.taskslib.model.ExecService;
+import cz.metacentrum.perun.taskslib.model.Task;
+import cz.metacentrum.perun.taskslib.model.Task.TaskStatus;
+
+/**
+ * Tests of TaskPool - shared in-memory store of Tasks.
+ */
+public class TaskPoolTest {
+
+	private TaskPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new TaskPool();
+	}
+
+	@Test
+	public void addAndGet() {
+		System.out.println("TaskPool.addAndGet");
+
+		Task task = createTask(1, 10, 20);
+		task.setStatus(null);
+		assertTrue(pool.add(task));
+		assertFalse(pool.add(task));
+
+		assertEquals(1, pool.size());
+		assertEquals(TaskStatus.NONE, task.getStatus());
+		assertSame(task, pool.get(1));
+		assertSame(task, pool.get(10, 20));
+		assertNull(pool.get(20, 10));
+		assertEquals(1, pool.getTasks(TaskStatus.NONE).size());
+	}
+
+	@Test
+	public void setStatus() {
+		System.out.println("TaskPool.setStatus");
+
+		Task task = createTask(1, 10, 20);
+		pool.add(task);
+
+		assertTrue(pool.setStatus(task, TaskStatus.PLANNED));
+		assertFalse(pool.setStatus(task, TaskStatus.PLANNED));
+		assertTrue(pool.getTasks(TaskStatus.NONE).isEmpty());
+		assertEquals(1, pool.size(TaskStatus.PLANNED));
+
+		// status changed out of the pool is fixed by reindex
+		task.setStatus(TaskStatus.DONE);
+		assertTrue(pool.reindex(task));
+		assertEquals(0, pool.size(TaskStatus.PLANNED));
+		assertEquals(1, pool.size(TaskStatus.DONE));
+	}
+
+	@Test
+	public void remove() {
+		System.out.println("TaskPool.remove");
+
+		Task task = createTask(1, 10, 20);
+		pool.add(task);
+		pool.markChanged(task);
+
+		assertSame(task, pool.remove(task));
+		assertNull(pool.remove(task));
+		assertEquals(0, pool.size());
+		assertNull(pool.get(10, 20));
+		assertEquals(0, pool.size(TaskStatus.NONE));
+		assertTrue(pool.drainChangedTasks().isEmpty());
+	}
+
+	@Test
+	public void drainChangedTasks() {
+		System.out.println("TaskPool.drainChangedTasks");
+
+		Task task = createTask(1, 10, 20);
+		pool.add(task);
+		pool.markChanged(task);
+		pool.markChanged(task);
+
+		assertEquals(1, pool.drainChangedTasks().size());
+		assertTrue(pool.drainChangedTasks().isEmpty());
+	}
+
+	@Test
+	public void pollDueTasks() {
+		System.out.println("TaskPool.pollDueTasks");
+
+		Task task1 = createTask(1, 10, 20);
+		Task task2 = createTask(2, 11, 20);
+		Task task3 = createTask(3, 12, 20);
+		pool.add(task1);
+		pool.add(task2);
+		pool.add(task3);
+		long now = System.currentTimeMillis();
+
+		// added tasks are due immediately
+		assertEquals(3, pool.pollDueTasks(now).size());
+		assertTrue(pool.pollDueTasks(now).isEmpty());
+
+		pool.setDeadlineIfAbsent(task1, now + 2000);
+		pool.setDeadlineIfAbsent(task2, now + 1000);
+		pool.setDeadlineIfAbsent(task2, now + 5000);
+		pool.setDeadline(task3, now + 5000);
+		pool.setDeadline(task3, now + 3000);
+		assertEquals(Long.valueOf(now + 1000), pool.getDeadline(task2));
+
+		assertTrue(pool.pollDueTasks(now + 999).isEmpty());
+		List<Task> due = pool.pollDueTasks(now + 2000);
+		assertEquals(2, due.size());
+		assertSame(task2, due.get(0));
+		assertSame(task1, due.get(1));
+
+		// changed status makes task due immediately, removed task is never due
+		pool.setStatus(task1, TaskStatus.PLANNED);
+		pool.remove(task3);
+		due = pool.pollDueTasks(System.currentTimeMillis());
+		assertEquals(1, due.size());
+		assertSame(task1, due.get(0));
+		assertTrue(pool.pollDueTasks(now + 10000).isEmpty());
+	}
+
+	@Test
+	public void concurrentLoad() throws Exception {
+		System.out.println("TaskPool.concurrentLoad");
+
+		final int threads = 8;
+		final int tasksPerThread = 12500;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		long start = System.currentTimeMillis();
+		for (int t = 0; t < threads; t++) {
+			final int offset = t * tasksPerThread;
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = offset + 1; i <= offset + tasksPerThread; i++) {
+						Task task = createTask(i, i, i % 100);
+						pool.add(task);
+						pool.setStatus(task, TaskStatus.PLANNED);
+						pool.setStatus(task, TaskStatus.PROCESSING);
+						pool.setStatus(task, i % 2 == 0 ? TaskStatus.DONE : TaskStatus.ERROR);
+						pool.markChanged(task);
+						if (i % 10 == 0) pool.remove(task);
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		System.out.println("  100000 tasks processed in " + (System.currentTimeMillis() - start) + " ms");
+
+		int total = threads * tasksPerThread;
+		assertEquals(total - total / 10, pool.size());
+		assertEquals(total / 2 - total / 10, pool.size(TaskStatus.DONE));
+		assertEquals(total / 2, pool.size(TaskStatus.ERROR));
+		assertEquals(0, pool.size(TaskStatus.NONE) + pool.size(TaskStatus.PLANNED) + pool.size(TaskStatus.PROCESSING));
+		assertEquals(total - total / 10, pool.drainChangedTasks().size());
+	}
+
+	@Test
+	public void pairLockDoesNotBlockTasks() throws Exception {
+		System.out.println("TaskPool.pairLockDoesNotBlockTasks");
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			synchronized (pool.getLock(1, 1)) {
+				// other thread holding lock of another pair must be able to change tasks of all lock stripes
+				Future<?> future = executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						synchronized (pool.getLock(1, 2)) {
+							for (int i = 1; i <= 200; i++) {
+								Task task = createTask(i, i, i);
+								pool.add(task);
+								pool.setStatus(task, TaskStatus.PLANNED);
+							}
+						}
+					}
+				});
+				future.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(200, pool.size(TaskStatus.PLANNED));
+	}
+
+	private static Task createTask(int id, int execServiceId, int facilityId) {
+		Task task = new Task();
+		task.setId(id);
+		ExecService execService = new ExecService();
+		execService.setId(execServiceId);
+		task.setExecService(execService);
+		task.setFacility(new Facility(facilityId, "facility" + facilityId));
+		task.setStatus(TaskStatus.NONE);
+		return task;
+	}
+
+}